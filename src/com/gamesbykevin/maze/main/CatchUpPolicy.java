@@ -0,0 +1,227 @@
+package com.gamesbykevin.maze.main;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides how the game loop recovers after the process stalls,
+ * so we don't replay every missed update or render every missed frame back to back.
+ * Each policy keeps a counter of how often it was triggered.
+ * @author GOD
+ */
+public final class CatchUpPolicy
+{
+    public enum Mode
+    {
+        /**
+         * Run every missed update, this can lead to a spiral of death
+         */
+        Unbounded,
+
+        /**
+         * Run at most the maximum updates, any missed updates past that are dropped
+         */
+        Capped,
+
+        /**
+         * Slow game time down so we never owe more than the maximum updates
+         */
+        Dilated
+    }
+
+    //how we catch up missed updates
+    private volatile Mode mode;
+
+    //the maximum number of updates in one iteration of the game loop
+    private volatile int maxUpdates;
+
+    //do we render at most once per iteration of the render loop
+    private volatile boolean dropFrames;
+
+    //how many times the updates were capped and how many updates were dropped
+    private final AtomicLong cappedCount = new AtomicLong();
+    private final AtomicLong droppedUpdates = new AtomicLong();
+
+    //how many times game time was dilated and how many updates worth of time was not simulated, only the update thread writes these
+    private final AtomicLong dilatedCount = new AtomicLong();
+    private volatile double dilatedUpdates = 0;
+
+    //how many times we rendered once instead of catching up and how many frames were dropped
+    private final AtomicLong frameSkipCount = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+
+    /**
+     * Create a new policy
+     * @param mode How we catch up missed updates
+     * @param maxUpdates The maximum number of updates in one iteration of the game loop
+     * @param dropFrames Do we render at most once per iteration of the render loop
+     */
+    public CatchUpPolicy(final Mode mode, final int maxUpdates, final boolean dropFrames)
+    {
+        setMode(mode);
+        setMaxUpdates(maxUpdates);
+        setDropFrames(dropFrames);
+    }
+
+    public void setMode(final Mode mode)
+    {
+        this.mode = mode;
+    }
+
+    public Mode getMode()
+    {
+        return this.mode;
+    }
+
+    public void setMaxUpdates(final int maxUpdates)
+    {
+        this.maxUpdates = (maxUpdates < 1) ? 1 : maxUpdates;
+    }
+
+    public int getMaxUpdates()
+    {
+        return this.maxUpdates;
+    }
+
+    public void setDropFrames(final boolean dropFrames)
+    {
+        this.dropFrames = dropFrames;
+    }
+
+    public boolean hasDropFrames()
+    {
+        return this.dropFrames;
+    }
+
+    /**
+     * Add the time passed to the updates we owe.
+     * If game time is dilated only part of the time passed will be added.
+     * @param deltaUpdate The updates we currently owe
+     * @param elapsed The updates worth of time that has passed since the last iteration
+     * @return The updates we now owe
+     */
+    public double addUpdates(final double deltaUpdate, final double elapsed)
+    {
+        final double backlog = deltaUpdate + elapsed;
+
+        if (mode != Mode.Dilated || backlog <= maxUpdates)
+            return backlog;
+
+        //we are behind so only count as much of the time passed as we can simulate
+        final double counted = (deltaUpdate < maxUpdates) ? maxUpdates - deltaUpdate : 0;
+
+        dilatedCount.incrementAndGet();
+        dilatedUpdates += elapsed - counted;
+
+        return deltaUpdate + counted;
+    }
+
+    /**
+     * Get the number of updates to run in this iteration of the game loop
+     * @param deltaUpdate The updates we currently owe
+     * @return int
+     */
+    public int getUpdates(final double deltaUpdate)
+    {
+        final int owed = (int)deltaUpdate;
+
+        if (mode == Mode.Unbounded || owed <= maxUpdates)
+            return owed;
+
+        return maxUpdates;
+    }
+
+    /**
+     * Determine what is still owed after the updates have been run
+     * @param deltaUpdate The updates we owe after running this iteration
+     * @return The updates we still owe
+     */
+    public double afterUpdates(final double deltaUpdate)
+    {
+        //dilated game time carries the remaining updates over to the next iteration
+        if (mode != Mode.Capped || deltaUpdate < 1)
+            return deltaUpdate;
+
+        //drop the whole updates we couldn't get to, keeping the fraction
+        final long dropped = (long)deltaUpdate;
+
+        cappedCount.incrementAndGet();
+        droppedUpdates.addAndGet(dropped);
+
+        return deltaUpdate - dropped;
+    }
+
+    /**
+     * Get the number of frames to render in this iteration of the render loop
+     * @param deltaFrame The frames we currently owe
+     * @return int
+     */
+    public int getFrames(final double deltaFrame)
+    {
+        final int owed = (int)deltaFrame;
+
+        if (!dropFrames || owed <= 1)
+            return owed;
+
+        frameSkipCount.incrementAndGet();
+        droppedFrames.addAndGet(owed - 1);
+
+        return 1;
+    }
+
+    /**
+     * Determine what is still owed after the frames have been rendered
+     * @param deltaFrame The frames we owe after rendering this iteration
+     * @return The frames we still owe
+     */
+    public double afterFrames(final double deltaFrame)
+    {
+        //any frames we skipped are not owed anymore
+        if (dropFrames && deltaFrame >= 1)
+            return deltaFrame - (long)deltaFrame;
+
+        return deltaFrame;
+    }
+
+    public long getCappedCount()
+    {
+        return cappedCount.get();
+    }
+
+    public long getDroppedUpdates()
+    {
+        return droppedUpdates.get();
+    }
+
+    public long getDilatedCount()
+    {
+        return dilatedCount.get();
+    }
+
+    public double getDilatedUpdates()
+    {
+        return dilatedUpdates;
+    }
+
+    public long getFrameSkipCount()
+    {
+        return frameSkipCount.get();
+    }
+
+    public long getDroppedFrames()
+    {
+        return droppedFrames.get();
+    }
+
+    /**
+     * Reset all counters
+     */
+    public void resetCounters()
+    {
+        cappedCount.set(0);
+        droppedUpdates.set(0);
+        dilatedCount.set(0);
+        dilatedUpdates = 0;
+        frameSkipCount.set(0);
+        droppedFrames.set(0);
+    }
+}
\ No newline at end of file
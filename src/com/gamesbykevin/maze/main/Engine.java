@@ -7,9 +7,15 @@ import com.gamesbykevin.maze.puzzle.Puzzle;
 import com.gamesbykevin.maze.menu.CustomMenu;
 import com.gamesbykevin.maze.menu.CustomMenu.LayerKey;
 import com.gamesbykevin.maze.menu.CustomMenu.OptionKey;
+import com.gamesbykevin.maze.profiler.Phase;
+import com.gamesbykevin.maze.profiler.Profiler;
+import com.gamesbykevin.maze.replay.ReplayReader;
+import com.gamesbykevin.maze.replay.ReplayRecorder;
+import com.gamesbykevin.maze.shared.Shared;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.io.File;
 
 public class Engine implements KeyListener, MouseMotionListener, MouseListener, EngineRules 
 {
@@ -31,8 +37,17 @@ public class Engine implements KeyListener, MouseMotionListener, MouseListener,
     //original font
     private Font font;
     
-    //our maze object
-    private Puzzle puzzle;
+    //our maze object, created on the update thread and drawn on the render thread
+    private volatile Puzzle puzzle;
+    
+    //the recording being played back in place of the keyboard, null when playing
+    private ReplayReader replay;
+    
+    //the keys the recording sets for each update so key events don't interfere with the playback
+    private Keyboard playback;
+    
+    //the menu and resources are not thread safe so updating and drawing them is guarded by this lock
+    private final Object lock = new Object();
     
     /**
      * The Engine that contains the game/menu objects
@@ -72,6 +87,8 @@ public class Engine implements KeyListener, MouseMotionListener, MouseListener,
                 puzzle.dispose();
             
             puzzle = null;
+            replay = null;
+            playback = null;
         }
         catch(Exception e)
         {
@@ -87,30 +104,44 @@ public class Engine implements KeyListener, MouseMotionListener, MouseListener,
             //if resources are still loading
             if (resources.isLoading())
             {
-                resources.update(main.getContainerClass());
+                synchronized (lock)
+                {
+                    resources.update(main.getContainerClass());
 
-                //resources are now loaded so create the menu
-                if (!resources.isLoading())
-                    menu = new CustomMenu(this);
+                    //resources are now loaded so create the menu
+                    if (!resources.isLoading())
+                        menu = new CustomMenu(this);
+                }
             }
             else
             {
-                //does the menu have focus
-                if (!menu.hasFocus())
+                synchronized (lock)
                 {
-                    //reset mouse and keyboard input
-                    mouse.reset();
-                    keyboard.reset();
-                }
+                    //does the menu have focus
+                    if (!menu.hasFocus())
+                    {
+                        //reset mouse and keyboard input
+                        mouse.reset();
+                        keyboard.reset();
+                    }
 
-                //update the menu
-                menu.update(this);
+                    //update the menu
+                    menu.update(this);
+                }
 
                 //if the menu is finished and the window has focus
                 if (menu.hasFinished() && menu.hasFocus())
                 {
-                    if (puzzle != null)
-                        puzzle.update(this);
+                    if (replay != null)
+                    {
+                        //the last update of the recording stays on the screen once it has been played
+                        if (!replay.hasFinished())
+                            puzzle.update(playback);
+                    }
+                    else if (puzzle != null)
+                    {
+                        puzzle.update(keyboard);
+                    }
                 }
                 
                 if (mouse.isMouseReleased())
@@ -161,32 +192,110 @@ public class Engine implements KeyListener, MouseMotionListener, MouseListener,
         //what is the difficulty
         final int difficultyIndex = menu.getOptionSelectionIndex(LayerKey.Options, OptionKey.VsDifficulty);
         
+        //how will the cpu solve the maze
+        final int solverIndex = menu.getOptionSelectionIndex(LayerKey.Options, OptionKey.CpuSolver);
+        
         //make sure all Render Options have the same value
         menu.setOptionSelectionIndex(OptionKey.Render, renderIndex);
         
-        puzzle = new Puzzle(dimensionIndex, algorithmIndex, renderIndex, gameTypeIndex, playerModeIndex, difficultyIndex, main.getTimeDeductionPerUpdate(), main.getScreen());
+        //the previous game is no longer being played
+        final Puzzle previous = puzzle;
+        
+        if (previous != null)
+            previous.stopRecording();
+        
+        //play back a recorded game if one was chosen
+        final ReplayReader recording = openPlayback();
+        
+        final Puzzle created;
+        
+        if (recording != null)
+        {
+            //the recording decides the options and the time each update represents
+            created = new Puzzle(recording.getDimensionIndex(), recording.getAlgorithmIndex(), recording.getRenderIndex(), recording.getGameTypeIndex(), 
+                recording.getPlayerModeIndex(), recording.getDifficultyIndex(), recording.getSolverIndex(), recording.getTimeDeduction(), main.getScreen());
+            created.setReplay(recording);
+            
+            menu.setOptionSelectionIndex(OptionKey.Render, recording.getRenderIndex());
+        }
+        else
+        {
+            created = new Puzzle(dimensionIndex, algorithmIndex, renderIndex, gameTypeIndex, playerModeIndex, difficultyIndex, solverIndex, main.getTimeDeductionPerUpdate(), main.getScreen());
+        }
+        
+        //start recording before the first update, a game being played back is already recorded
+        if (Shared.RECORD_REPLAYS && recording == null)
+        {
+            try
+            {
+                final File directory = new File(Shared.REPLAY_DIRECTORY);
+                directory.mkdirs();
+                
+                created.setRecorder(new ReplayRecorder(new File(directory, "maze-" + System.currentTimeMillis() + ".replay"), 
+                    dimensionIndex, algorithmIndex, renderIndex, gameTypeIndex, playerModeIndex, difficultyIndex, solverIndex, main.getTimeDeductionPerUpdate()));
+            }
+            catch(Exception e)
+            {
+                //we may not be allowed to write files (e.g. in an applet), the game can still be played
+                e.printStackTrace();
+            }
+        }
+        
+        replay = recording;
+        playback = (recording != null) ? new Keyboard() : null;
+        puzzle = created;
+        
+        //release the threads, socket and pool of the previous game once it can no longer be updated
+        if (previous != null)
+            previous.dispose();
+    }
+    
+    /**
+     * Open the recording chosen to be played back in the game window
+     * @return ReplayReader null if no recording was chosen or it can't be read
+     */
+    private ReplayReader openPlayback()
+    {
+        if (Shared.PLAYBACK_REPLAY == null)
+            return null;
+        
+        try
+        {
+            return new ReplayReader(new File(Shared.PLAYBACK_REPLAY));
+        }
+        catch(Exception e)
+        {
+            //we may not be allowed to read files (e.g. in an applet), a new game is started instead
+            e.printStackTrace();
+            return null;
+        }
     }
     
     /**
-     * Draw our game to the Graphics object whether resources are still loading or the game is intact
+     * Draw our game to the Graphics object whether resources are still loading or the game is intact.
+     * This is called from the render thread.
      * @param graphics
-     * @return Graphics
      * @throws Exception 
      */
     @Override
     public void render(Graphics graphics) throws Exception
     {
-        //if the resources are still loading
-        if (resources.isLoading())
+        synchronized (lock)
         {
-            //draw loading screen
-            resources.draw(graphics, main.getScreen());
+            //if the resources are still loading
+            if (resources.isLoading())
+            {
+                //draw loading screen
+                resources.draw(graphics, main.getScreen());
+                return;
+            }
         }
-        else
+        
+        //draw game elements, the puzzle draws the latest snapshot so no lock is needed
+        renderGame((Graphics2D)graphics);
+
+        synchronized (lock)
         {
-            //draw game elements
-            renderGame((Graphics2D)graphics);
-            
             //draw menu on top of the game if visible
             renderMenu(graphics);
         }
@@ -208,9 +317,11 @@ public class Engine implements KeyListener, MouseMotionListener, MouseListener,
         
         //DRAW MAIN GAME HERE
         
-        if (puzzle != null)
+        final Puzzle current = puzzle;
+        
+        if (current != null)
         {
-            puzzle.render(graphics, main.getScreen());
+            current.render(graphics, main.getScreen());
         }
         
         //set the original font back so the menu will be rendered correctly
@@ -225,6 +336,8 @@ public class Engine implements KeyListener, MouseMotionListener, MouseListener,
      */
     private void renderMenu(Graphics graphics) throws Exception
     {
+        final long start = Profiler.start();
+        
         //if menu is setup draw menu
         if (menu.isSetup())
             menu.render(graphics);
@@ -247,6 +360,8 @@ public class Engine implements KeyListener, MouseMotionListener, MouseListener,
                 }
             }
         }
+        
+        Profiler.stop(Phase.Menu, start);
     }
     
     public Puzzle getPuzzle()
@@ -268,6 +383,16 @@ public class Engine implements KeyListener, MouseMotionListener, MouseListener,
     @Override
     public void keyPressed(KeyEvent e)
     {
+        //the performance overlay can be toggled at any time
+        if (e.getKeyCode() == KeyEvent.VK_F3)
+            main.getOverlay().toggle();
+        
+        //the hint can only be toggled while playing
+        final Puzzle current = puzzle;
+        
+        if (e.getKeyCode() == KeyEvent.VK_H && current != null)
+            current.toggleHint();
+        
         keyboard.addKeyPressed(e.getKeyCode());
     }
     
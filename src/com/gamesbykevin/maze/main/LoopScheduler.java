@@ -0,0 +1,104 @@
+package com.gamesbykevin.maze.main;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Puts the game loop to sleep until the next update or frame is due
+ * instead of spinning the cpu the entire time.
+ * @author GOD
+ */
+public final class LoopScheduler
+{
+    public enum Mode
+    {
+        /**
+         * Park most of the wait and busy spin the remainder, closest to the deadline
+         */
+        LowLatency,
+
+        /**
+         * Park most of the wait and yield for the final microseconds
+         */
+        Balanced,
+
+        /**
+         * Park for the entire wait, the deadline may be overshot slightly
+         */
+        PowerSaver
+    }
+
+    //parkNanos can overshoot, so we stop parking this many nanoseconds before the deadline
+    private static final long SPIN_LOW_LATENCY = 1000000L;
+    private static final long SPIN_BALANCED    = 200000L;
+    private static final long SPIN_POWER_SAVER = 0L;
+
+    //the current mode, changed from the menu while the loop is waiting
+    private volatile Mode mode;
+
+    //how many nanoseconds to spin before each deadline
+    private volatile long spin;
+
+    public LoopScheduler(final Mode mode)
+    {
+        setMode(mode);
+    }
+
+    public void setMode(final Mode mode)
+    {
+        this.mode = mode;
+
+        switch (mode)
+        {
+            case LowLatency:
+                spin = SPIN_LOW_LATENCY;
+                break;
+
+            case Balanced:
+                spin = SPIN_BALANCED;
+                break;
+
+            case PowerSaver:
+                spin = SPIN_POWER_SAVER;
+                break;
+        }
+    }
+
+    public Mode getMode()
+    {
+        return this.mode;
+    }
+
+    /**
+     * Block the current thread until the deadline has been reached or the thread is interrupted
+     * @param deadline The System.nanoTime() value we want to wake up at
+     */
+    public void waitUntil(final long deadline)
+    {
+        long remaining = deadline - System.nanoTime();
+
+        //park the thread for the bulk of the wait
+        while (remaining > spin)
+        {
+            LockSupport.parkNanos(remaining - spin);
+
+            //the thread is being stopped
+            if (Thread.currentThread().isInterrupted())
+                return;
+
+            //we may wake early from a spurious unpark, so check again
+            remaining = deadline - System.nanoTime();
+        }
+
+        //spin for the final microseconds
+        while (deadline - System.nanoTime() > 0)
+        {
+            if (mode == Mode.LowLatency)
+            {
+                //stay on the cpu
+                continue;
+            }
+
+            Thread.yield();
+        }
+    }
+}
\ No newline at end of file
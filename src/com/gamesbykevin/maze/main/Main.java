@@ -3,6 +3,10 @@ package com.gamesbykevin.maze.main;
 import java.awt.*;
 import javax.swing.*;
 
+import com.gamesbykevin.maze.profiler.FlightEvent;
+import com.gamesbykevin.maze.profiler.Phase;
+import com.gamesbykevin.maze.profiler.Profiler;
+import com.gamesbykevin.maze.puzzle.Puzzle;
 import com.gamesbykevin.maze.shared.Shared;
 
 public class Main extends Thread
@@ -17,10 +21,10 @@ public class Main extends Thread
     private Rectangle originalSizeWindow;
     
     //our dimensions for the full screen window
-    private Rectangle fullSizeWindow;
+    private volatile Rectangle fullSizeWindow;
     
     //our dimensions for keeping track of the size of the current window
-    private Rectangle currentWindow;
+    private volatile Rectangle currentWindow;
     
     //our main game engine
     private Engine engine;
@@ -34,20 +38,14 @@ public class Main extends Thread
     //how many nanoseconds between each frame render
     private double nanoSecondsPerFrame;
     
-    //frames per second
-    private int frames = 0;
-    
     //updates per second
     private int updates = 0;
     
-    //frames per second current count
-    private int currentFPS  = 0;
-    
     //updates per second current count
-    private int currentUPS = 0;
+    private volatile int currentUPS = 0;
     
     //how many nanoseconds are there in one second
-    private static final double NANO_SECONDS_PER_SECOND = 1000000000.0;
+    static final double NANO_SECONDS_PER_SECOND = 1000000000.0;
     
     //reference to our applet
     private JApplet applet;
@@ -56,7 +54,19 @@ public class Main extends Thread
     private JPanel panel;
     
     //cache this graphics object so we aren't constantly creating it
-    private Graphics graphics;
+    private volatile Graphics graphics;
+    
+    //puts the thread to sleep between updates so we don't spin the cpu
+    private LoopScheduler scheduler;
+    
+    //the frames are rendered on their own thread
+    private RenderThread renderer;
+    
+    //how we recover missed updates/frames after a stall
+    private final CatchUpPolicy policy;
+    
+    //displays performance information on top of the game
+    private final PerformanceOverlay overlay;
     
     /**
      * Main class that runs the game engine
@@ -75,6 +85,21 @@ public class Main extends Thread
         
         //duration per each frame render in nanoseconds
         nanoSecondsPerFrame = NANO_SECONDS_PER_SECOND / fps;
+        
+        //how we will wait between each update
+        scheduler = new LoopScheduler(Shared.DEFAULT_LOOP_MODE);
+        
+        //how we will catch up after a stall
+        policy = new CatchUpPolicy(Shared.DEFAULT_CATCH_UP, Shared.MAX_CATCH_UP_UPDATES, Shared.DROP_FRAMES);
+        
+        //the thread that will render each frame
+        renderer = new RenderThread(this, nanoSecondsPerFrame, Shared.DEFAULT_LOOP_MODE, policy);
+        
+        //make the timings and catch up counters available to JConsole
+        Profiler.register(policy);
+        
+        //measure allocation for both the update and render thread
+        overlay = new PerformanceOverlay(Shared.DEBUG, policy, getId(), renderer.getId());
     }
     
     /**
@@ -99,17 +124,23 @@ public class Main extends Thread
         }
     }
     
+    /**
+     * Run the engine updates, the frames are rendered on a separate thread
+     */
+    @Override
     public void run()
     {
-        //we need to determine the last run so we can calculate ups/fps
+        //start rendering frames
+        renderer.start();
+        
+        //we need to determine the last run so we can calculate ups
         long lastRun = System.nanoTime();
         
-        //this will reset ups/fps count every second
+        //this will reset ups count every second
         long timer = System.nanoTime();
         
-        //this variables will keep track of the time passed
+        //this variable will keep track of the time passed
         double deltaUpdate = 0;
-        double deltaFrame = 0;
         
         while(true)
         {
@@ -119,13 +150,13 @@ public class Main extends Thread
                 long now = System.nanoTime();
                 
                 //update these variables
-                deltaUpdate += ((now - lastRun) / nanoSecondsPerUpdate);
-                deltaFrame += ((now - lastRun) / nanoSecondsPerFrame);
+                deltaUpdate = policy.addUpdates(deltaUpdate, (now - lastRun) / nanoSecondsPerUpdate);
                 
                 //set the current time as the last run
                 lastRun = now;
                 
-                while(deltaUpdate >= 1)
+                //the policy decides how many of the updates we owe will be run
+                for (int count = policy.getUpdates(deltaUpdate); count > 0; count--)
                 {
                     engine.update(this);
                     
@@ -133,14 +164,8 @@ public class Main extends Thread
                     deltaUpdate--;
                 }
                 
-                while(deltaFrame >= 1)
-                {
-                    renderImage();
-                    drawScreen();
-                    
-                    frames++;
-                    deltaFrame--;
-                }
+                //drop or carry over what we couldn't get to
+                deltaUpdate = policy.afterUpdates(deltaUpdate);
                 
                 //if 1 second has passed
                 if (System.nanoTime() - timer > NANO_SECONDS_PER_SECOND)
@@ -148,14 +173,15 @@ public class Main extends Thread
                     //add 1 second time for next update
                     timer += NANO_SECONDS_PER_SECOND;
                     
-                    //store the current fps/ups to be displayed to the user
+                    //store the current ups to be displayed to the user
                     currentUPS = updates;
-                    currentFPS = frames;
                     
                     //reset the counter
                     updates = 0;
-                    frames = 0;
                 }
+                
+                //sleep until the next update is due
+                scheduler.waitUntil(now + (long)((1 - deltaUpdate) * nanoSecondsPerUpdate));
             }
             catch(Exception e)
             {
@@ -164,6 +190,39 @@ public class Main extends Thread
         }
     }
     
+    /**
+     * Set how the game loop waits between each update/frame
+     * @param mode The mode we want to use
+     */
+    public void setLoopMode(final LoopScheduler.Mode mode)
+    {
+        scheduler.setMode(mode);
+        renderer.setLoopMode(mode);
+    }
+    
+    public LoopScheduler.Mode getLoopMode()
+    {
+        return scheduler.getMode();
+    }
+    
+    /**
+     * Get the policy used to recover missed updates/frames after a stall
+     * @return CatchUpPolicy
+     */
+    public CatchUpPolicy getCatchUpPolicy()
+    {
+        return policy;
+    }
+    
+    /**
+     * Get the overlay displaying performance information
+     * @return PerformanceOverlay
+     */
+    public PerformanceOverlay getOverlay()
+    {
+        return overlay;
+    }
+    
     public void setApplet(final JApplet applet)
     {
         this.applet = applet;
@@ -252,10 +311,36 @@ public class Main extends Thread
         return (long)nanoSecondsPerUpdate;
     }
     
+    /**
+     * Render a single frame and draw it to the screen.
+     * This is called from the render thread.
+     * @throws Exception 
+     */
+    void renderFrame() throws Exception
+    {
+        final long start = Profiler.start();
+        final Object event = FlightEvent.Frame.begin();
+        
+        renderImage();
+        drawScreen();
+        
+        Profiler.stop(Phase.Frame, start);
+        
+        if (event != null)
+        {
+            final Puzzle puzzle = (engine != null) ? engine.getPuzzle() : null;
+            final Puzzle.Render render = (puzzle != null) ? puzzle.getRender() : null;
+            
+            FlightEvent.Frame.commit(event, (render != null) ? render.toString() : "None", (puzzle != null) ? puzzle.getCellsVisited() : 0);
+        }
+    }
+    
     /**
      * Writes all game/menu elements in our 
      * engine to our single bufferedImage.
      * 
+     * This is called from the render thread.
+     * 
      * @throws Exception 
      */
     private void renderImage() throws Exception
@@ -271,8 +356,8 @@ public class Main extends Thread
 
             engine.render(bufferedImageGraphics);
 
-            if (Shared.DEBUG)
-                renderCounter(bufferedImageGraphics);
+            if (overlay.isVisible())
+                overlay.render(bufferedImageGraphics, originalSizeWindow, currentUPS, renderer.getFPS(), engine.getPuzzle());
         }
         else
         {
@@ -298,24 +383,6 @@ public class Main extends Thread
         }
     }
     
-    /**
-     * Draw frame counter onto Image.
-     * This method should only be called when testing
-     * @param g Graphics
-     */
-    private void renderCounter(Graphics graphics)
-    {
-        String result = currentUPS + " UPS, " + currentFPS + " FPS";
-        int width = graphics.getFontMetrics().stringWidth(result);
-        int height = graphics.getFontMetrics().getHeight() + 1;
-        Rectangle tmp = new Rectangle(originalSizeWindow.width - width, originalSizeWindow.height - height, width, height);
-        
-        graphics.setColor(Color.BLACK);
-        graphics.fillRect(tmp.x, tmp.y, tmp.width, tmp.height);
-        graphics.setColor(Color.WHITE);
-        graphics.drawString(result, tmp.x, tmp.y + height - 2);
-    }
-    
     /**
      * Set the graphic object for drawing the rendered image
      */
@@ -332,7 +399,7 @@ public class Main extends Thread
     }
     
     /**
-     * Draw Image onto screen
+     * Draw Image onto screen, this is called from the render thread
      */
     private void drawScreen()
     {
@@ -348,6 +415,8 @@ public class Main extends Thread
         if (currentWindow == null)
             setFullScreen();
         
+        final long start = Profiler.start();
+        
         try
         {
             //the destination will be the size of the window
@@ -372,6 +441,8 @@ public class Main extends Thread
         {
             e.printStackTrace();
         }
+        
+        Profiler.stop(Phase.Present, start);
     }
     
     /**
@@ -379,6 +450,21 @@ public class Main extends Thread
      */
     public void dispose()
     {
+        //stop rendering and wait for the last frame to finish before the resources are released
+        renderer.finish();
+        
+        try
+        {
+            renderer.join();
+        }
+        catch(InterruptedException e)
+        {
+            //keep the interrupt for the caller, the thread is a daemon so it can't keep the application alive
+            Thread.currentThread().interrupt();
+        }
+        
+        renderer = null;
+        
         engine.dispose();
         engine = null;
         originalSizeWindow = null;
@@ -402,5 +488,7 @@ public class Main extends Thread
             graphics.dispose();
         
         graphics = null;
+        
+        scheduler = null;
     }
 }
\ No newline at end of file
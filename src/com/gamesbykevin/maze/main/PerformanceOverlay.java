@@ -0,0 +1,382 @@
+package com.gamesbykevin.maze.main;
+
+import com.gamesbykevin.maze.profiler.Phase;
+import com.gamesbykevin.maze.profiler.Profiler;
+import com.gamesbykevin.maze.puzzle.Puzzle;
+import com.gamesbykevin.maze.puzzle.Snapshot;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * Displays frame times, the time spent in each Phase, allocation rate, gc count, how often we had to catch up and maze details on top of the game.
+ * It can be toggled while the game is running and is drawn without allocating any objects so it won't disturb what it measures.
+ * This is only used by the render thread.
+ * @author GOD
+ */
+public final class PerformanceOverlay
+{
+    //how many frame times are shown in the graph
+    private static final int GRAPH_WIDTH = 120;
+
+    //the height of the graph in pixels
+    private static final int GRAPH_HEIGHT = 40;
+
+    //frame times at or above this will reach the top of the graph
+    private static final long GRAPH_MAX_NANOS = 50000000L;
+
+    //the space between each line of text
+    private static final int LINE_HEIGHT = 12;
+
+    //the width of the overlay
+    private static final int WIDTH = 170;
+
+    //colors used
+    private static final Color BACKGROUND = new Color(0, 0, 0, 180);
+    private static final Color TEXT = Color.WHITE;
+    private static final Color GRAPH = Color.GREEN;
+
+    //how many nanoseconds between each allocation/gc sample
+    private static final long SAMPLE_NANOS = 1000000000L;
+
+    //is the overlay drawn
+    private volatile boolean visible;
+
+    //the text is written here before being drawn so no Strings are created
+    private final char[] buffer = new char[64];
+
+    //the length of the text in the buffer
+    private int length = 0;
+
+    //every phase, values() creates a new array on each call
+    private static final Phase[] PHASES = Phase.values();
+
+    //the name of each phase
+    private final char[][] phaseNames;
+
+    //used to measure the bytes allocated by the update and render threads
+    private final com.sun.management.ThreadMXBean threads;
+
+    //the threads we measure allocation for
+    private final long[] threadIds;
+
+    //the garbage collectors so we can count collections
+    private final GarbageCollectorMXBean[] collectors;
+
+    //counts how often updates/frames were dropped after a stall
+    private final CatchUpPolicy policy;
+
+    //when we last sampled the allocation/gc
+    private long sampleTime = 0;
+
+    //the total bytes allocated when last sampled
+    private long sampleBytes = 0;
+
+    //the bytes allocated per second
+    private long allocationRate = 0;
+
+    //the total number of garbage collections
+    private long gcCount = 0;
+
+    /**
+     * Create the overlay
+     * @param visible Is the overlay drawn when the game starts
+     * @param policy The policy used to catch up after a stall
+     * @param threadIds The threads we want to measure allocation for
+     */
+    public PerformanceOverlay(final boolean visible, final CatchUpPolicy policy, final long... threadIds)
+    {
+        this.visible = visible;
+        this.policy = policy;
+        this.threadIds = threadIds;
+
+        phaseNames = new char[PHASES.length][];
+
+        for (Phase phase : PHASES)
+        {
+            phaseNames[phase.ordinal()] = phase.toString().toCharArray();
+        }
+
+        //allocation per thread is only available on some virtual machines
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported())
+        {
+            threads = (com.sun.management.ThreadMXBean)bean;
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        else
+        {
+            threads = null;
+        }
+
+        final List<GarbageCollectorMXBean> list = ManagementFactory.getGarbageCollectorMXBeans();
+        collectors = list.toArray(new GarbageCollectorMXBean[list.size()]);
+    }
+
+    /**
+     * Show or hide the overlay, this can be called from any thread
+     */
+    public void toggle()
+    {
+        visible = !visible;
+    }
+
+    public boolean isVisible()
+    {
+        return visible;
+    }
+
+    /**
+     * Draw the overlay
+     * @param graphics Graphics object to draw to
+     * @param screen The entire screen the user sees
+     * @param ups Updates per second
+     * @param fps Frames per second
+     * @param puzzle The current puzzle, may be null
+     */
+    public void render(final Graphics graphics, final Rectangle screen, final int ups, final int fps, final Puzzle puzzle)
+    {
+        sample();
+
+        final int lines = 10 + phaseNames.length;
+        final int height = GRAPH_HEIGHT + (lines * LINE_HEIGHT) + 6;
+        final int x = screen.width - WIDTH;
+        final int y = screen.height - height;
+
+        graphics.setColor(BACKGROUND);
+        graphics.fillRect(x, y, WIDTH, height);
+
+        //draw the frame time graph, most recent on the right
+        graphics.setColor(GRAPH);
+
+        for (int i = 0; i < GRAPH_WIDTH; i++)
+        {
+            final long nanos = Profiler.getHistogram(Phase.Frame).getSample(GRAPH_WIDTH - 1 - i);
+            final int barHeight = (int)(Math.min(nanos, GRAPH_MAX_NANOS) * GRAPH_HEIGHT / GRAPH_MAX_NANOS);
+
+            graphics.drawLine(x + 2 + i, y + GRAPH_HEIGHT, x + 2 + i, y + GRAPH_HEIGHT - barHeight);
+        }
+
+        graphics.setColor(TEXT);
+
+        int lineY = y + GRAPH_HEIGHT + LINE_HEIGHT;
+
+        length = 0;
+        append(ups);
+        append(" UPS, ");
+        append(fps);
+        append(" FPS");
+        draw(graphics, x + 2, lineY);
+        lineY += LINE_HEIGHT;
+
+        //the mean time for each phase
+        for (int i = 0; i < phaseNames.length; i++)
+        {
+            length = 0;
+            append(phaseNames[i]);
+            append(' ');
+            appendMillis(Profiler.getHistogram(PHASES[i]).getMean());
+            draw(graphics, x + 2, lineY);
+            lineY += LINE_HEIGHT;
+        }
+
+        length = 0;
+        append("Alloc ");
+
+        if (threads != null)
+        {
+            append(allocationRate / 1024);
+            append(" KB/s");
+        }
+        else
+        {
+            append("n/a");
+        }
+
+        draw(graphics, x + 2, lineY);
+        lineY += LINE_HEIGHT;
+
+        length = 0;
+        append("GC ");
+        append(gcCount);
+        draw(graphics, x + 2, lineY);
+        lineY += LINE_HEIGHT;
+
+        //how often the game loop fell behind and what was given up to catch up
+        length = 0;
+        append("Capped ");
+        append(policy.getCappedCount());
+        append(" Dropped ");
+        append(policy.getDroppedUpdates());
+        draw(graphics, x + 2, lineY);
+        lineY += LINE_HEIGHT;
+
+        length = 0;
+        append("Dilated ");
+        append(policy.getDilatedCount());
+        append(" Lost ");
+        append((long)policy.getDilatedUpdates());
+        draw(graphics, x + 2, lineY);
+        lineY += LINE_HEIGHT;
+
+        length = 0;
+        append("Skipped ");
+        append(policy.getFrameSkipCount());
+        append(" Frames ");
+        append(policy.getDroppedFrames());
+        draw(graphics, x + 2, lineY);
+        lineY += LINE_HEIGHT;
+
+        final Snapshot snapshot = (puzzle != null) ? puzzle.getSnapshot() : null;
+
+        length = 0;
+        append("Cells ");
+        append((puzzle != null) ? puzzle.getCellsVisited() : 0);
+        draw(graphics, x + 2, lineY);
+        lineY += LINE_HEIGHT;
+
+        length = 0;
+        append("Maze ");
+
+        if (snapshot != null && snapshot.getGrid() != null)
+        {
+            append(snapshot.getGrid().getCols());
+            append('x');
+            append(snapshot.getGrid().getRows());
+            append(' ');
+            append(snapshot.getRender().toString());
+        }
+        else
+        {
+            append("-");
+        }
+
+        draw(graphics, x + 2, lineY);
+        lineY += LINE_HEIGHT;
+
+        //the size of the junction graph and the length of the solution
+        length = 0;
+        append("Nodes ");
+
+        if (snapshot != null && snapshot.getGrid() != null)
+        {
+            append(snapshot.getGrid().getJunctions().getNodeCount());
+            append(" Path ");
+            append(snapshot.getGrid().getJunctions().getSolutionLength());
+        }
+        else
+        {
+            append("-");
+        }
+
+        draw(graphics, x + 2, lineY);
+    }
+
+    /**
+     * Measure the allocation rate and gc count once per second
+     */
+    private void sample()
+    {
+        final long now = System.nanoTime();
+
+        if (sampleTime != 0 && now - sampleTime < SAMPLE_NANOS)
+            return;
+
+        long count = 0;
+
+        for (int i = 0; i < collectors.length; i++)
+        {
+            count += Math.max(0, collectors[i].getCollectionCount());
+        }
+
+        gcCount = count;
+
+        if (threads != null)
+        {
+            long bytes = 0;
+
+            for (int i = 0; i < threadIds.length; i++)
+            {
+                bytes += Math.max(0, threads.getThreadAllocatedBytes(threadIds[i]));
+            }
+
+            if (sampleTime != 0)
+                allocationRate = (bytes - sampleBytes) * SAMPLE_NANOS / (now - sampleTime);
+
+            sampleBytes = bytes;
+        }
+
+        sampleTime = now;
+    }
+
+    private void draw(final Graphics graphics, final int x, final int y)
+    {
+        graphics.drawChars(buffer, 0, length, x, y);
+    }
+
+    private void append(final char value)
+    {
+        if (length < buffer.length)
+            buffer[length++] = value;
+    }
+
+    private void append(final char[] value)
+    {
+        for (int i = 0; i < value.length; i++)
+        {
+            append(value[i]);
+        }
+    }
+
+    private void append(final String value)
+    {
+        for (int i = 0; i < value.length(); i++)
+        {
+            append(value.charAt(i));
+        }
+    }
+
+    private void append(long value)
+    {
+        if (value < 0)
+        {
+            append('-');
+            value = -value;
+        }
+
+        //find the largest power of 10 in the value
+        long divisor = 1;
+
+        while (value / divisor >= 10)
+        {
+            divisor *= 10;
+        }
+
+        while (divisor > 0)
+        {
+            append((char)('0' + ((value / divisor) % 10)));
+            divisor /= 10;
+        }
+    }
+
+    /**
+     * Write a duration in nanoseconds as milliseconds with 2 decimals
+     * @param nanos Duration in nanoseconds
+     */
+    private void appendMillis(final long nanos)
+    {
+        final long hundredths = nanos / 10000L;
+
+        append(hundredths / 100);
+        append('.');
+        append((char)('0' + ((hundredths / 10) % 10)));
+        append((char)('0' + (hundredths % 10)));
+        append("ms");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.gamesbykevin.maze.main;
+
+/**
+ * Draws the game on its own thread at its own rate.
+ * The engine updates publish an immutable Snapshot of the Puzzle that is drawn here,
+ * so a slow frame will not delay the engine update and the reverse.
+ * @author GOD
+ */
+public final class RenderThread extends Thread
+{
+    //the Main class contains the image we draw to and the screen we draw on
+    private final Main main;
+
+    //how many nanoseconds between each frame render
+    private final double nanoSecondsPerFrame;
+
+    //puts the thread to sleep between frames so we don't spin the cpu
+    private final LoopScheduler scheduler;
+    
+    //decides if we render every missed frame after a stall
+    private final CatchUpPolicy policy;
+
+    //do we continue rendering
+    private volatile boolean running = true;
+
+    //frames per second
+    private int frames = 0;
+
+    //frames per second current count
+    private volatile int currentFPS = 0;
+
+    /**
+     * Create the thread that will draw the game
+     * @param main Main class containing the image/screen
+     * @param nanoSecondsPerFrame How many nanoseconds between each frame render
+     * @param mode How we will wait between each frame
+     * @param policy Decides if we render every missed frame after a stall
+     */
+    public RenderThread(final Main main, final double nanoSecondsPerFrame, final LoopScheduler.Mode mode, final CatchUpPolicy policy)
+    {
+        super("Render");
+
+        //don't keep the application running if this is the only thread left
+        setDaemon(true);
+
+        this.main = main;
+        this.nanoSecondsPerFrame = nanoSecondsPerFrame;
+        this.scheduler = new LoopScheduler(mode);
+        this.policy = policy;
+    }
+
+    @Override
+    public void run()
+    {
+        //we need to determine the last run so we can calculate fps
+        long lastRun = System.nanoTime();
+
+        //this will reset fps count every second
+        long timer = System.nanoTime();
+
+        //this variable will keep track of the time passed
+        double deltaFrame = 0;
+
+        while(running)
+        {
+            try
+            {
+                //get current system nano time
+                long now = System.nanoTime();
+
+                deltaFrame += ((now - lastRun) / nanoSecondsPerFrame);
+
+                //set the current time as the last run
+                lastRun = now;
+
+                //the policy decides how many of the frames we owe will be rendered
+                for (int count = policy.getFrames(deltaFrame); count > 0; count--)
+                {
+                    main.renderFrame();
+
+                    frames++;
+                    deltaFrame--;
+                }
+                
+                //drop any frames we skipped
+                deltaFrame = policy.afterFrames(deltaFrame);
+
+                //if 1 second has passed
+                if (System.nanoTime() - timer > Main.NANO_SECONDS_PER_SECOND)
+                {
+                    //add 1 second time for next update
+                    timer += Main.NANO_SECONDS_PER_SECOND;
+
+                    //store the current fps to be displayed to the user
+                    currentFPS = frames;
+
+                    //reset the counter
+                    frames = 0;
+                }
+
+                //sleep until the next frame is due
+                scheduler.waitUntil(now + (long)((1 - deltaFrame) * nanoSecondsPerFrame));
+            }
+            catch(Exception e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Set how the thread waits between each frame
+     * @param mode The mode we want to use
+     */
+    public void setLoopMode(final LoopScheduler.Mode mode)
+    {
+        scheduler.setMode(mode);
+    }
+
+    /**
+     * Get the number of frames rendered in the last second
+     * @return int
+     */
+    public int getFPS()
+    {
+        return currentFPS;
+    }
+
+    /**
+     * Stop rendering, the thread will exit after the current frame.
+     * Call join() after to wait until it has
+     */
+    public void finish()
+    {
+        running = false;
+
+        //unpark the thread so it doesn't wait for the next frame
+        interrupt();
+    }
+}
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.gamesbykevin.maze.menu;
 
 import com.gamesbykevin.maze.main.Engine;
+import com.gamesbykevin.maze.main.LoopScheduler;
 
 import com.gamesbykevin.framework.display.FullScreen;
 import com.gamesbykevin.framework.menu.*;
@@ -30,7 +31,7 @@ public class CustomMenu extends Menu
     {
         Sound, FullScreen, StartGame, Options, Controls, Instructions, Credits, GoBack, Resume, 
         NewGame, ExitGame, NewGameConfim, NewGameDeny, ExitGameConfirm, ExitGameDeny, Algorithm, 
-        MazeDimensions, Render, GameType, PlayerMode, VsDifficulty
+        MazeDimensions, Render, GameType, PlayerMode, VsDifficulty, CpuSolver, LoopMode
     }
     
     //unique key to indentify each Layer
@@ -77,6 +78,9 @@ public class CustomMenu extends Menu
         
         //set the last layer so we know when the menu has completed
         super.setFinish(LayerKey.StartGame);
+        
+        //the game loop option starts on the mode the game loop was created with
+        setOptionSelectionIndex(OptionKey.LoopMode, engine.getMain().getLoopMode().ordinal());
     }
     
     /**
@@ -97,7 +101,7 @@ public class CustomMenu extends Menu
                 engine.getResources().stopAllSound();
             }
             
-            int soundIndex = -1, fullscreenIndex = -1, renderIndex = -1;
+            int soundIndex = -1, fullscreenIndex = -1, renderIndex = -1, loopIndex = -1;
             
             //if on the options screen check if sound/fullScreen enabled
             if (super.hasCurrent(LayerKey.Options))
@@ -105,6 +109,7 @@ public class CustomMenu extends Menu
                 //soundIndex      = getOptionSelectionIndex(LayerKey.Options, OptionKey.Sound);
                 fullscreenIndex = getOptionSelectionIndex(LayerKey.Options, OptionKey.FullScreen);
                 renderIndex     = getOptionSelectionIndex(LayerKey.Options, OptionKey.Render);
+                loopIndex       = getOptionSelectionIndex(LayerKey.Options, OptionKey.LoopMode);
             }
             
             //if on the in-game options screen check if sound/fullScreen enabled
@@ -113,6 +118,7 @@ public class CustomMenu extends Menu
                 //soundIndex      = getOptionSelectionIndex(LayerKey.OptionsInGame, OptionKey.Sound);
                 fullscreenIndex = getOptionSelectionIndex(LayerKey.OptionsInGame, OptionKey.FullScreen);
                 renderIndex     = getOptionSelectionIndex(LayerKey.OptionsInGame, OptionKey.Render);
+                loopIndex       = getOptionSelectionIndex(LayerKey.OptionsInGame, OptionKey.LoopMode);
             }
             
             //if starting a new game change layer, stop all sound
@@ -163,6 +169,18 @@ public class CustomMenu extends Menu
                 }
             }
             
+            //if the game loop option has a value change how the update and render threads wait
+            if (loopIndex != NO_VALUE)
+            {
+                if (LoopScheduler.Mode.values()[loopIndex] != engine.getMain().getLoopMode())
+                {
+                    engine.getMain().setLoopMode(LoopScheduler.Mode.values()[loopIndex]);
+                    
+                    //make sure all game loop Options have the same value
+                    setOptionSelectionIndex(OptionKey.LoopMode, loopIndex);
+                }
+            }
+            
             //if the applet has focus and did not previously set menu layer back to cached value
             if (!focus && engine.getMain().hasFocus() && previousLayerKey != null)
             {
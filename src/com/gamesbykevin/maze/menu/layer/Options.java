@@ -7,10 +7,12 @@ import com.gamesbykevin.framework.util.Timer;
 import com.gamesbykevin.framework.util.TimerCollection;
 
 import com.gamesbykevin.maze.main.Engine;
+import com.gamesbykevin.maze.main.LoopScheduler;
 import com.gamesbykevin.maze.main.Resources;
 import com.gamesbykevin.maze.puzzle.Puzzle.*;
 import com.gamesbykevin.maze.menu.CustomMenu;
 import com.gamesbykevin.maze.puzzle.Puzzle;
+import com.gamesbykevin.maze.solver.Solver;
 
 public class Options extends Layer implements LayerRules
 {
@@ -47,6 +49,13 @@ public class Options extends Layer implements LayerRules
         }
         super.add(CustomMenu.OptionKey.VsDifficulty, tmp);
         
+        tmp = new Option("Cpu Solver (Vs Only): ");
+        for (Solver solver : Solver.values())
+        {
+            tmp.add(solver.toString(), engine.getResources().getMenuAudio(Resources.MenuAudio.MenuChange));
+        }
+        super.add(CustomMenu.OptionKey.CpuSolver, tmp);
+        
         tmp = new Option("Game Type: ");
         for (GameType type : GameType.values())
         {
@@ -78,6 +87,13 @@ public class Options extends Layer implements LayerRules
         }
         super.add(CustomMenu.OptionKey.MazeDimensions, tmp);
 
+        tmp = new Option("Game Loop: ");
+        for (LoopScheduler.Mode mode : LoopScheduler.Mode.values())
+        {
+            tmp.add(mode.toString(), engine.getResources().getMenuAudio(Resources.MenuAudio.MenuChange));
+        }
+        super.add(CustomMenu.OptionKey.LoopMode, tmp);
+        
         /*
         tmp = new Option("Sound: ");
         tmp.add("On", engine.getResources().getMenuAudio(Resources.MenuAudio.MenuChange));
@@ -3,6 +3,7 @@ package com.gamesbykevin.maze.menu.layer;
 import com.gamesbykevin.framework.menu.Layer;
 import com.gamesbykevin.framework.menu.Option;
 import com.gamesbykevin.maze.main.Engine;
+import com.gamesbykevin.maze.main.LoopScheduler;
 import com.gamesbykevin.maze.main.Resources;
 import com.gamesbykevin.maze.puzzle.Puzzle;
 import com.gamesbykevin.maze.menu.CustomMenu;
@@ -37,6 +38,13 @@ public class OptionsInGame extends Layer implements LayerRules
         }
         super.add(CustomMenu.OptionKey.Render, tmp);
         
+        tmp = new Option("Game Loop: ");
+        for (LoopScheduler.Mode mode : LoopScheduler.Mode.values())
+        {
+            tmp.add(mode.toString(), engine.getResources().getMenuAudio(Resources.MenuAudio.MenuChange));
+        }
+        super.add(CustomMenu.OptionKey.LoopMode, tmp);
+        
         /*
         tmp = new Option("Sound: ");
         tmp.add("On", engine.getResources().getMenuAudio(Resources.MenuAudio.MenuChange));
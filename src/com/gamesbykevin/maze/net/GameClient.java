@@ -0,0 +1,501 @@
+package com.gamesbykevin.maze.net;
+
+import com.gamesbykevin.framework.input.Keyboard;
+
+import com.gamesbykevin.maze.player.Player;
+import com.gamesbykevin.maze.player.PlayerState;
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Races another player through a GameServer.
+ * Nothing blocks: the socket is only read/written when the Puzzle updates.
+ * Our player is moved as soon as a key is held (prediction) and the keys are remembered until the server has used them,
+ * when the server says where we are we move there and apply the keys it hasn't used yet again (reconciliation).
+ * The other player is only known from the states the server sends so they are moved smoothly from one state to the next.
+ * @author GOD
+ */
+public final class GameClient
+{
+    //the most updates of keys we keep waiting for the server, the same as the server will queue
+    private static final int PENDING = NetProtocol.MAX_PENDING;
+
+    //the angle the other player faces, the same as the Player
+    private static final double FACE_EAST  = Math.toRadians(270);
+    private static final double FACE_WEST  = Math.toRadians(90);
+    private static final double FACE_NORTH = Math.toRadians(0);
+    private static final double FACE_SOUTH = Math.toRadians(180);
+
+    private final SocketChannel channel;
+
+    //the data received that hasn't been handled yet, room for the largest frame and its length
+    private final ByteBuffer input = ByteBuffer.allocate(NetProtocol.MAX_FRAME + 5);
+
+    //the data waiting to be sent
+    private ByteBuffer output = ByteBuffer.allocate(NetProtocol.MAX_FRAME);
+
+    //each message is written here before it is added to the output
+    private final ByteBuffer message = ByteBuffer.allocate(NetProtocol.MAX_FRAME);
+
+    //our player index in the room, -1 until the server welcomes us
+    private int index = -1;
+
+    //the maze of the race that was started but hasn't been taken yet
+    private WallGrid maze;
+
+    //the walls of the race, null if we aren't racing
+    private WallGrid grid;
+
+    //has the last race finished and who won, -1 if nobody did
+    private boolean finished = false;
+    private int winner = -1;
+
+    //our player, moved by prediction
+    private Player local;
+
+    //where both players start the race in positions
+    private int startX, startY;
+
+    //the sequence of the last update we moved our player and the last update the server has used
+    private long sequence = 0, acknowledged = 0;
+
+    //the keys held for each update the server hasn't used yet
+    private final int[] pending = new int[PENDING];
+
+    //the number of updates of keys not sent yet
+    private int unsent = 0;
+
+    //the state last received for each player, each state is a change from these
+    private final int[] stateX = new int[NetProtocol.PLAYERS], stateY = new int[NetProtocol.PLAYERS];
+    private final long[] stateProcessed = new long[NetProtocol.PLAYERS];
+
+    //the other player moves from one state to the next
+    private double fromX, fromY, toX, toY, progress = 1;
+    private double opponentAngle = FACE_SOUTH;
+    private boolean opponentSolved = false;
+
+    //the total bytes sent and received
+    private long bytesSent = 0, bytesReceived = 0;
+
+    //has the connection been closed
+    private boolean closed = false;
+
+    /**
+     * Start connecting and ask to join a room, the connection finishes during poll()
+     * @param host The server
+     * @param port The port the server is listening on
+     * @param room The room to join, both players pick the same room
+     * @throws IOException If the connection can't be started
+     */
+    public GameClient(final String host, final int port, final int room) throws IOException
+    {
+        this.channel = SocketChannel.open();
+        this.channel.configureBlocking(false);
+        this.channel.socket().setTcpNoDelay(true);
+        this.channel.connect(new InetSocketAddress(host, port));
+
+        final ByteBuffer payload = begin(NetProtocol.MSG_JOIN);
+        NetProtocol.putVarLong(payload, room);
+        send(payload);
+    }
+
+    /**
+     * Get the keys held by the player, see NetProtocol.getKeys()
+     * @param keyboard Keyboard input, may be null
+     * @return int The Player KEY_ bits
+     */
+    public static int getKeys(final Keyboard keyboard)
+    {
+        return NetProtocol.getKeys(keyboard);
+    }
+
+    /**
+     * Send and receive whatever we can without waiting, call once every update
+     */
+    public void poll()
+    {
+        if (closed)
+            return;
+
+        try
+        {
+            if (channel.isConnectionPending() && !channel.finishConnect())
+                return;
+
+            final int read = channel.read(input);
+
+            if (read < 0)
+                throw new IOException("Disconnected");
+
+            bytesReceived += read;
+
+            input.flip();
+
+            try
+            {
+                for (ByteBuffer payload = NetProtocol.getFrame(input); payload != null; payload = NetProtocol.getFrame(input))
+                {
+                    receive(payload);
+                }
+            }
+            finally
+            {
+                input.compact();
+            }
+
+            flush();
+        }
+        catch(IOException | RuntimeException e)
+        {
+            e.printStackTrace();
+            close();
+        }
+
+        //move the other player towards the last state received
+        progress = Math.min(1, progress + (1.0 / NetProtocol.SEND_INTERVAL));
+    }
+
+    /**
+     * Handle a message from the server
+     * @param payload The message
+     */
+    private void receive(final ByteBuffer payload)
+    {
+        final int type = payload.get();
+
+        switch (type)
+        {
+            case NetProtocol.MSG_WELCOME:
+                index = (int)NetProtocol.getVarLong(payload);
+                break;
+
+            case NetProtocol.MSG_MAZE:
+                receiveMaze(payload);
+                break;
+
+            case NetProtocol.MSG_STATE:
+                receiveState(payload);
+                break;
+
+            case NetProtocol.MSG_FINISH:
+                winner = (int)NetProtocol.getVarLong(payload) - 1;
+                finished = true;
+                grid = null;
+                break;
+
+            default:
+                throw new IllegalStateException("Unknown message " + type);
+        }
+    }
+
+    /**
+     * A race has started
+     * @param payload The message
+     */
+    private void receiveMaze(final ByteBuffer payload)
+    {
+        maze = NetProtocol.getMaze(payload);
+        grid = maze;
+
+        final int x = (int)NetProtocol.getVarLong(payload);
+        final int y = (int)NetProtocol.getVarLong(payload);
+
+        startX = x;
+        startY = y;
+
+        for (int i = 0; i < NetProtocol.PLAYERS; i++)
+        {
+            stateX[i] = x;
+            stateY[i] = y;
+            stateProcessed[i] = 0;
+        }
+
+        fromX = toX = NetProtocol.toCells(x);
+        fromY = toY = NetProtocol.toCells(y);
+        progress = 1;
+        opponentAngle = FACE_SOUTH;
+        opponentSolved = false;
+
+        local = null;
+        sequence = 0;
+        acknowledged = 0;
+        unsent = 0;
+        finished = false;
+        winner = -1;
+    }
+
+    /**
+     * Where both players are according to the server
+     * @param payload The message
+     */
+    private void receiveState(final ByteBuffer payload)
+    {
+        for (int i = 0; i < NetProtocol.PLAYERS; i++)
+        {
+            final boolean solved = (payload.get() != 0);
+
+            stateX[i] += (int)NetProtocol.getZigZag(payload);
+            stateY[i] += (int)NetProtocol.getZigZag(payload);
+            stateProcessed[i] += NetProtocol.getVarLong(payload);
+
+            if (i == index)
+            {
+                reconcile(stateX[i], stateY[i], stateProcessed[i], solved);
+            }
+            else
+            {
+                //start moving from wherever the other player is drawn now
+                final double x = getOpponentX(), y = getOpponentY();
+                fromX = x;
+                fromY = y;
+                toX = NetProtocol.toCells(stateX[i]);
+                toY = NetProtocol.toCells(stateY[i]);
+                progress = 0;
+                opponentSolved = solved;
+
+                if (toX > x)
+                    opponentAngle = FACE_EAST;
+                else if (toX < x)
+                    opponentAngle = FACE_WEST;
+                else if (toY > y)
+                    opponentAngle = FACE_SOUTH;
+                else if (toY < y)
+                    opponentAngle = FACE_NORTH;
+            }
+        }
+    }
+
+    /**
+     * Move our player to where the server says we are, then apply the keys the server hasn't used yet
+     * @param x Where we are in positions
+     * @param y Where we are in positions
+     * @param processed The sequence of the last update the server used
+     * @param solved Have we solved the maze
+     */
+    private void reconcile(final int x, final int y, final long processed, final boolean solved)
+    {
+        acknowledged = processed;
+
+        if (local == null || grid == null)
+            return;
+
+        local.setLocation(NetProtocol.toCells(x), NetProtocol.toCells(y));
+        local.setSolved(solved);
+
+        for (long update = processed + 1; update <= sequence; update++)
+        {
+            NetProtocol.step(local, pending[(int)(update % PENDING)], grid);
+        }
+    }
+
+    /**
+     * Move our player by the keys held and send the keys to the server
+     * @param player Our player
+     * @param keys The Player KEY_ bits held for this update
+     */
+    public void update(final Player player, final int keys)
+    {
+        if (closed || grid == null || player.hasSolved())
+            return;
+
+        //the server is too far behind, wait for it to catch up
+        if (sequence - acknowledged >= PENDING)
+            return;
+
+        //start exactly where the server starts our player
+        if (local != player)
+        {
+            local = player;
+            player.setLocation(NetProtocol.toCells(startX), NetProtocol.toCells(startY));
+        }
+
+        sequence++;
+        pending[(int)(sequence % PENDING)] = keys;
+
+        NetProtocol.step(player, keys, grid);
+
+        //send the keys in small batches, the keys that reached the finish are sent straight away
+        if (++unsent == NetProtocol.SEND_INTERVAL || player.hasSolved())
+            sendInput();
+    }
+
+    /**
+     * Send the keys for every update not sent yet, 2 updates per byte
+     */
+    private void sendInput()
+    {
+        final ByteBuffer payload = begin(NetProtocol.MSG_INPUT);
+        NetProtocol.putVarLong(payload, sequence - unsent + 1);
+        NetProtocol.putVarLong(payload, unsent);
+
+        for (long update = sequence - unsent + 1; update <= sequence; update += 2)
+        {
+            final int second = (update + 1 <= sequence) ? pending[(int)((update + 1) % PENDING)] : 0;
+
+            payload.put((byte)(pending[(int)(update % PENDING)] | (second << 4)));
+        }
+
+        unsent = 0;
+        send(payload);
+    }
+
+    /**
+     * Tell the server we are ready for the next race
+     */
+    public void ready()
+    {
+        send(begin(NetProtocol.MSG_READY));
+    }
+
+    /**
+     * Is the next race's maze waiting to be taken
+     * @return boolean
+     */
+    public boolean hasMaze()
+    {
+        return (maze != null);
+    }
+
+    /**
+     * Take the maze of the race that has started
+     * @return WallGrid
+     */
+    public WallGrid takeMaze()
+    {
+        final WallGrid taken = maze;
+        maze = null;
+
+        return taken;
+    }
+
+    /**
+     * Has the race finished
+     * @return boolean
+     */
+    public boolean isFinished()
+    {
+        return this.finished;
+    }
+
+    /**
+     * Did we win the race that finished
+     * @return boolean
+     */
+    public boolean hasWon()
+    {
+        return (finished && winner != -1 && winner == index);
+    }
+
+    /**
+     * Has the connection been lost
+     * @return boolean
+     */
+    public boolean isClosed()
+    {
+        return this.closed;
+    }
+
+    private double getOpponentX()
+    {
+        return fromX + ((toX - fromX) * progress);
+    }
+
+    private double getOpponentY()
+    {
+        return fromY + ((toY - fromY) * progress);
+    }
+
+    /**
+     * Take an immutable copy of the other player so it can be drawn on another thread
+     * @param width The width of a player
+     * @param height The height of a player
+     * @return PlayerState
+     */
+    public PlayerState getOpponentState(final double width, final double height)
+    {
+        return new PlayerState(getOpponentX(), getOpponentY(), opponentAngle, width, height, opponentSolved);
+    }
+
+    public long getBytesSent()
+    {
+        return this.bytesSent;
+    }
+
+    public long getBytesReceived()
+    {
+        return this.bytesReceived;
+    }
+
+    /**
+     * Disconnect from the server
+     */
+    public void close()
+    {
+        closed = true;
+        grid = null;
+
+        try
+        {
+            channel.close();
+        }
+        catch(IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Start writing a message
+     * @param type The type of message
+     * @return ByteBuffer The message
+     */
+    private ByteBuffer begin(final int type)
+    {
+        message.clear();
+        message.put((byte)type);
+
+        return message;
+    }
+
+    /**
+     * Send a message, anything the socket won't take yet is written during the next poll()
+     * @param payload The message, ready to be written to
+     */
+    private void send(final ByteBuffer payload)
+    {
+        if (closed)
+            return;
+
+        payload.flip();
+
+        output = NetProtocol.putFrame(output, payload);
+
+        try
+        {
+            flush();
+        }
+        catch(IOException e)
+        {
+            e.printStackTrace();
+            close();
+        }
+    }
+
+    /**
+     * Write as much as the socket will take
+     * @throws IOException If the server disconnected
+     */
+    private void flush() throws IOException
+    {
+        if (output.position() == 0 || !channel.isConnected())
+            return;
+
+        output.flip();
+        bytesSent += channel.write(output);
+        output.compact();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,799 @@
+package com.gamesbykevin.maze.net;
+
+import com.gamesbykevin.framework.labyrinth.Labyrinth;
+import com.gamesbykevin.framework.labyrinth.Labyrinth.Algorithm;
+
+import com.gamesbykevin.maze.player.Player;
+import com.gamesbykevin.maze.puzzle.Puzzle;
+import com.gamesbykevin.maze.puzzle.WallGrid;
+import com.gamesbykevin.maze.shared.Shared;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hosts head to head races between 2 players on separate machines.
+ * Every connection and every room is handled on a single thread waiting on a Selector, the rooms are updated at the same rate as the game loop.
+ * The server owns the maze and where each player is: the clients only send the keys they held for each update,
+ * the server moves the players and sends back where they are as small changes from the last state it sent.
+ * Run with: java com.gamesbykevin.maze.net.GameServer [port] [dimension index]
+ * @author GOD
+ */
+public class GameServer implements Runnable
+{
+    //the game time of each update, the same as the game loop
+    private static final long NANOS_PER_TICK = 1000000000L / Shared.DEFAULT_UPS;
+
+    //the most updates run at once after a stall before the missed time is dropped
+    private static final int MAX_CATCH_UP = 5;
+
+    //the most updates of keys a player can have waiting, a client sending more than this is cheating or broken
+    private static final int MAX_QUEUED = NetProtocol.MAX_PENDING;
+
+    //the most updates of keys used for a player in 1 update so a player that fell behind catches up
+    private static final int MAX_INPUTS_PER_TICK = 2;
+
+    //a client that lets this much data build up without reading it is disconnected
+    private static final int MAX_OUTPUT = 65536;
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+
+    //every room that has at least 1 player
+    private final Map<Integer, Room> rooms = new HashMap<>();
+
+    //the size of the first maze in each room, each race after that is larger
+    private final int dimensionIndex;
+
+    //clients that failed while a room was being updated, they are closed once the update is done
+    private final List<Connection> closing = new ArrayList<>();
+
+    //each message is written here before it is added to a connection
+    private final ByteBuffer message = ByteBuffer.allocate(NetProtocol.MAX_FRAME);
+
+    //the total number of bytes sent
+    private long bytesSent = 0;
+
+    private volatile boolean running = true;
+
+    /**
+     * Open the server, nothing is accepted until run() is called
+     * @param port The port to listen on, 0 picks any free port
+     * @param dimensionIndex The size of the first maze in each room
+     * @throws IOException If the port can't be used
+     */
+    public GameServer(final int port, final int dimensionIndex) throws IOException
+    {
+        this.dimensionIndex = dimensionIndex;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        this.server.configureBlocking(false);
+        this.server.socket().bind(new InetSocketAddress(port));
+        this.server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public static void main(final String[] args) throws Exception
+    {
+        final int port = (args.length > 0) ? Integer.parseInt(args[0]) : Shared.NETWORK_PORT;
+        final int dimensionIndex = (args.length > 1) ? Integer.parseInt(args[1]) : 0;
+
+        final GameServer server = new GameServer(port, dimensionIndex);
+
+        System.out.println("Listening on port " + server.getPort());
+
+        server.run();
+    }
+
+    /**
+     * The port we are listening on
+     * @return int
+     */
+    public int getPort()
+    {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * The total number of bytes sent to every client
+     * @return long
+     */
+    public long getBytesSent()
+    {
+        return this.bytesSent;
+    }
+
+    /**
+     * Stop the server, run() returns shortly after
+     */
+    public void stop()
+    {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Accept connections and update every room until stopped
+     */
+    @Override
+    public void run()
+    {
+        long next = System.nanoTime();
+
+        try
+        {
+            while (running)
+            {
+                final long wait = next - System.nanoTime();
+
+                if (wait > 0)
+                {
+                    selector.select(Math.max(1, wait / 1000000L));
+                }
+                else
+                {
+                    selector.selectNow();
+                }
+
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+                while (keys.hasNext())
+                {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+
+                    handle(key);
+                }
+
+                closePending();
+
+                //update the rooms for every tick that has passed
+                for (int i = 0; System.nanoTime() - next >= 0; i++)
+                {
+                    if (i == MAX_CATCH_UP)
+                    {
+                        next = System.nanoTime();
+                        break;
+                    }
+
+                    for (Room room : rooms.values())
+                    {
+                        room.tick();
+                    }
+
+                    next += NANOS_PER_TICK;
+                }
+
+                closePending();
+            }
+        }
+        catch(IOException e)
+        {
+            e.printStackTrace();
+        }
+        finally
+        {
+            for (SelectionKey key : selector.keys())
+            {
+                try
+                {
+                    key.channel().close();
+                }
+                catch(IOException e)
+                {
+                    e.printStackTrace();
+                }
+            }
+
+            try
+            {
+                selector.close();
+            }
+            catch(IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Accept a new connection, a connection that fails straight away only loses that connection and not the server
+     */
+    private void accept()
+    {
+        SocketChannel channel = null;
+
+        try
+        {
+            channel = server.accept();
+
+            if (channel == null)
+                return;
+
+            channel.configureBlocking(false);
+
+            //send each state as soon as it is written
+            channel.socket().setTcpNoDelay(true);
+
+            final Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+        catch(IOException e)
+        {
+            //e.g. the client reset the connection or we are out of file descriptors
+            e.printStackTrace();
+
+            if (channel != null)
+            {
+                try
+                {
+                    channel.close();
+                }
+                catch(IOException closing)
+                {
+                    closing.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Handle a channel that is ready
+     * @param key The key of the channel
+     */
+    private void handle(final SelectionKey key)
+    {
+        if (!key.isValid())
+            return;
+
+        if (key.isAcceptable())
+        {
+            accept();
+            return;
+        }
+
+        final Connection connection = (Connection)key.attachment();
+
+        try
+        {
+            if (key.isReadable())
+                read(connection);
+
+            if (key.isValid() && key.isWritable())
+                connection.flush();
+        }
+        catch(IOException | RuntimeException e)
+        {
+            //the client disconnected or sent something we don't understand
+            close(connection);
+        }
+    }
+
+    /**
+     * Read everything the client sent and handle each whole message
+     * @param connection The client
+     * @throws IOException If the client disconnected
+     */
+    private void read(final Connection connection) throws IOException
+    {
+        if (connection.channel.read(connection.input) < 0)
+            throw new IOException("Disconnected");
+
+        connection.input.flip();
+
+        try
+        {
+            for (ByteBuffer payload = NetProtocol.getFrame(connection.input); payload != null; payload = NetProtocol.getFrame(connection.input))
+            {
+                receive(connection, payload);
+
+                //the message may have closed the connection
+                if (!connection.channel.isOpen())
+                    return;
+            }
+        }
+        finally
+        {
+            connection.input.compact();
+        }
+    }
+
+    /**
+     * Handle a message from a client
+     * @param connection The client
+     * @param payload The message
+     * @throws IOException If the client can't be sent a reply
+     */
+    private void receive(final Connection connection, final ByteBuffer payload) throws IOException
+    {
+        final int type = payload.get();
+
+        if (type == NetProtocol.MSG_JOIN)
+        {
+            final int id = (int)NetProtocol.getVarLong(payload);
+
+            if (connection.room != null)
+                throw new IllegalStateException("Already in a room");
+
+            Room room = rooms.get(id);
+
+            if (room == null)
+            {
+                room = new Room(id);
+                rooms.put(id, room);
+            }
+
+            room.join(connection);
+            return;
+        }
+
+        //every other message needs a room
+        if (connection.room == null)
+            throw new IllegalStateException("Not in a room");
+
+        switch (type)
+        {
+            case NetProtocol.MSG_INPUT:
+                connection.room.receiveInput(connection.index, payload);
+                break;
+
+            case NetProtocol.MSG_READY:
+                connection.room.ready(connection.index);
+                break;
+
+            default:
+                throw new IllegalStateException("Unknown message " + type);
+        }
+    }
+
+    /**
+     * Disconnect the clients that failed while the rooms were being updated
+     */
+    private void closePending()
+    {
+        //closing may fail another send so take one at a time
+        while (!closing.isEmpty())
+        {
+            close(closing.remove(closing.size() - 1));
+        }
+    }
+
+    /**
+     * Disconnect a client, if they were racing the other player wins
+     * @param connection The client
+     */
+    private void close(final Connection connection)
+    {
+        if (!connection.channel.isOpen())
+            return;
+
+        if (connection.room != null)
+        {
+            connection.room.leave(connection.index);
+
+            if (connection.room.isEmpty())
+                rooms.remove(connection.room.id);
+
+            connection.room = null;
+        }
+
+        try
+        {
+            connection.channel.close();
+        }
+        catch(IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Generate a maze the same way the Puzzle does, using a random algorithm
+     * @param size The number of columns/rows
+     * @return WallGrid
+     * @throws Exception
+     */
+    protected WallGrid createMaze(final int size) throws Exception
+    {
+        final Algorithm algorithm = Algorithm.values()[(int)(Math.random() * Algorithm.values().length)];
+
+        final Labyrinth labyrinth = new Labyrinth(size, size, algorithm);
+        labyrinth.setStart(0, 0);
+        labyrinth.create();
+
+        while (!labyrinth.isComplete())
+        {
+            labyrinth.update();
+        }
+
+        Puzzle.setFinish(labyrinth);
+
+        final WallGrid grid = WallGrid.create(labyrinth, size, size, 0, 0);
+
+        labyrinth.dispose();
+
+        return grid;
+    }
+
+    /**
+     * Start writing a message
+     * @param type The type of message
+     * @return ByteBuffer The message
+     */
+    private ByteBuffer begin(final int type)
+    {
+        message.clear();
+        message.put((byte)type);
+
+        return message;
+    }
+
+    /**
+     * A connected client
+     */
+    private final class Connection
+    {
+        private final SocketChannel channel;
+
+        //the data received that hasn't been handled yet, room for the largest frame and its length
+        private final ByteBuffer input = ByteBuffer.allocate(NetProtocol.MAX_FRAME + 5);
+
+        //the data waiting to be sent
+        private ByteBuffer output = ByteBuffer.allocate(NetProtocol.MAX_FRAME);
+
+        private SelectionKey key;
+
+        //the room joined and our player in it, null if we haven't joined yet
+        private Room room;
+        private int index;
+
+        private Connection(final SocketChannel channel)
+        {
+            this.channel = channel;
+        }
+
+        /**
+         * Send a message
+         * @param payload The message, ready to be written to
+         */
+        private void send(final ByteBuffer payload)
+        {
+            payload.flip();
+
+            if (closing.contains(this))
+                return;
+
+            output = NetProtocol.putFrame(output, payload);
+
+            try
+            {
+                flush();
+
+                if (output.position() > MAX_OUTPUT)
+                    throw new IOException("Client isn't reading");
+            }
+            catch(IOException e)
+            {
+                //we may be in the middle of updating the rooms
+                if (!closing.contains(this))
+                    closing.add(this);
+            }
+        }
+
+        /**
+         * Write as much as the socket will take, if there is any left we wait until the socket is ready again
+         * @throws IOException If the client disconnected
+         */
+        private void flush() throws IOException
+        {
+            if (!channel.isOpen())
+                return;
+
+            output.flip();
+            bytesSent += channel.write(output);
+            output.compact();
+
+            key.interestOps((output.position() > 0) ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * 2 players racing the same maze
+     */
+    private final class Room
+    {
+        private final int id;
+
+        //the players in the room, null if the place is empty
+        private final Connection[] connections = new Connection[NetProtocol.PLAYERS];
+
+        //where each player is in the current race
+        private final Player[] players = new Player[NetProtocol.PLAYERS];
+
+        //is each player ready for the next race
+        private final boolean[] ready = new boolean[NetProtocol.PLAYERS];
+
+        //the keys for each update that hasn't been used yet, a ring for each player
+        private final int[][] queue = new int[NetProtocol.PLAYERS][MAX_QUEUED];
+        private final int[] queueStart = new int[NetProtocol.PLAYERS], queueSize = new int[NetProtocol.PLAYERS];
+
+        //the sequence of the last update received and the last update used for each player
+        private final long[] received = new long[NetProtocol.PLAYERS], processed = new long[NetProtocol.PLAYERS];
+
+        //the state last sent for each player, each state is sent as the change from these
+        private final int[] sentX = new int[NetProtocol.PLAYERS], sentY = new int[NetProtocol.PLAYERS];
+        private final long[] sentProcessed = new long[NetProtocol.PLAYERS];
+
+        //the walls of the current race, null if not racing
+        private WallGrid grid;
+
+        //the number of races started
+        private int races = 0;
+
+        //the number of updates since the race started
+        private long ticks = 0;
+
+        private Room(final int id)
+        {
+            this.id = id;
+        }
+
+        private boolean isEmpty()
+        {
+            for (Connection connection : connections)
+            {
+                if (connection != null)
+                    return false;
+            }
+
+            return true;
+        }
+
+        /**
+         * Add a player to the first empty place, a full room refuses the player
+         * @param connection The player
+         * @throws IOException If the room is full
+         */
+        private void join(final Connection connection) throws IOException
+        {
+            for (int index = 0; index < connections.length; index++)
+            {
+                if (connections[index] == null)
+                {
+                    connections[index] = connection;
+                    connection.room = this;
+                    connection.index = index;
+
+                    final ByteBuffer payload = begin(NetProtocol.MSG_WELCOME);
+                    NetProtocol.putVarLong(payload, index);
+                    connection.send(payload);
+
+                    ready(index);
+                    return;
+                }
+            }
+
+            throw new IOException("Room " + id + " is full");
+        }
+
+        /**
+         * Remove a player, if we were racing the other player wins
+         * @param index The player
+         */
+        private void leave(final int index)
+        {
+            connections[index] = null;
+            ready[index] = false;
+
+            if (grid != null)
+                finish(1 - index);
+        }
+
+        /**
+         * The player is ready, once every player is ready the next race starts
+         * @param index The player
+         */
+        private void ready(final int index)
+        {
+            //we are already racing
+            if (grid != null)
+                return;
+
+            ready[index] = true;
+
+            for (int i = 0; i < connections.length; i++)
+            {
+                if (connections[i] == null || !ready[i])
+                    return;
+            }
+
+            start();
+        }
+
+        /**
+         * Start a race in a new maze
+         */
+        private void start()
+        {
+            final int size = Puzzle.DIMENSION_SELECTIONS[Math.min(dimensionIndex + races, Puzzle.DIMENSION_SELECTIONS.length - 1)];
+
+            try
+            {
+                grid = createMaze(size);
+            }
+            catch(Exception e)
+            {
+                e.printStackTrace();
+                return;
+            }
+
+            races++;
+            ticks = 0;
+
+            for (int i = 0; i < players.length; i++)
+            {
+                //each room keeps its players from race to race
+                if (players[i] == null)
+                    players[i] = new Player();
+                else
+                    players[i].reset();
+                
+                ready[i] = false;
+                queueStart[i] = 0;
+                queueSize[i] = 0;
+                received[i] = 0;
+                processed[i] = 0;
+                sentX[i] = NetProtocol.toPosition(players[i].getX());
+                sentY[i] = NetProtocol.toPosition(players[i].getY());
+                sentProcessed[i] = 0;
+
+                //start where the clients will be told we are
+                players[i].setLocation(NetProtocol.toCells(sentX[i]), NetProtocol.toCells(sentY[i]));
+            }
+
+            //every state in this race is a change from the start position
+            final ByteBuffer payload = begin(NetProtocol.MSG_MAZE);
+            NetProtocol.putMaze(payload, grid);
+            NetProtocol.putVarLong(payload, sentX[0]);
+            NetProtocol.putVarLong(payload, sentY[0]);
+            broadcast(payload);
+        }
+
+        /**
+         * Queue the keys a player held for a run of updates
+         * @param index The player
+         * @param payload The message
+         */
+        private void receiveInput(final int index, final ByteBuffer payload)
+        {
+            final long first = NetProtocol.getVarLong(payload);
+            final int count = (int)NetProtocol.getVarLong(payload);
+
+            //keys sent before the race ended or for a previous race are no longer needed
+            if (grid == null || first != received[index] + 1)
+                return;
+
+            if (queueSize[index] + count > MAX_QUEUED)
+                throw new IllegalStateException("Too many updates queued");
+
+            int packed = 0;
+
+            for (int i = 0; i < count; i++)
+            {
+                if (i % 2 == 0)
+                    packed = payload.get() & 0xFF;
+
+                final int keys = (i % 2 == 0) ? (packed & 0x0F) : (packed >>> 4);
+
+                queue[index][(queueStart[index] + queueSize[index]) % MAX_QUEUED] = keys;
+                queueSize[index]++;
+            }
+
+            received[index] += count;
+        }
+
+        /**
+         * Move each player by the keys they held, then send where they are
+         */
+        private void tick()
+        {
+            if (grid == null)
+                return;
+
+            int winner = -1;
+
+            for (int index = 0; index < players.length; index++)
+            {
+                for (int i = 0; i < MAX_INPUTS_PER_TICK && queueSize[index] > 0 && !players[index].hasSolved(); i++)
+                {
+                    NetProtocol.step(players[index], queue[index][queueStart[index]], grid);
+
+                    queueStart[index] = (queueStart[index] + 1) % MAX_QUEUED;
+                    queueSize[index]--;
+                    processed[index]++;
+                }
+
+                //if both finish on the same update the first player wins
+                if (players[index].hasSolved() && winner == -1)
+                    winner = index;
+            }
+
+            ticks++;
+
+            //the final state is always sent so both players see the finish
+            if (ticks % NetProtocol.SEND_INTERVAL == 0 || winner != -1)
+                sendState();
+
+            if (winner != -1)
+                finish(winner);
+        }
+
+        /**
+         * Send the change in each player since the last state sent
+         */
+        private void sendState()
+        {
+            final ByteBuffer payload = begin(NetProtocol.MSG_STATE);
+
+            for (int index = 0; index < players.length; index++)
+            {
+                final int x = NetProtocol.toPosition(players[index].getX());
+                final int y = NetProtocol.toPosition(players[index].getY());
+
+                payload.put((byte)(players[index].hasSolved() ? 1 : 0));
+                NetProtocol.putZigZag(payload, x - sentX[index]);
+                NetProtocol.putZigZag(payload, y - sentY[index]);
+                NetProtocol.putVarLong(payload, processed[index] - sentProcessed[index]);
+
+                sentX[index] = x;
+                sentY[index] = y;
+                sentProcessed[index] = processed[index];
+            }
+
+            broadcast(payload);
+        }
+
+        /**
+         * End the race
+         * @param winner The player that won, -1 if there is no winner
+         */
+        private void finish(final int winner)
+        {
+            grid = null;
+
+            final ByteBuffer payload = begin(NetProtocol.MSG_FINISH);
+            NetProtocol.putVarLong(payload, winner + 1);
+            broadcast(payload);
+        }
+
+        /**
+         * Send a message to every player in the room
+         * @param payload The message, ready to be written to
+         */
+        private void broadcast(final ByteBuffer payload)
+        {
+            final int end = payload.position();
+
+            for (int index = 0; index < connections.length; index++)
+            {
+                if (connections[index] == null)
+                    continue;
+
+                //sending flips the message so set it back for the next player
+                payload.limit(payload.capacity());
+                payload.position(end);
+
+                connections[index].send(payload);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,271 @@
+package com.gamesbykevin.maze.net;
+
+import com.gamesbykevin.framework.input.Keyboard;
+
+import com.gamesbykevin.maze.player.Player;
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.awt.event.KeyEvent;
+import java.nio.ByteBuffer;
+
+/**
+ * The messages shared by the GameServer and GameClient.
+ * Every message is a frame: the length of the payload (varint) followed by the payload, the first byte of the payload is the type.
+ * Positions are sent as whole numbers of 1/POSITION_SCALE of a cell and both sides snap the player to the same values after every move,
+ * so the client predicting its own player always lands exactly where the server puts it.
+ * @author GOD
+ */
+final class NetProtocol
+{
+    //client: join a room, data is the room number
+    static final int MSG_JOIN = 1;
+
+    //client: the keys held for a run of updates, data is the sequence of the first update, the count and the keys packed 2 per byte
+    static final int MSG_INPUT = 2;
+
+    //client: ready for the next maze
+    static final int MSG_READY = 3;
+
+    //server: joined the room, data is our player index
+    static final int MSG_WELCOME = 4;
+
+    //server: a race has started, data is the columns, rows, start, finish, the walls packed 2 cells per byte and the start position
+    static final int MSG_MAZE = 5;
+
+    //server: where both players are, data for each player is the solved flag, the change in x and y and the change in the last processed sequence
+    static final int MSG_STATE = 6;
+
+    //server: the race is over, data is the index of the winner + 1, 0 if there is no winner
+    static final int MSG_FINISH = 7;
+
+    //the number of players in a room
+    static final int PLAYERS = 2;
+
+    //the number of updates between each state sent and each batch of keys sent
+    static final int SEND_INTERVAL = 3;
+
+    //the most updates of keys a client sends that the server hasn't used yet, so the server never has to queue more than this
+    static final int MAX_PENDING = 64;
+
+    //each cell is split into this many positions
+    static final int POSITION_SCALE = 1024;
+
+    //the largest payload allowed, the largest maze is well under this
+    static final int MAX_FRAME = 4096;
+
+    //the arrow keys and the Player bit for each
+    private static final int[] KEYS = {KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_UP, KeyEvent.VK_DOWN};
+    private static final int[] BITS = {Player.KEY_LEFT, Player.KEY_RIGHT, Player.KEY_UP, Player.KEY_DOWN};
+
+    private NetProtocol()
+    {
+        //constants and helpers only
+    }
+
+    /**
+     * Get the arrow keys being held, a released key is removed the same as Player.checkInput()
+     * @param keyboard Keyboard input, may be null
+     * @return int The Player KEY_ bits
+     */
+    static int getKeys(final Keyboard keyboard)
+    {
+        if (keyboard == null)
+            return 0;
+
+        int keys = 0;
+
+        for (int i = 0; i < KEYS.length; i++)
+        {
+            if (keyboard.hasKeyReleased(KEYS[i]))
+            {
+                keyboard.removeKeyPressed(KEYS[i]);
+                keyboard.removeKeyReleased(KEYS[i]);
+            }
+
+            if (keyboard.hasKeyPressed(KEYS[i]))
+                keys |= BITS[i];
+        }
+
+        return keys;
+    }
+
+    /**
+     * Move a player for 1 update, the server and the client predicting its own player both move the player here
+     * @param player The player
+     * @param keys The Player KEY_ bits held for the update
+     * @param grid The walls of the maze
+     */
+    static void step(final Player player, final int keys, final WallGrid grid)
+    {
+        player.setVelocity(Player.VELOCITY);
+        player.applyInput(keys);
+        player.checkCollision(grid);
+        player.update();
+
+        //snap to a position that can be sent exactly
+        player.setLocation(toCells(toPosition(player.getX())), toCells(toPosition(player.getY())));
+    }
+
+    static int toPosition(final double cells)
+    {
+        return (int)Math.round(cells * POSITION_SCALE);
+    }
+
+    static double toCells(final int position)
+    {
+        return (double)position / POSITION_SCALE;
+    }
+
+    /**
+     * Write a maze, the same layout as a recorded maze
+     * @param buffer Where the maze is written
+     * @param grid The walls of the maze
+     */
+    static void putMaze(final ByteBuffer buffer, final WallGrid grid)
+    {
+        putVarLong(buffer, grid.getCols());
+        putVarLong(buffer, grid.getRows());
+        putVarLong(buffer, grid.getStart());
+        putVarLong(buffer, grid.getFinish());
+
+        final byte[] packed = new byte[WallGrid.getPackedSize(grid.getCols() * grid.getRows())];
+        grid.pack(packed, 0);
+        buffer.put(packed);
+    }
+
+    /**
+     * Read a maze written by putMaze()
+     * @param buffer The message
+     * @return WallGrid
+     */
+    static WallGrid getMaze(final ByteBuffer buffer)
+    {
+        final int cols = (int)getVarLong(buffer);
+        final int rows = (int)getVarLong(buffer);
+        final int start = (int)getVarLong(buffer);
+        final int finish = (int)getVarLong(buffer);
+
+        final byte[] packed = new byte[WallGrid.getPackedSize(cols * rows)];
+        buffer.get(packed);
+
+        return WallGrid.unpack(cols, rows, packed, 0, start, finish);
+    }
+
+    /**
+     * Write 7 bits at a time, the high bit is set on every byte except the last
+     * @param buffer Where the value is written
+     * @param value The value, must not be negative
+     */
+    static void putVarLong(final ByteBuffer buffer, long value)
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            buffer.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        buffer.put((byte)value);
+    }
+
+    static long getVarLong(final ByteBuffer buffer)
+    {
+        long value = 0;
+
+        for (int shift = 0; ; shift += 7)
+        {
+            final int next = buffer.get();
+
+            value |= (long)(next & 0x7F) << shift;
+
+            if ((next & 0x80) == 0)
+                return value;
+        }
+    }
+
+    /**
+     * Write a value that may be negative, small changes either way only take a single byte
+     * @param buffer Where the value is written
+     * @param value The value
+     */
+    static void putZigZag(final ByteBuffer buffer, final long value)
+    {
+        putVarLong(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    static long getZigZag(final ByteBuffer buffer)
+    {
+        final long value = getVarLong(buffer);
+
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Add a payload as a frame to the data waiting to be sent
+     * @param output The data waiting to be sent, ready to be written to
+     * @param payload The message, ready to be read
+     * @return ByteBuffer The output, a larger copy if it was full
+     */
+    static ByteBuffer putFrame(ByteBuffer output, final ByteBuffer payload)
+    {
+        //a varint length never takes more than 5 bytes
+        if (output.remaining() < payload.remaining() + 5)
+        {
+            final ByteBuffer larger = ByteBuffer.allocate(Math.max(output.capacity() * 2, output.position() + payload.remaining() + 5));
+            output.flip();
+            larger.put(output);
+            output = larger;
+        }
+
+        putVarLong(output, payload.remaining());
+        output.put(payload);
+
+        return output;
+    }
+
+    /**
+     * Take the next whole frame from the data received
+     * @param input The data received, ready to be read
+     * @return ByteBuffer The payload, null if the whole frame hasn't arrived yet
+     * @throws IllegalStateException If the length is corrupt or larger than MAX_FRAME
+     */
+    static ByteBuffer getFrame(final ByteBuffer input)
+    {
+        final int mark = input.position();
+
+        int length = 0;
+
+        for (int shift = 0; ; shift += 7)
+        {
+            if (shift > 28)
+                throw new IllegalStateException("Frame length too long");
+
+            if (!input.hasRemaining())
+            {
+                input.position(mark);
+                return null;
+            }
+
+            final int next = input.get();
+
+            length |= (next & 0x7F) << shift;
+
+            if ((next & 0x80) == 0)
+                break;
+        }
+
+        if (length > MAX_FRAME)
+            throw new IllegalStateException("Frame too large " + length);
+
+        if (input.remaining() < length)
+        {
+            input.position(mark);
+            return null;
+        }
+
+        final ByteBuffer payload = input.slice();
+        payload.limit(length);
+        input.position(input.position() + length);
+
+        return payload;
+    }
+}
\ No newline at end of file
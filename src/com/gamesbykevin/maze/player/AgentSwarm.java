@@ -0,0 +1,387 @@
+package com.gamesbykevin.maze.player;
+
+import com.gamesbykevin.maze.puzzle.MazeMath;
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A large number of cpu racers sharing one maze.
+ * Instead of a Player object for each racer every value is stored in its own primitive array indexed by the racer,
+ * so an update walks straight through memory and the racers can be split into chunks updated on different threads.
+ * Every racer follows the shortest route and may take a wrong turn at a junction before heading back to the route.
+ * @author GOD
+ */
+public final class AgentSwarm
+{
+    //the fewest racers worth updating on another thread, a smaller chunk costs more to hand over than to update
+    private static final int MIN_CHUNK_SIZE = 256;
+
+    //the angle each racer faces, the same as the Player
+    private static final double FACE_EAST  = Math.toRadians(270);
+    private static final double FACE_WEST  = Math.toRadians(90);
+    private static final double FACE_NORTH = Math.toRadians(0);
+    private static final double FACE_SOUTH = Math.toRadians(180);
+
+    //the walls of the maze being raced
+    private WallGrid grid;
+
+    //the index of every cell along the shortest route from start to finish
+    private int[] route;
+
+    //the number of racers
+    private final int count;
+
+    //the center of each racer in cells
+    private final double[] x, y;
+
+    //the distance each racer moved during the last update in cells
+    private final double[] vx, vy;
+
+    //the angle each racer is facing
+    private final double[] angle;
+
+    //how far each racer can move per update in cells
+    private final double[] speed;
+
+    //the position in the route of the cell each racer is heading to
+    private final int[] cursor;
+
+    //the wrong cell each racer is heading into, -1 if the racer hasn't taken a wrong turn
+    private final int[] detour;
+
+    //the position in the route where each racer last took a wrong turn so it only happens once per junction
+    private final int[] mistake;
+
+    //the place each racer finished in starting at 1, 0 if the racer hasn't finished
+    private final int[] place;
+
+    //the state of each racer's random numbers, seeded so the same maze is raced the same way
+    private final long[] seed;
+
+    //the chance of taking a wrong turn at a junction
+    private final double mistakeRate;
+
+    //how many racers have reached the finish
+    private final AtomicInteger finished = new AtomicInteger();
+
+    //the threads the chunks are updated on
+    private final ForkJoinPool pool;
+
+    //each chunk of racers and the task that updates them all, created once and reused every update
+    private final Chunk[] chunks;
+    private final Tick tick;
+
+    /**
+     * Create the racers at the start of the maze
+     * @param count The number of racers
+     * @param grid The walls of the maze
+     * @param minSpeed The slowest a racer can move per update in cells
+     * @param maxSpeed The fastest a racer can move per update in cells
+     * @param mistakeRate The chance of taking a wrong turn at a junction
+     * @param seed Decides the speed and wrong turns of each racer
+     * @param pool The threads the racers are updated on, null to update every racer on the calling thread
+     */
+    public AgentSwarm(final int count, final WallGrid grid, final double minSpeed, final double maxSpeed, final double mistakeRate, final long seed, final ForkJoinPool pool)
+    {
+        this.count = count;
+        this.mistakeRate = mistakeRate;
+        this.pool = pool;
+
+        this.x = new double[count];
+        this.y = new double[count];
+        this.vx = new double[count];
+        this.vy = new double[count];
+        this.angle = new double[count];
+        this.speed = new double[count];
+        this.cursor = new int[count];
+        this.detour = new int[count];
+        this.mistake = new int[count];
+        this.place = new int[count];
+        this.seed = new long[count];
+
+        //split the racers evenly into a chunk per thread, a single chunk is updated on the calling thread
+        this.chunks = new Chunk[getChunks(count, (pool != null) ? pool.getParallelism() : 1)];
+
+        for (int i = 0; i < chunks.length; i++)
+        {
+            chunks[i] = new Chunk((int)((long)count * i / chunks.length), (int)((long)count * (i + 1) / chunks.length));
+        }
+
+        this.tick = new Tick();
+
+        reset(grid, minSpeed, maxSpeed, seed);
+    }
+
+    /**
+     * Put every racer back at the start of a new maze, the arrays don't depend on the maze so they are kept
+     * @param grid The walls of the maze
+     * @param minSpeed The slowest a racer can move per update in cells
+     * @param maxSpeed The fastest a racer can move per update in cells
+     * @param seed Decides the speed and wrong turns of each racer
+     */
+    public void reset(final WallGrid grid, final double minSpeed, final double maxSpeed, final long seed)
+    {
+        this.grid = grid;
+        this.route = grid.getJunctions().findPath(grid.getStart(), grid.getFinish());
+        this.finished.set(0);
+
+        final double startX = grid.getCol(grid.getStart()) + .5;
+        final double startY = grid.getRow(grid.getStart()) + .5;
+
+        for (int i = 0; i < count; i++)
+        {
+            x[i] = startX;
+            y[i] = startY;
+            angle[i] = FACE_SOUTH;
+
+            //head for the 2nd cell of the route, if the start is the finish the first update finishes the race
+            cursor[i] = Math.min(1, route.length - 1);
+            detour[i] = -1;
+            mistake[i] = -1;
+            vx[i] = 0;
+            vy[i] = 0;
+            place[i] = 0;
+
+            //the seed can't be 0 or every number would be 0
+            this.seed[i] = MazeMath.mixSeed(seed, i) | 1L;
+
+            speed[i] = minSpeed + (nextDouble(i) * (maxSpeed - minSpeed));
+        }
+    }
+
+    /**
+     * Get the number of chunks the racers are split into, if there is only 1 no threads are needed
+     * @param count The number of racers
+     * @param threads The number of threads available
+     * @return int
+     */
+    public static int getChunks(final int count, final int threads)
+    {
+        return Math.max(1, Math.min(threads, count / MIN_CHUNK_SIZE));
+    }
+
+    /**
+     * Update a chunk of racers
+     */
+    private final class Chunk extends RecursiveAction
+    {
+        //the first racer and one past the last racer
+        private final int from, to;
+
+        private Chunk(final int from, final int to)
+        {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            update(from, to);
+        }
+    }
+
+    /**
+     * Update every chunk in parallel
+     */
+    private final class Tick extends RecursiveAction
+    {
+        @Override
+        protected void compute()
+        {
+            for (Chunk chunk : chunks)
+            {
+                chunk.reinitialize();
+            }
+
+            invokeAll(chunks);
+        }
+    }
+
+    /**
+     * Move every racer that hasn't finished
+     */
+    public void update()
+    {
+        if (chunks.length == 1)
+        {
+            update(0, count);
+        }
+        else
+        {
+            tick.reinitialize();
+            pool.invoke(tick);
+        }
+    }
+
+    /**
+     * Move a range of racers, each racer is only ever touched by one thread
+     * @param from The first racer
+     * @param to One past the last racer
+     */
+    private void update(final int from, final int to)
+    {
+        for (int i = from; i < to; i++)
+        {
+            //this racer has already finished
+            if (place[i] != 0)
+                continue;
+
+            final int target = (detour[i] != -1) ? detour[i] : route[cursor[i]];
+            final double targetX = grid.getCol(target) + .5;
+            final double targetY = grid.getRow(target) + .5;
+            final double dx = targetX - x[i];
+            final double dy = targetY - y[i];
+
+            //neighboring cells are always in a straight line so we only move along 1 axis
+            if (Math.abs(dx) + Math.abs(dy) <= speed[i])
+            {
+                vx[i] = dx;
+                vy[i] = dy;
+                x[i] = targetX;
+                y[i] = targetY;
+                arrive(i);
+            }
+            else if (dx != 0)
+            {
+                vx[i] = (dx > 0) ? speed[i] : -speed[i];
+                vy[i] = 0;
+                angle[i] = (dx > 0) ? FACE_EAST : FACE_WEST;
+                x[i] += vx[i];
+            }
+            else
+            {
+                vx[i] = 0;
+                vy[i] = (dy > 0) ? speed[i] : -speed[i];
+                angle[i] = (dy > 0) ? FACE_SOUTH : FACE_NORTH;
+                y[i] += vy[i];
+            }
+        }
+    }
+
+    /**
+     * The racer has reached the center of the cell it was heading to, decide where to go next
+     * @param i The racer
+     */
+    private void arrive(final int i)
+    {
+        //we reached the wrong cell so head back to the route
+        if (detour[i] != -1)
+        {
+            detour[i] = -1;
+            return;
+        }
+
+        final int position = cursor[i];
+
+        if (position == route.length - 1)
+        {
+            place[i] = finished.incrementAndGet();
+            return;
+        }
+
+        //we may take a wrong turn, but only once at each cell of the route
+        if (mistake[i] != position && mistakeRate > 0)
+        {
+            mistake[i] = position;
+
+            if (nextDouble(i) < mistakeRate)
+            {
+                detour[i] = getWrongTurn(i, position);
+
+                if (detour[i] != -1)
+                    return;
+            }
+        }
+
+        cursor[i] = position + 1;
+    }
+
+    /**
+     * Pick an open neighbor that isn't on the route
+     * @param i The racer
+     * @param position The position in the route of the cell the racer is at
+     * @return int The index of the cell, -1 if there is no wrong turn here
+     */
+    private int getWrongTurn(final int i, final int position)
+    {
+        final int current = route[position];
+        final int next = route[position + 1];
+        final int previous = (position > 0) ? route[position - 1] : -1;
+
+        int options = 0;
+
+        for (byte wall : WallGrid.DIRECTIONS)
+        {
+            final int neighbor = grid.getNeighbor(current, wall);
+
+            if (grid.isOpen(current, wall) && neighbor != next && neighbor != previous)
+                options++;
+        }
+
+        if (options == 0)
+            return -1;
+
+        int pick = (int)(nextDouble(i) * options);
+
+        for (byte wall : WallGrid.DIRECTIONS)
+        {
+            final int neighbor = grid.getNeighbor(current, wall);
+
+            if (grid.isOpen(current, wall) && neighbor != next && neighbor != previous && pick-- == 0)
+                return neighbor;
+        }
+
+        return -1;
+    }
+
+    /**
+     * The next random number for a racer (xorshift), kept in the seed array so no Random is shared between threads
+     * @param i The racer
+     * @return double From 0 up to but not including 1
+     */
+    private double nextDouble(final int i)
+    {
+        long value = seed[i];
+        value ^= (value << 13);
+        value ^= (value >>> 7);
+        value ^= (value << 17);
+        seed[i] = value;
+
+        return (value >>> 11) * 0x1.0p-53;
+    }
+
+    public int getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * How many racers have reached the finish
+     * @return int
+     */
+    public int getFinished()
+    {
+        return finished.get();
+    }
+
+    /**
+     * Take a copy of where every racer is so they can be drawn on another thread
+     * @return float[] The center x then y of each racer in cells
+     */
+    public float[] getPositions()
+    {
+        final float[] positions = new float[count * 2];
+
+        for (int i = 0; i < count; i++)
+        {
+            positions[i * 2] = (float)x[i];
+            positions[(i * 2) + 1] = (float)y[i];
+        }
+
+        return positions;
+    }
+}
\ No newline at end of file
@@ -1,18 +1,14 @@
 package com.gamesbykevin.maze.player;
 
-import com.gamesbykevin.framework.base.Cell;
 import com.gamesbykevin.framework.base.Sprite;
 import com.gamesbykevin.framework.input.Keyboard;
-import com.gamesbykevin.framework.labyrinth.Labyrinth;
-import com.gamesbykevin.framework.labyrinth.Location;
-import com.gamesbykevin.framework.labyrinth.Location.Wall;
+import com.gamesbykevin.maze.profiler.FlightEvent;
 import com.gamesbykevin.maze.puzzle.Puzzle;
+import com.gamesbykevin.maze.puzzle.WallGrid;
+import com.gamesbykevin.maze.solver.SolverStrategy;
 
 import java.awt.event.KeyEvent;
-import java.awt.Polygon;
-import java.awt.Rectangle;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Random;
 
 /**
  * The object representing the player
@@ -29,11 +25,11 @@ public final class Player extends Sprite
     //speed player can move
     private double velocity; 
     
-    //the area that is the current player
-    private Polygon boundary;
-    
     //draw any cells within the range to prevent performance issues
-    private static final int RENDER_RANGE = 15;
+    static final int RENDER_RANGE = 15;
+    
+    //allow for rounding errors when checking which cell a side of the player is in
+    private static final double EPSILON = 1e-9;
     
     //angle we are facing
     private double angle = FACE_SOUTH;
@@ -41,12 +37,36 @@ public final class Player extends Sprite
     //where we want to end up facing (for AI)
     private double angleDestination = FACE_SOUTH;
     
-    //the path for the AI to remember where it has been
-    private List<Cell> path;
+    //decides which cell the AI moves to next
+    private SolverStrategy solver;
+    
+    //the cell the AI is moving to, -1 if the AI hasn't been setup
+    private int target = -1;
+    
+    //the cell the AI was at before the target
+    private int previous = -1;
+    
+    //the chance of taking a wrong turn at a junction
+    private double mistakeRate = 0;
+    
+    //decides when to make a mistake, seeded so the same maze is solved the same way
+    private Random random;
+    
+    //the wrong cell we are heading into, -1 if we haven't taken a wrong turn
+    private int detour = -1;
+    
+    //the cell we took the wrong turn from and the cell the solver wanted, -1 if we haven't taken a wrong turn
+    private int resume = -1, pending = -1;
     
     //has the player solved the maze
     private boolean solved = false;
     
+    //the bit for each arrow key held when the keys are sent as a number instead of a Keyboard
+    public static final int KEY_LEFT  = 1;
+    public static final int KEY_RIGHT = 2;
+    public static final int KEY_UP    = 4;
+    public static final int KEY_DOWN  = 8;
+    
     private static final double FACE_EAST  = Math.toRadians(270);
     private static final double FACE_WEST  = Math.toRadians(90);
     private static final double FACE_NORTH = Math.toRadians(0);
@@ -56,6 +76,29 @@ public final class Player extends Sprite
     {
         //starting position will be in the center of the cell (0,0)
         super.setLocation(0.3, 0.3);
+        
+        //the player will be half the size of a cell
+        super.setWidth(Puzzle.CELL_WIDTH * .5);
+        super.setHeight(Puzzle.CELL_HEIGHT * .5);
+    }
+    
+    /**
+     * Put the player back at the start of a new maze facing south, so the same object can be used for every level
+     */
+    public void reset()
+    {
+        super.setLocation(0.3, 0.3);
+        super.resetVelocity();
+        
+        this.velocity = 0;
+        this.angle = FACE_SOUTH;
+        this.angleDestination = FACE_SOUTH;
+        this.target = -1;
+        this.previous = -1;
+        this.detour = -1;
+        this.resume = -1;
+        this.pending = -1;
+        this.solved = false;
     }
     
     public void setVelocity(final double velocity)
@@ -71,12 +114,8 @@ public final class Player extends Sprite
     {
         super.dispose();
         
-        boundary = null;
-        
-        if (path != null)
-            path.clear();
-        
-        path = null;
+        solver = null;
+        random = null;
     }
     
     public void setAngle(final double angle)
@@ -90,37 +129,12 @@ public final class Player extends Sprite
     }
     
     /**
-     * Check if the given cell is within range of the current position
-     * @param location
-     * @return boolean
+     * Take an immutable copy of the player so it can be drawn on another thread
+     * @return PlayerState
      */
-    public boolean hasRange(final Cell location)
-    {
-        //too many columns away
-        if (getX() > location.getCol() && getX() - location.getCol() > RENDER_RANGE)
-            return false;
-        if (location.getCol() > getX() && location.getCol() - getX() > RENDER_RANGE)
-            return false;
-        if (getY() > location.getRow() && getY() - location.getRow() > RENDER_RANGE)
-            return false;
-        if (location.getRow() > getY() && location.getRow() - getY() > RENDER_RANGE)
-            return false;
-        
-        return true;
-    }
-    
-    public Polygon getBoundary()
+    public PlayerState getState()
     {
-        return boundary;
-    }
-    
-    /**
-     * Set the Area for a visual representation of the Player position
-     * @param boundary 
-     */
-    public void setBoundary(final Polygon boundary)
-    {
-        this.boundary = boundary;
+        return new PlayerState(getX(), getY(), getAngle(), getWidth(), getHeight(), hasSolved());
     }
     
     /**
@@ -192,95 +206,226 @@ public final class Player extends Sprite
     }
     
     /**
-     * Detect if there is a collision with a wall.
-     * This is for the Top-Down and Isometric mazes.
-     * We also check here if the maze is solved
+     * Set the velocity from the arrow keys being held, the same as checkInput() where releasing a key stops that direction.
+     * This is used when the keys come from the network so the same keys always move the player the same way.
      * 
-     * @param labyrinth
-     * @throws Exception 
+     * @param keys The KEY_ bits of every arrow key held
      */
-    public void checkCollision(final Labyrinth labyrinth) throws Exception
+    public void applyInput(final int keys)
     {
-        //if we are not moving we don't need to check for collision
-        if (!hasVelocity())
-            return;
+        resetVelocity();
         
-        //if boundary not set then we can't check
-        if (getBoundary() == null)
-            return;
+        if ((keys & KEY_RIGHT) != 0)
+            setVelocityX(getVelocity());
         
-        //if out of bounds reset velocity
-        if (getX() + super.getVelocityX() < 0 || getY() + super.getVelocityY() < 0)
-        {
-            resetVelocity();
-            return;
-        }
+        if ((keys & KEY_LEFT) != 0)
+            setVelocityX(-getVelocity());
         
-        Rectangle tmp = getBoundary().getBounds();
-
-        List<Wall> walls = null;
-
-        int east = (int)(getX() + getVelocityX() + (double)(tmp.getWidth() / Puzzle.CELL_WIDTH));
-        int west = (int)(getX() + getVelocityX());
-
-        int south = (int)(getY() + getVelocityY() + (double)(tmp.getHeight() / Puzzle.CELL_HEIGHT));
-        int north = (int)(getY() + getVelocityY());
-
+        if ((keys & KEY_UP) != 0)
+            setVelocityY(-getVelocity());
+        
+        if ((keys & KEY_DOWN) != 0)
+            setVelocityY(getVelocity());
+    }
+    
+    /**
+     * Detect if there is a collision with a wall.
+     * This is for the Top-Down and Isometric mazes.
+     * The velocity is swept across every cell boundary it crosses and shortened to stop at the first wall,
+     * so nothing is skipped at high speed and nothing is allocated.
+     * We also check here if the maze is solved
+     * 
+     * @param grid The walls of the maze
+     */
+    public void checkCollision(final WallGrid grid)
+    {
         //if we found the goal no more work is necessary
-        if (labyrinth.getFinish().equals((int)super.getX(),(int)super.getY()) && east == west && north == south)
+        if (grid.isFinish(getLeftCol(getX()), getTopRow(getY())) && getLeftCol(getX()) == getRightCol(getX()) && getTopRow(getY()) == getBottomRow(getY()))
         {
             setSolved(true);
             resetVelocity();
             return;
         }
         
-        if (getVelocityX() > 0 && (int)getX() != east || getVelocityX() < 0 && (int)getX() != west)
+        //if we are not moving we don't need to check for collision
+        if (!hasVelocity())
+            return;
+        
+        //resolve each axis separately, the vertical sweep uses where the horizontal sweep ends
+        setVelocityX(sweepX(grid, getX(), getY(), getVelocityX()));
+        setVelocityY(sweepY(grid, getX() + getVelocityX(), getY(), getVelocityY()));
+    }
+    
+    /**
+     * Sweep the player horizontally
+     * @param grid The walls of the maze
+     * @param x Left side of the player in cells
+     * @param y Top side of the player in cells
+     * @param velocity The distance we want to move in cells
+     * @return double The distance we can move before hitting a wall
+     */
+    private double sweepX(final WallGrid grid, final double x, final double y, final double velocity)
+    {
+        final int top = getTopRow(y);
+        final int bottom = getBottomRow(y);
+        
+        if (velocity > 0)
         {
-            //if north and south row is different we are hitting a wall on the side
-            if (north != south)
+            final double right = x + getExtentX();
+            
+            //check each column boundary the right side crosses
+            for (int boundary = (int)Math.ceil(right - EPSILON); boundary < right + velocity; boundary++)
             {
-                resetVelocity();
-                walls = null;
+                if (isBlockedX(grid, boundary, top, bottom, WallGrid.EAST, boundary - 1, boundary))
+                    return Math.max(0, boundary - right);
             }
-            else
+        }
+        else if (velocity < 0)
+        {
+            //check each column boundary the left side crosses
+            for (int boundary = (int)Math.floor(x + EPSILON); boundary > x + velocity; boundary--)
             {
-                walls = labyrinth.getLocation((int)getX(), (int)getY()).getWalls();
+                if (isBlockedX(grid, boundary, top, bottom, WallGrid.WEST, boundary, boundary - 1))
+                    return Math.min(0, boundary - x);
             }
         }
         
-        if (getVelocityY() > 0 && (int)getY() != south || getVelocityY() < 0 && (int)getY() != north)
+        return velocity;
+    }
+    
+    /**
+     * Sweep the player vertically
+     * @param grid The walls of the maze
+     * @param x Left side of the player in cells
+     * @param y Top side of the player in cells
+     * @param velocity The distance we want to move in cells
+     * @return double The distance we can move before hitting a wall
+     */
+    private double sweepY(final WallGrid grid, final double x, final double y, final double velocity)
+    {
+        final int left = getLeftCol(x);
+        final int right = getRightCol(x);
+        
+        if (velocity > 0)
         {
-            //if east and west column is different we are hitting a wall on the side
-            if (east != west)
+            final double bottom = y + getExtentY();
+            
+            //check each row boundary the bottom side crosses
+            for (int boundary = (int)Math.ceil(bottom - EPSILON); boundary < bottom + velocity; boundary++)
             {
-                resetVelocity();
-                walls = null;
+                if (isBlockedY(grid, boundary, left, right, WallGrid.SOUTH, boundary - 1, boundary))
+                    return Math.max(0, boundary - bottom);
             }
-            else
+        }
+        else if (velocity < 0)
+        {
+            //check each row boundary the top side crosses
+            for (int boundary = (int)Math.floor(y + EPSILON); boundary > y + velocity; boundary--)
             {
-                walls = labyrinth.getLocation((int)getX(), (int)getY()).getWalls();
+                if (isBlockedY(grid, boundary, left, right, WallGrid.NORTH, boundary, boundary - 1))
+                    return Math.min(0, boundary - y);
             }
         }
         
-        //since the position has changed check for wall collision
-        if (walls != null && !walls.isEmpty())
+        return velocity;
+    }
+    
+    /**
+     * Can the player cross a column boundary
+     * @param grid The walls of the maze
+     * @param boundary The column boundary
+     * @param top The first row the player is in
+     * @param bottom The last row the player is in
+     * @param wall The wall we would pass through
+     * @param from The column we are leaving
+     * @param to The column we are entering
+     * @return boolean true if there is a wall in the way
+     */
+    private boolean isBlockedX(final WallGrid grid, final int boundary, final int top, final int bottom, final byte wall, final int from, final int to)
+    {
+        //we can't leave the maze
+        if (boundary <= 0 || boundary >= grid.getCols())
+            return true;
+        
+        for (int row = top; row <= bottom; row++)
         {
-            //if moving east and there is an east wall stop velocity
-            if (super.getVelocityX() > 0 && walls.indexOf(Wall.East) > -1)
-                super.resetVelocityX();
-
-            //if moving south and there is a south wall stop velocity
-            if (super.getVelocityY() > 0 && walls.indexOf(Wall.South) > -1)
-                super.resetVelocityY();
-
-            //if moving west and there is a west wall stop velocity
-            if (super.getVelocityX() < 0 && walls.indexOf(Wall.West) > -1)
-                super.resetVelocityX();
-
-            //if moving north and there is a north wall stop velocity
-            if (super.getVelocityY() < 0 && walls.indexOf(Wall.North) > -1)
-                super.resetVelocityY();
+            if (grid.hasWall(from, row, wall))
+                return true;
+            
+            //if we are in more than 1 row we can't have a wall between them in the column we enter
+            if (row < bottom && grid.hasWall(to, row, WallGrid.SOUTH))
+                return true;
         }
+        
+        return false;
+    }
+    
+    /**
+     * Can the player cross a row boundary
+     * @param grid The walls of the maze
+     * @param boundary The row boundary
+     * @param left The first column the player is in
+     * @param right The last column the player is in
+     * @param wall The wall we would pass through
+     * @param from The row we are leaving
+     * @param to The row we are entering
+     * @return boolean true if there is a wall in the way
+     */
+    private boolean isBlockedY(final WallGrid grid, final int boundary, final int left, final int right, final byte wall, final int from, final int to)
+    {
+        //we can't leave the maze
+        if (boundary <= 0 || boundary >= grid.getRows())
+            return true;
+        
+        for (int col = left; col <= right; col++)
+        {
+            if (grid.hasWall(col, from, wall))
+                return true;
+            
+            //if we are in more than 1 column we can't have a wall between them in the row we enter
+            if (col < right && grid.hasWall(col, to, WallGrid.EAST))
+                return true;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * The width of the player in cells
+     * @return double
+     */
+    private double getExtentX()
+    {
+        return getWidth() / Puzzle.CELL_WIDTH;
+    }
+    
+    /**
+     * The height of the player in cells
+     * @return double
+     */
+    private double getExtentY()
+    {
+        return getHeight() / Puzzle.CELL_HEIGHT;
+    }
+    
+    private int getLeftCol(final double x)
+    {
+        return (int)Math.floor(x + EPSILON);
+    }
+    
+    private int getRightCol(final double x)
+    {
+        return (int)Math.ceil(x + getExtentX() - EPSILON) - 1;
+    }
+    
+    private int getTopRow(final double y)
+    {
+        return (int)Math.floor(y + EPSILON);
+    }
+    
+    private int getBottomRow(final double y)
+    {
+        return (int)Math.ceil(y + getExtentY() - EPSILON) - 1;
     }
     
     /**
@@ -303,195 +448,296 @@ public final class Player extends Sprite
     }
     
     /**
-     * Artificial Intelligence logic to solve the maze
-     * @param labyrinth
-     * @throws Exception 
+     * Setup the AI to solve a new maze
+     * @param solver The strategy deciding which cell to move to next
+     * @param grid The walls of the maze
+     * @param mistakeRate The chance (0 - 1) of taking a wrong turn at a junction
+     * @param seed Seed deciding when the mistakes are made and any random choices the solver makes
+     */
+    public void setSolver(final SolverStrategy solver, final WallGrid grid, final double mistakeRate, final long seed)
+    {
+        this.solver = solver;
+        this.mistakeRate = mistakeRate;
+        
+        //keep the same Random between mazes, setting the seed gives the same numbers as a new one
+        if (random == null)
+            this.random = new Random(seed);
+        else
+            this.random.setSeed(seed);
+        
+        this.target = grid.getIndex((int)getX(), (int)getY());
+        this.previous = -1;
+        this.detour = -1;
+        this.resume = -1;
+        this.pending = -1;
+        
+        solver.reset(grid, target, random);
+    }
+    
+    /**
+     * Artificial Intelligence logic to solve the maze.
+     * The solver decides which cell to go to next, here we move there and make the odd wrong turn.
+     * @param grid The walls of the maze
      */
-    public void checkAgent(final Labyrinth labyrinth) throws Exception
+    public void checkAgent(final WallGrid grid)
     {
-        if (hasSolved())
+        if (hasSolved() || solver == null)
             return;
         
-        if (path == null)
+        //if all 4 corners of Location are not at the target we need to move there
+        if (!hasReached(grid.getCol(target), grid.getRow(target)))
         {
-            path = new ArrayList<>();
-            path.add(new Cell((int)super.getX(),(int)super.getY()));
+            moveTowards(grid.getCol(target), grid.getRow(target));
+            return;
         }
         
-        //3d mode does not have to worry about the boundary
-        if (getBoundary() == null && !is3D())
+        //we reached the wrong turn so head back
+        if (target == detour)
+        {
+            detour = -1;
+            previous = target;
+            target = resume;
             return;
+        }
         
-        final int index = (path.size() - 1);
-
-        Cell nextCell = path.get(index);
+        //we are back where we took the wrong turn so continue where the solver wanted
+        if (pending != -1)
+        {
+            previous = target;
+            target = pending;
+            resume = -1;
+            pending = -1;
+            return;
+        }
         
-        int east, west, north, south;
+        //if we found the goal no more work is necessary
+        if (target == grid.getFinish())
+        {
+            setSolved(true);
+            resetVelocity();
+            return;
+        }
         
-        if (!is3D())
+        final Object event = FlightEvent.AiDecision.begin();
+        
+        final int next = solver.next(grid, target);
+        
+        //at a junction we may take a wrong turn
+        final int wrong = (next != -1 && random.nextDouble() < mistakeRate) ? getWrongTurn(grid, target, next, previous) : -1;
+        
+        if (event != null)
+            FlightEvent.AiDecision.commit(event, grid.getCol(target), grid.getRow(target), solver.getClass().getSimpleName(), next == previous, wrong != -1);
+        
+        if (next == -1)
         {
-            Rectangle bounds = getBoundary().getBounds();
-
-            east = (int)(getX() + (double)(bounds.getWidth() / Puzzle.CELL_WIDTH));
-            west = (int)(getX());
-
-            south = (int)(getY() + (double)(bounds.getHeight() / Puzzle.CELL_HEIGHT));
-            north = (int)(getY());
+            //the solver is stuck
+            resetVelocity();
+            return;
         }
-        else
+        
+        if (wrong != -1)
+        {
+            detour = wrong;
+            resume = target;
+            pending = next;
+        }
+        
+        previous = target;
+        target = (wrong != -1) ? wrong : next;
+    }
+    
+    /**
+     * Pick a random open neighbor that the solver didn't choose
+     * @param grid The walls of the maze
+     * @param index The cell we are at
+     * @param next The cell the solver chose
+     * @param previous The cell we came from, -1 if none
+     * @return int The index of the neighbor, -1 if this cell isn't a junction
+     */
+    private int getWrongTurn(final WallGrid grid, final int index, final int next, final int previous)
+    {
+        int count = 0;
+        
+        for (byte wall : WallGrid.DIRECTIONS)
         {
-            //if 3d then there is only 1 point, not 4
-            east = west = (int)getX();
-            south = north = (int)getY();
+            final int neighbor = grid.getNeighbor(index, wall);
+            
+            if (grid.isOpen(index, wall) && neighbor != next && neighbor != previous)
+                count++;
         }
         
-        //if all 4 corners of Location are not at the next Cell we need to move there
-        if (!nextCell.equals(west, north) || !nextCell.equals(east, north) || !nextCell.equals(east, south) || !nextCell.equals(west, south))
+        if (count == 0)
+            return -1;
+        
+        int choice = random.nextInt(count);
+        
+        for (byte wall : WallGrid.DIRECTIONS)
         {
-            if (west < nextCell.getCol() || east < nextCell.getCol())
+            final int neighbor = grid.getNeighbor(index, wall);
+            
+            if (grid.isOpen(index, wall) && neighbor != next && neighbor != previous)
             {
-                //velocity for 3d is handled differently
-                if (is3D())
-                {
-                    setAngleDestination(FACE_EAST);
-                    
-                    if (getAngle() != getAngleDestination())
-                    {
-                        //the current angle is not yet at the destination so we need to determine where to turn
-                        adjustTurnVelocity();
-                    }
-                    else
-                    {
-                        setVelocityY(-getVelocity());
-                    }
-                }
-                else
-                {
-                    resetVelocity();
-                    setVelocityX(getVelocity());
-                }
+                if (choice == 0)
+                    return neighbor;
+                
+                choice--;
             }
-            
-            if (west > nextCell.getCol() || east > nextCell.getCol())
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * The column the east side of the player is in, if 3d there is only 1 point
+     * @return int
+     */
+    private int getEastCol()
+    {
+        return (is3D()) ? (int)getX() : (int)(getX() + (getWidth() / Puzzle.CELL_WIDTH));
+    }
+    
+    private int getWestCol()
+    {
+        return (int)getX();
+    }
+    
+    /**
+     * The row the south side of the player is in, if 3d there is only 1 point
+     * @return int
+     */
+    private int getSouthRow()
+    {
+        return (is3D()) ? (int)getY() : (int)(getY() + (getHeight() / Puzzle.CELL_HEIGHT));
+    }
+    
+    private int getNorthRow()
+    {
+        return (int)getY();
+    }
+    
+    /**
+     * Are all 4 corners of the player inside the cell
+     * @param col Column of the cell
+     * @param row Row of the cell
+     * @return boolean
+     */
+    private boolean hasReached(final int col, final int row)
+    {
+        return (getWestCol() == col && getEastCol() == col && getNorthRow() == row && getSouthRow() == row);
+    }
+    
+    /**
+     * Set the velocity/angle so the AI moves towards the cell
+     * @param col Column of the cell
+     * @param row Row of the cell
+     */
+    private void moveTowards(final int col, final int row)
+    {
+        final int east = getEastCol();
+        final int west = getWestCol();
+        final int south = getSouthRow();
+        final int north = getNorthRow();
+        
+        if (west < col || east < col)
+        {
+            //velocity for 3d is handled differently
+            if (is3D())
             {
-                //velocity for 3d is handled differently
-                if (is3D())
+                setAngleDestination(FACE_EAST);
+                
+                if (getAngle() != getAngleDestination())
                 {
-                    setAngleDestination(FACE_WEST);
-                    
-                    if (getAngle() != getAngleDestination())
-                    {
-                        //the current angle is not yet at the destination so we need to determine where to turn
-                        adjustTurnVelocity();
-                    }
-                    else
-                    {
-                        setVelocityY(-getVelocity());
-                    }
+                    //the current angle is not yet at the destination so we need to determine where to turn
+                    adjustTurnVelocity();
                 }
                 else
                 {
-                    resetVelocity();
-                    setVelocityX(-getVelocity());
+                    setVelocityY(-getVelocity());
                 }
             }
-            
-            if (north < nextCell.getRow() || south < nextCell.getRow())
+            else
+            {
+                resetVelocity();
+                setVelocityX(getVelocity());
+            }
+        }
+        
+        if (west > col || east > col)
+        {
+            //velocity for 3d is handled differently
+            if (is3D())
             {
-                //velocity for 3d is handled differently
-                if (is3D())
+                setAngleDestination(FACE_WEST);
+                
+                if (getAngle() != getAngleDestination())
                 {
-                    setAngleDestination(FACE_SOUTH);
-                    
-                    if (getAngle() != getAngleDestination())
-                    {
-                        //the current angle is not yet at the destination so we need to determine where to turn
-                        adjustTurnVelocity();
-                    }
-                    else
-                    {
-                        setVelocityY(-getVelocity());
-                    }
+                    //the current angle is not yet at the destination so we need to determine where to turn
+                    adjustTurnVelocity();
                 }
                 else
                 {
-                    resetVelocity();
-                    setVelocityY(getVelocity());
+                    setVelocityY(-getVelocity());
                 }
             }
-            
-            if (north > nextCell.getRow() || south > nextCell.getRow())
+            else
+            {
+                resetVelocity();
+                setVelocityX(-getVelocity());
+            }
+        }
+        
+        if (north < row || south < row)
+        {
+            //velocity for 3d is handled differently
+            if (is3D())
             {
-                //velocity for 3d is handled differently
-                if (is3D())
+                setAngleDestination(FACE_SOUTH);
+                
+                if (getAngle() != getAngleDestination())
                 {
-                    setAngleDestination(FACE_NORTH);
-                    
-                    if (getAngle() != getAngleDestination())
-                    {
-                        //the current angle is not yet at the destination so we need to determine where to turn
-                        adjustTurnVelocity();
-                    }
-                    else
-                    {
-                        setVelocityY(-getVelocity());
-                    }
+                    //the current angle is not yet at the destination so we need to determine where to turn
+                    adjustTurnVelocity();
                 }
                 else
                 {
-                    resetVelocity();
                     setVelocityY(-getVelocity());
                 }
             }
-        }
-        else
-        {
-            //if we found the goal no more work is necessary
-            if (labyrinth.getFinish().equals((int)super.getX(),(int)super.getY()))
+            else
             {
-                setSolved(true);
                 resetVelocity();
-                return;
+                setVelocityY(getVelocity());
             }
-            
-            //get the Location based on the current position
-            Location tmp = labyrinth.getLocation(nextCell);
-
-            //markt the current cell as visited so we don't check it in the future
-            tmp.markVisited();
-
-            List<Cell> newDirection = new ArrayList<>();
-
-            //if we can move east and haven't visited the next cell yet and it exists
-            if (!tmp.hasWall(Wall.East) && labyrinth.hasLocation(nextCell.getCol() + 1, nextCell.getRow()) && !labyrinth.getLocation(nextCell.getCol() + 1, nextCell.getRow()).hasVisited())
-                newDirection.add(new Cell(nextCell.getCol() + 1, nextCell.getRow()));
-
-            //if we can move west and haven't visited the next cell yet and it exists
-            if (!tmp.hasWall(Wall.West) && labyrinth.hasLocation(nextCell.getCol() - 1, nextCell.getRow()) && !labyrinth.getLocation(nextCell.getCol() - 1, nextCell.getRow()).hasVisited())
-                newDirection.add(new Cell(nextCell.getCol() - 1, nextCell.getRow()));
-
-            //if we can move south and haven't visited the next cell yet and it exists
-            if (!tmp.hasWall(Wall.South) && labyrinth.hasLocation(nextCell.getCol(), nextCell.getRow() + 1) && !labyrinth.getLocation(nextCell.getCol(), nextCell.getRow() + 1).hasVisited())
-                newDirection.add(new Cell(nextCell.getCol(), nextCell.getRow() + 1));
-
-            //if we can move south and haven't visited the next cell yet and it exists
-            if (!tmp.hasWall(Wall.North) && labyrinth.hasLocation(nextCell.getCol(), nextCell.getRow() - 1) && !labyrinth.getLocation(nextCell.getCol(), nextCell.getRow() - 1).hasVisited())
-                newDirection.add(new Cell(nextCell.getCol(), nextCell.getRow() - 1));
-
-            if (!newDirection.isEmpty())
+        }
+        
+        if (north > row || south > row)
+        {
+            //velocity for 3d is handled differently
+            if (is3D())
             {
-                path.add(newDirection.get((int)(Math.random() * newDirection.size())));
+                setAngleDestination(FACE_NORTH);
+                
+                if (getAngle() != getAngleDestination())
+                {
+                    //the current angle is not yet at the destination so we need to determine where to turn
+                    adjustTurnVelocity();
+                }
+                else
+                {
+                    setVelocityY(-getVelocity());
+                }
             }
             else
             {
-                //we are at a dead end go back to previous spot
-                path.remove(path.size() - 1);
+                resetVelocity();
+                setVelocityY(-getVelocity());
             }
         }
     }
     
     /**
-     * Here we will determine if the AI has finished turning towards the next destination
+     * Here we will determine if the AI has finished turning towards the next destination.
+     * A turn to face the opposite way can go either way, the seeded random decides so a replay turns the same way
      */
     private void adjustTurnVelocity()
     {
@@ -504,7 +750,7 @@ public final class Player extends Sprite
             setVelocityX(getVelocity());
         
         if (getAngle() == FACE_EAST && getAngleDestination() == FACE_WEST)
-            setVelocityX((Math.random() > .5) ? -getVelocity() : getVelocity());
+            setVelocityX(random.nextBoolean() ? -getVelocity() : getVelocity());
 
         if (getAngle() == FACE_WEST && getAngleDestination() == FACE_NORTH)
             setVelocityX(getVelocity());
@@ -513,7 +759,7 @@ public final class Player extends Sprite
             setVelocityX(-getVelocity());
         
         if (getAngle() == FACE_WEST && getAngleDestination() == FACE_EAST)
-            setVelocityX((Math.random() > .5) ? -getVelocity() : getVelocity());
+            setVelocityX(random.nextBoolean() ? -getVelocity() : getVelocity());
         
         if (getAngle() == FACE_SOUTH && getAngleDestination() == FACE_EAST)
             setVelocityX(-getVelocity());
@@ -522,7 +768,7 @@ public final class Player extends Sprite
             setVelocityX(getVelocity());
         
         if (getAngle() == FACE_SOUTH && getAngleDestination() == FACE_NORTH)
-            setVelocityX((Math.random() > .5) ? -getVelocity() : getVelocity());
+            setVelocityX(random.nextBoolean() ? -getVelocity() : getVelocity());
 
         if (getAngle() == FACE_NORTH && getAngleDestination() == FACE_EAST)
             setVelocityX(getVelocity());
@@ -531,7 +777,7 @@ public final class Player extends Sprite
             setVelocityX(-getVelocity());
         
         if (getAngle() == FACE_NORTH && getAngleDestination() == FACE_SOUTH)
-            setVelocityX((Math.random() > .5) ? -getVelocity() : getVelocity());
+            setVelocityX(random.nextBoolean() ? -getVelocity() : getVelocity());
         
         //determine how close are we to the destination
         final double result = getAngleDestination() - getAngle();
@@ -0,0 +1,92 @@
+package com.gamesbykevin.maze.player;
+
+/**
+ * An immutable copy of a Player taken at the end of an update so it can be drawn on another thread
+ * @author GOD
+ */
+public final class PlayerState
+{
+    //position, angle and size of the player
+    private final double x, y, angle, width, height;
+
+    //has the player solved the maze
+    private final boolean solved;
+
+    public PlayerState(final double x, final double y, final double angle, final double width, final double height, final boolean solved)
+    {
+        this.x = x;
+        this.y = y;
+        this.angle = angle;
+        this.width = width;
+        this.height = height;
+        this.solved = solved;
+    }
+
+    public double getX()
+    {
+        return this.x;
+    }
+
+    public double getY()
+    {
+        return this.y;
+    }
+
+    public double getAngle()
+    {
+        return this.angle;
+    }
+
+    public double getWidth()
+    {
+        return this.width;
+    }
+
+    public double getHeight()
+    {
+        return this.height;
+    }
+
+    public boolean hasSolved()
+    {
+        return this.solved;
+    }
+
+    /**
+     * The first column within render range
+     * @return int
+     */
+    public int getRangeStartCol()
+    {
+        return Math.max(0, (int)Math.ceil(x - Player.RENDER_RANGE));
+    }
+
+    /**
+     * The last column within render range
+     * @param cols Total number of columns in the maze
+     * @return int
+     */
+    public int getRangeEndCol(final int cols)
+    {
+        return Math.min(cols - 1, (int)Math.floor(x + Player.RENDER_RANGE));
+    }
+
+    /**
+     * The first row within render range
+     * @return int
+     */
+    public int getRangeStartRow()
+    {
+        return Math.max(0, (int)Math.ceil(y - Player.RENDER_RANGE));
+    }
+
+    /**
+     * The last row within render range
+     * @param rows Total number of rows in the maze
+     * @return int
+     */
+    public int getRangeEndRow(final int rows)
+    {
+        return Math.min(rows - 1, (int)Math.floor(y + Player.RENDER_RANGE));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,265 @@
+package com.gamesbykevin.maze.profiler;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Custom JDK Flight Recorder events so a recording (e.g. -XX:StartFlightRecording) can be correlated with the gc and allocation data.
+ * The game is built for Java 7 so the event types are defined at runtime through jdk.jfr.EventFactory,
+ * if Flight Recorder isn't available or isn't recording every method does nothing.
+ * @author GOD
+ */
+public enum FlightEvent
+{
+    /**
+     * A maze being generated from start to finish
+     */
+    Generation("Maze Generation",
+        new String[]{"algorithm", "cols", "rows", "steps"},
+        new Class<?>[]{String.class, int.class, int.class, int.class}),
+
+    /**
+     * Puzzle being reset for the next level
+     */
+    LevelTransition("Level Transition",
+        new String[]{"level", "algorithm", "cols", "rows"},
+        new Class<?>[]{int.class, String.class, int.class, int.class}),
+
+    /**
+     * A single frame being rendered and drawn to the screen
+     */
+    Frame("Frame",
+        new String[]{"render", "cells"},
+        new Class<?>[]{String.class, int.class}),
+
+    /**
+     * The cpu opponent choosing where to go from a cell
+     */
+    AiDecision("AI Decision",
+        new String[]{"col", "row", "solver", "backtrack", "mistake"},
+        new Class<?>[]{int.class, int.class, String.class, boolean.class, boolean.class});
+
+    //the category every event is listed under
+    private static final String CATEGORY = "Maze";
+
+    //how long we trust the last check if the event is being recorded, a recording can be started or stopped at any time
+    private static final long CHECK_NANOS = 1000000000L;
+
+    //passed to methods without parameters so each call doesn't create an empty array
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    //creates the events of this type, null if flight recorder isn't available
+    private final Object factory;
+
+    //the type of this event so we can check if it is being recorded
+    private final Object type;
+
+    //was this event being recorded when last checked
+    private volatile boolean recording = false;
+
+    //when we last checked if this event is being recorded
+    private volatile long checked = 0;
+
+    private FlightEvent(final String label, final String[] names, final Class<?>[] types)
+    {
+        Object factory = null;
+        Object type = null;
+
+        if (Jfr.AVAILABLE)
+        {
+            try
+            {
+                final List<Object> annotations = new ArrayList<>();
+                annotations.add(Jfr.ANNOTATION.newInstance(Jfr.NAME, "com.gamesbykevin.maze." + name()));
+                annotations.add(Jfr.ANNOTATION.newInstance(Jfr.LABEL, label));
+                annotations.add(Jfr.ANNOTATION.newInstance(Jfr.CATEGORY, new String[]{CATEGORY}));
+
+                final List<Object> fields = new ArrayList<>();
+
+                for (int i = 0; i < names.length; i++)
+                {
+                    fields.add(Jfr.DESCRIPTOR.newInstance(types[i], names[i]));
+                }
+
+                factory = Jfr.CREATE.invoke(null, annotations, fields);
+                type = Jfr.GET_EVENT_TYPE.invoke(factory);
+            }
+            catch(Exception e)
+            {
+                e.printStackTrace();
+
+                factory = null;
+                type = null;
+            }
+        }
+
+        this.factory = factory;
+        this.type = type;
+    }
+
+    /**
+     * Is this event currently being recorded.
+     * The answer is cached for a second so the reflective check isn't made for every event.
+     * @return boolean
+     */
+    public boolean isRecording()
+    {
+        if (type == null)
+            return false;
+
+        final long now = System.nanoTime();
+
+        if (checked != 0 && now - checked < CHECK_NANOS)
+            return recording;
+
+        try
+        {
+            recording = (Boolean)Jfr.IS_ENABLED.invoke(type, NO_ARGUMENTS);
+        }
+        catch(Exception e)
+        {
+            recording = false;
+        }
+
+        checked = now;
+
+        return recording;
+    }
+
+    /**
+     * Start timing an event
+     * @return Object The event to be passed to commit(), null if this event isn't being recorded
+     */
+    public Object begin()
+    {
+        if (!isRecording())
+            return null;
+
+        try
+        {
+            final Object event = Jfr.NEW_EVENT.invoke(factory, NO_ARGUMENTS);
+            Jfr.BEGIN.invoke(event, NO_ARGUMENTS);
+            return event;
+        }
+        catch(Exception e)
+        {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Stop timing the event and write it to the recording.
+     * Check the event isn't null before calling so the values aren't boxed when nothing is recorded.
+     * @param event The event returned by begin(), if null nothing happens
+     * @param values The value for each field in the order they were declared
+     */
+    public void commit(final Object event, final Object... values)
+    {
+        if (event == null)
+            return;
+
+        try
+        {
+            Jfr.END.invoke(event, NO_ARGUMENTS);
+
+            //the recording may have a threshold this event didn't meet
+            if (!(Boolean)Jfr.SHOULD_COMMIT.invoke(event, NO_ARGUMENTS))
+                return;
+
+            for (int i = 0; i < values.length; i++)
+            {
+                Jfr.SET.invoke(event, i, values[i]);
+            }
+
+            Jfr.COMMIT.invoke(event, NO_ARGUMENTS);
+        }
+        catch(Exception e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * The flight recorder api looked up once, kept separate so it is loaded before the events are created
+     */
+    private static final class Jfr
+    {
+        //is flight recorder available in this virtual machine
+        private static final boolean AVAILABLE;
+
+        //the annotations describing each event
+        private static final Class<? extends Annotation> NAME, LABEL, CATEGORY;
+
+        //used to describe the event and its fields
+        private static final Constructor<?> ANNOTATION, DESCRIPTOR;
+
+        //jdk.jfr.EventFactory methods
+        private static final Method CREATE, GET_EVENT_TYPE, NEW_EVENT;
+
+        //jdk.jfr.EventType methods
+        private static final Method IS_ENABLED;
+
+        //jdk.jfr.Event methods
+        private static final Method BEGIN, END, SHOULD_COMMIT, SET, COMMIT;
+
+        static
+        {
+            boolean available = false;
+            Class<? extends Annotation> name = null, label = null, category = null;
+            Constructor<?> annotation = null, descriptor = null;
+            Method create = null, getEventType = null, newEvent = null, isEnabled = null;
+            Method begin = null, end = null, shouldCommit = null, set = null, commit = null;
+
+            try
+            {
+                name = Class.forName("jdk.jfr.Name").asSubclass(Annotation.class);
+                label = Class.forName("jdk.jfr.Label").asSubclass(Annotation.class);
+                category = Class.forName("jdk.jfr.Category").asSubclass(Annotation.class);
+
+                annotation = Class.forName("jdk.jfr.AnnotationElement").getConstructor(Class.class, Object.class);
+                descriptor = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class);
+
+                final Class<?> factory = Class.forName("jdk.jfr.EventFactory");
+                create = factory.getMethod("create", List.class, List.class);
+                getEventType = factory.getMethod("getEventType");
+                newEvent = factory.getMethod("newEvent");
+
+                isEnabled = Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+
+                final Class<?> event = Class.forName("jdk.jfr.Event");
+                begin = event.getMethod("begin");
+                end = event.getMethod("end");
+                shouldCommit = event.getMethod("shouldCommit");
+                set = event.getMethod("set", int.class, Object.class);
+                commit = event.getMethod("commit");
+
+                available = true;
+            }
+            catch(Exception e)
+            {
+                //flight recorder isn't available so the events won't be recorded
+                available = false;
+            }
+
+            AVAILABLE = available;
+            NAME = name;
+            LABEL = label;
+            CATEGORY = category;
+            ANNOTATION = annotation;
+            DESCRIPTOR = descriptor;
+            CREATE = create;
+            GET_EVENT_TYPE = getEventType;
+            NEW_EVENT = newEvent;
+            IS_ENABLED = isEnabled;
+            BEGIN = begin;
+            END = end;
+            SHOULD_COMMIT = shouldCommit;
+            SET = set;
+            COMMIT = commit;
+        }
+    }
+}
\ No newline at end of file
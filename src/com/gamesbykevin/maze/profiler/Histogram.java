@@ -0,0 +1,135 @@
+package com.gamesbykevin.maze.profiler;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent samples so we can report percentiles over a rolling window.
+ * Only one thread records the samples for a Phase, any thread can read the statistics.
+ * @author GOD
+ */
+public final class Histogram
+{
+    //the samples in nanoseconds, once full the oldest sample is replaced
+    private final long[] samples;
+
+    //where the next sample will be written
+    private volatile int index = 0;
+
+    //the total number of samples ever recorded
+    private volatile long count = 0;
+
+    //the sum of the samples in the window
+    private volatile long sum = 0;
+
+    public Histogram(final int size)
+    {
+        this.samples = new long[size];
+    }
+
+    /**
+     * Record a sample
+     * @param nanos Duration in nanoseconds
+     */
+    public void record(final long nanos)
+    {
+        //replace the oldest sample in the sum
+        sum += nanos - samples[index];
+
+        samples[index] = nanos;
+        index = (index + 1 == samples.length) ? 0 : index + 1;
+        count++;
+    }
+
+    /**
+     * Get the total number of samples ever recorded
+     * @return long
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Get the value at the given percentile of the samples in the window.
+     * The samples are copied so the thread recording is never blocked.
+     * @param percentile Between 0 and 1
+     * @return long Duration in nanoseconds, 0 if there are no samples
+     */
+    public long getPercentile(final double percentile)
+    {
+        final long[] sorted = getSorted();
+
+        if (sorted.length == 0)
+            return 0;
+
+        return sorted[(int)Math.min(sorted.length - 1, Math.floor(percentile * sorted.length))];
+    }
+
+    /**
+     * Get the largest sample in the window
+     * @return long Duration in nanoseconds, 0 if there are no samples
+     */
+    public long getMax()
+    {
+        long max = 0;
+
+        for (int i = 0, size = getSize(); i < size; i++)
+        {
+            if (samples[i] > max)
+                max = samples[i];
+        }
+
+        return max;
+    }
+
+    /**
+     * Get the average of the samples in the window without allocating
+     * @return long Duration in nanoseconds, 0 if there are no samples
+     */
+    public long getMean()
+    {
+        final int size = getSize();
+
+        return (size == 0) ? 0 : sum / size;
+    }
+
+    /**
+     * Get a recent sample without allocating
+     * @param age How many samples back, 0 is the most recent
+     * @return long Duration in nanoseconds, 0 if there is no sample that old
+     */
+    public long getSample(final int age)
+    {
+        if (age >= getSize())
+            return 0;
+
+        return samples[(index - 1 - age + samples.length) % samples.length];
+    }
+
+    /**
+     * Remove all samples
+     */
+    public void reset()
+    {
+        Arrays.fill(samples, 0);
+        index = 0;
+        count = 0;
+        sum = 0;
+    }
+
+    /**
+     * The number of samples in the window
+     * @return int
+     */
+    private int getSize()
+    {
+        return (int)Math.min(count, samples.length);
+    }
+
+    private long[] getSorted()
+    {
+        final long[] sorted = Arrays.copyOf(samples, getSize());
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.gamesbykevin.maze.profiler;
+
+/**
+ * The different parts of an update/frame we measure
+ * @author GOD
+ */
+public enum Phase
+{
+    //one step of generating the maze
+    Generation,
+
+    //the entire Puzzle update
+    PuzzleUpdate,
+
+    //the cpu deciding where to go next
+    Agent,
+
+    //moving every racer in a race
+    Swarm,
+
+    //drawing the maze for each type of render
+    TopDown,
+    Isometric,
+    FirstPerson,
+
+    //drawing the timer, level etc...
+    Hud,
+
+    //drawing the menu
+    Menu,
+
+    //drawing the rendered image onto the screen
+    Present,
+
+    //the entire frame from start to finish
+    Frame
+}
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.gamesbykevin.maze.profiler;
+
+import com.gamesbykevin.maze.main.CatchUpPolicy;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.ObjectName;
+
+/**
+ * Measures how long each Phase of an update/frame takes.
+ * Wrap the code to measure with start() and stop(), the timings are kept in a rolling Histogram per Phase.
+ * @author GOD
+ */
+public final class Profiler implements ProfilerMXBean
+{
+    //the name we register under with the platform MBean server
+    public static final String OBJECT_NAME = "com.gamesbykevin.maze:type=Profiler";
+
+    //how many of the most recent samples are kept for each Phase
+    private static final int WINDOW = 1024;
+
+    //one histogram per Phase
+    private static final Histogram[] HISTOGRAMS = new Histogram[Phase.values().length];
+
+    //do we record timings
+    private static volatile boolean enabled = true;
+
+    static
+    {
+        for (int i = 0; i < HISTOGRAMS.length; i++)
+        {
+            HISTOGRAMS[i] = new Histogram(WINDOW);
+        }
+    }
+
+    //the catch up counters of the game loop
+    private final CatchUpPolicy policy;
+
+    private Profiler(final CatchUpPolicy policy)
+    {
+        //only created when registering with the MBean server
+        this.policy = policy;
+    }
+
+    /**
+     * Register with the platform MBean server so the timings can be viewed while the game is running.
+     * If we aren't allowed (e.g. in an applet) the timings are still recorded.
+     * @param policy The policy used by the game loop to catch up after a stall
+     */
+    public static void register(final CatchUpPolicy policy)
+    {
+        try
+        {
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name))
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Profiler(policy), name);
+        }
+        catch(Exception e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Turn recording on/off without going through the MBean server,
+     * the histograms only support one thread recording so this must be off if several games update at once
+     * @param enabled Do we record timings
+     */
+    public static void setRecording(final boolean enabled)
+    {
+        Profiler.enabled = enabled;
+    }
+
+    /**
+     * Begin measuring
+     * @return long The current time to be passed to stop()
+     */
+    public static long start()
+    {
+        return System.nanoTime();
+    }
+
+    /**
+     * Finish measuring and record the duration
+     * @param phase The Phase we measured
+     * @param start The time returned by start()
+     */
+    public static void stop(final Phase phase, final long start)
+    {
+        if (enabled)
+            HISTOGRAMS[phase.ordinal()].record(System.nanoTime() - start);
+    }
+
+    /**
+     * Get the recorded timings for a Phase
+     * @param phase The Phase we want
+     * @return Histogram
+     */
+    public static Histogram getHistogram(final Phase phase)
+    {
+        return HISTOGRAMS[phase.ordinal()];
+    }
+
+    @Override
+    public Map<String, Long> getP50Nanos()
+    {
+        final Map<String, Long> result = new LinkedHashMap<>();
+
+        for (Phase phase : Phase.values())
+        {
+            result.put(phase.toString(), getHistogram(phase).getPercentile(.5));
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getP99Nanos()
+    {
+        final Map<String, Long> result = new LinkedHashMap<>();
+
+        for (Phase phase : Phase.values())
+        {
+            result.put(phase.toString(), getHistogram(phase).getPercentile(.99));
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getMaxNanos()
+    {
+        final Map<String, Long> result = new LinkedHashMap<>();
+
+        for (Phase phase : Phase.values())
+        {
+            result.put(phase.toString(), getHistogram(phase).getMax());
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getSamples()
+    {
+        final Map<String, Long> result = new LinkedHashMap<>();
+
+        for (Phase phase : Phase.values())
+        {
+            result.put(phase.toString(), getHistogram(phase).getCount());
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getCatchUp()
+    {
+        final Map<String, Long> result = new LinkedHashMap<>();
+
+        result.put("CappedCount", policy.getCappedCount());
+        result.put("DroppedUpdates", policy.getDroppedUpdates());
+        result.put("DilatedCount", policy.getDilatedCount());
+        result.put("DilatedUpdates", (long)policy.getDilatedUpdates());
+        result.put("FrameSkipCount", policy.getFrameSkipCount());
+        result.put("DroppedFrames", policy.getDroppedFrames());
+
+        return result;
+    }
+
+    @Override
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(final boolean enabled)
+    {
+        Profiler.enabled = enabled;
+    }
+
+    @Override
+    public void reset()
+    {
+        for (Histogram histogram : HISTOGRAMS)
+        {
+            histogram.reset();
+        }
+
+        policy.resetCounters();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.gamesbykevin.maze.profiler;
+
+import java.util.Map;
+
+/**
+ * The timings exposed through the platform MBean server so they can be viewed with JConsole
+ * @author GOD
+ */
+public interface ProfilerMXBean
+{
+    /**
+     * @return The median duration in nanoseconds of each Phase
+     */
+    public Map<String, Long> getP50Nanos();
+
+    /**
+     * @return The 99th percentile duration in nanoseconds of each Phase
+     */
+    public Map<String, Long> getP99Nanos();
+
+    /**
+     * @return The largest duration in nanoseconds of each Phase
+     */
+    public Map<String, Long> getMaxNanos();
+
+    /**
+     * @return The total number of samples recorded for each Phase
+     */
+    public Map<String, Long> getSamples();
+
+    /**
+     * @return How often the game loop fell behind and how many updates/frames were given up to catch up
+     */
+    public Map<String, Long> getCatchUp();
+
+    /**
+     * @return Are we currently recording timings
+     */
+    public boolean isEnabled();
+
+    /**
+     * @param enabled Do we record timings
+     */
+    public void setEnabled(boolean enabled);
+
+    /**
+     * Remove all recorded timings and catch up counters
+     */
+    public void reset();
+}
\ No newline at end of file
@@ -0,0 +1,539 @@
+package com.gamesbykevin.maze.puzzle;
+
+import java.util.Arrays;
+
+/**
+ * A breadth first search that moves 64 cells at a time.
+ * Each row of the maze is a set of 64 bit words with 1 bit for each cell, the passages in each direction are kept the same way.
+ * The frontier spreads 1 cell in every direction with a shift and a mask for each word, so a word of the frontier costs the same
+ * whether it has 1 cell or 64. Only the words the frontier is in are visited so a narrow corridor doesn't cost a whole row.
+ * The arrays are kept between searches, a flood should only be used by one thread.
+ * @author GOD
+ */
+public final class BitFlood
+{
+    //the dimensions of the maze
+    private final int cols, rows;
+
+    //the words in each row
+    private final int words;
+
+    //the cells with a passage in each direction, a bit is only set if the neighbor is inside the maze
+    private final long[] north, south, east, west;
+
+    //the cells reached so far, the cells reached in the last step and the cells reached in the next step
+    private final long[] seen, frontier, next;
+
+    //the words the frontier is in, the words the next step reaches and the step each word was last added to the next step
+    private final int[] active, touched;
+    private final int[] stamps;
+
+    //the number of words in the frontier
+    private int count = 0;
+
+    //the number of steps in the last search, and the number of cells it reached
+    private int depth = 0, reached = 0;
+
+    /**
+     * Create a flood for a finished maze
+     * @param grid The walls of the maze
+     */
+    public BitFlood(final WallGrid grid)
+    {
+        this(grid.getCols(), grid.getRows(), getWalls(grid));
+    }
+
+    /**
+     * Create a flood from the wall bits
+     * @param cols Total number of columns
+     * @param rows Total number of rows
+     * @param walls The wall bits for each cell, index = (row * cols) + col
+     */
+    public BitFlood(final int cols, final int rows, final byte[] walls)
+    {
+        this.cols = cols;
+        this.rows = rows;
+        this.words = (cols + Long.SIZE - 1) / Long.SIZE;
+
+        final int size = words * rows;
+
+        this.north = new long[size];
+        this.south = new long[size];
+        this.east = new long[size];
+        this.west = new long[size];
+        this.seen = new long[size];
+        this.frontier = new long[size];
+        this.next = new long[size];
+        this.active = new int[size];
+        this.touched = new int[size];
+        this.stamps = new int[size];
+
+        for (int row = 0; row < rows; row++)
+        {
+            for (int col = 0; col < cols; col++)
+            {
+                final byte bits = walls[(row * cols) + col];
+                final int word = (row * words) + (col / Long.SIZE);
+                final long bit = 1L << col;
+
+                if ((bits & WallGrid.NORTH) == 0 && row > 0)
+                    north[word] |= bit;
+                if ((bits & WallGrid.SOUTH) == 0 && row < rows - 1)
+                    south[word] |= bit;
+                if ((bits & WallGrid.EAST) == 0 && col < cols - 1)
+                    east[word] |= bit;
+                if ((bits & WallGrid.WEST) == 0 && col > 0)
+                    west[word] |= bit;
+            }
+        }
+    }
+
+    /**
+     * Copy the wall bits out of a grid
+     * @param grid The walls of the maze
+     * @return byte[]
+     */
+    private static byte[] getWalls(final WallGrid grid)
+    {
+        final byte[] walls = new byte[grid.getCols() * grid.getRows()];
+
+        for (int index = 0; index < walls.length; index++)
+        {
+            walls[index] = grid.getWalls(index);
+        }
+
+        return walls;
+    }
+
+    /**
+     * Find the cell furthest from a cell, the lowest index wins if there is more than 1
+     * @param from The index of the cell we start at
+     * @return int The index of the furthest cell
+     */
+    public int findFurthest(final int from)
+    {
+        return search(from, null);
+    }
+
+    /**
+     * Find the distance to every cell
+     * @param from The index of the cell we start at
+     * @return int[] The steps to each cell, -1 if it can't be reached
+     */
+    public int[] getDistances(final int from)
+    {
+        final int[] distances = new int[cols * rows];
+        Arrays.fill(distances, -1);
+
+        search(from, distances);
+
+        return distances;
+    }
+
+    /**
+     * Find every cell that can be reached from a cell, without the distances the search doesn't have to go 1 step at a time.
+     * Each word spreads along its row as far as the passages go before it spreads to the words around it
+     * @param from The index of the cell we start at
+     * @return int The number of cells that can be reached
+     */
+    public int fill(final int from)
+    {
+        Arrays.fill(seen, 0);
+
+        final int start = ((from / cols) * words) + ((from % cols) / Long.SIZE);
+
+        //the words waiting to spread, a word is only waiting once no matter how many cells are added to it
+        next[start] = 1L << (from % cols);
+        active[0] = start;
+        count = 1;
+
+        depth = -1;
+        reached = 0;
+
+        while (count > 0)
+        {
+            final int word = active[--count];
+            final long cells = spread(next[word], east[word], west[word]) & ~seen[word];
+
+            next[word] = 0;
+
+            if (cells == 0)
+                continue;
+
+            seen[word] |= cells;
+            reached += Long.bitCount(cells);
+
+            final int col = word % words;
+            final long toEast = cells & east[word];
+            final long toWest = cells & west[word];
+
+            if (col < words - 1 && toEast < 0)
+                offer(word + 1, 1L);
+
+            if (col > 0 && (toWest & 1L) != 0)
+                offer(word - 1, Long.MIN_VALUE);
+
+            if ((cells & south[word]) != 0)
+                offer(word + words, cells & south[word]);
+
+            if ((cells & north[word]) != 0)
+                offer(word - words, cells & north[word]);
+        }
+
+        return reached;
+    }
+
+    /**
+     * Spread cells east and west along their row as far as the passages go within their word.
+     * Each shift doubles the distance covered so 6 shifts cover the word, the same as a sliding piece on a chess bitboard
+     * @param cells The cells to spread from
+     * @param east The cells with a passage east
+     * @param west The cells with a passage west
+     * @return long The cells and every cell they reach
+     */
+    private static long spread(final long cells, final long east, final long west)
+    {
+        //the cells that can be entered from the west and from the east
+        long fromWest = east << 1, fromEast = west >>> 1;
+        long result = cells;
+
+        result |= fromWest & (result << 1);
+        fromWest &= fromWest << 1;
+        result |= fromWest & (result << 2);
+        fromWest &= fromWest << 2;
+        result |= fromWest & (result << 4);
+        fromWest &= fromWest << 4;
+        result |= fromWest & (result << 8);
+        fromWest &= fromWest << 8;
+        result |= fromWest & (result << 16);
+        fromWest &= fromWest << 16;
+        result |= fromWest & (result << 32);
+
+        //a row only has straight passages so going back west from everything we reached covers the rest
+        result |= fromEast & (result >>> 1);
+        fromEast &= fromEast >>> 1;
+        result |= fromEast & (result >>> 2);
+        fromEast &= fromEast >>> 2;
+        result |= fromEast & (result >>> 4);
+        fromEast &= fromEast >>> 4;
+        result |= fromEast & (result >>> 8);
+        fromEast &= fromEast >>> 8;
+        result |= fromEast & (result >>> 16);
+        fromEast &= fromEast >>> 16;
+        result |= fromEast & (result >>> 32);
+
+        return result;
+    }
+
+    /**
+     * Add cells to a word waiting to spread
+     * @param word The word the cells are in
+     * @param cells The cells
+     */
+    private void offer(final int word, final long cells)
+    {
+        final long fresh = cells & ~seen[word];
+
+        if (fresh == 0)
+            return;
+
+        if (next[word] == 0)
+            active[count++] = word;
+
+        next[word] |= fresh;
+    }
+
+    /**
+     * Could the last search reach a cell
+     * @param index The cell index
+     * @return boolean
+     */
+    public boolean isReachable(final int index)
+    {
+        final int col = index % cols;
+
+        return (seen[((index / cols) * words) + (col / Long.SIZE)] & (1L << col)) != 0;
+    }
+
+    /**
+     * The number of cells the last search reached
+     * @return int
+     */
+    public int getReached()
+    {
+        return this.reached;
+    }
+
+    /**
+     * The distance to the furthest cell in the last search, -1 if the last search was a fill
+     * @return int
+     */
+    public int getDepth()
+    {
+        return this.depth;
+    }
+
+    /**
+     * Spread out from a cell 1 step at a time until every cell that can be reached has been
+     * @param from The index of the cell we start at
+     * @param distances The steps to each cell are written here, null if not needed
+     * @return int The index of the furthest cell
+     */
+    private int search(final int from, final int[] distances)
+    {
+        Arrays.fill(seen, 0);
+        Arrays.fill(stamps, 0);
+
+        final int start = ((from / cols) * words) + ((from % cols) / Long.SIZE);
+
+        frontier[start] = 1L << (from % cols);
+        seen[start] = frontier[start];
+        active[0] = start;
+        count = 1;
+
+        depth = 0;
+        reached = 1;
+
+        if (distances != null)
+            distances[from] = 0;
+
+        //the frontier of the last step is the furthest
+        int furthest = from;
+
+        while (true)
+        {
+            final int step = depth + 1;
+            int total = 0;
+
+            for (int i = 0; i < count; i++)
+            {
+                final int word = active[i];
+                final long cells = frontier[word];
+                final int col = word % words;
+
+                //bit 63 moves east into the next word, bit 0 moves west into the previous word
+                final long toEast = cells & east[word];
+                final long toWest = cells & west[word];
+
+                total = add(word, (toEast << 1) | (toWest >>> 1), step, total);
+
+                if (col < words - 1 && toEast < 0)
+                    total = add(word + 1, 1L, step, total);
+
+                if (col > 0 && (toWest & 1L) != 0)
+                    total = add(word - 1, Long.MIN_VALUE, step, total);
+
+                if ((cells & south[word]) != 0)
+                    total = add(word + words, cells & south[word], step, total);
+
+                if ((cells & north[word]) != 0)
+                    total = add(word - words, cells & north[word], step, total);
+            }
+
+            //the old frontier is cleared before the new one is written as they may share words
+            for (int i = 0; i < count; i++)
+            {
+                frontier[active[i]] = 0;
+            }
+
+            int lowest = -1;
+            count = 0;
+
+            for (int i = 0; i < total; i++)
+            {
+                final int word = touched[i];
+                final long cells = next[word] & ~seen[word];
+
+                next[word] = 0;
+
+                if (cells == 0)
+                    continue;
+
+                seen[word] |= cells;
+                frontier[word] = cells;
+                active[count++] = word;
+                reached += Long.bitCount(cells);
+
+                if (lowest == -1 || word < lowest)
+                    lowest = word;
+
+                if (distances != null)
+                    mark(word, cells, step, distances);
+            }
+
+            if (count == 0)
+                break;
+
+            depth = step;
+            furthest = ((lowest / words) * cols) + ((lowest % words) * Long.SIZE) + Long.numberOfTrailingZeros(frontier[lowest]);
+        }
+
+        return furthest;
+    }
+
+    /**
+     * Add cells to the next step
+     * @param word The word the cells are in
+     * @param cells The cells
+     * @param step The step being taken
+     * @param total The number of words touched so far this step
+     * @return int The number of words touched including this one
+     */
+    private int add(final int word, final long cells, final int step, final int total)
+    {
+        next[word] |= cells;
+
+        //each word is only listed once per step
+        if (stamps[word] == step)
+            return total;
+
+        stamps[word] = step;
+        touched[total] = word;
+
+        return total + 1;
+    }
+
+    /**
+     * Write the distance of every cell in a word
+     * @param word The word the cells are in
+     * @param cells The cells
+     * @param step The distance
+     * @param distances The steps to each cell
+     */
+    private void mark(final int word, long cells, final int step, final int[] distances)
+    {
+        final int first = ((word / words) * cols) + ((word % words) * Long.SIZE);
+
+        while (cells != 0)
+        {
+            distances[first + Long.numberOfTrailingZeros(cells)] = step;
+            cells &= cells - 1;
+        }
+    }
+
+    /**
+     * Compare the flood to a breadth first search of 1 cell at a time, run with:
+     * java com.gamesbykevin.maze.puzzle.BitFlood [size...]
+     * Each size is timed on a perfect maze, where the frontier is a few corridors, and on a maze with no walls, where it is a wide diagonal
+     * @param args The columns and rows of each maze, 1000 2000 4000 if not given
+     */
+    public static void main(final String[] args)
+    {
+        final String[] sizes = (args.length > 0) ? args : new String[]{"1000", "2000", "4000"};
+
+        System.out.println("maze,size,search,scalar_ms,flood_ms,speedup");
+
+        for (String value : sizes)
+        {
+            final int size = Integer.parseInt(value);
+
+            run("perfect", size, new TiledMaze(size, size, size).generate(null));
+            run("open", size, new byte[size * size]);
+        }
+    }
+
+    /**
+     * Time finding the furthest cell from the north west corner both ways and check they agree
+     * @param name The type of maze
+     * @param size The columns and rows
+     * @param walls The wall bits for each cell
+     */
+    private static void run(final String name, final int size, final byte[] walls)
+    {
+        final BitFlood flood = new BitFlood(size, size, walls);
+        final int[] queue = new int[walls.length];
+        final int[] distances = new int[walls.length];
+
+        //the first searches compile the code
+        for (int i = 0; i < 3; i++)
+        {
+            findFurthest(size, size, walls, 0, queue, distances);
+            flood.findFurthest(0);
+        }
+
+        long start = System.nanoTime();
+        final int expected = findFurthest(size, size, walls, 0, queue, distances);
+        final long scalar = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        final int furthest = flood.findFurthest(0);
+        final long elapsed = System.nanoTime() - start;
+
+        if (furthest != expected)
+            System.out.println("the flood found " + furthest + " instead of " + expected);
+
+        System.out.println(name + "," + size + ",furthest," + (scalar / 1000000L) + "," + (elapsed / 1000000L) + "," + ((double)scalar / elapsed));
+
+        //the scalar search has to visit every cell either way, the fill doesn't need the distances
+        for (int i = 0; i < 3; i++)
+        {
+            flood.fill(0);
+        }
+
+        start = System.nanoTime();
+        final int cells = flood.fill(0);
+        final long filled = System.nanoTime() - start;
+
+        if (cells != walls.length)
+            System.out.println("the fill reached " + cells + " of " + walls.length);
+
+        System.out.println(name + "," + size + ",reachable," + (scalar / 1000000L) + "," + (filled / 1000000L) + "," + ((double)scalar / filled));
+    }
+
+    /**
+     * Find the furthest cell 1 cell at a time, the lowest index wins if there is more than 1
+     * @param cols Total number of columns
+     * @param rows Total number of rows
+     * @param walls The wall bits for each cell
+     * @param from The index of the cell we start at
+     * @param queue Holds every cell in the order it is reached
+     * @param distances The steps to each cell
+     * @return int The index of the furthest cell
+     */
+    private static int findFurthest(final int cols, final int rows, final byte[] walls, final int from, final int[] queue, final int[] distances)
+    {
+        Arrays.fill(distances, -1);
+
+        int head = 0, tail = 0;
+
+        queue[tail++] = from;
+        distances[from] = 0;
+
+        int furthest = from;
+
+        while (head < tail)
+        {
+            final int index = queue[head++];
+            final int col = index % cols;
+            final int row = index / cols;
+            final byte bits = walls[index];
+
+            if (distances[index] > distances[furthest] || (distances[index] == distances[furthest] && index < furthest))
+                furthest = index;
+
+            for (int i = 0; i < 4; i++)
+            {
+                final int neighbor;
+
+                if (i == 0 && (bits & WallGrid.NORTH) == 0 && row > 0)
+                    neighbor = index - cols;
+                else if (i == 1 && (bits & WallGrid.SOUTH) == 0 && row < rows - 1)
+                    neighbor = index + cols;
+                else if (i == 2 && (bits & WallGrid.EAST) == 0 && col < cols - 1)
+                    neighbor = index + 1;
+                else if (i == 3 && (bits & WallGrid.WEST) == 0 && col > 0)
+                    neighbor = index - 1;
+                else
+                    continue;
+
+                if (distances[neighbor] == -1)
+                {
+                    distances[neighbor] = distances[index] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+
+        return furthest;
+    }
+}
\ No newline at end of file
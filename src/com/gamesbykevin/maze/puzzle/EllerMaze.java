@@ -0,0 +1,232 @@
+package com.gamesbykevin.maze.puzzle;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates a perfect maze one row at a time with Eller's algorithm.
+ * Only the current row is kept: each cell belongs to a set of cells joined above it, cells in different sets are
+ * joined at random and every set passes at least 1 passage south to the next row. The last row joins every set that is left.
+ * The memory used only depends on the width so a maze can be as tall as we like and streamed to a RowConsumer as it is made.
+ * A generator should only be used by one thread.
+ * @author GOD
+ */
+public final class EllerMaze
+{
+    //the width of the maze
+    private final int cols;
+
+    //the set of each column, the sets are numbered from 0 each row, -1 if the cell above has no passage south
+    private final int[] sets;
+
+    //the parent of each set while joining them in the current row, a set is the root if it is its own parent
+    private final int[] parents;
+
+    //the number of each set in the row above, -1 if it hasn't been numbered in this row yet
+    private final int[] numbers;
+
+    //the cells of each set that haven't decided if they pass south
+    private final int[] remaining;
+
+    //has each set passed south yet
+    private final boolean[] passed;
+
+    //the walls of the current row, handed to the consumer
+    private final byte[] walls;
+
+    //decides every passage
+    private final Random random;
+
+    //random bits not used yet, 1 bit for each decision
+    private int bits, bitsLeft = 0;
+
+    //the number of the next row
+    private long row = 0;
+
+    /**
+     * Create a generator
+     * @param cols The width of the maze
+     * @param seed Decides every passage, the same seed creates the same maze
+     */
+    public EllerMaze(final int cols, final long seed)
+    {
+        this.cols = cols;
+        this.sets = new int[cols];
+        this.parents = new int[cols];
+        this.numbers = new int[cols];
+        this.remaining = new int[cols];
+        this.passed = new boolean[cols];
+        this.walls = new byte[cols];
+        this.random = new Random(seed);
+
+        //the top row has nothing above it
+        Arrays.fill(sets, -1);
+    }
+
+    /**
+     * The width of the maze
+     * @return int
+     */
+    public int getCols()
+    {
+        return this.cols;
+    }
+
+    /**
+     * The number of the next row generated, also the number of rows generated so far in this maze
+     * @return long
+     */
+    public long getRow()
+    {
+        return this.row;
+    }
+
+    /**
+     * Generate a whole maze
+     * @param rows The height of the maze
+     * @param consumer Receives each row
+     * @throws Exception
+     */
+    public void generate(final long rows, final RowConsumer consumer) throws Exception
+    {
+        while (row < rows - 1)
+        {
+            next(consumer);
+        }
+
+        finish(consumer);
+    }
+
+    /**
+     * Generate the next row, there will always be another row after it
+     * @param consumer Receives the row
+     * @throws Exception
+     */
+    public void next(final RowConsumer consumer) throws Exception
+    {
+        createRow(false);
+
+        consumer.accept(row++, walls);
+    }
+
+    /**
+     * Generate the last row, joining every set so the whole maze is connected.
+     * The generator then starts a new maze
+     * @param consumer Receives the row
+     * @throws Exception
+     */
+    public void finish(final RowConsumer consumer) throws Exception
+    {
+        createRow(true);
+
+        consumer.accept(row, walls);
+
+        row = 0;
+        Arrays.fill(sets, -1);
+    }
+
+    /**
+     * Decide the walls of the current row
+     * @param last Is this the last row of the maze
+     */
+    private void createRow(final boolean last)
+    {
+        //number the sets from 0 again so the numbers never exceed the width, the cells without a passage from above get a set of their own
+        Arrays.fill(numbers, -1);
+
+        int count = 0;
+
+        for (int col = 0; col < cols; col++)
+        {
+            walls[col] = WallGrid.ALL_WALLS;
+
+            final int above = sets[col];
+
+            if (above == -1)
+            {
+                sets[col] = count++;
+            }
+            else
+            {
+                if (numbers[above] == -1)
+                    numbers[above] = count++;
+
+                sets[col] = numbers[above];
+                walls[col] &= ~WallGrid.NORTH;
+            }
+        }
+
+        for (int set = 0; set < count; set++)
+        {
+            parents[set] = set;
+            remaining[set] = 0;
+            passed[set] = false;
+        }
+
+        //join neighbors in different sets, the last row joins them all so nothing is cut off
+        int west = MazeMath.find(parents, sets[0]);
+
+        for (int col = 0; col < cols - 1; col++)
+        {
+            final int east = MazeMath.find(parents, sets[col + 1]);
+
+            //the root we joined to is still the root of the next cell's west neighbor
+            if (west == east || (!last && !nextBit()))
+            {
+                west = east;
+                continue;
+            }
+
+            parents[east] = west;
+            walls[col] &= ~WallGrid.EAST;
+            walls[col + 1] &= ~WallGrid.WEST;
+        }
+
+        if (last)
+            return;
+
+        for (int col = 0; col < cols; col++)
+        {
+            sets[col] = MazeMath.find(parents, sets[col]);
+            remaining[sets[col]]++;
+        }
+
+        //each set passes south at random, the last cell of a set has to if no other cell did so the set isn't cut off
+        for (int col = 0; col < cols; col++)
+        {
+            final int set = sets[col];
+
+            remaining[set]--;
+
+            if (nextBit() || (remaining[set] == 0 && !passed[set]))
+            {
+                passed[set] = true;
+                walls[col] &= ~WallGrid.SOUTH;
+            }
+            else
+            {
+                sets[col] = -1;
+            }
+        }
+    }
+
+    /**
+     * Get a random decision, a single random int covers 32 decisions
+     * @return boolean
+     */
+    private boolean nextBit()
+    {
+        if (bitsLeft == 0)
+        {
+            bits = random.nextInt();
+            bitsLeft = Integer.SIZE;
+        }
+
+        bitsLeft--;
+
+        final boolean bit = (bits & 1) != 0;
+        bits >>>= 1;
+
+        return bit;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,234 @@
+package com.gamesbykevin.maze.puzzle;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A maze that never ends, it keeps going south for as long as the player does.
+ * The maze is made of chunks, each chunk is a perfect maze of its own generated from the seed and the chunk number,
+ * and each chunk is joined to the next by a single door so the whole maze is perfect and every chunk can be crossed without leaving it.
+ * Only a window of chunks is kept as a WallGrid, once the player is far enough in the window moves south one chunk
+ * and the chunk furthest behind is dropped. The next window is built on a worker thread while the current one is played.
+ * @author GOD
+ */
+public final class EndlessMaze
+{
+    //the rows in each chunk, more than the render range so a chunk ahead and behind covers everything drawn
+    public static final int CHUNK_ROWS = 16;
+
+    //the chunks in each window, 1 behind the player, the one the player is in and 2 ahead
+    public static final int WINDOW_CHUNKS = 4;
+
+    //the rows in each window
+    public static final int WINDOW_ROWS = CHUNK_ROWS * WINDOW_CHUNKS;
+
+    //the window moves once the player reaches this row so there are always 2 chunks ahead
+    private static final int MOVE_ROW = CHUNK_ROWS * 2;
+
+    //if the player reaches the last chunk we wait for the next window, the worker is many chunks ahead so this shouldn't happen
+    private static final int WAIT_ROW = CHUNK_ROWS * (WINDOW_CHUNKS - 1);
+
+    //the width of the maze
+    private final int cols;
+
+    //decides every chunk
+    private final long seed;
+
+    //builds the windows one at a time
+    private final ExecutorService worker;
+
+    //the window being built
+    private Future<WallGrid> next;
+
+    //the chunks in the current window, only used by the worker
+    private final Deque<Chunk> chunks = new ArrayDeque<>();
+
+    //the number of chunks generated so far, only used by the worker
+    private int generated = 0;
+
+    //used while carving each chunk, only used by the worker
+    private final Random random = new Random();
+    private final MazeCarver carver = new MazeCarver();
+
+    /**
+     * A chunk of the maze
+     */
+    private static final class Chunk
+    {
+        //the wall bits for each cell, index = (row * cols) + col
+        private final byte[] walls;
+
+        //the column of the door into the chunk before and the door into the chunk after
+        private final int entrance, exit;
+
+        private Chunk(final byte[] walls, final int entrance, final int exit)
+        {
+            this.walls = walls;
+            this.entrance = entrance;
+            this.exit = exit;
+        }
+    }
+
+    /**
+     * Build the next window on the worker
+     */
+    private final class Window implements Callable<WallGrid>
+    {
+        @Override
+        public WallGrid call()
+        {
+            return createWindow();
+        }
+    }
+
+    /**
+     * Start building the first window
+     * @param cols The width of the maze
+     * @param seed Decides every chunk, the same seed creates the same maze
+     */
+    public EndlessMaze(final int cols, final long seed)
+    {
+        this.cols = cols;
+        this.seed = seed;
+
+        this.worker = Executors.newSingleThreadExecutor(new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(final Runnable runnable)
+            {
+                //the game shouldn't be kept running by the worker
+                final Thread thread = new Thread(runnable, "Endless Maze");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        this.next = worker.submit(new Window());
+    }
+
+    /**
+     * Has the first window been built
+     * @return boolean
+     */
+    public boolean isReady()
+    {
+        return next.isDone();
+    }
+
+    /**
+     * Get the window that has been built and start building the one after it
+     * @return WallGrid The maze starting at the top of the window
+     * @throws Exception If the window couldn't be built
+     */
+    public WallGrid take() throws Exception
+    {
+        final WallGrid window;
+
+        try
+        {
+            window = next.get();
+        }
+        catch(ExecutionException e)
+        {
+            throw new Exception("The endless maze couldn't be built", e.getCause());
+        }
+
+        next = worker.submit(new Window());
+
+        return window;
+    }
+
+    /**
+     * Get the next window if the player has gone far enough.
+     * The next window starts 1 chunk further south so the player has to be moved north CHUNK_ROWS
+     * @param y The row of the player in the current window
+     * @return WallGrid The next window, null if the window doesn't move yet
+     * @throws Exception If the window couldn't be built
+     */
+    public WallGrid next(final double y) throws Exception
+    {
+        if (y < MOVE_ROW)
+            return null;
+
+        //don't hold up the game while the window is built unless the player is about to run out of maze
+        if (!next.isDone() && y < WAIT_ROW)
+            return null;
+
+        return take();
+    }
+
+    /**
+     * Stop building windows
+     */
+    public void dispose()
+    {
+        worker.shutdownNow();
+    }
+
+    /**
+     * Drop the chunk furthest behind, add chunks ahead and copy them into a single maze
+     * @return WallGrid
+     */
+    private WallGrid createWindow()
+    {
+        if (chunks.size() == WINDOW_CHUNKS)
+            chunks.removeFirst();
+
+        while (chunks.size() < WINDOW_CHUNKS)
+        {
+            chunks.addLast(createChunk((chunks.isEmpty()) ? 0 : chunks.getLast().exit));
+        }
+
+        final byte[] walls = new byte[cols * WINDOW_ROWS];
+
+        int offset = 0;
+
+        for (Chunk chunk : chunks)
+        {
+            System.arraycopy(chunk.walls, 0, walls, offset, chunk.walls.length);
+            offset += chunk.walls.length;
+        }
+
+        final Chunk first = chunks.getFirst();
+        final Chunk last = chunks.getLast();
+
+        //the door into the dropped chunk and the door into the chunk not generated yet are closed
+        walls[first.entrance] |= WallGrid.NORTH;
+        walls[((WINDOW_ROWS - 1) * cols) + last.exit] |= WallGrid.SOUTH;
+
+        //the finish is the way on so the hint always points further into the maze
+        return new WallGrid(cols, WINDOW_ROWS, walls, first.entrance, ((WINDOW_ROWS - 1) * cols) + last.exit);
+    }
+
+    /**
+     * Carve the next chunk with a random depth first search from the door into it
+     * @param entrance The column of the door in the top row
+     * @return Chunk
+     */
+    private Chunk createChunk(final int entrance)
+    {
+        //each chunk only depends on the seed and the chunk number
+        random.setSeed(MazeMath.mixSeed(seed, generated));
+
+        final byte[] walls = carver.carve(cols, CHUNK_ROWS, entrance, random);
+
+        final int exit = random.nextInt(cols);
+
+        //the first chunk is the start of the maze so there is nothing to the north
+        if (generated > 0)
+            walls[entrance] &= ~WallGrid.NORTH;
+
+        walls[((CHUNK_ROWS - 1) * cols) + exit] &= ~WallGrid.SOUTH;
+
+        generated++;
+
+        return new Chunk(walls, entrance, exit);
+    }
+}
\ No newline at end of file
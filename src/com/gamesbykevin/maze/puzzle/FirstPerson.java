@@ -1,10 +1,7 @@
 package com.gamesbykevin.maze.puzzle;
 
-import com.gamesbykevin.framework.base.Cell;
-import com.gamesbykevin.framework.labyrinth.Location;
-import com.gamesbykevin.framework.labyrinth.Location.Wall;
-
 import com.gamesbykevin.maze.player.Player;
+import com.gamesbykevin.maze.player.PlayerState;
 
 import java.awt.*;
 import java.util.ArrayList;
@@ -77,28 +74,29 @@ public class FirstPerson
      * If so we then check if a wall exists on that side (North, South, East, West).<br>
      * If a wall exists then we want to stop progression because the user hit a wall.
      * 
-     * @param current 
+     * @param player The player we are checking
+     * @param walls The wall bits for the Location the player is at
      */
-    private void checkWalls(final Player player, final List<Wall> walls) 
+    private void checkWalls(final Player player, final byte walls) 
     {
         int x = (int)player.getX(), y = (int)player.getY();
         double cx = player.getX() - x, cy = player.getY() - y;
         double rcx = 1 - cx, rcy = 1 - cy;
 
-        if(cx < WALL_D && walls.indexOf(Wall.West) >= 0)
+        if(cx < WALL_D && (walls & WallGrid.WEST) != 0)
         {
             player.setX(player.getX() + (WALL_D - cx));
         } 
-        else if(rcx < WALL_D && walls.indexOf(Wall.East) >= 0)
+        else if(rcx < WALL_D && (walls & WallGrid.EAST) != 0)
         {
             player.setX(player.getX() - (WALL_D - rcx));
         }
 
-        if(cy < WALL_D && walls.indexOf(Wall.North) >= 0)
+        if(cy < WALL_D && (walls & WallGrid.NORTH) != 0)
         {
             player.setY(player.getY() + (WALL_D - cy));
         } 
-        else if(rcy < WALL_D && walls.indexOf(Wall.South) >= 0)
+        else if(rcy < WALL_D && (walls & WallGrid.SOUTH) != 0)
         {
             player.setY(player.getY() - (WALL_D - rcy));
         }
@@ -160,11 +158,14 @@ public class FirstPerson
     
     /**
      * The update for the first person velocity is handled differently than the 2d and isometric 
-     * @param keyboard
-     * @param walls 
+     * @param grid The walls of the maze
+     * @param player The player we are moving
      */
-    public void update(final List<Wall> walls, final Player player)
+    public void update(final WallGrid grid, final Player player)
     {
+        //the walls of the Location the player is at before moving
+        final byte walls = grid.getWalls(grid.getIndex((int)player.getX(), (int)player.getY()));
+        
         //change the angle the user is facing, the velocity x will determine how fast the turn speed is
         player.setAngle(player.getAngle() + .1 * player.getVelocityX());
 
@@ -191,46 +192,49 @@ public class FirstPerson
     /**
      * Draw the walls from a 3d perspective
      * @param graphics
-     * @param locations All Locations in maze
-     * @param finish Finish Line
      * @param screen Size of window
-     * @return Graphics
+     * @param grid The walls of the maze
+     * @param player The player we are viewing from
      */
-    public void render(final Graphics graphics, final Rectangle screen, final List<Location> locations, final Cell finish, final Player player)
+    public void render(final Graphics graphics, final Rectangle screen, final WallGrid grid, final PlayerState player)
     {
         if (player == null)
             return;
         
         //get all walls and add to this list
         List<Line> walls = new ArrayList<>();
-            
+        
+        final int colEnd = player.getRangeEndCol(grid.getCols());
+        final int rowEnd = player.getRangeEndRow(grid.getRows());
+        
         //the anchor point for each Location(column, row) is to start in the North West corner
-        for (Location location : locations)
+        for (int row = player.getRangeStartRow(); row <= rowEnd; row++)
         {
-            //if not close enough we won't render
-            if (!player.hasRange(location))
-                continue;
-            
-            Color color = Puzzle.WALL_COLOR;
-            
-            if (location.equals(finish))
-                color = Puzzle.SOLUTION_COLOR;
-    
-            //the east wall is 1 column to the right of the current column and extends from the current row to the next row south
-            if (location.hasWall(Wall.East))
-                addWall(new Corner(location.getCol() + 1 - player.getX(), location.getRow() - player.getY(), player.getAngle()), new Corner(location.getCol() + 1 - player.getX(), location.getRow() + 1 - player.getY(), player.getAngle()), walls, color);
+            for (int col = player.getRangeStartCol(); col <= colEnd; col++)
+            {
+                Color color = Puzzle.WALL_COLOR;
+
+                if (grid.isFinish(col, row))
+                    color = Puzzle.SOLUTION_COLOR;
                 
-            //the west wall is the current column and extends from the current row to the next row south
-            if (location.hasWall(Wall.West))
-                addWall(new Corner(location.getCol() - player.getX(), location.getRow() - player.getY(), player.getAngle()), new Corner(location.getCol() - player.getX(), location.getRow() + 1 - player.getY(), player.getAngle()), walls, color);
-            
-            //the north wall is the current row and extends from the current column to the next column east
-            if (location.hasWall(Wall.North))
-                addWall(new Corner(location.getCol() - player.getX(), location.getRow() - player.getY(), player.getAngle()), new Corner(location.getCol() + 1 - player.getX(), location.getRow() - player.getY(), player.getAngle()), walls, color);
-            
-            //the south wall is the row south of the current and extends from the current column to the next column east
-            if (location.hasWall(Wall.South))
-                addWall(new Corner(location.getCol() - player.getX(), location.getRow() + 1 - player.getY(), player.getAngle()), new Corner(location.getCol() + 1 - player.getX(), location.getRow() + 1 - player.getY(), player.getAngle()), walls, color);
+                final int index = grid.getIndex(col, row);
+                
+                //the east wall is 1 column to the right of the current column and extends from the current row to the next row south
+                if (grid.hasWall(index, WallGrid.EAST))
+                    addWall(new Corner(col + 1 - player.getX(), row - player.getY(), player.getAngle()), new Corner(col + 1 - player.getX(), row + 1 - player.getY(), player.getAngle()), walls, color);
+
+                //the west wall is the current column and extends from the current row to the next row south
+                if (grid.hasWall(index, WallGrid.WEST))
+                    addWall(new Corner(col - player.getX(), row - player.getY(), player.getAngle()), new Corner(col - player.getX(), row + 1 - player.getY(), player.getAngle()), walls, color);
+
+                //the north wall is the current row and extends from the current column to the next column east
+                if (grid.hasWall(index, WallGrid.NORTH))
+                    addWall(new Corner(col - player.getX(), row - player.getY(), player.getAngle()), new Corner(col + 1 - player.getX(), row - player.getY(), player.getAngle()), walls, color);
+
+                //the south wall is the row south of the current and extends from the current column to the next column east
+                if (grid.hasWall(index, WallGrid.SOUTH))
+                    addWall(new Corner(col - player.getX(), row + 1 - player.getY(), player.getAngle()), new Corner(col + 1 - player.getX(), row + 1 - player.getY(), player.getAngle()), walls, color);
+            }
         }
         
         //now we have all the walls that need to be drawn
@@ -280,6 +284,68 @@ public class FirstPerson
         }
     }
     
+    /**
+     * Draw the ghost see-through as a column standing on the floor where it is
+     * @param graphics
+     * @param ghost The ghost, null if there isn't one
+     * @param player The player we are viewing from
+     */
+    public void renderGhost(final Graphics graphics, final PlayerState ghost, final PlayerState player)
+    {
+        if (ghost == null || player == null)
+            return;
+        
+        final Corner corner = new Corner(ghost.getX() - player.getX(), ghost.getY() - player.getY(), player.getAngle());
+        
+        //the ghost is behind us or off to the side
+        if (corner.sy <= 0 || corner.sx < -ORIGIN_X || corner.sx > ORIGIN_X)
+            return;
+        
+        //the column is as tall as the walls and a third as wide
+        final int height = (int)(corner.sy * 2);
+        final int width = Math.max(2, height / 3);
+        
+        graphics.setColor(Puzzle.GHOST_COLOR);
+        graphics.fillRect(ORIGIN_X + (int)corner.sx - (width / 2), ORIGIN_Y - (int)corner.sy, width, height);
+    }
+    
+    /**
+     * Draw a breadcrumb on the floor in each of the next cells on the way to the finish, each cell is a single lookup
+     * @param graphics
+     * @param grid The walls of the maze
+     * @param player The player we are viewing from
+     */
+    public void renderHint(final Graphics graphics, final WallGrid grid, final PlayerState player)
+    {
+        if (player == null)
+            return;
+        
+        int index = grid.getIndex((int)player.getX(), (int)player.getY());
+        
+        graphics.setColor(Puzzle.HINT_COLOR);
+        
+        for (int i = 0; i < Puzzle.HINT_LENGTH; i++)
+        {
+            index = grid.getHintCell(index);
+            
+            //we have reached the finish
+            if (index == -1)
+                break;
+            
+            //the center of the cell on the floor
+            final Corner corner = new Corner(grid.getCol(index) + .5 - player.getX(), grid.getRow(index) + .5 - player.getY(), player.getAngle());
+            
+            //the cell is behind us or off to the side
+            if (corner.sy <= 0 || corner.sx < -ORIGIN_X || corner.sx > ORIGIN_X)
+                continue;
+            
+            //closer breadcrumbs are drawn larger
+            final int size = Math.max(2, (int)(corner.sy / 4));
+            
+            graphics.fillOval(ORIGIN_X + (int)corner.sx - (size / 2), ORIGIN_Y + (int)corner.sy - (size / 4), size, size / 2);
+        }
+    }
+    
     /**
      * If coordinates are within the screen return wall
      * @param start
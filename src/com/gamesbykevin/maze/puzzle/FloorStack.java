@@ -0,0 +1,183 @@
+package com.gamesbykevin.maze.puzzle;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A maze of stacked floors connected by stairs.
+ * The stairs down from a floor are the cell furthest from where we arrived, the floor below is carved out from the
+ * same cell so the stairs up are right where we come down. The stairs down of the last floor are the finish.
+ * A floor is only generated the first time its stairs are reached, so a large stack costs nothing until it is explored.
+ * Only the most recently used floors are kept as a WallGrid, the others are packed to 4 bits per cell and unpacked
+ * when we come back to them, the junctions and hints are only rebuilt for the floors unpacked.
+ * @author GOD
+ */
+public final class FloorStack
+{
+    //the number of floors kept unpacked, the floor being played and the one we just left
+    public static final int RESIDENT = 2;
+
+    //the dimensions of every floor
+    private final int cols, rows;
+
+    //decides every floor
+    private final long seed;
+
+    //the index of the stairs up (the start) and stairs down (the finish) on each floor, -1 until the floor is generated
+    private final int[] start, finish;
+
+    //the walls of each floor that has been packed, 2 cells per byte, null if it hasn't been packed yet
+    private final byte[][] packed;
+
+    //the unpacked floors by number, the least recently used first
+    private final Map<Integer, WallGrid> resident;
+
+    //the number of floors generated so far
+    private int generated = 0;
+
+    //used to generate each floor
+    private final Random random = new Random();
+    private final MazeCarver carver = new MazeCarver();
+
+    /**
+     * Create the stack, no floor is generated until it is needed
+     * @param cols Total number of columns on each floor
+     * @param rows Total number of rows on each floor
+     * @param floors The number of floors
+     * @param seed Decides every floor, the same seed creates the same maze
+     */
+    public FloorStack(final int cols, final int rows, final int floors, final long seed)
+    {
+        this.cols = cols;
+        this.rows = rows;
+        this.seed = seed;
+        this.start = new int[floors];
+        this.finish = new int[floors];
+        this.packed = new byte[floors][];
+
+        for (int floor = 0; floor < floors; floor++)
+        {
+            start[floor] = -1;
+            finish[floor] = -1;
+        }
+
+        //ordered by access so the eldest is the floor we haven't used for the longest
+        this.resident = new LinkedHashMap<Integer, WallGrid>(RESIDENT + 1, 1f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Integer, WallGrid> eldest)
+            {
+                if (size() <= RESIDENT)
+                    return false;
+
+                pack(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * The number of floors in the stack
+     * @return int
+     */
+    public int getCount()
+    {
+        return this.start.length;
+    }
+
+    /**
+     * The number of floors generated so far
+     * @return int
+     */
+    public int getGenerated()
+    {
+        return this.generated;
+    }
+
+    /**
+     * The number of floors unpacked right now
+     * @return int
+     */
+    public int getResident()
+    {
+        return this.resident.size();
+    }
+
+    /**
+     * Get a floor, generating it the first time.
+     * A floor can only be generated once the floor above it has been, as its stairs up are the stairs down of the floor above
+     * @param floor The floor number, 0 is the top
+     * @return WallGrid
+     */
+    public WallGrid getFloor(final int floor)
+    {
+        WallGrid grid = resident.get(floor);
+
+        if (grid != null)
+            return grid;
+
+        if (packed[floor] != null)
+        {
+            grid = unpack(floor);
+        }
+        else
+        {
+            if (floor > 0 && finish[floor - 1] == -1)
+                throw new IllegalStateException("Floor " + floor + " can't be generated before the floor above it");
+
+            grid = generate(floor);
+        }
+
+        resident.put(floor, grid);
+
+        return grid;
+    }
+
+    /**
+     * Carve a floor for the first time
+     * @param floor The floor number
+     * @return WallGrid
+     */
+    private WallGrid generate(final int floor)
+    {
+        //each floor only depends on the seed and the floor number
+        random.setSeed(MazeMath.mixSeed(seed, floor));
+
+        start[floor] = (floor == 0) ? 0 : finish[floor - 1];
+
+        final byte[] walls = new byte[cols * rows];
+        finish[floor] = carver.carve(walls, cols, rows, start[floor], random);
+
+        generated++;
+
+        return new WallGrid(cols, rows, walls, start[floor], finish[floor]);
+    }
+
+    /**
+     * Move a floor out of the resident floors, only the walls are kept
+     * @param floor The floor number
+     * @param grid The floor
+     */
+    private void pack(final int floor, final WallGrid grid)
+    {
+        //the walls never change so a floor packed before is still packed
+        if (packed[floor] != null)
+            return;
+
+        final byte[] data = new byte[WallGrid.getPackedSize(cols * rows)];
+        grid.pack(data, 0);
+
+        packed[floor] = data;
+    }
+
+    /**
+     * Create a floor again from its packed walls
+     * @param floor The floor number
+     * @return WallGrid
+     */
+    private WallGrid unpack(final int floor)
+    {
+        return WallGrid.unpack(cols, rows, packed[floor], 0, start[floor], finish[floor]);
+    }
+}
\ No newline at end of file
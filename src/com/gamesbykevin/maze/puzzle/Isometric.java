@@ -1,13 +1,11 @@
 package com.gamesbykevin.maze.puzzle;
 
-import com.gamesbykevin.framework.base.Cell;
-import com.gamesbykevin.framework.labyrinth.Labyrinth;
-import com.gamesbykevin.framework.labyrinth.Location;
 import com.gamesbykevin.framework.labyrinth.Location.Wall;
 
-import com.gamesbykevin.maze.player.Player;
+import com.gamesbykevin.maze.player.PlayerState;
 
 import java.awt.image.BufferedImage;
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
@@ -27,6 +25,12 @@ public class Isometric
     //the floor will be cached since it will never change
     private BufferedImage floor;
     
+    //the maze the floor was created for
+    private WallGrid floorGrid;
+    
+    //the part of the floor image used by the current maze, the image is only replaced when a bigger maze needs more room
+    private int floorWidth, floorHeight;
+    
     //offset values so we know where to position everything
     private int offsetX, offsetY;
     
@@ -44,10 +48,12 @@ public class Isometric
      * Draw an isometric version of the maze
      * @param graphics
      * @param screen Container which maze will be drawn within
-     * @return Graphics
+     * @param grid The walls of the maze
+     * @param endless Is the grid a window of the endless maze
+     * @param player The player we are centered on
      * @throws Exception 
      */
-    public void render(final Graphics graphics, final Rectangle screen, final Labyrinth labyrinth, final Cell finish, final Player player) throws Exception
+    public void render(final Graphics graphics, final Rectangle screen, final WallGrid grid, final boolean endless, final PlayerState player) throws Exception
     {
         //if player does not exist don't draw maze
         if (player == null)
@@ -60,31 +66,163 @@ public class Isometric
             offsetY = (screen.height / 2);
         }
         
-        //each maze will have the same number of rows/cols
-        final int size = (int)Math.sqrt(labyrinth.getLocations().size());
+        //only the Locations within range will be drawn
+        final int colStart = player.getRangeStartCol();
+        final int colEnd   = player.getRangeEndCol(grid.getCols());
+        final int rowStart = player.getRangeStartRow();
+        final int rowEnd   = player.getRangeEndRow(grid.getRows());
+        
+        int startX, startY;
         
-        //create the entire floor image and then cache since we only need to render once
-        if (floor == null)
+        //the endless maze is a window that moves every chunk, caching a floor that big would mean drawing it again every chunk
+        if (endless)
+        {
+            for (int row = rowStart; row <= rowEnd; row++)
+            {
+                for (int col = colStart; col <= colEnd; col++)
+                {
+                    startX = offsetX + (int)(((col - player.getX()) * HALF_WIDTH) - ((row - player.getY()) * HALF_WIDTH));
+                    startY = offsetY + (int)(((row - player.getY()) * HALF_HEIGHT) + ((col - player.getX()) * HALF_HEIGHT));
+                    
+                    Polygon polygon = getPolygon(startX, startY, Puzzle.CELL_WIDTH, Puzzle.CELL_HEIGHT);
+                    
+                    if (!screen.intersects(polygon.getBounds()))
+                        continue;
+                    
+                    graphics.setColor(Puzzle.FLOOR_COLOR);
+                    
+                    if (grid.isFinish(col, row))
+                        graphics.setColor(Puzzle.SOLUTION_COLOR);
+                    
+                    graphics.fillPolygon(polygon);
+                    graphics.setColor(Puzzle.WALL_OUTLINE_COLOR);
+                    graphics.drawPolygon(polygon);
+                }
+            }
+        }
+        else
         {
-            //create the floor image with the appropriate size
-            floor = new BufferedImage((int)(size * Puzzle.CELL_WIDTH), (int)(Puzzle.CELL_HEIGHT * size), BufferedImage.TYPE_INT_ARGB);
+            //create the entire floor image and then cache since we only need to render once per maze
+            if (floor == null || floorGrid != grid)
+                createFloor(grid);
+            
+            //each maze will have the same number of rows/cols
+            final int size = grid.getCols();
             
-            //our graphics object for creating the image
-            Graphics2D imageGraphics = floor.createGraphics();
+            startX = (int)(offsetX - (((size * Puzzle.CELL_WIDTH) / 2) - ((-player.getX() * HALF_WIDTH) - (-player.getY() * HALF_WIDTH))));
+            startY = (int)(offsetY + ((-player.getY() * HALF_HEIGHT) + (-player.getX() * HALF_HEIGHT)));
             
-            //for isometric draw the floors first
-            for (Location cell : labyrinth.getLocations())
+            //draw the floor accordingly
+            graphics.drawImage(floor, startX, startY, startX + floorWidth, startY + floorHeight, 0, 0, floorWidth, floorHeight, null);
+        }
+        
+        for (int row = rowStart; row <= rowEnd; row++)
+        {
+            for (int col = colStart; col <= colEnd; col++)
+            {
+                startX = offsetX + (int)(((col - player.getX()) * HALF_WIDTH) - ((row - player.getY()) * HALF_WIDTH));
+                startY = offsetY + (int)(((row - player.getY()) * HALF_HEIGHT) + ((col - player.getX()) * HALF_HEIGHT));
+
+                //get the polygon based on the current corrdinate/dimensions
+                Polygon polygon = getPolygon(startX, startY, Puzzle.CELL_WIDTH, Puzzle.CELL_HEIGHT);
+
+                //if not on screen, don't bother drawing
+                if (!screen.intersects(polygon.getBounds()))
+                    continue;
+
+                if (grid.hasWall(col, row, WallGrid.NORTH))
+                    drawWall(Wall.North, polygon, graphics);
+                if (grid.hasWall(col, row, WallGrid.WEST))
+                    drawWall(Wall.West, polygon, graphics);
+            }
+        }
+        
+        //draw our position between the north-west and the south-east walls
+        drawLocation(graphics);
+        
+        final int colPlayer = (int)player.getX();
+        final int rowPlayer = (int)player.getY();
+        
+        for (int row = rowStart; row <= rowEnd; row++)
+        {
+            for (int col = colStart; col <= colEnd; col++)
+            {
+                //if a Location is in this position we won't draw the south and east walls
+                if (colPlayer - 1 == col && rowPlayer - 1 == row)
+                    continue;
+
+                startX = offsetX + (int)(((col - player.getX()) * HALF_WIDTH) - ((row - player.getY()) * HALF_WIDTH));
+                startY = offsetY + (int)(((row - player.getY()) * HALF_HEIGHT) + ((col - player.getX()) * HALF_HEIGHT));
+
+                //get the polygon based on the current corrdinate/dimensions
+                Polygon polygon = getPolygon(startX, startY, Puzzle.CELL_WIDTH, Puzzle.CELL_HEIGHT);
+
+                //if not on screen, don't bother drawing
+                if (!screen.intersects(polygon.getBounds()))
+                    continue;
+
+                //make sure we have the wall first
+                if (grid.hasWall(col, row, WallGrid.EAST))
+                {
+                    //should we hide the wall so it is not drawn on top of location
+                    final boolean hideEastWall = (colPlayer - 1 == col && rowPlayer + 1 == row || colPlayer + 1 == col && rowPlayer - 1 == row || colPlayer - 1 == col && rowPlayer == row || colPlayer == col && rowPlayer - 1 == row);
+
+                    //if we are not hiding the wall or on the last column
+                    if (!hideEastWall || hideEastWall && col == grid.getCols() - 1)
+                        drawWall(Wall.East, polygon, graphics);
+                }
+
+                //make sure we have the wall first
+                if (grid.hasWall(col, row, WallGrid.SOUTH))
+                {
+                    //should we hide the wall so it is not drawn on top of location
+                    final boolean hideSouthWall = (colPlayer - 1 == col && rowPlayer == row || colPlayer + 1 == col && rowPlayer - 1 == row || colPlayer == col && rowPlayer - 1 == row);
+
+                    //if we are not hiding the wall or on the last row
+                    if (!hideSouthWall || hideSouthWall && row == grid.getRows() - 1)
+                        drawWall(Wall.South, polygon, graphics);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Draw the floor of every cell to the cached floor image
+     * @param grid The walls of the maze, the maze must be square
+     */
+    private void createFloor(final WallGrid grid)
+    {
+        floorWidth = (int)(grid.getCols() * Puzzle.CELL_WIDTH);
+        floorHeight = (int)(Puzzle.CELL_HEIGHT * grid.getRows());
+        floorGrid = grid;
+        
+        //create the floor image with the appropriate size, the same size or smaller reuses the image we have
+        if (floor == null || floor.getWidth() < floorWidth || floor.getHeight() < floorHeight)
+            floor = new BufferedImage(floorWidth, floorHeight, BufferedImage.TYPE_INT_ARGB);
+        
+        //our graphics object for creating the image
+        Graphics2D imageGraphics = floor.createGraphics();
+        
+        //clear the previous maze
+        imageGraphics.setComposite(AlphaComposite.Clear);
+        imageGraphics.fillRect(0, 0, floor.getWidth(), floor.getHeight());
+        imageGraphics.setComposite(AlphaComposite.SrcOver);
+        
+        //for isometric draw the floors first
+        for (int row = 0; row < grid.getRows(); row++)
+        {
+            for (int col = 0; col < grid.getCols(); col++)
             {
                 //get the appropriate coordinates for drawing the polygon on the image
-                final int startX = (floor.getWidth() / 2) + (int)((cell.getCol() * HALF_WIDTH)  - (cell.getRow() * HALF_WIDTH));
-                final int startY = (int)((cell.getRow() * HALF_HEIGHT) + (cell.getCol() * HALF_HEIGHT));
+                final int startX = (floorWidth / 2) + (int)((col * HALF_WIDTH)  - (row * HALF_WIDTH));
+                final int startY = (int)((row * HALF_HEIGHT) + (col * HALF_HEIGHT));
 
                 //get the polygon based on the current corrdinate/dimensions
                 Polygon polygon = getPolygon(startX, startY, Puzzle.CELL_WIDTH, Puzzle.CELL_HEIGHT);
 
                 imageGraphics.setColor(Puzzle.FLOOR_COLOR);
-                
-                if (cell.equals(finish))
+
+                if (grid.isFinish(col, row))
                     imageGraphics.setColor(Puzzle.SOLUTION_COLOR);
 
                 imageGraphics.fillPolygon(polygon);
@@ -93,118 +231,125 @@ public class Isometric
             }
         }
         
-        int startX = (int)(offsetX - (((size * Puzzle.CELL_WIDTH) / 2) - ((-player.getX() * HALF_WIDTH) - (-player.getY() * HALF_WIDTH))));
-        int startY = (int)(offsetY + ((-player.getY() * HALF_HEIGHT) + (-player.getX() * HALF_HEIGHT)));
-
-        //draw the floor accordingly
-        graphics.drawImage(floor, startX, startY, floor.getWidth(), floor.getHeight(), null);
+        imageGraphics.dispose();
+    }
+    
+    /**
+     * Draw a breadcrumb in each of the next cells on the way to the finish, each cell is a single lookup
+     * @param graphics
+     * @param screen Container which maze will be drawn within
+     * @param grid The walls of the maze
+     * @param player The player we are centered on
+     */
+    public void renderHint(final Graphics graphics, final Rectangle screen, final WallGrid grid, final PlayerState player)
+    {
+        if (player == null)
+            return;
+        
+        //start from the cell the center of the player is in
+        int index = grid.getIndex(
+            (int)(player.getX() + ((player.getWidth() / Puzzle.CELL_WIDTH) / 2)), 
+            (int)(player.getY() + ((player.getHeight() / Puzzle.CELL_HEIGHT) / 2)));
         
-        for (Location cell : labyrinth.getLocations())
+        graphics.setColor(Puzzle.HINT_COLOR);
+        
+        for (int i = 0; i < Puzzle.HINT_LENGTH; i++)
         {
-            //if not close enough we won't render
-            if (!player.hasRange(cell))
-                continue;
+            index = grid.getHintCell(index);
             
-            final int col = cell.getCol();
-            final int row = cell.getRow();
+            //we have reached the finish
+            if (index == -1)
+                break;
             
-            startX = offsetX + (int)(((col - player.getX()) * HALF_WIDTH) - ((row - player.getY()) * HALF_WIDTH));
-            startY = offsetY + (int)(((row - player.getY()) * HALF_HEIGHT) + ((col - player.getX()) * HALF_HEIGHT));
-
-            //get the polygon based on the current corrdinate/dimensions
-            Polygon polygon = getPolygon(startX, startY, Puzzle.CELL_WIDTH, Puzzle.CELL_HEIGHT);
-
-            //if not on screen, don't bother drawing
-            if (!screen.intersects(polygon.getBounds()))
-                continue;
+            final double col = grid.getCol(index) + .5 - player.getX();
+            final double row = grid.getRow(index) + .5 - player.getY();
             
-            Location loc = labyrinth.getLocation(col, row);
-
-            if (loc.hasWall(Wall.North))
-                drawWall(Wall.North, polygon, graphics);
-            if (loc.hasWall(Wall.West))
-                drawWall(Wall.West, polygon, graphics);
+            final int drawX = offsetX + (int)((col * HALF_WIDTH) - (row * HALF_WIDTH)) - (Puzzle.HINT_SIZE / 2);
+            final int drawY = offsetY + (int)((row * HALF_HEIGHT) + (col * HALF_HEIGHT)) - (Puzzle.HINT_SIZE / 4);
+            
+            //the floor is flattened so the breadcrumb is too
+            graphics.fillOval(drawX, drawY, Puzzle.HINT_SIZE, Puzzle.HINT_SIZE / 2);
         }
+    }
+    
+    /**
+     * Draw the ghost see-through so the maze shows behind it
+     * @param graphics
+     * @param ghost The ghost, null if there isn't one
+     * @param player The player we are centered on
+     */
+    public void renderGhost(final Graphics graphics, final PlayerState ghost, final PlayerState player)
+    {
+        if (ghost == null || player == null)
+            return;
         
-        //draw our position between the north-west and the south-east walls
-        drawLocation(graphics, player);
+        final double col = ghost.getX() - player.getX();
+        final double row = ghost.getY() - player.getY();
+        
+        final int drawX = offsetX + (int)((col * HALF_WIDTH) - (row * HALF_WIDTH));
+        final int drawY = offsetY + (int)((row * HALF_HEIGHT) + (col * HALF_HEIGHT));
+        
+        //the same shape as our location raised to the top of it
+        final Polygon top = getPolygon(drawX, drawY - LOCATION_HEIGHT, LOCATION_WIDTH, LOCATION_HEIGHT);
         
-        for (Location cell : labyrinth.getLocations())
+        graphics.setColor(Puzzle.GHOST_COLOR);
+        graphics.fillPolygon(top);
+    }
+    
+    /**
+     * Draw every racer in one pass on top of the maze, the racers all look the same so the color is only set once
+     * @param graphics
+     * @param screen Container which maze will be drawn within
+     * @param racers The center x then y of each racer in cells, null if not racing
+     * @param player The player we are centered on
+     */
+    public void renderRacers(final Graphics graphics, final Rectangle screen, final float[] racers, final PlayerState player)
+    {
+        if (racers == null || player == null)
+            return;
+        
+        graphics.setColor(Puzzle.RACER_COLOR);
+        
+        for (int i = 0; i < racers.length; i += 2)
         {
-            //if not close enough we won't render
-            if (!player.hasRange(cell))
-                continue;
+            final double col = racers[i] - player.getX();
+            final double row = racers[i + 1] - player.getY();
             
-            final int col = cell.getCol();
-            final int row = cell.getRow();
+            final int drawX = offsetX + (int)((col * HALF_WIDTH) - (row * HALF_WIDTH)) - (Puzzle.RACER_SIZE / 2);
+            final int drawY = offsetY + (int)((row * HALF_HEIGHT) + (col * HALF_HEIGHT)) - Puzzle.RACER_SIZE;
             
-            final int colPlayer = (int)player.getX();
-            final int rowPlayer = (int)player.getY();
-            
-            //if a Location is in this position we won't draw the south and east walls
-            if (colPlayer - 1 == col && rowPlayer - 1 == row)
-                continue;
-            
-            startX = offsetX + (int)(((col - player.getX()) * HALF_WIDTH) - ((row - player.getY()) * HALF_WIDTH));
-            startY = offsetY + (int)(((row - player.getY()) * HALF_HEIGHT) + ((col - player.getX()) * HALF_HEIGHT));
-
-            //get the polygon based on the current corrdinate/dimensions
-            Polygon polygon = getPolygon(startX, startY, Puzzle.CELL_WIDTH, Puzzle.CELL_HEIGHT);
-
-            //if not on screen, don't bother drawing
-            if (!screen.intersects(polygon.getBounds()))
+            //don't draw the racer if it isn't on the screen
+            if (!screen.intersects(drawX, drawY, Puzzle.RACER_SIZE, Puzzle.RACER_SIZE))
                 continue;
             
-            Location loc = labyrinth.getLocation(col, row);
-            
-            //make sure we have the wall first
-            if (loc.hasWall(Wall.East))
-            {
-                //should we hide the wall so it is not drawn on top of location
-                final boolean hideEastWall = (colPlayer - 1 == col && rowPlayer + 1 == row || colPlayer + 1 == col && rowPlayer - 1 == row || colPlayer - 1 == col && rowPlayer == row || colPlayer == col && rowPlayer - 1 == row);
-
-                //if we are not hiding the wall or on the last column
-                if (!hideEastWall || hideEastWall && col == size - 1)
-                    drawWall(Wall.East, polygon, graphics);
-            }
-            
-            //make sure we have the wall first
-            if (loc.hasWall(Wall.South))
-            {
-                //should we hide the wall so it is not drawn on top of location
-                final boolean hideSouthWall = (colPlayer - 1 == col && rowPlayer == row || colPlayer + 1 == col && rowPlayer - 1 == row || colPlayer == col && rowPlayer - 1 == row);
-                
-                //if we are not hiding the wall or on the last row
-                if (!hideSouthWall || hideSouthWall && row == size - 1)
-                    drawWall(Wall.South, polygon, graphics);
-            }
+            graphics.fillRect(drawX, drawY, Puzzle.RACER_SIZE, Puzzle.RACER_SIZE);
         }
     }
     
-    private void drawLocation(Graphics graphics, final Player player)
+    private void drawLocation(Graphics graphics)
     {
-        player.setBoundary(getPolygon(offsetX, offsetY, LOCATION_WIDTH, LOCATION_HEIGHT));
+        final Polygon boundary = getPolygon(offsetX, offsetY, LOCATION_WIDTH, LOCATION_HEIGHT);
         
         //draw current location floor
         graphics.setColor(Color.GREEN);
-        graphics.fillPolygon(player.getBoundary());
+        graphics.fillPolygon(boundary);
         graphics.setColor(Puzzle.WALL_OUTLINE_COLOR);
-        graphics.drawPolygon(player.getBoundary());
+        graphics.drawPolygon(boundary);
         
         int[] x1 = new int[4];
         int[] y1 = new int[4];
         
-        x1[0] = player.getBoundary().xpoints[3];
-        y1[0] = player.getBoundary().ypoints[3];
+        x1[0] = boundary.xpoints[3];
+        y1[0] = boundary.ypoints[3];
         
-        x1[1] = player.getBoundary().xpoints[3];
-        y1[1] = player.getBoundary().ypoints[3] - LOCATION_HEIGHT;
+        x1[1] = boundary.xpoints[3];
+        y1[1] = boundary.ypoints[3] - LOCATION_HEIGHT;
 
-        x1[2] = player.getBoundary().xpoints[2];
-        y1[2] = player.getBoundary().ypoints[2] - LOCATION_HEIGHT;
+        x1[2] = boundary.xpoints[2];
+        y1[2] = boundary.ypoints[2] - LOCATION_HEIGHT;
 
-        x1[3] = player.getBoundary().xpoints[2];
-        y1[3] = player.getBoundary().ypoints[2];
+        x1[3] = boundary.xpoints[2];
+        y1[3] = boundary.ypoints[2];
         
         //draw side
         tmp = new Polygon(x1, y1, x1.length);
@@ -216,17 +361,17 @@ public class Isometric
         int[] x2 = new int[4];
         int[] y2 = new int[4];
         
-        x2[0] = player.getBoundary().xpoints[1];
-        y2[0] = player.getBoundary().ypoints[1];
+        x2[0] = boundary.xpoints[1];
+        y2[0] = boundary.ypoints[1];
         
-        x2[1] = player.getBoundary().xpoints[1];
-        y2[1] = player.getBoundary().ypoints[1] - LOCATION_HEIGHT;
+        x2[1] = boundary.xpoints[1];
+        y2[1] = boundary.ypoints[1] - LOCATION_HEIGHT;
 
-        x2[2] = player.getBoundary().xpoints[2];
-        y2[2] = player.getBoundary().ypoints[2] - LOCATION_HEIGHT;
+        x2[2] = boundary.xpoints[2];
+        y2[2] = boundary.ypoints[2] - LOCATION_HEIGHT;
 
-        x2[3] = player.getBoundary().xpoints[2];
-        y2[3] = player.getBoundary().ypoints[2];
+        x2[3] = boundary.xpoints[2];
+        y2[3] = boundary.ypoints[2];
         
         //draw other side
         Polygon tmp2 = new Polygon(x2, y2, x2.length);
@@ -235,7 +380,7 @@ public class Isometric
         graphics.setColor(Color.BLACK);
         graphics.drawPolygon(tmp2);
         
-        Polygon top = new Polygon(player.getBoundary().xpoints, player.getBoundary().ypoints, player.getBoundary().npoints);
+        Polygon top = new Polygon(boundary.xpoints, boundary.ypoints, boundary.npoints);
         top.translate(0, -LOCATION_HEIGHT);
         
         //draw top
@@ -0,0 +1,465 @@
+package com.gamesbykevin.maze.puzzle;
+
+import java.util.Arrays;
+
+/**
+ * A compressed copy of the maze where every corridor is replaced by a single weighted edge.
+ * The nodes are the junctions, dead ends, start and finish, everything else is a corridor cell with exactly 2 openings.
+ * The edges are stored in primitive arrays (compressed sparse row) so searching only touches the nodes.
+ * @author GOD
+ */
+public final class JunctionGraph
+{
+    //the walls of the maze this graph was built from
+    private final WallGrid grid;
+
+    //the cell index of each node, sorted so we can find the node for a cell
+    private final int[] nodeCell;
+
+    //the edges for node n are from edgeStart[n] to edgeStart[n + 1] - 1
+    private final int[] edgeStart;
+
+    //the node each edge leads to
+    private final int[] edgeTarget;
+
+    //the number of cells walked along each edge
+    private final int[] edgeWeight;
+
+    //the direction of the first step out of the node for each edge
+    private final byte[] edgeDirection;
+
+    //the number of cells walked along the shortest path from start to finish, -1 if there is no path
+    private final int solutionLength;
+
+    /**
+     * Build the graph
+     * @param grid The walls of the maze
+     */
+    JunctionGraph(final WallGrid grid)
+    {
+        this.grid = grid;
+
+        final int cells = grid.getCols() * grid.getRows();
+
+        //count the nodes and edges so the arrays are created once
+        int nodes = 0, edges = 0;
+
+        for (int index = 0; index < cells; index++)
+        {
+            if (isNode(index))
+            {
+                nodes++;
+                edges += getOpenings(index);
+            }
+        }
+
+        this.nodeCell = new int[nodes];
+        this.edgeStart = new int[nodes + 1];
+        this.edgeTarget = new int[edges];
+        this.edgeWeight = new int[edges];
+        this.edgeDirection = new byte[edges];
+
+        for (int index = 0, node = 0; index < cells; index++)
+        {
+            if (isNode(index))
+                nodeCell[node++] = index;
+        }
+
+        int edge = 0;
+
+        for (int node = 0; node < nodes; node++)
+        {
+            edgeStart[node] = edge;
+
+            for (byte wall : WallGrid.DIRECTIONS)
+            {
+                if (!grid.isOpen(nodeCell[node], wall))
+                    continue;
+
+                //walk along the corridor until we reach the next node
+                byte direction = wall;
+                int cell = grid.getNeighbor(nodeCell[node], wall);
+                int length = 1;
+
+                while (!isNode(cell))
+                {
+                    direction = getExit(cell, WallGrid.getOpposite(direction));
+                    cell = grid.getNeighbor(cell, direction);
+                    length++;
+                }
+
+                edgeTarget[edge] = getNode(cell);
+                edgeWeight[edge] = length;
+                edgeDirection[edge] = wall;
+                edge++;
+            }
+        }
+
+        edgeStart[nodes] = edge;
+
+        this.solutionLength = getDistance(grid.getStart(), grid.getFinish());
+    }
+
+    /**
+     * Is the cell a node, every cell is a node unless it is a corridor with exactly 2 openings
+     * @param index The cell index
+     * @return boolean
+     */
+    private boolean isNode(final int index)
+    {
+        return (getOpenings(index) != 2 || index == grid.getStart() || index == grid.getFinish());
+    }
+
+    private int getOpenings(final int index)
+    {
+        int count = 0;
+
+        for (byte wall : WallGrid.DIRECTIONS)
+        {
+            if (grid.isOpen(index, wall))
+                count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Get the way out of a corridor cell
+     * @param index The cell index
+     * @param entry The side we came in from
+     * @return byte The other opening
+     */
+    private byte getExit(final int index, final byte entry)
+    {
+        for (byte wall : WallGrid.DIRECTIONS)
+        {
+            if (wall != entry && grid.isOpen(index, wall))
+                return wall;
+        }
+
+        return entry;
+    }
+
+    public int getNodeCount()
+    {
+        return nodeCell.length;
+    }
+
+    public int getEdgeCount()
+    {
+        return edgeTarget.length;
+    }
+
+    /**
+     * Get the node for a cell
+     * @param index The cell index
+     * @return int The node, -1 if the cell is part of a corridor
+     */
+    public int getNode(final int index)
+    {
+        final int node = Arrays.binarySearch(nodeCell, index);
+
+        return (node < 0) ? -1 : node;
+    }
+
+    public int getCell(final int node)
+    {
+        return nodeCell[node];
+    }
+
+    /**
+     * The first edge of a node
+     * @param node The node
+     * @return int
+     */
+    public int getEdgeStart(final int node)
+    {
+        return edgeStart[node];
+    }
+
+    /**
+     * One past the last edge of a node
+     * @param node The node
+     * @return int
+     */
+    public int getEdgeEnd(final int node)
+    {
+        return edgeStart[node + 1];
+    }
+
+    public int getEdgeTarget(final int edge)
+    {
+        return edgeTarget[edge];
+    }
+
+    public int getEdgeWeight(final int edge)
+    {
+        return edgeWeight[edge];
+    }
+
+    public byte getEdgeDirection(final int edge)
+    {
+        return edgeDirection[edge];
+    }
+
+    /**
+     * The number of cells walked along the shortest path from start to finish
+     * @return int -1 if there is no path
+     */
+    public int getSolutionLength()
+    {
+        return this.solutionLength;
+    }
+
+    /**
+     * Get the number of cells walked along the shortest path between 2 nodes
+     * @param from The cell index we start at, must be a node
+     * @param to The cell index we want to reach, must be a node
+     * @return int -1 if there is no path or either cell isn't a node
+     */
+    public int getDistance(final int from, final int to)
+    {
+        final int[] previousEdge = search(from, to);
+
+        if (previousEdge == null)
+            return -1;
+
+        return getLength(previousEdge, getNode(from), getNode(to));
+    }
+    
+    /**
+     * Add up the edges of a path found by search()
+     * @param previousEdge The edge used to reach each node
+     * @param start The node we started at
+     * @param finish The node we reached
+     * @return int The number of cells walked
+     */
+    private int getLength(final int[] previousEdge, final int start, final int finish)
+    {
+        int length = 0;
+
+        for (int node = finish; node != start; node = getSource(previousEdge[node]))
+        {
+            length += edgeWeight[previousEdge[node]];
+        }
+
+        return length;
+    }
+
+    /**
+     * Find the shortest path between 2 cells searching only the nodes, then expand it back into cells.
+     * If either cell is part of a corridor we search the cells instead.
+     * @param from The cell index we start at
+     * @param to The cell index we want to reach
+     * @return int[] The index of every cell from start to finish, empty if there is no path
+     */
+    public int[] findPath(final int from, final int to)
+    {
+        if (getNode(from) == -1 || getNode(to) == -1)
+            return grid.findPath(from, to);
+
+        final int[] previousEdge = search(from, to);
+
+        if (previousEdge == null)
+            return new int[0];
+
+        final int length = getLength(previousEdge, getNode(from), getNode(to));
+        final int[] path = new int[length + 1];
+
+        //fill each corridor in backwards starting from the finish
+        int position = length;
+        int node = getNode(to);
+
+        path[position] = to;
+
+        while (node != getNode(from))
+        {
+            final int edge = previousEdge[node];
+            final int parent = getSource(edge);
+
+            //walk the corridor forwards from the parent, the node at the end has already been added
+            byte direction = edgeDirection[edge];
+            int cell = nodeCell[parent];
+            position -= edgeWeight[edge];
+            path[position] = cell;
+
+            for (int i = 1; i < edgeWeight[edge]; i++)
+            {
+                cell = grid.getNeighbor(cell, direction);
+                path[position + i] = cell;
+                direction = getExit(cell, WallGrid.getOpposite(direction));
+            }
+
+            node = parent;
+        }
+
+        return path;
+    }
+
+    /**
+     * A* search over the nodes using the manhattan distance, this is admissible as no corridor is shorter than the distance it covers
+     * @param from The cell index we start at
+     * @param to The cell index we want to reach
+     * @return int[] The edge used to reach each node (leaving the previous node), null if there is no path
+     */
+    private int[] search(final int from, final int to)
+    {
+        final int start = getNode(from);
+        final int finish = getNode(to);
+
+        if (start == -1 || finish == -1)
+            return null;
+
+        final int nodes = nodeCell.length;
+
+        //the cost from the start to each node, -1 if not reached yet
+        final int[] cost = new int[nodes];
+        Arrays.fill(cost, -1);
+
+        //the edge we took to reach each node
+        final int[] previousEdge = new int[nodes];
+        Arrays.fill(previousEdge, -1);
+
+        //have we finished checking the node
+        final boolean[] closed = new boolean[nodes];
+
+        //the open set ordered by the estimated total cost, a node can be added more than once if a cheaper way is found
+        int[] heap = new int[nodes];
+        int[] keys = new int[nodes];
+        int size = 0;
+
+        cost[start] = 0;
+        heap[size] = start;
+        keys[size++] = getEstimate(start, finish);
+
+        while (size > 0)
+        {
+            //remove the node with the lowest estimate
+            final int node = heap[0];
+            size--;
+            heap[0] = heap[size];
+            keys[0] = keys[size];
+            siftDown(heap, keys, size);
+
+            if (closed[node])
+                continue;
+
+            closed[node] = true;
+
+            if (node == finish)
+                return previousEdge;
+
+            for (int edge = edgeStart[node]; edge < edgeStart[node + 1]; edge++)
+            {
+                final int neighbor = edgeTarget[edge];
+                final int total = cost[node] + edgeWeight[edge];
+
+                if (closed[neighbor] || (cost[neighbor] != -1 && cost[neighbor] <= total))
+                    continue;
+
+                cost[neighbor] = total;
+                previousEdge[neighbor] = edge;
+
+                if (size == heap.length)
+                {
+                    heap = Arrays.copyOf(heap, heap.length * 2);
+                    keys = Arrays.copyOf(keys, keys.length * 2);
+                }
+
+                heap[size] = neighbor;
+                keys[size] = total + getEstimate(neighbor, finish);
+                siftUp(heap, keys, size++);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the node an edge leaves from
+     * @param edge The edge
+     * @return int
+     */
+    private int getSource(final int edge)
+    {
+        //the edges are stored in node order so find the last node starting at or before the edge
+        int low = 0, high = nodeCell.length - 1;
+
+        while (low < high)
+        {
+            final int middle = (low + high + 1) >>> 1;
+
+            if (edgeStart[middle] <= edge)
+            {
+                low = middle;
+            }
+            else
+            {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+
+    private int getEstimate(final int node, final int finish)
+    {
+        final int from = nodeCell[node];
+        final int to = nodeCell[finish];
+
+        return Math.abs(grid.getCol(from) - grid.getCol(to)) + Math.abs(grid.getRow(from) - grid.getRow(to));
+    }
+
+    private static void siftUp(final int[] heap, final int[] keys, int position)
+    {
+        final int node = heap[position];
+        final int key = keys[position];
+
+        while (position > 0)
+        {
+            final int parent = (position - 1) / 2;
+
+            if (keys[parent] <= key)
+                break;
+
+            heap[position] = heap[parent];
+            keys[position] = keys[parent];
+            position = parent;
+        }
+
+        heap[position] = node;
+        keys[position] = key;
+    }
+
+    private static void siftDown(final int[] heap, final int[] keys, final int size)
+    {
+        if (size == 0)
+            return;
+
+        final int node = heap[0];
+        final int key = keys[0];
+        int position = 0;
+
+        while (true)
+        {
+            int child = (position * 2) + 1;
+
+            if (child >= size)
+                break;
+
+            //pick the smaller child
+            if (child + 1 < size && keys[child + 1] < keys[child])
+                child++;
+
+            if (keys[child] >= key)
+                break;
+
+            heap[position] = heap[child];
+            keys[position] = keys[child];
+            position = child;
+        }
+
+        heap[position] = node;
+        keys[position] = key;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.gamesbykevin.maze.puzzle;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Carves a perfect maze with a random depth first search.
+ * Unlike the Labyrinth the result only depends on the Random given, so a seed is enough to create the same maze again.
+ * The arrays used while carving are kept so a carver can be used for many mazes, a carver should only be used by one thread.
+ * @author GOD
+ */
+final class MazeCarver
+{
+    //the cells we have been to
+    private boolean[] visited = new boolean[0];
+
+    //the cells we walked through to get here, the size of the stack is the distance from the start
+    private int[] stack = new int[0];
+
+    //the dimensions of the maze being carved
+    private int cols, rows;
+
+    /**
+     * Carve a new maze
+     * @param cols Total number of columns
+     * @param rows Total number of rows
+     * @param start The index of the cell the search starts at
+     * @param random Decides every passage
+     * @return byte[] The wall bits for each cell, index = (row * cols) + col
+     */
+    byte[] carve(final int cols, final int rows, final int start, final Random random)
+    {
+        final byte[] walls = new byte[cols * rows];
+
+        carve(walls, cols, rows, start, random);
+
+        return walls;
+    }
+
+    /**
+     * Carve a new maze into an existing array
+     * @param walls The wall bits for each cell, every wall will be replaced
+     * @param cols Total number of columns
+     * @param rows Total number of rows
+     * @param start The index of the cell the search starts at
+     * @param random Decides every passage
+     * @return int The index of the cell furthest from the start
+     */
+    int carve(final byte[] walls, final int cols, final int rows, final int start, final Random random)
+    {
+        final int cells = cols * rows;
+
+        this.cols = cols;
+        this.rows = rows;
+
+        //the arrays from the last maze are kept if they are big enough
+        if (visited.length < cells)
+        {
+            visited = new boolean[cells];
+            stack = new int[cells];
+        }
+        else
+        {
+            Arrays.fill(visited, 0, cells, false);
+        }
+
+        Arrays.fill(walls, 0, cells, WallGrid.ALL_WALLS);
+
+        int size = 0;
+        stack[size++] = start;
+        visited[start] = true;
+
+        //the maze is perfect so the path along the stack is the only path, the deepest cell is the furthest away
+        int furthest = start, depth = 1;
+
+        while (size > 0)
+        {
+            final int index = stack[size - 1];
+            final int col = index % cols;
+            final int row = index / cols;
+
+            //count the neighbors we haven't been to
+            int count = 0;
+
+            for (byte wall : WallGrid.DIRECTIONS)
+            {
+                final int neighbor = getNeighbor(col, row, wall);
+
+                if (neighbor != -1 && !visited[neighbor])
+                    count++;
+            }
+
+            //dead end go back
+            if (count == 0)
+            {
+                size--;
+                continue;
+            }
+
+            int choice = random.nextInt(count);
+
+            for (byte wall : WallGrid.DIRECTIONS)
+            {
+                final int neighbor = getNeighbor(col, row, wall);
+
+                if (neighbor == -1 || visited[neighbor] || choice-- != 0)
+                    continue;
+
+                walls[index] &= ~wall;
+                walls[neighbor] &= ~WallGrid.getOpposite(wall);
+                visited[neighbor] = true;
+                stack[size++] = neighbor;
+
+                if (size > depth)
+                {
+                    depth = size;
+                    furthest = neighbor;
+                }
+
+                break;
+            }
+        }
+
+        return furthest;
+    }
+
+    /**
+     * Get the cell on the other side of a wall
+     * @param col Column
+     * @param row Row
+     * @param wall The wall bit of the side we want
+     * @return int The index of the neighbor, -1 if it would be outside of the maze
+     */
+    private int getNeighbor(final int col, final int row, final byte wall)
+    {
+        switch (wall)
+        {
+            case WallGrid.NORTH:
+                return (row > 0) ? ((row - 1) * cols) + col : -1;
+
+            case WallGrid.SOUTH:
+                return (row < rows - 1) ? ((row + 1) * cols) + col : -1;
+
+            case WallGrid.EAST:
+                return (col < cols - 1) ? (row * cols) + col + 1 : -1;
+
+            default:
+                return (col > 0) ? (row * cols) + col - 1 : -1;
+        }
+    }
+}
\ No newline at end of file
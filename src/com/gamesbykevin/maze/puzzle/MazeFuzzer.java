@@ -0,0 +1,260 @@
+package com.gamesbykevin.maze.puzzle;
+
+import com.gamesbykevin.framework.labyrinth.Labyrinth;
+import com.gamesbykevin.framework.labyrinth.Labyrinth.Algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates a large number of mazes with every generator and size and checks each one is perfect with the MazeValidator.
+ * Our own generators are seeded so a failure is reported with the seed that creates the maze again,
+ * the Labyrinth can't be seeded so a failure is reported with the walls of the maze instead.
+ * The mazes are spread across every processor and the throughput printed as CSV, run with:
+ * java com.gamesbykevin.maze.puzzle.MazeFuzzer [mazes] [labyrinths]
+ * @author GOD
+ */
+public final class MazeFuzzer
+{
+    //how many mazes each seeded generator creates for each size
+    private static final int DEFAULT_MAZES = 100000;
+
+    //how many mazes each Labyrinth algorithm creates for each size, they are a lot slower to generate
+    private static final int DEFAULT_LABYRINTHS = 1000;
+
+    //sizes larger than the game uses so the tiles of the TiledMaze are joined, these create 1 maze for every 1000
+    private static final int[] LARGE_SIZES = {257, 600};
+
+    //how many mazes each task creates
+    private static final int BATCH = 1000;
+
+    //the generators we can seed
+    private enum Generator
+    {
+        Carver, Eller, Tiled
+    }
+
+    private MazeFuzzer()
+    {
+        //only run from main
+    }
+
+    public static void main(final String[] args) throws Exception
+    {
+        final int mazes = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_MAZES;
+        final int labyrinths = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_LABYRINTHS;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        final List<String> failures = new ArrayList<>();
+
+        try
+        {
+            System.out.println("generator,size,mazes,failures,ms,mazes_per_second,cells_per_second");
+
+            for (Generator generator : Generator.values())
+            {
+                for (int size : Puzzle.DIMENSION_SELECTIONS)
+                {
+                    failures.addAll(run(executor, generator, null, size, mazes));
+                }
+
+                for (int size : LARGE_SIZES)
+                {
+                    failures.addAll(run(executor, generator, null, size, Math.max(1, mazes / 1000)));
+                }
+            }
+
+            for (Algorithm algorithm : Algorithm.values())
+            {
+                for (int size : Puzzle.DIMENSION_SELECTIONS)
+                {
+                    failures.addAll(run(executor, null, algorithm, size, labyrinths));
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        for (String failure : failures)
+        {
+            System.out.println(failure);
+        }
+
+        System.out.println((failures.isEmpty()) ? "every maze is perfect" : failures.size() + " maze(s) are not perfect");
+    }
+
+    /**
+     * Create and check the mazes for a generator/size across every processor and print the throughput
+     * @param executor Runs each batch
+     * @param generator The seeded generator, null if using the Labyrinth
+     * @param algorithm The Labyrinth algorithm, null if using a seeded generator
+     * @param size The number of columns/rows
+     * @param mazes How many mazes to create
+     * @return List<String> A description of each maze that isn't perfect
+     * @throws Exception
+     */
+    private static List<String> run(final ExecutorService executor, final Generator generator, final Algorithm algorithm, final int size, final int mazes) throws Exception
+    {
+        final List<Future<List<String>>> results = new ArrayList<>();
+
+        final long start = System.nanoTime();
+
+        for (int from = 0; from < mazes; from += BATCH)
+        {
+            results.add(executor.submit(new Batch(generator, algorithm, size, from, Math.min(mazes, from + BATCH))));
+        }
+
+        final List<String> failures = new ArrayList<>();
+
+        for (Future<List<String>> result : results)
+        {
+            failures.addAll(result.get());
+        }
+
+        final long elapsed = Math.max(1, System.nanoTime() - start);
+
+        System.out.println(((generator != null) ? generator.toString() : algorithm.toString()) + "," + size + "," + mazes + "," + failures.size() + "," +
+            (elapsed / 1000000L) + "," + (long)(mazes * 1000000000.0 / elapsed) + "," + (long)((double)mazes * size * size * 1000000000.0 / elapsed));
+
+        return failures;
+    }
+
+    /**
+     * Create and check a range of mazes, each batch has its own generator and validator so nothing is shared between threads
+     */
+    private static final class Batch implements Callable<List<String>>
+    {
+        private final Generator generator;
+        private final Algorithm algorithm;
+        private final int size;
+
+        //the first seed and one past the last seed
+        private final long from, to;
+
+        private final MazeValidator validator = new MazeValidator();
+        private final MazeCarver carver = new MazeCarver();
+        private final Random random = new Random();
+
+        private Batch(final Generator generator, final Algorithm algorithm, final int size, final long from, final long to)
+        {
+            this.generator = generator;
+            this.algorithm = algorithm;
+            this.size = size;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * @return List<String> A description of each maze that isn't perfect
+         */
+        @Override
+        public List<String> call() throws Exception
+        {
+            final List<String> failures = new ArrayList<>();
+
+            for (long seed = from; seed < to; seed++)
+            {
+                final byte[] walls = (generator != null) ? generate(seed) : generate();
+                final String error = validator.check(size, size, walls);
+
+                if (error == null)
+                    continue;
+
+                if (generator != null)
+                {
+                    failures.add(generator + " size " + size + " seed " + seed + ": " + error);
+                }
+                else
+                {
+                    failures.add(algorithm + " size " + size + ": " + error + "\n" + describe(walls));
+                }
+            }
+
+            return failures;
+        }
+
+        /**
+         * Create a maze with a seeded generator
+         * @param seed Decides every passage
+         * @return byte[] The wall bits for each cell
+         * @throws Exception
+         */
+        private byte[] generate(final long seed) throws Exception
+        {
+            switch (generator)
+            {
+                case Carver:
+                    random.setSeed(seed);
+                    return carver.carve(size, size, 0, random);
+
+                case Eller:
+                    final byte[] walls = new byte[size * size];
+
+                    new EllerMaze(size, seed).generate(size, new RowConsumer()
+                    {
+                        @Override
+                        public void accept(final long row, final byte[] cells)
+                        {
+                            System.arraycopy(cells, 0, walls, (int)row * size, size);
+                        }
+                    });
+
+                    return walls;
+
+                default:
+                    //the batches already use every processor so each maze is carved on 1 thread
+                    return new TiledMaze(size, size, seed).generate(null);
+            }
+        }
+
+        /**
+         * Create a maze with the Labyrinth the same way the Puzzle does
+         * @return byte[] The wall bits for each cell
+         * @throws Exception
+         */
+        private byte[] generate() throws Exception
+        {
+            final Labyrinth labyrinth = new Labyrinth(size, size, algorithm);
+            labyrinth.setStart(0, 0);
+            labyrinth.create();
+
+            while (!labyrinth.isComplete())
+            {
+                labyrinth.update();
+            }
+
+            final byte[] walls = WallGrid.copyWalls(labyrinth, size, size);
+
+            labyrinth.dispose();
+
+            return walls;
+        }
+
+        /**
+         * Write the walls of a maze as 1 hex digit per cell and 1 line per row so it can be rebuilt
+         * @param walls The wall bits for each cell
+         * @return String
+         */
+        private String describe(final byte[] walls)
+        {
+            final StringBuilder text = new StringBuilder(walls.length + size);
+
+            for (int index = 0; index < walls.length; index++)
+            {
+                text.append(Character.forDigit(walls[index], 16));
+
+                if ((index + 1) % size == 0 && index + 1 < walls.length)
+                    text.append('\n');
+            }
+
+            return text.toString();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.gamesbykevin.maze.puzzle;
+
+/**
+ * Helpers shared by the maze generators and anything else that needs a repeatable seed or to join sets of cells.
+ * @author GOD
+ */
+public final class MazeMath
+{
+    //the golden ratio as a 64 bit fraction, multiplying by it spreads consecutive numbers across every bit
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private MazeMath()
+    {
+        //helpers only
+    }
+
+    /**
+     * Create the seed for one part of a larger seeded object (e.g. a chunk, floor or tile),
+     * so each part can be created on its own in any order and is always the same
+     * @param seed The seed of the whole object
+     * @param part The number of the part starting at 0
+     * @return long
+     */
+    public static long mixSeed(final long seed, final long part)
+    {
+        return seed ^ (GOLDEN * (part + 1));
+    }
+
+    /**
+     * Find the root of the set an element has been joined to
+     * @param parents The parent of each element, an element is a root if it is its own parent
+     * @param element The element
+     * @return int The root element
+     */
+    public static int find(final int[] parents, int element)
+    {
+        while (parents[element] != element)
+        {
+            //point at the grandparent so the next search is shorter
+            parents[element] = parents[parents[element]];
+            element = parents[element];
+        }
+
+        return element;
+    }
+}
\ No newline at end of file
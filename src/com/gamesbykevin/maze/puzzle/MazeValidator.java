@@ -0,0 +1,124 @@
+package com.gamesbykevin.maze.puzzle;
+
+/**
+ * Checks a maze is perfect: the outside is closed, every wall is the same from both sides and there is exactly 1 path between any 2 cells.
+ * Every passage joins 2 sets of cells in a single pass, a passage between cells already joined is a loop
+ * and once every passage is joined there has to be 1 set left.
+ * The array used is kept so a validator can check many mazes, a validator should only be used by one thread.
+ * @author GOD
+ */
+public final class MazeValidator
+{
+    //the cell each cell has been joined to
+    private int[] parents = new int[0];
+
+    /**
+     * Check a maze
+     * @param grid The walls of the maze
+     * @return String Why the maze isn't perfect, null if it is
+     */
+    public String check(final WallGrid grid)
+    {
+        final byte[] walls = new byte[grid.getCols() * grid.getRows()];
+
+        for (int index = 0; index < walls.length; index++)
+        {
+            walls[index] = grid.getWalls(index);
+        }
+
+        return check(grid.getCols(), grid.getRows(), walls);
+    }
+
+    /**
+     * Check a maze
+     * @param cols Total number of columns
+     * @param rows Total number of rows
+     * @param walls The wall bits for each cell, index = (row * cols) + col
+     * @return String Why the maze isn't perfect, null if it is
+     */
+    public String check(final int cols, final int rows, final byte[] walls)
+    {
+        final int cells = cols * rows;
+
+        if (walls.length != cells)
+            return "there are " + walls.length + " cells instead of " + cells;
+
+        //the array from the last maze is kept if it is big enough
+        if (parents.length < cells)
+            parents = new int[cells];
+
+        for (int index = 0; index < cells; index++)
+        {
+            parents[index] = index;
+        }
+
+        int passages = 0;
+
+        for (int row = 0; row < rows; row++)
+        {
+            for (int col = 0; col < cols; col++)
+            {
+                final int index = (row * cols) + col;
+                final byte bits = walls[index];
+
+                if ((row == 0 && (bits & WallGrid.NORTH) == 0) || (row == rows - 1 && (bits & WallGrid.SOUTH) == 0) ||
+                    (col == 0 && (bits & WallGrid.WEST) == 0) || (col == cols - 1 && (bits & WallGrid.EAST) == 0))
+                    return "cell " + index + " is open to the outside";
+
+                //each passage is checked from the cell north or west of it
+                if (col < cols - 1)
+                {
+                    final boolean open = (bits & WallGrid.EAST) == 0;
+
+                    if (open != ((walls[index + 1] & WallGrid.WEST) == 0))
+                        return "the wall between cell " + index + " and " + (index + 1) + " is only on 1 side";
+
+                    if (open && !join(index, index + 1))
+                        return "the passage between cell " + index + " and " + (index + 1) + " makes a loop";
+
+                    if (open)
+                        passages++;
+                }
+
+                if (row < rows - 1)
+                {
+                    final boolean open = (bits & WallGrid.SOUTH) == 0;
+
+                    if (open != ((walls[index + cols] & WallGrid.NORTH) == 0))
+                        return "the wall between cell " + index + " and " + (index + cols) + " is only on 1 side";
+
+                    if (open && !join(index, index + cols))
+                        return "the passage between cell " + index + " and " + (index + cols) + " makes a loop";
+
+                    if (open)
+                        passages++;
+                }
+            }
+        }
+
+        //without any loops each passage joins 2 parts into 1
+        if (passages != cells - 1)
+            return "the maze is in " + (cells - passages) + " parts";
+
+        return null;
+    }
+
+    /**
+     * Join the parts 2 cells are in
+     * @param index The cell
+     * @param neighbor The cell on the other side of the passage
+     * @return boolean false if they were already in the same part
+     */
+    private boolean join(final int index, final int neighbor)
+    {
+        final int first = MazeMath.find(parents, index);
+        final int second = MazeMath.find(parents, neighbor);
+
+        if (first == second)
+            return false;
+
+        parents[second] = first;
+
+        return true;
+    }
+}
\ No newline at end of file
@@ -1,20 +1,35 @@
 package com.gamesbykevin.maze.puzzle;
 
 import com.gamesbykevin.framework.base.Cell;
+import com.gamesbykevin.framework.input.Keyboard;
 import com.gamesbykevin.framework.labyrinth.Location;
 import com.gamesbykevin.framework.labyrinth.Labyrinth;
 import com.gamesbykevin.framework.labyrinth.Labyrinth.Algorithm;
 import com.gamesbykevin.framework.util.*;
 
-import com.gamesbykevin.maze.main.Engine;
+import com.gamesbykevin.maze.net.GameClient;
+import com.gamesbykevin.maze.player.AgentSwarm;
 import com.gamesbykevin.maze.player.Player;
+import com.gamesbykevin.maze.player.PlayerState;
+import com.gamesbykevin.maze.profiler.FlightEvent;
+import com.gamesbykevin.maze.profiler.Phase;
+import com.gamesbykevin.maze.profiler.Profiler;
+import com.gamesbykevin.maze.replay.GhostRecorder;
+import com.gamesbykevin.maze.replay.GhostTrack;
+import com.gamesbykevin.maze.replay.ReplayReader;
+import com.gamesbykevin.maze.replay.ReplayRecorder;
+import com.gamesbykevin.maze.shared.Shared;
+import com.gamesbykevin.maze.solver.Solver;
+import com.gamesbykevin.maze.solver.SolverStrategy;
 
-import java.awt.image.BufferedImage;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.Point;
 import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This is our main Maze class that updates and renders
@@ -22,25 +37,74 @@ import java.awt.Rectangle;
  */
 public class Puzzle 
 {
-    //our maze object
+    //our maze object, null for the endless and floors game types
     private Labyrinth labyrinth;
     
+    //generates the maze as the player goes when the game type is endless, null otherwise
+    private EndlessMaze endless;
+    
+    //the floors of the maze when the game type is floors, null otherwise
+    private FloorStack floors;
+    
+    //the floor the player is on, 0 is the top
+    private int floor = 0;
+    
+    //the cell the player was in when the stairs were last checked
+    private int floorCell = -1;
+    
+    //the number of floors stacked when the game type is floors
+    public static final int FLOORS = 10;
+    
+    //the walls of the maze once it has been generated
+    private WallGrid grid;
+    
+    //the latest state of the puzzle for the render thread to draw
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    
+    //the flight recorder event timing the maze generation, null if not recording
+    private Object generationEvent;
+    
+    //how many updates it has taken to generate the maze
+    private int generationSteps = 0;
+    
+    //the algorithm used to generate the current maze
+    private Algorithm algorithm;
+    
+    //records the game so it can be replayed, null if not recording
+    private ReplayRecorder recorder;
+    
+    //plays back a recorded game instead of generating mazes and reading the keyboard, null if not replaying
+    private ReplayReader replay;
+    
+    //the connection to the server when racing online, null otherwise
+    private GameClient client;
+    
+    //shown while the labyrinth is generated
+    private static final String GENERATING = "Generating Maze";
+    
+    //shown online while the server hasn't started the race, and once the server can't be reached
+    private static final String WAITING = "Waiting for the other player";
+    private static final String DISCONNECTED = "Disconnected from the server";
+    
     //use these strokes for the walls
     public static final BasicStroke STROKE_THICK = new BasicStroke(5f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
     public static final BasicStroke STROKE_REGULAR = new BasicStroke(2f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
     
     public enum GameType
     {
-        Free, Timed
+        Free, Timed, Endless, Floors
     }
     
     public enum PlayerMode
     {
-        Human, Vs_Cpu
+        Human, Vs_Cpu, Race, Ghost, Online
     }
     
     private PlayerMode playerMode;
     
+    //free, timed, endless or floors
+    private final GameType gameType;
+    
     //static dimensions of each cell
     public static final int CELL_WIDTH = 50;
     public static final int CELL_HEIGHT = 50;
@@ -56,14 +120,20 @@ public class Puzzle
     //the way we are to draw the maze
     private Render render;
     
-    //for rendering the 3d maze
+    //moves the player in the 3d maze
     private FirstPerson firstPerson;
     
-    //for rendering the isometric maze
-    private Isometric isometric;
+    //draws the snapshots on the render thread
+    private SnapshotRenderer renderer;
+    
+    //the number of snapshots kept for spectators that fall behind
+    public static final int SPECTATOR_FRAMES = 64;
+    
+    //every snapshot is also shared with any spectators
+    private final SnapshotRing spectators = new SnapshotRing(SPECTATOR_FRAMES);
     
-    //the original rendering for the maze
-    private TopDown topDown;
+    //the screen the Puzzle is drawn on
+    private final Rectangle screen;
     
     //the solution will be red
     protected static final Color SOLUTION_COLOR = Color.RED;
@@ -77,18 +147,54 @@ public class Puzzle
     //the floors will be white
     protected static final Color FLOOR_COLOR = Color.WHITE;
     
-    //draw maze to this image for display on the screen
-    private BufferedImage puzzleImage;
+    //the cpu racers will be orange
+    protected static final Color RACER_COLOR = Color.ORANGE;
     
-    //the maze will be drawn inside here
-    private Rectangle container;
+    //the size of each cpu racer when drawn
+    protected static final int RACER_SIZE = (int)(CELL_WIDTH * .2);
     
-    //the size and location of the small and large window
-    private Rectangle largeWindow, smallWindow;
+    //the hint will be magenta
+    protected static final Color HINT_COLOR = Color.MAGENTA;
+    
+    //the ghost is a see-through green
+    protected static final Color GHOST_COLOR = new Color(0, 255, 0, 96);
+    
+    //how many cells ahead the hint shows
+    protected static final int HINT_LENGTH = 5;
+    
+    //the size of each hint breadcrumb when drawn
+    protected static final int HINT_SIZE = (int)(CELL_WIDTH * .2);
+    
+    //do we show the way to the finish, toggled from the event thread
+    private volatile boolean hint = false;
     
     //the coordinates, angle for each player is stored here
     private Player human, opponent;
     
+    //the cpu racers when racing, null otherwise
+    private AgentSwarm swarm;
+    
+    //the racers from the previous race, the same arrays are used for the next race
+    private AgentSwarm previousSwarm;
+    
+    //the threads the racers are updated on, only created when racing with enough racers to split
+    private ForkJoinPool swarmPool;
+    
+    //the number of cpu racers in a race
+    public static final int RACE_AGENTS = 100;
+    
+    //the best run for the current algorithm/size, null if there isn't one
+    private GhostTrack ghost;
+    
+    //records the current run in case it is the new best, null if not racing a ghost
+    private GhostRecorder ghostRecorder;
+    
+    //the number of updates since the maze was ready
+    private int levelTicks = 0;
+    
+    //the game time of each update in nanoseconds
+    private final long timeDeduction;
+    
     //our object to track
     private TimerCollection timers;
     
@@ -111,13 +217,30 @@ public class Puzzle
         Easy, Hard
     }
     
-    //where the timer will be drawn
-    private Point timerPosition;
+    //how the cpu opponent solves the maze
+    private final Solver solver;
+    
+    //the solver for the cpu opponent, created for the first maze and reset for each maze after
+    private SolverStrategy strategy;
+    
+    //the chance the cpu opponent takes a wrong turn at a junction
+    private double mistakeRate = 0;
     
     //timers for different difficulties
     private static final long EASY_DELAY = TimerCollection.toNanoSeconds(60L);
     private static final long HARD_DELAY   = TimerCollection.toNanoSeconds(30L);
     
+    //the chance of a wrong turn for different difficulties
+    private static final double EASY_MISTAKES = .3;
+    private static final double HARD_MISTAKES = .05;
+    
+    //the range of speeds for the racers compared to the human for different difficulties
+    private static final double EASY_RACE_MIN = .4, EASY_RACE_MAX = .8;
+    private static final double HARD_RACE_MIN = .7, HARD_RACE_MAX = 1;
+    
+    //the range of speeds for the racers for the selected difficulty
+    private double raceMin = 0, raceMax = 0;
+    
     //which algorithm we are using
     private final int algorithmIndex;
     
@@ -126,13 +249,18 @@ public class Puzzle
      * @param total The number of rows/columns
      * @param algorithmIndex Algorithm used to generate maze
      * @param renderIndex The way the maze is to be displayed
+     * @param solverIndex How the cpu opponent solves the maze
      * 
      * @throws Exception 
      */
     public Puzzle(final int dimensionIndex, final int algorithmIndex, final int renderIndex, final int gameTypeIndex,
-            final int playerModeIndex, final int difficultyIndex, final long timeDeduction, final Rectangle screen) throws Exception
+            final int playerModeIndex, final int difficultyIndex, final int solverIndex, final long timeDeduction, final Rectangle screen) throws Exception
     {
         playerMode = PlayerMode.values()[playerModeIndex];
+        gameType = GameType.values()[gameTypeIndex];
+        
+        //how the cpu will solve the maze
+        solver = Solver.values()[solverIndex];
         
         //set dimensions of maze
         this.dimensionIndex = dimensionIndex;
@@ -140,36 +268,46 @@ public class Puzzle
         //store the algorithm index
         this.algorithmIndex = algorithmIndex;
         
-        //the larger window
-        largeWindow = new Rectangle(0, 50, 400, 400);
-        
         this.timers = new TimerCollection(timeDeduction);
+        this.timeDeduction = timeDeduction;
         
-        if (playerMode == PlayerMode.Vs_Cpu)
+        if (playerMode == PlayerMode.Vs_Cpu || playerMode == PlayerMode.Race)
         {
             switch(VsDifficulty.values()[difficultyIndex])
             {
                 case Easy:
                     this.timers.add(TimerKey.CpuDelay, EASY_DELAY);
+                    this.mistakeRate = EASY_MISTAKES;
+                    this.raceMin = EASY_RACE_MIN;
+                    this.raceMax = EASY_RACE_MAX;
                     break;
                     
                 case Hard:
                     this.timers.add(TimerKey.CpuDelay, HARD_DELAY);
+                    this.mistakeRate = HARD_MISTAKES;
+                    this.raceMin = HARD_RACE_MIN;
+                    this.raceMax = HARD_RACE_MAX;
                     break;
             }
         }
         
-        if (playerMode != PlayerMode.Vs_Cpu)
+        //the racers are split across the available processors, unless there are too few racers to be worth splitting
+        if (playerMode == PlayerMode.Race && AgentSwarm.getChunks(RACE_AGENTS, Runtime.getRuntime().availableProcessors()) > 1)
+            this.swarmPool = new ForkJoinPool();
+        
+        if (playerMode == PlayerMode.Human || playerMode == PlayerMode.Ghost)
         {
             //does the timer count down or up
             switch(GameType.values()[gameTypeIndex])
             {
                 case Timed:
-                    //the length of the timer will be the number of cells as seconds
-                    this.timers.add(TimerKey.GameTime, TimerCollection.toNanoSeconds((DIMENSION_SELECTIONS[dimensionIndex] * DIMENSION_SELECTIONS[dimensionIndex]) * 500L));
+                    //the length of the timer depends on the number of cells
+                    this.timers.add(TimerKey.GameTime, getTimeLimit(DIMENSION_SELECTIONS[dimensionIndex]));
                     break;
 
                 case Free:
+                case Endless:
+                case Floors:
                     //we dont count down the timer so do nothing here
                     this.timers.add(TimerKey.GameTime);
                     break;
@@ -177,7 +315,7 @@ public class Puzzle
         }
         else
         {
-            //we don't count down if facing the cpu
+            //we don't count down if facing the cpu or racing
             this.timers.add(TimerKey.GameTime);
         }
         
@@ -187,10 +325,14 @@ public class Puzzle
         //the current render to be displayed
         this.render = Render.values()[renderIndex];
         
-        //the container our maze will be rendered inside and not the actual drawing dimensions of the maze
-        container = new Rectangle();
-        container.width = screen.width;
-        container.height = screen.height - 50;
+        //the renderers only cache state for the maze they last drew so they can be created once
+        this.screen = screen;
+        this.firstPerson = new FirstPerson();
+        this.renderer = new SnapshotRenderer(screen, true);
+        
+        //the server starts each race once both players have joined
+        if (playerMode == PlayerMode.Online)
+            this.client = new GameClient(Shared.NETWORK_HOST, Shared.NETWORK_PORT, Shared.NETWORK_ROOM);
         
         //call this last in this constructor
         reset();
@@ -211,14 +353,69 @@ public class Puzzle
         this.render = render;
     }
     
+    /**
+     * Record every update from now on
+     * @param recorder Where the game is recorded
+     */
+    public void setRecorder(final ReplayRecorder recorder)
+    {
+        this.recorder = recorder;
+    }
+    
+    /**
+     * Stop recording if we are
+     */
+    public void stopRecording()
+    {
+        if (recorder != null)
+            recorder.close(levelCount);
+        
+        recorder = null;
+    }
+    
+    /**
+     * Play back a recording, this must be set before the first update
+     * @param replay The recorded game, created with the same options as this Puzzle
+     */
+    public void setReplay(final ReplayReader replay)
+    {
+        this.replay = replay;
+        
+        //a recorded online game doesn't need the server
+        if (client != null)
+            client.close();
+        
+        client = null;
+        
+        //the recording has every maze so we don't generate our own, or race the ghost saved on this computer
+        if (labyrinth != null)
+            labyrinth.dispose();
+        
+        if (endless != null)
+            endless.dispose();
+        
+        labyrinth = null;
+        ghost = null;
+    }
+    
     public void dispose()
     {
-        labyrinth.dispose();
+        stopRecording();
+        
+        if (labyrinth != null)
+            labyrinth.dispose();
+        
+        if (endless != null)
+            endless.dispose();
+        
         labyrinth = null;
+        endless = null;
+        floors = null;
+        grid = null;
+        snapshot.set(null);
         render = null;
         firstPerson = null;
-        isometric = null;
-        topDown = null;
+        renderer = null;
         
         if (human != null)
             human.dispose();
@@ -228,46 +425,175 @@ public class Puzzle
         
         human = null;
         opponent = null;
+        strategy = null;
+        swarm = null;
+        previousSwarm = null;
+        
+        if (swarmPool != null)
+            swarmPool.shutdown();
+        
+        swarmPool = null;
+        
+        if (client != null)
+            client.close();
+        
+        client = null;
+        replay = null;
+        ghost = null;
+    }
+    
+    /**
+     * Show/hide the way to the finish
+     */
+    public void toggleHint()
+    {
+        this.hint = !this.hint;
+    }
+    
+    /**
+     * How long the player has to solve a timed maze, each cell adds half a second
+     * @param size The number of columns/rows
+     * @return long The time in nanoseconds
+     */
+    public static long getTimeLimit(final int size)
+    {
+        return TimerCollection.toNanoSeconds((size * size) * 500L);
     }
     
     /**
-     * Update the creation of the maze. If the maze has already been generated update the first person object
-     * @param engine
+     * How much game time has passed on the current level
+     * @return long The time in nanoseconds
+     */
+    public long getGameTimePassed()
+    {
+        return timers.getTimer(TimerKey.GameTime).getPassed();
+    }
+    
+    /**
+     * Update the creation of the maze. If the maze has already been generated update the first person object.
+     * When done the latest state is published for the render thread.
+     * @param keyboard Keyboard input, null to run without input
      * @throws Exception 
      */
-    public void update(final Engine engine) throws Exception
+    public void update(final Keyboard keyboard) throws Exception
     {
-        if (labyrinth != null)
+        final long start = Profiler.start();
+        
+        //the keyboard is set to what was recorded for this update
+        if (replay != null)
+        {
+            final int changed = replay.beginTick(keyboard);
+            
+            if (changed != -1)
+                setRender(Render.values()[changed]);
+        }
+        
+        if (recorder != null)
+            recorder.beginTick(keyboard, render.ordinal());
+        
+        updatePuzzle(keyboard);
+        
+        if (recorder != null)
+            recorder.endTick(keyboard);
+        
+        Profiler.stop(Phase.PuzzleUpdate, start);
+        
+        //publish the state at the end of the tick
+        publish();
+    }
+    
+    private void updatePuzzle(final Keyboard keyboard) throws Exception
+    {
+        //send our keys and receive where both players are
+        if (client != null)
+            client.poll();
+        
+        if (hasMazeSource())
         {
-            if (!labyrinth.isComplete())
+            if (!isMazeReady())
             {
+                final long start = Profiler.start();
+                
                 //for every Engine update we will update the maze generation 1 time(s)
-                labyrinth.update();
+                if (labyrinth != null && !labyrinth.isComplete())
+                    labyrinth.update();
+                
+                generationSteps++;
+                
+                Profiler.stop(Phase.Generation, start);
                 return;
             }
             
-            //if the puzzle finish has not been set yet
-            if (labyrinth.getFinish() == null)
+            //if the walls have not been copied yet
+            if (grid == null)
             {
-                int cost = -1;
-
-                Cell finish = new Cell();
-
-                for (Location tmp : labyrinth.getLocations())
+                if (replay != null)
                 {
-                    //mark all Locations un-visited for AI
-                    tmp.setVisited(false);
-
-                    //if the Location cost is greater than the current cost
-                    if (tmp.getCost() > cost)
-                    {
-                        cost = tmp.getCost();
-                        finish = tmp;
-                    }
+                    //use the maze that was recorded instead of the one generated
+                    grid = replay.takeMaze();
+                }
+                else if (client != null)
+                {
+                    //both players race the maze the server sent
+                    grid = client.takeMaze();
+                }
+                else if (endless != null)
+                {
+                    //the first window of the endless maze has been built
+                    grid = endless.take();
                 }
+                else if (floors != null)
+                {
+                    //the top floor is generated here, the rest when their stairs are reached
+                    grid = floors.getFloor(0);
+                }
+                else if (ghost != null)
+                {
+                    //race the ghost in the maze it was recorded in
+                    grid = ghost.getMaze();
+                }
+                else
+                {
+                    setFinish(labyrinth);
 
-                //the finish part of the maze will always be the furthest away from the start Location
-                labyrinth.setFinish(finish.getCol(), finish.getRow());
+                    //copy the walls now that the maze won't change
+                    grid = WallGrid.create(labyrinth, DIMENSION_SELECTIONS[dimensionIndex], DIMENSION_SELECTIONS[dimensionIndex], 0, 0);
+                }
+                
+                if (recorder != null)
+                    recorder.recordMaze(grid);
+                
+                //the cpu gets a new solver for each maze
+                if (opponent != null)
+                    opponent.setSolver(getStrategy(), grid, mistakeRate, ((long)levelCount << 32) | grid.getFinish());
+                
+                //record the run from the start position
+                if (playerMode == PlayerMode.Ghost)
+                {
+                    levelTicks = 0;
+                    ghostRecorder = new GhostRecorder(timeDeduction);
+                    ghostRecorder.record(human.getX(), human.getY(), human.getAngle());
+                }
+                
+                //the racers start once the maze is ready
+                if (playerMode == PlayerMode.Race)
+                {
+                    final long seed = ((long)levelCount << 32) | grid.getFinish();
+                    
+                    //the racers are created for the first maze, after that the same arrays are used
+                    if (previousSwarm == null)
+                        previousSwarm = new AgentSwarm(RACE_AGENTS, grid, raceMin * Player.VELOCITY, raceMax * Player.VELOCITY, mistakeRate, seed, swarmPool);
+                    else
+                        previousSwarm.reset(grid, raceMin * Player.VELOCITY, raceMax * Player.VELOCITY, seed);
+                    
+                    swarm = previousSwarm;
+                }
+                
+                //the maze is now ready to be played
+                if (generationEvent != null)
+                    FlightEvent.Generation.commit(generationEvent, algorithm.toString(), grid.getCols(), grid.getRows(), generationSteps);
+                
+                generationEvent = null;
                 return;
             }
             
@@ -279,6 +605,14 @@ public class Puzzle
                 if (opponent != null && opponent.hasSolved())
                     finished = true;
                 
+                //the race is over as soon as 1 racer finishes
+                if (swarm != null && swarm.getFinished() > 0)
+                    finished = true;
+                
+                //online the server decides when the race is over, our player may have reached the finish first, losing the server ends the race
+                if (client != null)
+                    finished = (client.isFinished() || client.isClosed());
+                
                 if (finished)
                 {
                     //reset countdown timer
@@ -286,6 +620,9 @@ public class Puzzle
                     
                     if (hasWon())
                     {
+                        //keep the run if it is the fastest for this algorithm/size
+                        saveGhost();
+                        
                         //increase count of completed levels
                         levelCount++;
 
@@ -320,7 +657,12 @@ public class Puzzle
             if (!hasGameTimeExpired() && human != null && !human.hasSolved() || !hasGameTimeExpired() && opponent != null && !opponent.hasSolved())
                 timers.update();
             
-            if (human != null && !human.hasSolved() && !hasGameTimeExpired())
+            if (client != null)
+            {
+                //the player is moved straight away the same way the server will move it
+                client.update(human, GameClient.getKeys(keyboard));
+            }
+            else if (human != null && !human.hasSolved() && !hasGameTimeExpired())
             {
                 switch (render)
                 {
@@ -331,10 +673,10 @@ public class Puzzle
                         human.setVelocity(Player.VELOCITY);
 
                         //set velocity based on keyboard input
-                        human.checkInput(engine.getKeyboard());
+                        human.checkInput(keyboard);
 
                         //check for basic wall collision
-                        human.checkCollision(labyrinth);
+                        human.checkCollision(grid);
 
                         //update location
                         human.update();
@@ -346,17 +688,31 @@ public class Puzzle
                         human.setVelocity(Player.VELOCITY_3D);
                         
                         //update first person point of view
-                        firstPerson.update(labyrinth.getLocation((int)human.getX(), (int)human.getY()).getWalls(), human);
+                        firstPerson.update(grid, human);
                         
                         //set the labyrinth solved based on the human Location
-                        human.setSolved(labyrinth.getFinish().equals((int)human.getX(),(int)human.getY()));
+                        human.setSolved(grid.isFinish((int)human.getX(),(int)human.getY()));
                         
                         //set velocity based on keyboard input
-                        human.checkInput(engine.getKeyboard());
+                        human.checkInput(keyboard);
                         break;
                 }
+                
+                //the maze moves along with the player so there is always more maze ahead
+                if (endless != null)
+                    updateEndless();
+                
+                //take the stairs if the player has just stepped on them
+                if (floors != null)
+                    updateFloors();
             }
             
+            if (ghostRecorder != null && !human.hasSolved() && !hasGameTimeExpired())
+                updateGhost();
+            
+            if (swarm != null && !hasGameTimeExpired())
+                updateSwarm();
+            
             if (opponent != null && !opponent.hasSolved() && !hasGameTimeExpired())
             {
                 //if there is a delay we will wait until it has finished
@@ -377,7 +733,7 @@ public class Puzzle
                         opponent.setVelocity(Player.VELOCITY);
 
                         //determine next step(s)
-                        opponent.checkAgent(labyrinth);
+                        updateAgent();
 
                         //update location
                         opponent.update();
@@ -389,36 +745,249 @@ public class Puzzle
                         opponent.setVelocity(Player.VELOCITY_3D);
 
                         //determine next step(s)
-                        opponent.checkAgent(labyrinth);
+                        updateAgent();
 
                         //update location/angle
-                        firstPerson.update(labyrinth.getLocation((int)opponent.getX(), (int)opponent.getY()).getWalls(), opponent);
+                        firstPerson.update(grid, opponent);
                         break;
                 }
             }
         }
     }
     
+    /**
+     * Move the endless maze south 1 chunk once the player is far enough, the player is moved north the same amount so nothing appears to move.
+     * When replaying the maze moves on the update it was recorded
+     * @throws Exception
+     */
+    private void updateEndless() throws Exception
+    {
+        final WallGrid window;
+        
+        if (replay != null)
+        {
+            window = (replay.hasMaze()) ? replay.takeMaze() : null;
+        }
+        else
+        {
+            window = endless.next(human.getY());
+        }
+        
+        if (window == null)
+            return;
+        
+        grid = window;
+        human.setLocation(human.getX(), human.getY() - EndlessMaze.CHUNK_ROWS);
+        
+        //each chunk passed counts as a level
+        levelCount++;
+        
+        if (recorder != null)
+            recorder.recordMaze(grid);
+    }
+    
+    /**
+     * Move the player to the floor below when they step on the stairs down (the finish) and to the floor above when they step on the stairs up (the start).
+     * The stairs of both floors are in the same cell so the player stays where they are, the finish of the last floor is the end of the maze.
+     * When replaying the floor changes on the update it was recorded
+     * @throws Exception
+     */
+    private void updateFloors() throws Exception
+    {
+        final int cell = grid.getIndex((int)human.getX(), (int)human.getY());
+        
+        //the stairs are only taken when stepping onto them, not while standing on them
+        if (cell == floorCell)
+            return;
+        
+        floorCell = cell;
+        
+        final WallGrid next;
+        
+        if (replay != null)
+        {
+            next = (replay.hasMaze()) ? replay.takeMaze() : null;
+        }
+        else if (cell == grid.getFinish() && floor < floors.getCount() - 1)
+        {
+            floor++;
+            next = floors.getFloor(floor);
+        }
+        else if (cell == grid.getStart() && floor > 0)
+        {
+            floor--;
+            next = floors.getFloor(floor);
+        }
+        else
+        {
+            next = null;
+        }
+        
+        if (next == null)
+            return;
+        
+        grid = next;
+        
+        //the stairs down aren't the end of the maze
+        human.setSolved(false);
+        
+        if (recorder != null)
+            recorder.recordMaze(grid);
+    }
+    
+    /**
+     * Is the maze ready to be played.
+     * When replaying the maze is ready on the update it was recorded, online it is ready when the server starts the race,
+     * a ghost brings its own maze, otherwise we wait for the generation to finish
+     * @return boolean
+     */
+    private boolean isMazeReady()
+    {
+        //the maze stays ready once the walls have been copied
+        if (grid != null)
+            return true;
+        
+        if (replay != null)
+            return replay.hasMaze();
+        
+        if (client != null)
+            return client.hasMaze();
+        
+        if (endless != null)
+            return endless.isReady();
+        
+        //the top floor is generated once it is needed, the rest when their stairs are reached
+        if (floors != null)
+            return true;
+        
+        return (ghost != null || labyrinth.isComplete());
+    }
+    
+    /**
+     * Is there somewhere for the maze to come from, there isn't once disposed
+     * @return boolean
+     */
+    private boolean hasMazeSource()
+    {
+        return (labyrinth != null || endless != null || floors != null || client != null || replay != null || ghost != null);
+    }
+    
+    /**
+     * Set the finish of a generated maze, the finish will always be the furthest away from the start Location
+     * @param labyrinth The maze that has been generated
+     * @throws Exception 
+     */
+    public static void setFinish(final Labyrinth labyrinth) throws Exception
+    {
+        int cols = 0, rows = 0;
+
+        //the labyrinth doesn't tell us its size so find it from the locations
+        for (Location tmp : labyrinth.getLocations())
+        {
+            cols = Math.max(cols, tmp.getCol() + 1);
+            rows = Math.max(rows, tmp.getRow() + 1);
+        }
+
+        final Cell start = labyrinth.getStart();
+
+        //measure the distance along the passages from the start
+        final BitFlood flood = new BitFlood(cols, rows, WallGrid.copyWalls(labyrinth, cols, rows));
+        final int finish = flood.findFurthest((start.getRow() * cols) + start.getCol());
+
+        labyrinth.setFinish(finish % cols, finish / cols);
+    }
+    
+    /**
+     * Determine the next step(s) for the cpu opponent
+     * @throws Exception 
+     */
+    private void updateAgent() throws Exception
+    {
+        final long start = Profiler.start();
+        
+        opponent.checkAgent(grid);
+        
+        Profiler.stop(Phase.Agent, start);
+    }
+    
+    /**
+     * Record where the human is and move the ghost to the same point in its run
+     */
+    private void updateGhost()
+    {
+        levelTicks++;
+        
+        ghostRecorder.record(human.getX(), human.getY(), human.getAngle());
+        
+        if (ghost != null)
+            ghost.seek(levelTicks * timeDeduction);
+    }
+    
+    /**
+     * Save the run that just finished if it is faster than the ghost
+     */
+    private void saveGhost()
+    {
+        if (ghostRecorder == null)
+            return;
+        
+        if (ghost == null || ghostRecorder.getSamples() < ghost.getSamples())
+        {
+            try
+            {
+                final File file = getGhostFile();
+                file.getParentFile().mkdirs();
+                
+                ghostRecorder.save(file, grid);
+            }
+            catch(IOException | SecurityException e)
+            {
+                //we may not be allowed to write files (e.g. in an applet)
+                e.printStackTrace();
+            }
+        }
+        
+        ghostRecorder = null;
+    }
+    
+    /**
+     * Where the best run for the current algorithm/size is kept
+     * @return File
+     */
+    private File getGhostFile()
+    {
+        return new File(Shared.GHOST_DIRECTORY, algorithm + "-" + DIMENSION_SELECTIONS[dimensionIndex] + ".ghost");
+    }
+    
+    /**
+     * Move every cpu racer
+     */
+    private void updateSwarm()
+    {
+        final long start = Profiler.start();
+        
+        swarm.update();
+        
+        Profiler.stop(Phase.Swarm, start);
+    }
+    
     private void reset() throws Exception
     {
+        final Object event = FlightEvent.LevelTransition.begin();
+        
         //reset all timers
         timers.reset(); 
         
-        //dimensions for the puzzle image ratio should be 1:1
-        puzzleImage = new BufferedImage(container.width, container.height, BufferedImage.TYPE_INT_ARGB);
-        
         if (dimensionIndex > DIMENSION_SELECTIONS.length - 1)
             dimensionIndex = DIMENSION_SELECTIONS.length - 1;
         
         //if we are counting down update timer accordingly
         if (hasCountdown())
         {
-            timers.setReset(TimerKey.GameTime, TimerCollection.toNanoSeconds((DIMENSION_SELECTIONS[dimensionIndex] * DIMENSION_SELECTIONS[dimensionIndex]) * 500L));
+            timers.setReset(TimerKey.GameTime, getTimeLimit(DIMENSION_SELECTIONS[dimensionIndex]));
             timers.reset(TimerKey.GameTime);
         }
 
-        Algorithm algorithm;
-        
         //if 0 then we use a random algorithm
         if (algorithmIndex == 0)
         {
@@ -430,39 +999,98 @@ public class Puzzle
             algorithm = Algorithm.values()[algorithmIndex - 1];
         }
         
-        //create a new labyrinth with the specific dimensions and algorithm
-        labyrinth = new Labyrinth(DIMENSION_SELECTIONS[dimensionIndex], DIMENSION_SELECTIONS[dimensionIndex], algorithm);
-        labyrinth.setStart(0, 0);
-        labyrinth.create();
-        labyrinth.getProgress().setDescription("Generating Maze");
+        //the players are created for the first maze and put back at the start for every maze after
+        human = recycle(human);
         
-        //for rendering the 3d maze
-        this.firstPerson = new FirstPerson();
+        if (playerMode == PlayerMode.Vs_Cpu)
+            opponent = recycle(opponent);
         
-        //for rendering the isometric maze
-        this.isometric = new Isometric();
+        //load the best run to race against, when replaying the recorded maze is used instead
+        ghost = (playerMode == PlayerMode.Ghost && replay == null) ? GhostTrack.load(getGhostFile(), human.getWidth(), human.getHeight()) : null;
+        ghostRecorder = null;
         
-        //the original rendering for the maze
-        this.topDown = new TopDown();
+        //the previous maze is no longer needed once the walls have been copied
+        if (labyrinth != null)
+            labyrinth.dispose();
         
-        //set the new game to not finished
-        this.finished = false;
+        if (endless != null)
+            endless.dispose();
         
-        switch(playerMode)
+        if (gameType == GameType.Endless && playerMode == PlayerMode.Human)
         {
-            case Human:
-                human = new Player();
-                break;
-                
-            case Vs_Cpu:
-                human = new Player();
-                opponent = new Player();
-                break;
+            //the endless maze is as wide as the selected dimensions and is generated in chunks as the player goes south
+            labyrinth = null;
+            endless = new EndlessMaze(DIMENSION_SELECTIONS[dimensionIndex], (long)(Math.random() * Long.MAX_VALUE));
+            
+            //the windows are taken from the recording, we only need to know the maze is endless
+            if (replay != null)
+                endless.dispose();
         }
+        else if (gameType == GameType.Floors && playerMode == PlayerMode.Human)
+        {
+            //the floors are as large as the selected dimensions and each is generated when its stairs are first reached
+            labyrinth = null;
+            floors = new FloorStack(DIMENSION_SELECTIONS[dimensionIndex], DIMENSION_SELECTIONS[dimensionIndex], FLOORS, (long)(Math.random() * Long.MAX_VALUE));
+            floor = 0;
+            floorCell = -1;
+        }
+        else if (client != null || replay != null || ghost != null)
+        {
+            //the maze comes from the server, the recording or the ghost so there is nothing to generate
+            labyrinth = null;
+        }
+        else
+        {
+            //create a new labyrinth with the specific dimensions and algorithm
+            labyrinth = new Labyrinth(DIMENSION_SELECTIONS[dimensionIndex], DIMENSION_SELECTIONS[dimensionIndex], algorithm);
+            labyrinth.setStart(0, 0);
+            labyrinth.create();
+            labyrinth.getProgress().setDescription(GENERATING);
+        }
+        
+        //time the generation until the finish is set
+        generationEvent = FlightEvent.Generation.begin();
+        generationSteps = 0;
+        
+        //the walls will be copied once the maze has been generated
+        grid = null;
+        swarm = null;
         
-        //smaller window is needed if two exist
-        if (human != null && opponent != null)
-            smallWindow = new Rectangle(300, 50, 100, 100);
+        //set the new game to not finished
+        this.finished = false;
+        
+        //the server waits for both players before the next race
+        if (client != null)
+            client.ready();
+        
+        if (event != null)
+            FlightEvent.LevelTransition.commit(event, levelCount, algorithm.toString(), DIMENSION_SELECTIONS[dimensionIndex], DIMENSION_SELECTIONS[dimensionIndex]);
+    }
+    
+    /**
+     * Get the solver for the cpu opponent, the solvers reuse their arrays when the next maze is the same size or smaller
+     * @return SolverStrategy
+     */
+    private SolverStrategy getStrategy()
+    {
+        if (strategy == null)
+            strategy = solver.create();
+        
+        return strategy;
+    }
+    
+    /**
+     * Get a player ready for the next maze, reusing the player from the previous maze if there was one
+     * @param player The player from the previous maze, may be null
+     * @return Player at the start of the maze
+     */
+    private static Player recycle(final Player player)
+    {
+        if (player == null)
+            return new Player();
+        
+        player.reset();
+        return player;
     }
     
     /**
@@ -471,7 +1099,10 @@ public class Puzzle
      */
     private boolean hasWon()
     {
-        if (human != null && opponent != null)
+        if (client != null)
+            return client.hasWon();
+        
+        if (human != null && (opponent != null || swarm != null))
         {
             if (human.hasSolved())
                 return true;
@@ -514,99 +1145,109 @@ public class Puzzle
         return (timers.getTimer(TimerKey.GameTime).getReset() != 0);
     }
     
-    public void render(final Graphics2D graphics, final Rectangle screen) throws Exception
+    /**
+     * Take an immutable copy of the current state and make it available to the render thread
+     */
+    private void publish()
     {
-        if (labyrinth != null)
+        //while generating we only need the progress, the labyrinth itself keeps changing on this thread
+        if (grid == null)
         {
-            if (!labyrinth.isComplete())
-            {
-                labyrinth.renderProgress(graphics, screen);
-                return;
-            }
+            //the first window of the endless maze has no progress to show, it is ready in an update or 2
+            if (labyrinth != null)
+                share(new Snapshot(GENERATING, labyrinth.getProgress().getProgress(), null, false, render, null, null, null, null, false, null, null, levelCount, false));
+            else if (client != null)
+                share(new Snapshot((client.isClosed()) ? DISCONNECTED : WAITING, -1, null, false, render, null, null, null, null, false, null, null, levelCount, false));
             
-            //don't draw maze until finish has been set
-            if (labyrinth.getFinish() == null)
-                return;
+            return;
+        }
         
-            //set color and font size
-            graphics.setColor(FLOOR_COLOR);
-            graphics.setFont(graphics.getFont().deriveFont(14f));
-            
-            if (timerPosition == null)
-            {
-                timerPosition = new Point();
-                timerPosition.y = graphics.getFontMetrics().getHeight() + 5;
-                timerPosition.x = 5;
-            }
-            
-            //no reset time so we aren't tracking time left
-            if (!hasCountdown())
-            {
-                graphics.drawString("Time: " + timers.getTimer(TimerKey.GameTime).getDescPassed(TimerCollection.FORMAT_6), timerPosition.x, timerPosition.y);
-            }
-            else
-            {
-                graphics.drawString("Time: " + timers.getTimer(TimerKey.GameTime).getDescRemaining(TimerCollection.FORMAT_6), timerPosition.x, timerPosition.y);
-            }
-            
-            graphics.drawString("Level: " + levelCount, timerPosition.x, timerPosition.y + graphics.getFontMetrics().getHeight());
-            
-            //if finished display countdown till next level
-            if (finished)
-            {
-                final String desc = (hasWon()) ? "(Win) " : "(Lose) ";
-                
-                graphics.drawString(desc + "Next in " + timers.getDescRemaining(TimerKey.NextLevel, TimerCollection.FORMAT_7), timerPosition.x, timerPosition.y + (graphics.getFontMetrics().getHeight() * 2));
-            }
-            
-            if (human != null && opponent != null)
-            {
-                graphics.drawString("Cpu", 325, timerPosition.y + graphics.getFontMetrics().getHeight());
-                renderPlayer(graphics, largeWindow, human);
-                renderPlayer(graphics, smallWindow, opponent);
-            }
-            else
-            {
-                if (human != null)
-                    renderPlayer(graphics, largeWindow, human);
-            }
+        final String time;
+        
+        //no reset time so we aren't tracking time left
+        if (!hasCountdown())
+        {
+            time = "Time: " + timers.getTimer(TimerKey.GameTime).getDescPassed(TimerCollection.FORMAT_6);
         }
+        else
+        {
+            time = "Time: " + timers.getTimer(TimerKey.GameTime).getDescRemaining(TimerCollection.FORMAT_6);
+        }
+        
+        //if finished display countdown till next level
+        final String nextLevel = (finished) ? timers.getDescRemaining(TimerKey.NextLevel, TimerCollection.FORMAT_7) : null;
+        
+        final PlayerState humanState = (human != null) ? human.getState() : null;
+        final PlayerState opponentState;
+        
+        if (opponent != null)
+        {
+            opponentState = opponent.getState();
+        }
+        else
+        {
+            opponentState = (client != null) ? client.getOpponentState(human.getWidth(), human.getHeight()) : null;
+        }
+        
+        final PlayerState ghostState = (ghost != null) ? ghost.getState() : null;
+        final float[] racers = (swarm != null) ? swarm.getPositions() : null;
+        
+        share(new Snapshot(null, -1, grid, (endless != null), render, humanState, opponentState, ghostState, racers, hint, time, nextLevel, levelCount, hasWon()));
+    }
+    
+    /**
+     * Make a snapshot the latest for the render thread and every spectator
+     * @param current The state at the end of this update
+     */
+    private void share(final Snapshot current)
+    {
+        snapshot.set(current);
+        spectators.publish(current);
+    }
+    
+    /**
+     * Get the latest state published by the update
+     * @return Snapshot, null if no update has happened yet
+     */
+    public Snapshot getSnapshot()
+    {
+        return snapshot.get();
     }
     
     /**
-     * Draw the labyrinth. If it is still in process of being created draw the progress. 
+     * Get the number of cells the renderers walked through for the last frame drawn
+     * @return int
+     */
+    public int getCellsVisited()
+    {
+        return renderer.getCellsVisited();
+    }
+    
+    /**
+     * Draw the latest Snapshot of the puzzle. This is called from the render thread
      * @param graphics Graphics object
      * @param screen The entire screen the user sees
-     * @param player The player containing the location etc...
      * @throws Exception 
      */
-    private void renderPlayer(final Graphics2D graphics, final Rectangle screen, final Player player) throws Exception
+    public void render(final Graphics2D graphics, final Rectangle screen) throws Exception
     {
-        Graphics2D imageGraphics = puzzleImage.createGraphics();
-
-        //background will be black in all scenarios
-        imageGraphics.setColor(Color.BLACK);
-        imageGraphics.fillRect(0, 0, puzzleImage.getWidth(), puzzleImage.getHeight());
-
-        switch (render)
-        {
-            case Original:
-                imageGraphics.setStroke(STROKE_REGULAR);
-                topDown.render(imageGraphics, container, labyrinth.getLocations(), labyrinth.getFinish(), player);
-                break;
-
-            case Isometric:
-                imageGraphics.setStroke(STROKE_REGULAR);
-                isometric.render(imageGraphics, container, labyrinth, labyrinth.getFinish(), player);
-                break;
-
-            case First_Person:
-                //walls drawn will have some thickness
-                imageGraphics.setStroke(STROKE_THICK);
-                firstPerson.render(imageGraphics, container, labyrinth.getLocations(), labyrinth.getFinish(), player);
-                break;
-        }
-
-        graphics.drawImage(puzzleImage, screen.x, screen.y, screen.width, screen.height, null);
+        final Snapshot current = snapshot.get();
+        final SnapshotRenderer drawing = renderer;
+        
+        //the render thread may still be drawing this puzzle after a new game has disposed it
+        if (drawing == null)
+            return;
+        
+        drawing.render(graphics, screen, current, (current != null) ? current.getRender() : render);
+    }
+    
+    /**
+     * Watch this game, each spectator draws the game its own way on its own thread
+     * @param render How the spectator draws the maze
+     * @return Spectator
+     */
+    public Spectator createSpectator(final Render render)
+    {
+        return new Spectator(spectators, screen, render);
     }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.gamesbykevin.maze.puzzle;
+
+/**
+ * Receives a maze one row at a time as it is generated, e.g. to draw it, write it to a file or store it in chunks.
+ * @author GOD
+ */
+public interface RowConsumer
+{
+    /**
+     * Take the next row of the maze
+     * @param row The row number, 0 is the top
+     * @param walls The wall bits for each column of the row, the array is reused for the next row so copy anything that is kept
+     * @throws Exception
+     */
+    public void accept(final long row, final byte[] walls) throws Exception;
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.gamesbykevin.maze.puzzle;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a maze to a stream as each row is generated so a maze of any height can be saved without holding it in memory.
+ * The stream is the magic number, the columns, the rows and then each row with the walls packed 2 cells per byte.
+ * Run with: java com.gamesbykevin.maze.puzzle.RowWriter cols rows file [seed]
+ * @author GOD
+ */
+public final class RowWriter implements RowConsumer
+{
+    //the first 4 bytes of every maze file
+    public static final int MAGIC = 0x4D5A4557;
+
+    //where the rows are written
+    private final DataOutputStream output;
+
+    //the packed walls of a row
+    private final byte[] packed;
+
+    /**
+     * Write the header of the maze
+     * @param output Where the maze is written
+     * @param cols The width of the maze
+     * @param rows The height of the maze
+     * @throws IOException
+     */
+    public RowWriter(final OutputStream output, final int cols, final long rows) throws IOException
+    {
+        this.output = new DataOutputStream(output);
+        this.packed = new byte[WallGrid.getPackedSize(cols)];
+
+        this.output.writeInt(MAGIC);
+        this.output.writeInt(cols);
+        this.output.writeLong(rows);
+    }
+
+    @Override
+    public void accept(final long row, final byte[] walls) throws IOException
+    {
+        WallGrid.pack(walls, walls.length, packed, 0);
+
+        output.write(packed);
+    }
+
+    /**
+     * Write anything still buffered
+     * @throws IOException
+     */
+    public void flush() throws IOException
+    {
+        output.flush();
+    }
+
+    public static void main(final String[] args) throws Exception
+    {
+        if (args.length < 3)
+        {
+            System.out.println("usage: RowWriter cols rows file [seed]");
+            return;
+        }
+
+        final int cols = Integer.parseInt(args[0]);
+        final long rows = Long.parseLong(args[1]);
+        final long seed = (args.length > 3) ? Long.parseLong(args[3]) : System.nanoTime();
+
+        final EllerMaze maze = new EllerMaze(cols, seed);
+
+        final long start = System.nanoTime();
+
+        try (final OutputStream file = new BufferedOutputStream(new FileOutputStream(new File(args[2])), 1 << 16))
+        {
+            final RowWriter writer = new RowWriter(file, cols, rows);
+
+            maze.generate(rows, writer);
+
+            writer.flush();
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        final double cells = (double)cols * rows;
+
+        System.out.println("cells: " + (long)cells);
+        System.out.println("elapsed ms: " + (elapsed / 1000000L));
+        System.out.println("cells per second: " + ((elapsed == 0) ? 0 : (long)(cells * 1000000000.0 / elapsed)));
+    }
+}
\ No newline at end of file
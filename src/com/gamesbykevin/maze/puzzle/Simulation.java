@@ -0,0 +1,202 @@
+package com.gamesbykevin.maze.puzzle;
+
+import com.gamesbykevin.framework.labyrinth.Labyrinth.Algorithm;
+
+import com.gamesbykevin.maze.profiler.Profiler;
+import com.gamesbykevin.maze.shared.Shared;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays games against the cpu without the Engine, Keyboard or any rendering so the difficulties can be balanced.
+ * Each game is a Puzzle updated as fast as possible, every update counts as the same game time as one update while playing.
+ * The human never moves so we measure how long the cpu takes to solve the maze and compare it to the timed mode limit.
+ * The games are spread across every processor and the results printed as CSV, run with:
+ * java com.gamesbykevin.maze.puzzle.Simulation [games] [solver index]
+ * @author GOD
+ */
+public final class Simulation
+{
+    //how many games are played for each algorithm/size/difficulty
+    private static final int DEFAULT_GAMES = 100;
+
+    //the game time each update represents, the same as the game loop
+    private static final long NANOS_PER_UPDATE = (long)(1000000000.0 / Shared.DEFAULT_UPS);
+
+    //stop a game that takes longer than this many time limits, it is counted as unsolved
+    private static final int LIMIT_MULTIPLIER = 20;
+
+    //the size of the screen the Puzzle thinks it is drawn on
+    private static final Rectangle SCREEN = new Rectangle(0, 0, Shared.ORIGINAL_WIDTH, Shared.ORIGINAL_HEIGHT);
+
+    private Simulation()
+    {
+        //only run from main
+    }
+
+    public static void main(final String[] args) throws Exception
+    {
+        final int games = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        final int solverIndex = (args.length > 1) ? Integer.parseInt(args[1]) : 0;
+
+        //the timings only support one update thread
+        Profiler.setRecording(false);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+        try
+        {
+            System.out.println("algorithm,size,difficulty,games,unsolved,mean_s,p10_s,p50_s,p90_s,max_s,limit_s,within_limit");
+
+            for (Algorithm algorithm : Algorithm.values())
+            {
+                for (int dimensionIndex = 0; dimensionIndex < Puzzle.DIMENSION_SELECTIONS.length; dimensionIndex++)
+                {
+                    for (Puzzle.VsDifficulty difficulty : Puzzle.VsDifficulty.values())
+                    {
+                        final List<Future<Long>> results = new ArrayList<>();
+
+                        for (int i = 0; i < games; i++)
+                        {
+                            results.add(executor.submit(new Game(algorithm, dimensionIndex, difficulty, solverIndex)));
+                        }
+
+                        report(algorithm, Puzzle.DIMENSION_SELECTIONS[dimensionIndex], difficulty, results);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Play a single game until the cpu solves the maze
+     */
+    private static final class Game implements Callable<Long>
+    {
+        private final Algorithm algorithm;
+        private final int dimensionIndex;
+        private final Puzzle.VsDifficulty difficulty;
+        private final int solverIndex;
+
+        private Game(final Algorithm algorithm, final int dimensionIndex, final Puzzle.VsDifficulty difficulty, final int solverIndex)
+        {
+            this.algorithm = algorithm;
+            this.dimensionIndex = dimensionIndex;
+            this.difficulty = difficulty;
+            this.solverIndex = solverIndex;
+        }
+
+        /**
+         * @return Long The game time taken to solve the maze in nanoseconds, -1 if it wasn't solved
+         */
+        @Override
+        public Long call() throws Exception
+        {
+            //index 0 picks a random algorithm so the algorithms start at 1
+            final Puzzle puzzle = new Puzzle(dimensionIndex, algorithm.ordinal() + 1, Puzzle.Render.Original.ordinal(), Puzzle.GameType.Free.ordinal(),
+                Puzzle.PlayerMode.Vs_Cpu.ordinal(), difficulty.ordinal(), solverIndex, NANOS_PER_UPDATE, SCREEN);
+
+            try
+            {
+                final long limit = LIMIT_MULTIPLIER * Puzzle.getTimeLimit(Puzzle.DIMENSION_SELECTIONS[dimensionIndex]);
+
+                while (true)
+                {
+                    puzzle.update(null);
+
+                    final Snapshot current = puzzle.getSnapshot();
+
+                    //the maze is still being generated
+                    if (current.getGrid() == null)
+                        continue;
+
+                    if (current.hasFinished())
+                        return puzzle.getGameTimePassed();
+
+                    if (puzzle.getGameTimePassed() > limit)
+                        return -1L;
+                }
+            }
+            finally
+            {
+                puzzle.dispose();
+            }
+        }
+    }
+
+    /**
+     * Wait for every game of a combination to finish and print the distribution of solve times
+     * @param algorithm The algorithm used to generate the mazes
+     * @param size The number of columns/rows
+     * @param difficulty The difficulty of the cpu
+     * @param results The result of each game
+     * @throws Exception
+     */
+    private static void report(final Algorithm algorithm, final int size, final Puzzle.VsDifficulty difficulty, final List<Future<Long>> results) throws Exception
+    {
+        final long limit = Puzzle.getTimeLimit(size);
+        final long[] times = new long[results.size()];
+
+        int solved = 0, withinLimit = 0;
+        long total = 0;
+
+        for (Future<Long> result : results)
+        {
+            final long time = result.get();
+
+            if (time < 0)
+                continue;
+
+            times[solved++] = time;
+            total += time;
+
+            if (time <= limit)
+                withinLimit++;
+        }
+
+        final long[] sorted = Arrays.copyOf(times, solved);
+        Arrays.sort(sorted);
+
+        System.out.println(algorithm + "," + size + "," + difficulty + "," + results.size() + "," + (results.size() - solved) + "," +
+            toSeconds((solved == 0) ? 0 : total / solved) + "," +
+            toSeconds(getPercentile(sorted, .1)) + "," +
+            toSeconds(getPercentile(sorted, .5)) + "," +
+            toSeconds(getPercentile(sorted, .9)) + "," +
+            toSeconds(getPercentile(sorted, 1)) + "," +
+            toSeconds(limit) + "," +
+            ((double)withinLimit / results.size()));
+    }
+
+    /**
+     * Get the value at a percentile
+     * @param sorted The values in ascending order
+     * @param percentile Between 0 and 1
+     * @return long 0 if there are no values
+     */
+    private static long getPercentile(final long[] sorted, final double percentile)
+    {
+        if (sorted.length == 0)
+            return 0;
+
+        final int index = (int)Math.ceil(percentile * sorted.length) - 1;
+
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static String toSeconds(final long nanos)
+    {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000000000.0);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,144 @@
+package com.gamesbykevin.maze.puzzle;
+
+import com.gamesbykevin.maze.player.PlayerState;
+
+/**
+ * An immutable copy of everything needed to draw the Puzzle.
+ * A new one is published at the end of every update and the render thread draws the latest.
+ * @author GOD
+ */
+public final class Snapshot
+{
+    //what we are waiting for while the maze isn't ready, null once it is
+    private final String generating;
+
+    //how far the generation has got in percent, -1 if there is no progress to show
+    private final int progress;
+
+    //the walls of the maze once it has been generated and the finish set
+    private final WallGrid grid;
+
+    //is the grid a window of the endless maze that moves every chunk
+    private final boolean endless;
+
+    //how the maze is to be drawn
+    private final Puzzle.Render render;
+
+    //each player, opponent will be null if not playing the cpu
+    private final PlayerState human, opponent;
+
+    //the best run being raced, null if there isn't one
+    private final PlayerState ghost;
+
+    //the center x then y of each racer in cells, null if not racing
+    private final float[] racers;
+
+    //do we show the way to the finish
+    private final boolean hint;
+
+    //the description of the game time
+    private final String time;
+
+    //the description of the countdown till the next level, null if the level isn't finished
+    private final String nextLevel;
+
+    //count the number of solved mazes
+    private final int level;
+
+    //has the player won the current level
+    private final boolean won;
+
+    public Snapshot(final String generating, final int progress, final WallGrid grid, final boolean endless, final Puzzle.Render render, final PlayerState human, final PlayerState opponent,
+            final PlayerState ghost, final float[] racers, final boolean hint, final String time, final String nextLevel, final int level, final boolean won)
+    {
+        this.generating = generating;
+        this.progress = progress;
+        this.grid = grid;
+        this.endless = endless;
+        this.render = render;
+        this.human = human;
+        this.opponent = opponent;
+        this.ghost = ghost;
+        this.racers = racers;
+        this.hint = hint;
+        this.time = time;
+        this.nextLevel = nextLevel;
+        this.level = level;
+        this.won = won;
+    }
+
+    public String getGenerating()
+    {
+        return this.generating;
+    }
+
+    public int getProgress()
+    {
+        return this.progress;
+    }
+
+    public WallGrid getGrid()
+    {
+        return this.grid;
+    }
+
+    public boolean isEndless()
+    {
+        return this.endless;
+    }
+
+    public Puzzle.Render getRender()
+    {
+        return this.render;
+    }
+
+    public PlayerState getHuman()
+    {
+        return this.human;
+    }
+
+    public PlayerState getOpponent()
+    {
+        return this.opponent;
+    }
+
+    public PlayerState getGhost()
+    {
+        return this.ghost;
+    }
+
+    public float[] getRacers()
+    {
+        return this.racers;
+    }
+
+    public boolean hasHint()
+    {
+        return this.hint;
+    }
+
+    public String getTime()
+    {
+        return this.time;
+    }
+
+    public String getNextLevel()
+    {
+        return this.nextLevel;
+    }
+
+    public int getLevel()
+    {
+        return this.level;
+    }
+
+    public boolean hasWon()
+    {
+        return this.won;
+    }
+
+    public boolean hasFinished()
+    {
+        return (this.nextLevel != null);
+    }
+}
\ No newline at end of file
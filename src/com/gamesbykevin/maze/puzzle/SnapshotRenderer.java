@@ -0,0 +1,240 @@
+package com.gamesbykevin.maze.puzzle;
+
+import com.gamesbykevin.maze.player.PlayerState;
+import com.gamesbykevin.maze.profiler.Phase;
+import com.gamesbykevin.maze.profiler.Profiler;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws a Snapshot of the Puzzle.
+ * The renderers cache state for the maze they last drew so each thread drawing snapshots needs its own SnapshotRenderer.
+ * @author GOD
+ */
+final class SnapshotRenderer
+{
+    //for rendering the 3d maze
+    private final FirstPerson firstPerson = new FirstPerson();
+
+    //for rendering the isometric maze
+    private final Isometric isometric = new Isometric();
+
+    //the original rendering for the maze
+    private final TopDown topDown = new TopDown();
+
+    //draw maze to this image for display on the screen
+    private BufferedImage puzzleImage;
+
+    //the number of cells within render range for the last frame
+    private int cellsVisited = 0;
+
+    //the maze will be drawn inside here
+    private final Rectangle container;
+
+    //the size and location of the small and large window, the small window is only used if two players exist
+    private final Rectangle largeWindow = new Rectangle(0, 50, 400, 400);
+    private final Rectangle smallWindow = new Rectangle(300, 50, 100, 100);
+
+    //where the timer will be drawn
+    private Point timerPosition;
+
+    //do we record timings, the profiler only supports 1 thread drawing
+    private final boolean profiled;
+
+    /**
+     * Create the renderer
+     * @param screen The entire screen the snapshots are drawn on
+     * @param profiled Do we record timings
+     */
+    SnapshotRenderer(final Rectangle screen, final boolean profiled)
+    {
+        //the container our maze will be rendered inside and not the actual drawing dimensions of the maze
+        this.container = new Rectangle(0, 0, screen.width, screen.height - 50);
+        this.profiled = profiled;
+    }
+
+    /**
+     * Get the number of cells the renderers walked through for the last frame drawn
+     * @return int
+     */
+    int getCellsVisited()
+    {
+        return cellsVisited;
+    }
+
+    /**
+     * Draw a snapshot
+     * @param graphics Graphics object
+     * @param screen The entire screen the user sees
+     * @param current The state we are drawing, may be null
+     * @param render How the maze is to be drawn, this doesn't need to be the render the player is using
+     * @throws Exception
+     */
+    void render(final Graphics2D graphics, final Rectangle screen, final Snapshot current, final Puzzle.Render render) throws Exception
+    {
+        cellsVisited = 0;
+
+        if (current == null)
+            return;
+
+        if (current.getGenerating() != null)
+        {
+            renderProgress(graphics, screen, current);
+            return;
+        }
+
+        final long start = Profiler.start();
+
+        //set color and font size
+        graphics.setColor(Puzzle.FLOOR_COLOR);
+        graphics.setFont(graphics.getFont().deriveFont(14f));
+
+        if (timerPosition == null)
+        {
+            timerPosition = new Point();
+            timerPosition.y = graphics.getFontMetrics().getHeight() + 5;
+            timerPosition.x = 5;
+        }
+
+        graphics.drawString(current.getTime(), timerPosition.x, timerPosition.y);
+        graphics.drawString("Level: " + current.getLevel(), timerPosition.x, timerPosition.y + graphics.getFontMetrics().getHeight());
+
+        //if finished display countdown till next level
+        if (current.hasFinished())
+        {
+            final String desc = (current.hasWon()) ? "(Win) " : "(Lose) ";
+
+            graphics.drawString(desc + "Next in " + current.getNextLevel(), timerPosition.x, timerPosition.y + (graphics.getFontMetrics().getHeight() * 2));
+        }
+
+        if (current.getHuman() != null && current.getOpponent() != null)
+            graphics.drawString("Cpu", 325, timerPosition.y + graphics.getFontMetrics().getHeight());
+
+        stop(Phase.Hud, start);
+
+        if (current.getHuman() != null && current.getOpponent() != null)
+        {
+            renderPlayer(graphics, largeWindow, current, render, current.getHuman());
+            renderPlayer(graphics, smallWindow, current, render, current.getOpponent());
+        }
+        else
+        {
+            if (current.getHuman() != null)
+                renderPlayer(graphics, largeWindow, current, render, current.getHuman());
+        }
+    }
+
+    /**
+     * Draw what we are waiting for while the maze isn't ready
+     * @param graphics Graphics object
+     * @param screen The entire screen the user sees
+     * @param current The state we are drawing
+     */
+    private void renderProgress(final Graphics2D graphics, final Rectangle screen, final Snapshot current)
+    {
+        final int width = screen.width / 2;
+        final int height = 20;
+        final int x = screen.x + ((screen.width - width) / 2);
+        final int y = screen.y + ((screen.height - height) / 2);
+
+        graphics.setColor(Color.WHITE);
+        graphics.setFont(graphics.getFont().deriveFont(14f));
+        graphics.drawString(current.getGenerating(), x, y - 5);
+
+        //there is no bar when we are waiting on something other than the generation
+        if (current.getProgress() < 0)
+            return;
+
+        graphics.drawRect(x, y, width, height);
+        graphics.fillRect(x, y, (width * Math.min(100, current.getProgress())) / 100, height);
+    }
+
+    /**
+     * Draw the labyrinth from the point of view of the player
+     * @param graphics Graphics object
+     * @param screen The window the player will be drawn in
+     * @param current The state we are drawing
+     * @param render How the maze is to be drawn
+     * @param player The player containing the location etc...
+     * @throws Exception
+     */
+    private void renderPlayer(final Graphics2D graphics, final Rectangle screen, final Snapshot current, final Puzzle.Render render, final PlayerState player) throws Exception
+    {
+        //dimensions for the puzzle image ratio should be 1:1
+        if (puzzleImage == null)
+            puzzleImage = new BufferedImage(container.width, container.height, BufferedImage.TYPE_INT_ARGB);
+
+        Graphics2D imageGraphics = puzzleImage.createGraphics();
+
+        //background will be black in all scenarios
+        imageGraphics.setColor(Color.BLACK);
+        imageGraphics.fillRect(0, 0, puzzleImage.getWidth(), puzzleImage.getHeight());
+
+        final long start = Profiler.start();
+
+        switch (render)
+        {
+            case Original:
+                imageGraphics.setStroke(Puzzle.STROKE_REGULAR);
+                topDown.render(imageGraphics, container, current.getGrid(), player);
+
+                if (current.hasHint())
+                    topDown.renderHint(imageGraphics, container, current.getGrid(), player);
+
+                topDown.renderGhost(imageGraphics, container, current.getGhost(), player);
+
+                topDown.renderRacers(imageGraphics, container, current.getRacers(), player);
+                stop(Phase.TopDown, start);
+                break;
+
+            case Isometric:
+                imageGraphics.setStroke(Puzzle.STROKE_REGULAR);
+                isometric.render(imageGraphics, container, current.getGrid(), current.isEndless(), player);
+
+                if (current.hasHint())
+                    isometric.renderHint(imageGraphics, container, current.getGrid(), player);
+
+                isometric.renderGhost(imageGraphics, current.getGhost(), player);
+
+                isometric.renderRacers(imageGraphics, container, current.getRacers(), player);
+                stop(Phase.Isometric, start);
+                break;
+
+            case First_Person:
+                //walls drawn will have some thickness
+                imageGraphics.setStroke(Puzzle.STROKE_THICK);
+                firstPerson.render(imageGraphics, container, current.getGrid(), player);
+
+                if (current.hasHint())
+                    firstPerson.renderHint(imageGraphics, current.getGrid(), player);
+
+                firstPerson.renderGhost(imageGraphics, current.getGhost(), player);
+
+                stop(Phase.FirstPerson, start);
+                break;
+        }
+
+        imageGraphics.dispose();
+
+        //every renderer walks the same range of cells around the player
+        cellsVisited += (player.getRangeEndCol(current.getGrid().getCols()) - player.getRangeStartCol() + 1) *
+                        (player.getRangeEndRow(current.getGrid().getRows()) - player.getRangeStartRow() + 1);
+
+        graphics.drawImage(puzzleImage, screen.x, screen.y, screen.width, screen.height, null);
+    }
+
+    /**
+     * Record a timing if we are profiled
+     * @param phase The Phase we measured
+     * @param start The time returned by Profiler.start()
+     */
+    private void stop(final Phase phase, final long start)
+    {
+        if (profiled)
+            Profiler.stop(phase, start);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.gamesbykevin.maze.puzzle;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The most recent snapshots published by a Puzzle, shared with any number of spectators.
+ * Only the update thread publishes and it never waits: once the ring is full the oldest snapshot is replaced,
+ * a spectator that falls that far behind skips ahead instead of holding the game up.
+ * Each snapshot is numbered by the order it was published, spectators keep track of the number they want next.
+ * @author GOD
+ */
+final class SnapshotRing
+{
+    //the snapshots, snapshot n is kept at n & mask
+    private final AtomicReferenceArray<Snapshot> slots;
+
+    //the size of the ring - 1, the size is always a power of 2
+    private final int mask;
+
+    //the number of snapshots published so far
+    private final AtomicLong published = new AtomicLong();
+
+    /**
+     * Create the ring
+     * @param capacity The number of snapshots kept, must be a power of 2
+     */
+    SnapshotRing(final int capacity)
+    {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Capacity must be a power of 2 " + capacity);
+
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Add the next snapshot, only called from the update thread
+     * @param snapshot The snapshot
+     */
+    void publish(final Snapshot snapshot)
+    {
+        final long next = published.get();
+
+        slots.set((int)(next & mask), snapshot);
+
+        //the snapshot is stored before the count is raised so a spectator that sees the count sees the snapshot
+        published.set(next + 1);
+    }
+
+    /**
+     * The number of snapshots published so far, the newest snapshot is this - 1
+     * @return long
+     */
+    long getPublished()
+    {
+        return published.get();
+    }
+
+    int getCapacity()
+    {
+        return mask + 1;
+    }
+
+    /**
+     * Get a snapshot by the order it was published
+     * @param number The snapshot wanted, must be less than getPublished()
+     * @return Snapshot, null if it has already been replaced
+     */
+    Snapshot get(final long number)
+    {
+        final Snapshot snapshot = slots.get((int)(number & mask));
+
+        //if the publisher has reached the slot after we read it the snapshot may be a newer one
+        if (published.get() - number >= slots.length())
+            return null;
+
+        return snapshot;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.gamesbykevin.maze.puzzle;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+
+/**
+ * Watches a running Puzzle without affecting it.
+ * The spectator reads the snapshots the Puzzle publishes and draws them its own way, so every spectator can pick its own Render.
+ * Each spectator should only be used by one thread, any number of spectators can watch the same Puzzle.
+ * A spectator that is too slow never holds up the game, it skips the snapshots it missed.
+ * Create one with Puzzle.createSpectator()
+ * @author GOD
+ */
+public final class Spectator
+{
+    //the snapshots published by the Puzzle
+    private final SnapshotRing ring;
+
+    //draws the snapshots for this spectator only
+    private final SnapshotRenderer renderer;
+
+    //how this spectator draws the maze, may be changed from any thread
+    private volatile Puzzle.Render render;
+
+    //the number of the next snapshot we want
+    private long next;
+
+    //the snapshot being watched, null until the first one is taken
+    private Snapshot current;
+
+    //the number of snapshots skipped because we fell behind
+    private long dropped = 0;
+
+    /**
+     * Start watching from the newest snapshot
+     * @param ring The snapshots published by the Puzzle
+     * @param screen The entire screen the spectator is drawn on
+     * @param render How the maze is to be drawn
+     */
+    Spectator(final SnapshotRing ring, final Rectangle screen, final Puzzle.Render render)
+    {
+        this.ring = ring;
+        this.renderer = new SnapshotRenderer(screen, false);
+        this.render = render;
+        this.next = Math.max(0, ring.getPublished() - 1);
+    }
+
+    public void setRender(final Puzzle.Render render)
+    {
+        this.render = render;
+    }
+
+    public Puzzle.Render getRender()
+    {
+        return this.render;
+    }
+
+    /**
+     * Move to the next snapshot in the order they were published, use this to see every update.
+     * If we fell so far behind that the snapshot was replaced we skip to the oldest one still kept.
+     * @return boolean true if there was a new snapshot
+     */
+    public boolean next()
+    {
+        final long published = ring.getPublished();
+
+        if (next >= published)
+            return false;
+
+        //the snapshots we wanted have been replaced, leave a little room as the publisher keeps going
+        if (published - next >= ring.getCapacity())
+        {
+            final long oldest = published - (ring.getCapacity() / 2);
+            dropped += oldest - next;
+            next = oldest;
+        }
+
+        return take(next);
+    }
+
+    /**
+     * Move to the newest snapshot, use this when drawing so a slow spectator skips straight to the present
+     * @return boolean true if there was a new snapshot
+     */
+    public boolean latest()
+    {
+        final long published = ring.getPublished();
+
+        if (next >= published)
+            return false;
+
+        dropped += (published - 1) - next;
+        next = published - 1;
+
+        return take(next);
+    }
+
+    /**
+     * Take a snapshot from the ring
+     * @param number The snapshot wanted
+     * @return boolean false if it was replaced while we were reading it
+     */
+    private boolean take(final long number)
+    {
+        final Snapshot snapshot = ring.get(number);
+
+        if (snapshot == null)
+        {
+            //the publisher lapped us, try again from the newest
+            final long published = ring.getPublished();
+            dropped += published - number;
+            next = published;
+            return false;
+        }
+
+        current = snapshot;
+        next = number + 1;
+
+        return true;
+    }
+
+    /**
+     * The snapshot being watched
+     * @return Snapshot, null if no snapshot has been taken yet
+     */
+    public Snapshot getSnapshot()
+    {
+        return this.current;
+    }
+
+    /**
+     * The number of snapshots skipped because we fell behind
+     * @return long
+     */
+    public long getDropped()
+    {
+        return this.dropped;
+    }
+
+    /**
+     * Get the number of cells the renderers walked through for the last frame drawn
+     * @return int
+     */
+    public int getCellsVisited()
+    {
+        return renderer.getCellsVisited();
+    }
+
+    /**
+     * Draw the snapshot being watched
+     * @param graphics Graphics object
+     * @param screen The entire screen the spectator sees
+     * @throws Exception
+     */
+    public void render(final Graphics2D graphics, final Rectangle screen) throws Exception
+    {
+        renderer.render(graphics, screen, current, render);
+    }
+}
\ No newline at end of file
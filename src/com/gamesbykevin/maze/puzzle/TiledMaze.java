@@ -0,0 +1,276 @@
+package com.gamesbykevin.maze.puzzle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates a large perfect maze on many threads.
+ * The maze is split into square tiles and each tile is carved as a perfect maze of its own from the seed and the tile number,
+ * so the tiles can be carved on any thread in any order. The tiles are then joined by a random spanning tree over the tiles,
+ * with a single passage for each edge of the tree, so the whole maze is still perfect and the same seed creates the same maze.
+ * @author GOD
+ */
+public final class TiledMaze
+{
+    //the columns and rows in each tile, the tiles on the east and south edges may be smaller
+    public static final int TILE_SIZE = 256;
+
+    //the dimensions of the maze
+    private final int cols, rows;
+
+    //the number of tiles across and down
+    private final int tileCols, tileRows;
+
+    //decides every tile and how they are joined
+    private final long seed;
+
+    //the wall bits for each cell, index = (row * cols) + col
+    private final byte[] walls;
+
+    /**
+     * Carve a row of tiles, each task has its own carver so nothing is shared between threads
+     */
+    private final class Band extends RecursiveAction
+    {
+        //the row of tiles
+        private final int tileRow;
+
+        private Band(final int tileRow)
+        {
+            this.tileRow = tileRow;
+        }
+
+        @Override
+        protected void compute()
+        {
+            carve(tileRow);
+        }
+    }
+
+    /**
+     * Create a maze, nothing is carved until generate is called
+     * @param cols Total number of columns
+     * @param rows Total number of rows
+     * @param seed Decides every passage, the same seed creates the same maze
+     */
+    public TiledMaze(final int cols, final int rows, final long seed)
+    {
+        this.cols = cols;
+        this.rows = rows;
+        this.seed = seed;
+        this.tileCols = (cols + TILE_SIZE - 1) / TILE_SIZE;
+        this.tileRows = (rows + TILE_SIZE - 1) / TILE_SIZE;
+        this.walls = new byte[cols * rows];
+    }
+
+    /**
+     * Carve the maze
+     * @param pool The threads the tiles are carved on, null to carve them on this thread
+     * @return byte[] The wall bits for each cell, index = (row * cols) + col
+     */
+    public byte[] generate(final ForkJoinPool pool)
+    {
+        if (pool == null || tileRows == 1)
+        {
+            for (int tileRow = 0; tileRow < tileRows; tileRow++)
+            {
+                carve(tileRow);
+            }
+        }
+        else
+        {
+            final List<Band> bands = new ArrayList<>(tileRows);
+
+            for (int tileRow = 0; tileRow < tileRows; tileRow++)
+            {
+                bands.add(new Band(tileRow));
+            }
+
+            pool.invoke(new RecursiveAction()
+            {
+                @Override
+                protected void compute()
+                {
+                    invokeAll(bands);
+                }
+            });
+        }
+
+        join();
+
+        return walls;
+    }
+
+    /**
+     * Carve the maze and copy it into a WallGrid, the start is the north west corner and the finish the south east corner
+     * @param pool The threads the tiles are carved on, null to carve them on this thread
+     * @return WallGrid
+     */
+    public WallGrid create(final ForkJoinPool pool)
+    {
+        //the walls are kept here so they would change if the maze was carved again
+        return new WallGrid(cols, rows, generate(pool).clone(), 0, walls.length - 1);
+    }
+
+    /**
+     * Carve every tile in a row of tiles
+     * @param tileRow The row of tiles
+     */
+    private void carve(final int tileRow)
+    {
+        final MazeCarver carver = new MazeCarver();
+        final Random random = new Random();
+        final byte[] tile = new byte[TILE_SIZE * TILE_SIZE];
+
+        final int top = tileRow * TILE_SIZE;
+        final int height = Math.min(TILE_SIZE, rows - top);
+
+        for (int tileCol = 0; tileCol < tileCols; tileCol++)
+        {
+            final int left = tileCol * TILE_SIZE;
+            final int width = Math.min(TILE_SIZE, cols - left);
+
+            //each tile only depends on the seed and the tile number
+            random.setSeed(MazeMath.mixSeed(seed, (tileRow * tileCols) + tileCol));
+
+            carver.carve(tile, width, height, 0, random);
+
+            for (int row = 0; row < height; row++)
+            {
+                System.arraycopy(tile, row * width, walls, ((top + row) * cols) + left, width);
+            }
+        }
+    }
+
+    /**
+     * Join the tiles with a random spanning tree, each edge of the tree is a single passage between 2 tiles
+     */
+    private void join()
+    {
+        final int tiles = tileCols * tileRows;
+
+        //every pair of neighboring tiles, the tile number times 2 for the tile to the east and times 2 + 1 for the tile to the south
+        final int[] edges = new int[tiles * 2];
+        int count = 0;
+
+        for (int tile = 0; tile < tiles; tile++)
+        {
+            if ((tile % tileCols) < tileCols - 1)
+                edges[count++] = tile * 2;
+
+            if ((tile / tileCols) < tileRows - 1)
+                edges[count++] = (tile * 2) + 1;
+        }
+
+        final Random random = new Random(seed);
+
+        //the tiles each tile has been joined to
+        final int[] parents = new int[tiles];
+
+        for (int tile = 0; tile < tiles; tile++)
+        {
+            parents[tile] = tile;
+        }
+
+        //take the edges in a random order and keep those that join tiles not already joined
+        for (int i = count - 1; i >= 0; i--)
+        {
+            final int pick = random.nextInt(i + 1);
+            final int edge = edges[pick];
+            edges[pick] = edges[i];
+
+            final int tile = edge / 2;
+            final boolean south = (edge % 2) == 1;
+            final int neighbor = (south) ? tile + tileCols : tile + 1;
+
+            final int first = MazeMath.find(parents, tile);
+            final int second = MazeMath.find(parents, neighbor);
+
+            if (first == second)
+                continue;
+
+            parents[second] = first;
+
+            open(tile, south, random);
+        }
+    }
+
+    /**
+     * Open a random passage between a tile and the tile east or south of it
+     * @param tile The tile number
+     * @param south Is the passage to the tile to the south, otherwise the tile to the east
+     * @param random Decides where the passage is
+     */
+    private void open(final int tile, final boolean south, final Random random)
+    {
+        final int left = (tile % tileCols) * TILE_SIZE;
+        final int top = (tile / tileCols) * TILE_SIZE;
+
+        if (south)
+        {
+            final int col = left + random.nextInt(Math.min(TILE_SIZE, cols - left));
+            final int index = ((top + TILE_SIZE - 1) * cols) + col;
+
+            walls[index] &= ~WallGrid.SOUTH;
+            walls[index + cols] &= ~WallGrid.NORTH;
+        }
+        else
+        {
+            final int row = top + random.nextInt(Math.min(TILE_SIZE, rows - top));
+            final int index = (row * cols) + left + TILE_SIZE - 1;
+
+            walls[index] &= ~WallGrid.EAST;
+            walls[index + 1] &= ~WallGrid.WEST;
+        }
+    }
+
+    /**
+     * Time the generation of a large maze on 1 thread up to every processor, both carving the walls and creating the WallGrid that is played, run with:
+     * java com.gamesbykevin.maze.puzzle.TiledMaze [size]
+     * @param args The columns and rows of the maze, 4096 if not given
+     */
+    public static void main(final String[] args)
+    {
+        final int size = (args.length > 0) ? Integer.parseInt(args[0]) : 4096;
+        final int processors = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("threads,generate_ms,create_ms,cells_per_second,speedup");
+
+        long single = 0;
+
+        int threads = 1;
+
+        while (threads <= processors)
+        {
+            final ForkJoinPool pool = new ForkJoinPool(threads);
+
+            //the first mazes compile the code
+            for (int i = 0; i < 3; i++)
+            {
+                new TiledMaze(size, size, i).generate(pool);
+            }
+
+            long start = System.nanoTime();
+            new TiledMaze(size, size, threads).generate(pool);
+            final long generated = System.nanoTime() - start;
+
+            //create() is what the game uses so the speed up is measured with it
+            start = System.nanoTime();
+            new TiledMaze(size, size, threads).create(pool);
+            final long elapsed = System.nanoTime() - start;
+
+            pool.shutdown();
+
+            if (threads == 1)
+                single = elapsed;
+
+            System.out.println(threads + "," + (generated / 1000000L) + "," + (elapsed / 1000000L) + "," + (long)((double)size * size * 1000000000.0 / elapsed) + "," + ((double)single / elapsed));
+
+            //double the threads each time and always finish with every processor
+            threads = (threads == processors) ? processors + 1 : Math.min(threads * 2, processors);
+        }
+    }
+}
\ No newline at end of file
@@ -1,16 +1,10 @@
 package com.gamesbykevin.maze.puzzle;
 
-import com.gamesbykevin.framework.base.Cell;
-import com.gamesbykevin.framework.labyrinth.Location;
-import com.gamesbykevin.framework.labyrinth.Location.Wall;
-
-import com.gamesbykevin.maze.player.Player;
+import com.gamesbykevin.maze.player.PlayerState;
 
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.Polygon;
 import java.awt.Rectangle;
-import java.util.List;
 
 public class TopDown
 {
@@ -18,90 +12,140 @@ public class TopDown
      * Draw the original top-down 2d version of the maze
      * @param graphics
      * @param screen Container which maze will be drawn within
-     * @return Graphics
+     * @param grid The walls of the maze
+     * @param player The player we are centered on
      * @throws Exception 
      */
-    public void render(final Graphics graphics, final Rectangle screen, final List<Location> locations, final Cell finish, final Player player) throws Exception
+    public void render(final Graphics graphics, final Rectangle screen, final WallGrid grid, final PlayerState player) throws Exception
     {
         if (player == null)
             return;
         
-        Location solution = null;
+        final int colEnd = player.getRangeEndCol(grid.getCols());
+        final int rowEnd = player.getRangeEndRow(grid.getRows());
         
-        //draw the walls of each cell not including the solution
-        for (Location cell : locations)
+        //draw the walls of each cell within range not including the solution
+        for (int row = player.getRangeStartRow(); row <= rowEnd; row++)
         {
-            //if not close enough we won't render
-            if (!player.hasRange(cell))
-                continue;
-            
-            //draw the solution last
-            if (finish.equals(cell))
+            for (int col = player.getRangeStartCol(); col <= colEnd; col++)
             {
-                solution = cell;
-                continue;
+                //draw the solution last
+                if (grid.isFinish(col, row))
+                    continue;
+                
+                drawWalls(graphics, grid, col, row, screen, Puzzle.WALL_COLOR, player.getX(), player.getY());
             }
-            
-            drawWalls(graphics, cell, screen, Puzzle.WALL_COLOR, player.getX(), player.getY());
         }
         
         //draw solution last
-        if (solution != null)
-        {
-            drawWalls(graphics, solution, screen, Puzzle.SOLUTION_COLOR, player.getX(), player.getY());
-        }
+        final int finishCol = grid.getCol(grid.getFinish());
+        final int finishRow = grid.getRow(grid.getFinish());
+        
+        if (finishCol >= player.getRangeStartCol() && finishCol <= colEnd && finishRow >= player.getRangeStartRow() && finishRow <= rowEnd)
+            drawWalls(graphics, grid, finishCol, finishRow, screen, Puzzle.SOLUTION_COLOR, player.getX(), player.getY());
         
         final int drawX = (screen.width  / 2);
         final int drawY = (screen.height / 2);
         
-        if (player.getWidth() == 0 || player.getHeight() == 0)
-        {
-            player.setWidth(Puzzle.CELL_WIDTH * .5);
-            player.setHeight(Puzzle.CELL_HEIGHT * .5);
-        }
-        
-        setBoundary(drawX, drawY, player);
-        
         graphics.setColor(Color.GREEN);
-        graphics.fillPolygon(player.getBoundary());
+        graphics.fillRect(drawX, drawY, (int)player.getWidth(), (int)player.getHeight());
     }
     
-    private void setBoundary(final double startX, final double startY, final Player player)
+    /**
+     * Draw a breadcrumb in each of the next cells on the way to the finish, each cell is a single lookup
+     * @param graphics
+     * @param screen Container which maze will be drawn within
+     * @param grid The walls of the maze
+     * @param player The player we are centered on
+     */
+    public void renderHint(final Graphics graphics, final Rectangle screen, final WallGrid grid, final PlayerState player)
     {
-        int[] x = new int[4];
-        int[] y = new int[4];
+        if (player == null)
+            return;
         
-        //north west
-        x[0] = (int)startX;
-        y[0] = (int)startY;
+        //start from the cell the center of the player is in
+        int index = grid.getIndex(
+            (int)(player.getX() + ((player.getWidth() / Puzzle.CELL_WIDTH) / 2)), 
+            (int)(player.getY() + ((player.getHeight() / Puzzle.CELL_HEIGHT) / 2)));
         
-        //north east
-        x[1] = x[0] + (int)player.getWidth();
-        y[1] = y[0];
+        graphics.setColor(Puzzle.HINT_COLOR);
         
-        //south east
-        x[2] = x[1];
-        y[2] = y[1] + (int)player.getHeight();
+        for (int i = 0; i < Puzzle.HINT_LENGTH; i++)
+        {
+            index = grid.getHintCell(index);
+            
+            //we have reached the finish
+            if (index == -1)
+                break;
+            
+            final int drawX = (screen.width  / 2) + (int)((grid.getCol(index) + .5 - player.getX()) * Puzzle.CELL_WIDTH) - (Puzzle.HINT_SIZE / 2);
+            final int drawY = (screen.height / 2) + (int)((grid.getRow(index) + .5 - player.getY()) * Puzzle.CELL_HEIGHT) - (Puzzle.HINT_SIZE / 2);
+            
+            graphics.fillOval(drawX, drawY, Puzzle.HINT_SIZE, Puzzle.HINT_SIZE);
+        }
+    }
+    
+    /**
+     * Draw the ghost see-through so the maze shows behind it
+     * @param graphics
+     * @param screen Container which maze will be drawn within
+     * @param ghost The ghost, null if there isn't one
+     * @param player The player we are centered on
+     */
+    public void renderGhost(final Graphics graphics, final Rectangle screen, final PlayerState ghost, final PlayerState player)
+    {
+        if (ghost == null || player == null)
+            return;
+        
+        final int drawX = (screen.width  / 2) + (int)((ghost.getX() - player.getX()) * Puzzle.CELL_WIDTH);
+        final int drawY = (screen.height / 2) + (int)((ghost.getY() - player.getY()) * Puzzle.CELL_HEIGHT);
+        
+        graphics.setColor(Puzzle.GHOST_COLOR);
+        graphics.fillRect(drawX, drawY, (int)ghost.getWidth(), (int)ghost.getHeight());
+    }
+    
+    /**
+     * Draw every racer in one pass on top of the maze, the racers all look the same so the color is only set once
+     * @param graphics
+     * @param screen Container which maze will be drawn within
+     * @param racers The center x then y of each racer in cells, null if not racing
+     * @param player The player we are centered on
+     */
+    public void renderRacers(final Graphics graphics, final Rectangle screen, final float[] racers, final PlayerState player)
+    {
+        if (racers == null || player == null)
+            return;
         
-        //south west
-        x[3] = x[2] - (int)player.getWidth();
-        y[3] = y[2];
+        graphics.setColor(Puzzle.RACER_COLOR);
         
-        player.setBoundary(new Polygon(x, y, x.length));
+        for (int i = 0; i < racers.length; i += 2)
+        {
+            final int drawX = (screen.width  / 2) + (int)((racers[i] - player.getX()) * Puzzle.CELL_WIDTH) - (Puzzle.RACER_SIZE / 2);
+            final int drawY = (screen.height / 2) + (int)((racers[i + 1] - player.getY()) * Puzzle.CELL_HEIGHT) - (Puzzle.RACER_SIZE / 2);
+            
+            //don't draw the racer if it isn't on the screen
+            if (!screen.intersects(drawX, drawY, Puzzle.RACER_SIZE, Puzzle.RACER_SIZE))
+                continue;
+            
+            graphics.fillRect(drawX, drawY, Puzzle.RACER_SIZE, Puzzle.RACER_SIZE);
+        }
     }
     
     /**
      * Draw the walls for a specific Location
      * @param graphics Graphics object to draw to
-     * @param location Location we are drawing
-     * @param current The current Location the player is at so we can offset every other Location
+     * @param grid The walls of the maze
+     * @param col Column of the Location we are drawing
+     * @param row Row of the Location we are drawing
      * @param screen The boundary visible to the player
      * @param color The color of the wall
+     * @param centerCol The current column the player is at so we can offset every other Location
+     * @param centerRow The current row the player is at so we can offset every other Location
      */
-    private void drawWalls(final Graphics graphics, final Location location, final Rectangle screen, final Color color, final double centerCol, final double centerRow)
+    private void drawWalls(final Graphics graphics, final WallGrid grid, final int col, final int row, final Rectangle screen, final Color color, final double centerCol, final double centerRow)
     {
-        final int drawX = (screen.width  / 2) + (int)((location.getCol() - centerCol) * Puzzle.CELL_WIDTH);
-        final int drawY = (screen.height / 2) + (int)((location.getRow() - centerRow) * Puzzle.CELL_HEIGHT);
+        final int drawX = (screen.width  / 2) + (int)((col - centerCol) * Puzzle.CELL_WIDTH);
+        final int drawY = (screen.height / 2) + (int)((row - centerRow) * Puzzle.CELL_HEIGHT);
 
         //don't draw the cell if it isn't on the screen
         if (!screen.intersects(drawX, drawY, Puzzle.CELL_WIDTH, Puzzle.CELL_HEIGHT))
@@ -111,27 +155,19 @@ public class TopDown
         graphics.fillRect(drawX, drawY, Puzzle.CELL_WIDTH + 1, Puzzle.CELL_HEIGHT + 1);
         graphics.setColor(color);
         
+        final int index = grid.getIndex(col, row);
+        
         //draw the walls for the current Location
-        for (Wall wall : location.getWalls())
-        {
-            switch (wall)
-            {
-                case West:
-                    graphics.drawLine(drawX, drawY, drawX, drawY + Puzzle.CELL_HEIGHT - 1);
-                    break;
-
-                case East:
-                    graphics.drawLine(drawX + Puzzle.CELL_WIDTH - 1, drawY, drawX + Puzzle.CELL_WIDTH - 1, drawY + Puzzle.CELL_HEIGHT - 1);
-                    break;
-
-                case North:
-                    graphics.drawLine(drawX, drawY, drawX + Puzzle.CELL_WIDTH - 1, drawY);
-                    break;
-
-                case South:
-                    graphics.drawLine(drawX, drawY + Puzzle.CELL_HEIGHT - 1, drawX + Puzzle.CELL_WIDTH, drawY + Puzzle.CELL_HEIGHT - 1);
-                    break;
-            }
-        }
+        if (grid.hasWall(index, WallGrid.WEST))
+            graphics.drawLine(drawX, drawY, drawX, drawY + Puzzle.CELL_HEIGHT - 1);
+        
+        if (grid.hasWall(index, WallGrid.EAST))
+            graphics.drawLine(drawX + Puzzle.CELL_WIDTH - 1, drawY, drawX + Puzzle.CELL_WIDTH - 1, drawY + Puzzle.CELL_HEIGHT - 1);
+        
+        if (grid.hasWall(index, WallGrid.NORTH))
+            graphics.drawLine(drawX, drawY, drawX + Puzzle.CELL_WIDTH - 1, drawY);
+        
+        if (grid.hasWall(index, WallGrid.SOUTH))
+            graphics.drawLine(drawX, drawY + Puzzle.CELL_HEIGHT - 1, drawX + Puzzle.CELL_WIDTH, drawY + Puzzle.CELL_HEIGHT - 1);
     }
 }
\ No newline at end of file
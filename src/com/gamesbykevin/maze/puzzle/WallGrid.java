@@ -0,0 +1,497 @@
+package com.gamesbykevin.maze.puzzle;
+
+import com.gamesbykevin.framework.labyrinth.Labyrinth;
+import com.gamesbykevin.framework.labyrinth.Location;
+import com.gamesbykevin.framework.labyrinth.Location.Wall;
+
+import java.util.Arrays;
+
+/**
+ * An immutable copy of the walls in a finished maze.
+ * Each cell is stored as a set of wall bits so it can be read from any thread.
+ * @author GOD
+ */
+public final class WallGrid
+{
+    //the bit for each wall
+    public static final byte NORTH = 1;
+    public static final byte SOUTH = 2;
+    public static final byte EAST  = 4;
+    public static final byte WEST  = 8;
+    
+    //every wall so we can check each direction in a loop
+    public static final byte[] DIRECTIONS = {NORTH, SOUTH, EAST, WEST};
+    
+    //a cell with every wall, where each generator starts before carving
+    public static final byte ALL_WALLS = NORTH | SOUTH | EAST | WEST;
+
+    //the dimensions of the maze
+    private final int cols, rows;
+
+    //the wall bits for each cell, index = (row * cols) + col
+    private final byte[] walls;
+
+    //the index of the start and finish cell
+    private final int start, finish;
+    
+    //the maze with every corridor compressed to a single edge, built the first time it is needed
+    private volatile JunctionGraph junctions;
+    
+    //the wall to move through from each cell to get 1 cell closer to the finish, 0 at the finish, built the first time it is needed
+    private volatile byte[] hints;
+
+    /**
+     * Create a maze from its wall bits.
+     * The array is kept instead of copied, so the caller hands it over and must not change it afterwards.
+     * Outside this package use create() or unpack() which always pass a new array.
+     * @param cols Total number of columns
+     * @param rows Total number of rows
+     * @param walls The wall bits for each cell, index = (row * cols) + col
+     * @param start The index of the start cell
+     * @param finish The index of the finish cell
+     */
+    WallGrid(final int cols, final int rows, final byte[] walls, final int start, final int finish)
+    {
+        this.cols = cols;
+        this.rows = rows;
+        this.walls = walls;
+        this.start = start;
+        this.finish = finish;
+    }
+    
+    /**
+     * Search outwards from the finish so every cell knows which way leads back to it
+     * @return byte[] The wall to move through from each cell, 0 for the finish and any cell that can't reach it
+     */
+    private byte[] createHints()
+    {
+        final byte[] result = new byte[walls.length];
+        final boolean[] visited = new boolean[walls.length];
+        
+        //each cell is only added to the queue once
+        final int[] queue = new int[walls.length];
+        int head = 0, tail = 0;
+        
+        queue[tail++] = finish;
+        visited[finish] = true;
+        
+        while (head < tail)
+        {
+            final int index = queue[head++];
+            
+            for (byte wall : DIRECTIONS)
+            {
+                if (!isOpen(index, wall))
+                    continue;
+                
+                final int neighbor = getNeighbor(index, wall);
+                
+                if (!visited[neighbor])
+                {
+                    //the neighbor gets here by going back the way we went
+                    visited[neighbor] = true;
+                    result[neighbor] = getOpposite(wall);
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        
+        return result;
+    }
+
+    /**
+     * Copy the walls from a labyrinth that has been generated and has the finish set
+     * @param labyrinth The maze we want to copy
+     * @param cols Total number of columns
+     * @param rows Total number of rows
+     * @param startCol Column where the player starts
+     * @param startRow Row where the player starts
+     * @return WallGrid
+     * @throws Exception
+     */
+    public static WallGrid create(final Labyrinth labyrinth, final int cols, final int rows, final int startCol, final int startRow) throws Exception
+    {
+        final byte[] walls = copyWalls(labyrinth, cols, rows);
+
+        final int finish = (labyrinth.getFinish().getRow() * cols) + labyrinth.getFinish().getCol();
+
+        return new WallGrid(cols, rows, walls, (startRow * cols) + startCol, finish);
+    }
+
+    /**
+     * Copy the wall bits from a labyrinth that has been generated
+     * @param labyrinth The maze we want to copy
+     * @param cols Total number of columns
+     * @param rows Total number of rows
+     * @return byte[] The wall bits for each cell, index = (row * cols) + col
+     * @throws Exception
+     */
+    public static byte[] copyWalls(final Labyrinth labyrinth, final int cols, final int rows) throws Exception
+    {
+        final byte[] walls = new byte[cols * rows];
+
+        for (int row = 0; row < rows; row++)
+        {
+            for (int col = 0; col < cols; col++)
+            {
+                final Location location = labyrinth.getLocation(col, row);
+
+                byte bits = 0;
+
+                if (location.hasWall(Wall.North))
+                    bits |= NORTH;
+                if (location.hasWall(Wall.South))
+                    bits |= SOUTH;
+                if (location.hasWall(Wall.East))
+                    bits |= EAST;
+                if (location.hasWall(Wall.West))
+                    bits |= WEST;
+
+                walls[(row * cols) + col] = bits;
+            }
+        }
+
+        return walls;
+    }
+
+    /**
+     * Get the number of bytes needed to pack the walls, each cell only has 4 wall bits so 2 cells fit in a byte
+     * @param cells The number of cells
+     * @return int
+     */
+    public static int getPackedSize(final int cells)
+    {
+        return (cells + 1) / 2;
+    }
+
+    /**
+     * Pack the wall bits of each cell, the first cell of each pair is in the low 4 bits
+     * @param walls The wall bits for each cell
+     * @param cells The number of cells to pack
+     * @param packed Where getPackedSize(cells) bytes are written
+     * @param offset The position in packed of the first byte
+     */
+    public static void pack(final byte[] walls, final int cells, final byte[] packed, final int offset)
+    {
+        for (int index = 0; index < cells; index += 2)
+        {
+            final int second = (index + 1 < cells) ? walls[index + 1] : 0;
+
+            packed[offset + (index / 2)] = (byte)(walls[index] | (second << 4));
+        }
+    }
+
+    /**
+     * Pack the walls of this maze
+     * @param packed Where getPackedSize(cols * rows) bytes are written
+     * @param offset The position in packed of the first byte
+     */
+    public void pack(final byte[] packed, final int offset)
+    {
+        pack(walls, walls.length, packed, offset);
+    }
+
+    /**
+     * Create a maze from walls written by pack()
+     * @param cols Total number of columns
+     * @param rows Total number of rows
+     * @param packed The packed walls
+     * @param offset The position in packed of the first byte
+     * @param start The index of the start cell
+     * @param finish The index of the finish cell
+     * @return WallGrid
+     */
+    public static WallGrid unpack(final int cols, final int rows, final byte[] packed, final int offset, final int start, final int finish)
+    {
+        final byte[] walls = new byte[cols * rows];
+
+        for (int index = 0; index < walls.length; index += 2)
+        {
+            final int value = (packed[offset + (index / 2)] & 0xFF);
+
+            walls[index] = (byte)(value & 0x0F);
+
+            if (index + 1 < walls.length)
+                walls[index + 1] = (byte)(value >>> 4);
+        }
+
+        return new WallGrid(cols, rows, walls, start, finish);
+    }
+
+    public int getCols()
+    {
+        return this.cols;
+    }
+
+    public int getRows()
+    {
+        return this.rows;
+    }
+
+    /**
+     * Get the index of the cell at the given column, row
+     * @param col Column
+     * @param row Row
+     * @return int
+     */
+    public int getIndex(final int col, final int row)
+    {
+        return (row * cols) + col;
+    }
+
+    public int getCol(final int index)
+    {
+        return index % cols;
+    }
+
+    public int getRow(final int index)
+    {
+        return index / cols;
+    }
+
+    /**
+     * Is the given column, row inside the maze
+     * @param col Column
+     * @param row Row
+     * @return boolean
+     */
+    public boolean hasCell(final int col, final int row)
+    {
+        return (col >= 0 && col < cols && row >= 0 && row < rows);
+    }
+
+    /**
+     * Get all of the wall bits for a cell
+     * @param index The cell index
+     * @return byte
+     */
+    public byte getWalls(final int index)
+    {
+        return walls[index];
+    }
+
+    public boolean hasWall(final int index, final byte wall)
+    {
+        return ((walls[index] & wall) != 0);
+    }
+
+    public boolean hasWall(final int col, final int row, final byte wall)
+    {
+        return hasWall(getIndex(col, row), wall);
+    }
+
+    /**
+     * Get the side facing the opposite way
+     * @param wall The wall bit
+     * @return byte
+     */
+    public static byte getOpposite(final byte wall)
+    {
+        switch (wall)
+        {
+            case NORTH:
+                return SOUTH;
+                
+            case SOUTH:
+                return NORTH;
+                
+            case EAST:
+                return WEST;
+                
+            default:
+                return EAST;
+        }
+    }
+    
+    /**
+     * Get the cell on the other side of a wall
+     * @param index The cell index
+     * @param wall The wall bit of the side we want
+     * @return int The index of the neighbor, -1 if it would be outside of the maze
+     */
+    public int getNeighbor(final int index, final byte wall)
+    {
+        final int col = getCol(index);
+        final int row = getRow(index);
+        
+        switch (wall)
+        {
+            case NORTH:
+                return (row > 0) ? index - cols : -1;
+                
+            case SOUTH:
+                return (row < rows - 1) ? index + cols : -1;
+                
+            case EAST:
+                return (col < cols - 1) ? index + 1 : -1;
+                
+            case WEST:
+                return (col > 0) ? index - 1 : -1;
+                
+            default:
+                return -1;
+        }
+    }
+    
+    /**
+     * Can we move from the cell through the given side
+     * @param index The cell index
+     * @param wall The wall bit of the side we want to move through
+     * @return boolean
+     */
+    public boolean isOpen(final int index, final byte wall)
+    {
+        return (!hasWall(index, wall) && getNeighbor(index, wall) != -1);
+    }
+    
+    /**
+     * Find the shortest path between 2 cells with a breadth first search
+     * @param from The index of the cell we start at
+     * @param to The index of the cell we want to reach
+     * @return int[] The index of every cell from start to finish, empty if there is no path
+     */
+    public int[] findPath(final int from, final int to)
+    {
+        //the cell we came from to reach each cell, -1 if not reached yet
+        final int[] previous = new int[walls.length];
+        Arrays.fill(previous, -1);
+        
+        //each cell is only added to the queue once
+        final int[] queue = new int[walls.length];
+        int head = 0, tail = 0;
+        
+        queue[tail++] = from;
+        previous[from] = from;
+        
+        while (head < tail)
+        {
+            final int index = queue[head++];
+            
+            if (index == to)
+                break;
+            
+            for (byte wall : DIRECTIONS)
+            {
+                if (!isOpen(index, wall))
+                    continue;
+                
+                final int neighbor = getNeighbor(index, wall);
+                
+                if (previous[neighbor] == -1)
+                {
+                    previous[neighbor] = index;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        
+        if (previous[to] == -1)
+            return new int[0];
+        
+        //count the cells in the path so we can fill it backwards from the finish
+        int length = 1;
+        
+        for (int index = to; index != from; index = previous[index])
+        {
+            length++;
+        }
+        
+        final int[] path = new int[length];
+        
+        for (int index = to, i = length - 1; i >= 0; index = previous[index], i--)
+        {
+            path[i] = index;
+        }
+        
+        return path;
+    }
+    
+    /**
+     * Get the wall to move through to get 1 cell closer to the finish
+     * @param index The cell index
+     * @return byte 0 if the cell is the finish or can't reach it
+     */
+    public byte getHint(final int index)
+    {
+        return getHints()[index];
+    }
+    
+    /**
+     * Get the next cell on the shortest path to the finish
+     * @param index The cell index
+     * @return int -1 if the cell is the finish or can't reach it
+     */
+    public int getHintCell(final int index)
+    {
+        final byte hint = getHints()[index];
+        
+        return (hint == 0) ? -1 : getNeighbor(index, hint);
+    }
+    
+    /**
+     * Get the hint for every cell, the search is only run the first time so a maze that never shows the hint doesn't pay for it
+     * @return byte[]
+     */
+    private byte[] getHints()
+    {
+        byte[] result = hints;
+        
+        if (result == null)
+        {
+            synchronized (this)
+            {
+                result = hints;
+                
+                //another thread may have built it while we waited
+                if (result == null)
+                {
+                    result = createHints();
+                    hints = result;
+                }
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Get the maze with every corridor compressed to a single edge, built the first time it is needed
+     * @return JunctionGraph
+     */
+    public JunctionGraph getJunctions()
+    {
+        JunctionGraph result = junctions;
+        
+        if (result == null)
+        {
+            synchronized (this)
+            {
+                result = junctions;
+                
+                //another thread may have built it while we waited
+                if (result == null)
+                {
+                    result = new JunctionGraph(this);
+                    junctions = result;
+                }
+            }
+        }
+        
+        return result;
+    }
+    
+    public int getStart()
+    {
+        return this.start;
+    }
+
+    public int getFinish()
+    {
+        return this.finish;
+    }
+
+    public boolean isFinish(final int col, final int row)
+    {
+        return (hasCell(col, row) && getIndex(col, row) == finish);
+    }
+}
\ No newline at end of file
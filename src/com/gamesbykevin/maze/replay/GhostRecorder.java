@@ -0,0 +1,142 @@
+package com.gamesbykevin.maze.replay;
+
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Records the position and angle of the player every update so the run can be raced again as a ghost.
+ * Each sample is stored as the difference from the previous sample so a player moving steadily only takes a few bytes per update.
+ * @author GOD
+ */
+public final class GhostRecorder
+{
+    //identifies a ghost file
+    static final int MAGIC = 0x4D5A4748;
+
+    //change when the layout changes so old ghosts are ignored
+    static final int VERSION = 1;
+
+    //positions are stored in fractions of a cell and the angle in fractions of a full turn
+    static final double POSITION_SCALE = 1024;
+    static final int FULL_TURN = 65536;
+    static final double ANGLE_SCALE = FULL_TURN / (2 * Math.PI);
+
+    //the game time between each sample in nanoseconds
+    private final long interval;
+
+    //the encoded samples
+    private final ByteArrayOutputStream track = new ByteArrayOutputStream();
+
+    //the number of samples recorded
+    private int samples = 0;
+
+    //the previous sample so only the difference is stored
+    private int previousX = 0, previousY = 0, previousAngle = 0;
+
+    /**
+     * Create a recorder
+     * @param interval The game time between each sample in nanoseconds
+     */
+    public GhostRecorder(final long interval)
+    {
+        this.interval = interval;
+    }
+
+    /**
+     * Record where the player is for the current update
+     * @param x Column position
+     * @param y Row position
+     * @param angle The angle the player is facing in radians
+     */
+    public void record(final double x, final double y, final double angle)
+    {
+        final int currentX = (int)Math.round(x * POSITION_SCALE);
+        final int currentY = (int)Math.round(y * POSITION_SCALE);
+        final int currentAngle = (int)Math.round(angle * ANGLE_SCALE);
+
+        writeSigned(track, currentX - previousX);
+        writeSigned(track, currentY - previousY);
+        writeSigned(track, currentAngle - previousAngle);
+
+        previousX = currentX;
+        previousY = currentY;
+        previousAngle = currentAngle;
+        samples++;
+    }
+
+    /**
+     * The number of samples recorded
+     * @return int
+     */
+    public int getSamples()
+    {
+        return this.samples;
+    }
+
+    /**
+     * Write the maze and the samples, the file is replaced only once the new one has been written completely
+     * @param file Where the ghost is stored
+     * @param grid The maze the run was recorded in
+     * @throws IOException
+     */
+    public void save(final File file, final WallGrid grid) throws IOException
+    {
+        final ByteArrayOutputStream header = new ByteArrayOutputStream();
+
+        writeUnsigned(header, MAGIC);
+        writeUnsigned(header, VERSION);
+        writeUnsigned(header, interval);
+        writeUnsigned(header, samples);
+        writeUnsigned(header, grid.getCols());
+        writeUnsigned(header, grid.getRows());
+        writeUnsigned(header, grid.getStart());
+        writeUnsigned(header, grid.getFinish());
+
+        final byte[] packed = new byte[WallGrid.getPackedSize(grid.getCols() * grid.getRows())];
+        grid.pack(packed, 0);
+        header.write(packed, 0, packed.length);
+
+        final File temporary = new File(file.getPath() + ".tmp");
+
+        try (OutputStream output = new FileOutputStream(temporary))
+        {
+            header.writeTo(output);
+            track.writeTo(output);
+        }
+
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Zigzag encode so small negative differences are small numbers too
+     * @param output Where the value is written
+     * @param value The difference
+     */
+    private static void writeSigned(final ByteArrayOutputStream output, final int value)
+    {
+        writeUnsigned(output, ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Write 7 bits at a time, the high bit is set on every byte except the last
+     * @param output Where the value is written
+     * @param value The value, must not be negative
+     */
+    private static void writeUnsigned(final ByteArrayOutputStream output, long value)
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            output.write((int)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        output.write((int)value);
+    }
+}
\ No newline at end of file
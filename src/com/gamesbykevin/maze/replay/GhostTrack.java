@@ -0,0 +1,192 @@
+package com.gamesbykevin.maze.replay;
+
+import com.gamesbykevin.maze.player.PlayerState;
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+/**
+ * A run saved by the GhostRecorder played back alongside the player.
+ * The file is read into memory once and closed so the recorder can replace it, the samples are decoded one at a time as the game time passes.
+ * Between samples the position and angle are interpolated.
+ * @author GOD
+ */
+public final class GhostTrack
+{
+    //the saved run
+    private final ByteBuffer data;
+
+    //the game time between each sample in nanoseconds
+    private final long interval;
+
+    //the number of samples
+    private final int samples;
+
+    //the maze the run was recorded in
+    private final WallGrid maze;
+
+    //the size of the ghost
+    private final double width, height;
+
+    //the sample we are at, and the values of it and the sample after it in the scaled units they are stored in
+    private int sample = 0;
+    private int currentX, currentY, currentAngle;
+    private int nextX, nextY, nextAngle;
+
+    //how far we are between the current and next sample from 0 to 1
+    private double fraction = 0;
+
+    /**
+     * Load a ghost
+     * @param file The saved run
+     * @param width The width of the ghost
+     * @param height The height of the ghost
+     * @return GhostTrack null if there is no saved run or it can't be read
+     */
+    public static GhostTrack load(final File file, final double width, final double height)
+    {
+        try
+        {
+            //we may not be allowed to read files (e.g. in an applet)
+            if (!file.exists())
+                return null;
+
+            //don't map the file, on windows a mapped file can't be replaced when a faster run is saved
+            return new GhostTrack(ByteBuffer.wrap(Files.readAllBytes(file.toPath())), width, height);
+        }
+        catch(Exception e)
+        {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private GhostTrack(final ByteBuffer data, final double width, final double height) throws IOException
+    {
+        this.data = data;
+        this.width = width;
+        this.height = height;
+
+        if (readUnsigned() != GhostRecorder.MAGIC || readUnsigned() != GhostRecorder.VERSION)
+            throw new IOException("Ghost not supported");
+
+        this.interval = readUnsigned();
+        this.samples = (int)readUnsigned();
+
+        final int cols = (int)readUnsigned();
+        final int rows = (int)readUnsigned();
+        final int start = (int)readUnsigned();
+        final int finish = (int)readUnsigned();
+
+        //the file is already in memory so the walls are read where they are
+        this.maze = WallGrid.unpack(cols, rows, data.array(), data.arrayOffset() + data.position(), start, finish);
+        data.position(data.position() + WallGrid.getPackedSize(cols * rows));
+
+        if (samples < 1 || interval < 1)
+            throw new IOException("Ghost has no samples");
+
+        //read the first 2 samples
+        nextX = readSigned();
+        nextY = readSigned();
+        nextAngle = readSigned();
+        advance();
+    }
+
+    /**
+     * Move to the next sample, the sample after it is decoded from the file
+     */
+    private void advance()
+    {
+        currentX = nextX;
+        currentY = nextY;
+        currentAngle = nextAngle;
+
+        //the last sample stays where it is
+        if (sample + 1 < samples)
+        {
+            nextX += readSigned();
+            nextY += readSigned();
+            nextAngle += readSigned();
+        }
+    }
+
+    /**
+     * Move the ghost to where it was at the given game time
+     * @param time Game time since the level started in nanoseconds
+     */
+    public void seek(final long time)
+    {
+        //only moving forwards, each sample is decoded once
+        while (sample + 1 < samples && (sample + 1) * interval <= time)
+        {
+            sample++;
+            advance();
+        }
+
+        fraction = (sample + 1 < samples) ? Math.min(1, Math.max(0, (time - (sample * interval)) / (double)interval)) : 0;
+    }
+
+    /**
+     * The maze the run was recorded in
+     * @return WallGrid
+     */
+    public WallGrid getMaze()
+    {
+        return this.maze;
+    }
+
+    /**
+     * The number of samples, 1 per update
+     * @return int
+     */
+    public int getSamples()
+    {
+        return this.samples;
+    }
+
+    /**
+     * Take an immutable copy of the ghost so it can be drawn on another thread
+     * @return PlayerState
+     */
+    public PlayerState getState()
+    {
+        final double x = (currentX + ((nextX - currentX) * fraction)) / GhostRecorder.POSITION_SCALE;
+        final double y = (currentY + ((nextY - currentY) * fraction)) / GhostRecorder.POSITION_SCALE;
+        //turn the short way if the angle wrapped around between samples
+        int turn = nextAngle - currentAngle;
+
+        if (turn > GhostRecorder.FULL_TURN / 2)
+            turn -= GhostRecorder.FULL_TURN;
+        else if (turn < -GhostRecorder.FULL_TURN / 2)
+            turn += GhostRecorder.FULL_TURN;
+
+        final double angle = (currentAngle + (turn * fraction)) / GhostRecorder.ANGLE_SCALE;
+
+        return new PlayerState(x, y, angle, width, height, sample + 1 >= samples);
+    }
+
+    private int readSigned()
+    {
+        final int value = (int)readUnsigned();
+
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readUnsigned()
+    {
+        long value = 0;
+
+        for (int shift = 0; ; shift += 7)
+        {
+            final int next = (data.get() & 0xFF);
+
+            value |= (long)(next & 0x7F) << shift;
+
+            if ((next & 0x80) == 0)
+                return value;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.gamesbykevin.maze.replay;
+
+import com.gamesbykevin.framework.input.Keyboard;
+
+import java.awt.event.KeyEvent;
+
+/**
+ * The layout of a replay stream shared by the recorder and reader.
+ * The header is the magic number, version and the options the Puzzle was created with.
+ * After the header each record is the number of ticks since the previous record (varint), a tag and the tag's data.
+ * Every number is written as a varint so small values only take a single byte.
+ * @author GOD
+ */
+final class ReplayFormat
+{
+    //the first 4 bytes of every replay
+    static final int MAGIC = 0x4D5A5250;
+
+    //change when the layout changes so old replays are rejected
+    static final int VERSION = 1;
+
+    //the keys that were pressed/released changed, data is the key state
+    static final int TAG_INPUT = 1;
+
+    //a maze was generated, data is the columns, rows, start, finish and the walls packed 2 cells per byte
+    static final int TAG_MAZE = 2;
+
+    //the render changed, data is the Render ordinal
+    static final int TAG_RENDER = 3;
+
+    //the recording stopped, data is the number of completed levels
+    static final int TAG_END = 4;
+
+    //the only keys the Puzzle reads, each has a pressed bit and a released bit 4 places higher
+    private static final int[] KEYS = {KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_UP, KeyEvent.VK_DOWN};
+
+    private ReplayFormat()
+    {
+        //constants and helpers only
+    }
+
+    /**
+     * Get the pressed/released state of every key the Puzzle reads
+     * @param keyboard Keyboard input, may be null
+     * @return int The key state
+     */
+    static int getInputState(final Keyboard keyboard)
+    {
+        if (keyboard == null)
+            return 0;
+
+        int state = 0;
+
+        for (int i = 0; i < KEYS.length; i++)
+        {
+            if (keyboard.hasKeyPressed(KEYS[i]))
+                state |= (1 << i);
+
+            if (keyboard.hasKeyReleased(KEYS[i]))
+                state |= (1 << (i + KEYS.length));
+        }
+
+        return state;
+    }
+
+    /**
+     * Make the keyboard match a recorded key state
+     * @param keyboard Keyboard input
+     * @param state The key state
+     */
+    static void setInputState(final Keyboard keyboard, final int state)
+    {
+        for (int i = 0; i < KEYS.length; i++)
+        {
+            final boolean pressed = ((state & (1 << i)) != 0);
+            final boolean released = ((state & (1 << (i + KEYS.length))) != 0);
+
+            if (pressed && !keyboard.hasKeyPressed(KEYS[i]))
+                keyboard.addKeyPressed(KEYS[i]);
+
+            if (!pressed && keyboard.hasKeyPressed(KEYS[i]))
+                keyboard.removeKeyPressed(KEYS[i]);
+
+            if (released && !keyboard.hasKeyReleased(KEYS[i]))
+                keyboard.addKeyReleased(KEYS[i]);
+
+            if (!released && keyboard.hasKeyReleased(KEYS[i]))
+                keyboard.removeKeyReleased(KEYS[i]);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,235 @@
+package com.gamesbykevin.maze.replay;
+
+import com.gamesbykevin.framework.input.Keyboard;
+
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Plays back a replay written by the ReplayRecorder.
+ * The Puzzle calls beginTick() at the start of every update so the keyboard matches what was recorded,
+ * and takes each recorded maze instead of generating its own.
+ * @author GOD
+ */
+public final class ReplayReader
+{
+    //the entire replay
+    private final byte[] data;
+
+    //where the next byte will be read from
+    private int position = 0;
+
+    //the options the Puzzle was created with
+    private final int dimensionIndex, algorithmIndex, renderIndex, gameTypeIndex, playerModeIndex, difficultyIndex, solverIndex;
+
+    //the game time of each update in nanoseconds
+    private final long timeDeduction;
+
+    //the current tick
+    private long tick = 0;
+
+    //the tick and tag of the next record, the tag is -1 if there are no more records
+    private long nextTick = 0;
+    private int nextTag;
+
+    //the number of completed levels when the recording stopped, -1 if the recording wasn't stopped
+    private int levels = -1;
+
+    /**
+     * Load a replay
+     * @param file The replay to load
+     * @throws IOException If the file can't be read or isn't a replay
+     */
+    public ReplayReader(final File file) throws IOException
+    {
+        this.data = Files.readAllBytes(file.toPath());
+
+        if (data.length < 4 || ((read() << 24) | (read() << 16) | (read() << 8) | read()) != ReplayFormat.MAGIC)
+            throw new IOException("Not a replay " + file);
+
+        final long version = readVarLong();
+
+        if (version != ReplayFormat.VERSION)
+            throw new IOException("Replay version not supported " + version);
+
+        this.dimensionIndex = (int)readVarLong();
+        this.algorithmIndex = (int)readVarLong();
+        this.renderIndex = (int)readVarLong();
+        this.gameTypeIndex = (int)readVarLong();
+        this.playerModeIndex = (int)readVarLong();
+        this.difficultyIndex = (int)readVarLong();
+        this.solverIndex = (int)readVarLong();
+        this.timeDeduction = readVarLong();
+
+        readNext();
+    }
+
+    /**
+     * Read the tick and tag of the next record
+     */
+    private void readNext()
+    {
+        //a replay that wasn't stopped just ends
+        if (position >= data.length)
+        {
+            nextTag = -1;
+            return;
+        }
+
+        nextTick += readVarLong();
+        nextTag = read();
+
+        //the end has no more records after it so read the data now
+        if (nextTag == ReplayFormat.TAG_END)
+            levels = (int)readVarLong();
+    }
+
+    /**
+     * Move to the next tick and apply anything recorded at the start of it
+     * @param keyboard Keyboard input that will be changed to match the recording
+     * @return int The Render ordinal to switch to, -1 if it didn't change
+     */
+    public int beginTick(final Keyboard keyboard)
+    {
+        tick++;
+
+        int render = -1;
+
+        while (nextTick == tick && (nextTag == ReplayFormat.TAG_INPUT || nextTag == ReplayFormat.TAG_RENDER))
+        {
+            if (nextTag == ReplayFormat.TAG_INPUT)
+            {
+                final int state = (int)readVarLong();
+
+                if (keyboard != null)
+                    ReplayFormat.setInputState(keyboard, state);
+            }
+            else
+            {
+                render = (int)readVarLong();
+            }
+
+            readNext();
+        }
+
+        return render;
+    }
+
+    /**
+     * Was a maze generated during the current tick
+     * @return boolean
+     */
+    public boolean hasMaze()
+    {
+        return (nextTick == tick && nextTag == ReplayFormat.TAG_MAZE);
+    }
+
+    /**
+     * Get the maze generated during the current tick, check hasMaze() first
+     * @return WallGrid
+     */
+    public WallGrid takeMaze()
+    {
+        final int cols = (int)readVarLong();
+        final int rows = (int)readVarLong();
+        final int start = (int)readVarLong();
+        final int finish = (int)readVarLong();
+
+        final WallGrid grid = WallGrid.unpack(cols, rows, data, position, start, finish);
+        position += WallGrid.getPackedSize(cols * rows);
+
+        readNext();
+
+        return grid;
+    }
+
+    /**
+     * Has every recorded tick been played
+     * @return boolean
+     */
+    public boolean hasFinished()
+    {
+        return (nextTag == -1 || (nextTag == ReplayFormat.TAG_END && tick >= nextTick));
+    }
+
+    /**
+     * The number of ticks played so far
+     * @return long
+     */
+    public long getTick()
+    {
+        return this.tick;
+    }
+
+    /**
+     * The number of completed levels when the recording stopped
+     * @return int -1 if the recording wasn't stopped
+     */
+    public int getLevels()
+    {
+        return this.levels;
+    }
+
+    public int getDimensionIndex()
+    {
+        return this.dimensionIndex;
+    }
+
+    public int getAlgorithmIndex()
+    {
+        return this.algorithmIndex;
+    }
+
+    public int getRenderIndex()
+    {
+        return this.renderIndex;
+    }
+
+    public int getGameTypeIndex()
+    {
+        return this.gameTypeIndex;
+    }
+
+    public int getPlayerModeIndex()
+    {
+        return this.playerModeIndex;
+    }
+
+    public int getDifficultyIndex()
+    {
+        return this.difficultyIndex;
+    }
+
+    public int getSolverIndex()
+    {
+        return this.solverIndex;
+    }
+
+    public long getTimeDeduction()
+    {
+        return this.timeDeduction;
+    }
+
+    private long readVarLong()
+    {
+        long value = 0;
+
+        for (int shift = 0; ; shift += 7)
+        {
+            final int next = read();
+
+            value |= (long)(next & 0x7F) << shift;
+
+            if ((next & 0x80) == 0)
+                return value;
+        }
+    }
+
+    private int read()
+    {
+        return (data[position++] & 0xFF);
+    }
+}
\ No newline at end of file
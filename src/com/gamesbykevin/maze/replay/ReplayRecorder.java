@@ -0,0 +1,265 @@
+package com.gamesbykevin.maze.replay;
+
+import com.gamesbykevin.framework.input.Keyboard;
+
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Records everything needed to play a game again: the options, every maze generated and the key state whenever it changes.
+ * The maze generation can't be seeded so the walls of each maze are recorded instead of a seed.
+ * Records are encoded on the update thread into a buffer, full buffers are written to the file on a separate thread.
+ * @author GOD
+ */
+public final class ReplayRecorder
+{
+    //the size of each chunk handed to the writer thread
+    private static final int CHUNK_SIZE = 4096;
+
+    //tells the writer thread there is nothing left to write
+    private static final byte[] END = new byte[0];
+
+    //the chunks waiting to be written
+    private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+
+    //the records that haven't been handed to the writer thread yet
+    private byte[] buffer = new byte[CHUNK_SIZE];
+    private int size = 0;
+
+    //the current tick and the tick of the last record
+    private long tick = 0, lastRecord = 0;
+
+    //the key state at the end of the previous tick
+    private int inputState = 0;
+
+    //the render that was last recorded, -1 if none yet
+    private int render = -1;
+
+    //has the recording been stopped
+    private boolean closed = false;
+
+    //writes the chunks to the file
+    private final Thread writer;
+
+    /**
+     * Start recording
+     * @param file Where the replay is written
+     * @param dimensionIndex The options the Puzzle was created with...
+     * @param algorithmIndex
+     * @param renderIndex
+     * @param gameTypeIndex
+     * @param playerModeIndex
+     * @param difficultyIndex
+     * @param solverIndex
+     * @param timeDeduction The game time of each update in nanoseconds
+     * @throws IOException If the file can't be created
+     */
+    public ReplayRecorder(final File file, final int dimensionIndex, final int algorithmIndex, final int renderIndex, final int gameTypeIndex,
+            final int playerModeIndex, final int difficultyIndex, final int solverIndex, final long timeDeduction) throws IOException
+    {
+        final OutputStream output = new BufferedOutputStream(new FileOutputStream(file));
+
+        //the magic number is written in full so the file is easy to recognise
+        write(ReplayFormat.MAGIC >>> 24);
+        write(ReplayFormat.MAGIC >>> 16);
+        write(ReplayFormat.MAGIC >>> 8);
+        write(ReplayFormat.MAGIC);
+
+        writeVarLong(ReplayFormat.VERSION);
+        writeVarLong(dimensionIndex);
+        writeVarLong(algorithmIndex);
+        writeVarLong(renderIndex);
+        writeVarLong(gameTypeIndex);
+        writeVarLong(playerModeIndex);
+        writeVarLong(difficultyIndex);
+        writeVarLong(solverIndex);
+        writeVarLong(timeDeduction);
+
+        this.writer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    while (true)
+                    {
+                        final byte[] chunk = queue.take();
+
+                        if (chunk == END)
+                            break;
+
+                        output.write(chunk);
+                    }
+                }
+                catch(Exception e)
+                {
+                    e.printStackTrace();
+                }
+                finally
+                {
+                    try
+                    {
+                        output.close();
+                    }
+                    catch(IOException e)
+                    {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }, "Replay Writer");
+
+        //don't keep the game running if the recording is never stopped
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Record the state at the start of a tick, before the Puzzle reads the keyboard
+     * @param keyboard Keyboard input, may be null
+     * @param render The Render ordinal being used
+     */
+    public void beginTick(final Keyboard keyboard, final int render)
+    {
+        if (closed)
+            return;
+
+        tick++;
+
+        if (render != this.render)
+        {
+            record(ReplayFormat.TAG_RENDER);
+            writeVarLong(render);
+            this.render = render;
+        }
+
+        final int state = ReplayFormat.getInputState(keyboard);
+
+        //only record the keys if they changed since the Puzzle last used them
+        if (state != inputState)
+        {
+            record(ReplayFormat.TAG_INPUT);
+            writeVarLong(state);
+        }
+
+        if (size >= CHUNK_SIZE)
+            flush();
+    }
+
+    /**
+     * Remember the key state after the Puzzle has read it, reading a released key removes it
+     * @param keyboard Keyboard input, may be null
+     */
+    public void endTick(final Keyboard keyboard)
+    {
+        inputState = ReplayFormat.getInputState(keyboard);
+    }
+
+    /**
+     * Record a maze that has just been generated
+     * @param grid The walls of the maze
+     */
+    public void recordMaze(final WallGrid grid)
+    {
+        if (closed)
+            return;
+
+        record(ReplayFormat.TAG_MAZE);
+        writeVarLong(grid.getCols());
+        writeVarLong(grid.getRows());
+        writeVarLong(grid.getStart());
+        writeVarLong(grid.getFinish());
+
+        final int length = WallGrid.getPackedSize(grid.getCols() * grid.getRows());
+
+        if (size + length > buffer.length)
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + length));
+
+        grid.pack(buffer, size);
+        size += length;
+
+        if (size >= CHUNK_SIZE)
+            flush();
+    }
+
+    /**
+     * Stop recording, anything not written yet is handed to the writer thread
+     * @param levels The number of completed levels so a replay can be checked
+     */
+    public void close(final int levels)
+    {
+        if (closed)
+            return;
+
+        record(ReplayFormat.TAG_END);
+        writeVarLong(levels);
+        flush();
+
+        queue.add(END);
+        closed = true;
+    }
+
+    /**
+     * Wait until the writer thread has written everything and closed the file, call close() first
+     * @throws InterruptedException If interrupted while waiting
+     */
+    void awaitWriter() throws InterruptedException
+    {
+        writer.join();
+    }
+
+    /**
+     * Start a record for the current tick
+     * @param tag The type of record
+     */
+    private void record(final int tag)
+    {
+        writeVarLong(tick - lastRecord);
+        write(tag);
+        lastRecord = tick;
+    }
+
+    /**
+     * Write 7 bits at a time, the high bit is set on every byte except the last
+     * @param value The value, must not be negative
+     */
+    private void writeVarLong(long value)
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            write((int)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        write((int)value);
+    }
+
+    private void write(final int value)
+    {
+        if (size == buffer.length)
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+        buffer[size++] = (byte)value;
+    }
+
+    /**
+     * Hand the buffer to the writer thread
+     */
+    private void flush()
+    {
+        if (size == 0)
+            return;
+
+        queue.add(Arrays.copyOf(buffer, size));
+        size = 0;
+    }
+}
\ No newline at end of file
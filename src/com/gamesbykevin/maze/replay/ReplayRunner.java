@@ -0,0 +1,77 @@
+package com.gamesbykevin.maze.replay;
+
+import com.gamesbykevin.framework.input.Keyboard;
+
+import com.gamesbykevin.maze.main.LoopScheduler;
+import com.gamesbykevin.maze.puzzle.Puzzle;
+import com.gamesbykevin.maze.shared.Shared;
+
+import java.awt.Rectangle;
+import java.io.File;
+
+/**
+ * Plays a recorded game without a window, either as fast as possible or at the speed it was recorded.
+ * The same replay always runs the same updates so it can be used to reproduce a bug or as a repeatable workload, run with:
+ * java com.gamesbykevin.maze.replay.ReplayRunner file [realtime]
+ * To watch a replay in the game window set Shared.PLAYBACK_REPLAY instead.
+ * @author GOD
+ */
+public final class ReplayRunner
+{
+    //the size of the screen the Puzzle thinks it is drawn on
+    private static final Rectangle SCREEN = new Rectangle(0, 0, Shared.ORIGINAL_WIDTH, Shared.ORIGINAL_HEIGHT);
+
+    private ReplayRunner()
+    {
+        //only run from main
+    }
+
+    public static void main(final String[] args) throws Exception
+    {
+        if (args.length < 1)
+        {
+            System.out.println("usage: ReplayRunner file [realtime]");
+            return;
+        }
+
+        final ReplayReader replay = new ReplayReader(new File(args[0]));
+
+        //wait between updates the same as the game loop, otherwise run as fast as possible
+        final LoopScheduler scheduler = (args.length > 1 && args[1].equalsIgnoreCase("realtime")) ? new LoopScheduler(LoopScheduler.Mode.Balanced) : null;
+
+        final Puzzle puzzle = new Puzzle(replay.getDimensionIndex(), replay.getAlgorithmIndex(), replay.getRenderIndex(), replay.getGameTypeIndex(),
+            replay.getPlayerModeIndex(), replay.getDifficultyIndex(), replay.getSolverIndex(), replay.getTimeDeduction(), SCREEN);
+
+        puzzle.setReplay(replay);
+
+        //the replay sets the keys on this keyboard instead of key events
+        final Keyboard keyboard = new Keyboard();
+
+        final long start = System.nanoTime();
+        long deadline = start;
+
+        while (!replay.hasFinished())
+        {
+            puzzle.update(keyboard);
+
+            if (scheduler != null)
+            {
+                deadline += replay.getTimeDeduction();
+                scheduler.waitUntil(deadline);
+            }
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        final int levels = (puzzle.getSnapshot() != null) ? puzzle.getSnapshot().getLevel() : 0;
+
+        System.out.println("updates: " + replay.getTick());
+        System.out.println("levels: " + levels + ((replay.getLevels() == -1) ? " (recording wasn't stopped)" : " (recorded " + replay.getLevels() + ")"));
+        System.out.println("elapsed ms: " + (elapsed / 1000000L));
+        System.out.println("updates per second: " + ((elapsed == 0) ? 0 : (long)(replay.getTick() * 1000000000.0 / elapsed)));
+
+        if (replay.getLevels() != -1 && replay.getLevels() != levels)
+            System.out.println("the replay did not match the recording");
+
+        puzzle.dispose();
+    }
+}
\ No newline at end of file
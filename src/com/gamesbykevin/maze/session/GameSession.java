@@ -0,0 +1,214 @@
+package com.gamesbykevin.maze.session;
+
+import com.gamesbykevin.framework.input.Keyboard;
+
+import com.gamesbykevin.maze.puzzle.Puzzle;
+import com.gamesbykevin.maze.puzzle.Snapshot;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One game hosted by a SessionHost.
+ * Each session has its own Puzzle and Keyboard so nothing is shared with the other sessions.
+ * Keys can be sent from any thread, they are queued and given to the Keyboard at the start of the next tick.
+ * A session is only ever ticked by one thread at a time.
+ * @author GOD
+ */
+public final class GameSession
+{
+    //the queued keys, the key code is shifted left 1 and the low bit is set if the key was pressed
+    private final Queue<Integer> keys = new ConcurrentLinkedQueue<>();
+
+    //the input of this session only
+    private final Keyboard keyboard = new Keyboard();
+
+    private final int id;
+
+    private final Puzzle puzzle;
+
+    //the size of each frame
+    private final Rectangle screen;
+
+    //draw a frame every this many ticks, 0 if the session isn't drawn
+    private final int renderInterval;
+
+    //the frame being drawn and the last frame finished, null if the session isn't drawn
+    private BufferedImage back;
+    private volatile BufferedImage front;
+
+    //the number of ticks so far
+    private volatile long ticks = 0;
+
+    //the error that stopped the session, null if it is still running
+    private volatile Exception failure;
+
+    /**
+     * Create a new game, the options are the same as the Puzzle
+     * @param id Identifies the session
+     * @param dimensionIndex
+     * @param algorithmIndex
+     * @param renderIndex
+     * @param gameTypeIndex
+     * @param playerModeIndex
+     * @param difficultyIndex
+     * @param solverIndex
+     * @param timeDeduction The game time of each tick in nanoseconds
+     * @param screen The size of each frame
+     * @param renderInterval Draw a frame every this many ticks, 0 to never draw
+     * @throws Exception
+     */
+    public GameSession(final int id, final int dimensionIndex, final int algorithmIndex, final int renderIndex, final int gameTypeIndex,
+            final int playerModeIndex, final int difficultyIndex, final int solverIndex, final long timeDeduction, final Rectangle screen, final int renderInterval) throws Exception
+    {
+        this.id = id;
+        this.screen = screen;
+        this.renderInterval = renderInterval;
+        this.puzzle = new Puzzle(dimensionIndex, algorithmIndex, renderIndex, gameTypeIndex, playerModeIndex, difficultyIndex, solverIndex, timeDeduction, screen);
+
+        if (renderInterval > 0)
+        {
+            this.back = new BufferedImage(screen.width, screen.height, BufferedImage.TYPE_INT_RGB);
+            this.front = new BufferedImage(screen.width, screen.height, BufferedImage.TYPE_INT_RGB);
+        }
+    }
+
+    public int getId()
+    {
+        return this.id;
+    }
+
+    /**
+     * A key was pressed, safe to call from any thread
+     * @param keyCode The KeyEvent key code
+     */
+    public void keyPressed(final int keyCode)
+    {
+        keys.add((keyCode << 1) | 1);
+    }
+
+    /**
+     * A key was released, safe to call from any thread
+     * @param keyCode The KeyEvent key code
+     */
+    public void keyReleased(final int keyCode)
+    {
+        keys.add(keyCode << 1);
+    }
+
+    /**
+     * Update the game once and draw a frame if one is due
+     */
+    void tick()
+    {
+        if (failure != null)
+            return;
+
+        try
+        {
+            //give the queued keys to the keyboard the same way the Engine does
+            for (Integer key = keys.poll(); key != null; key = keys.poll())
+            {
+                final int keyCode = key >> 1;
+
+                if ((key & 1) != 0)
+                {
+                    if (keyCode == KeyEvent.VK_H)
+                        puzzle.toggleHint();
+
+                    keyboard.addKeyPressed(keyCode);
+                }
+                else
+                {
+                    keyboard.addKeyReleased(keyCode);
+                }
+            }
+
+            puzzle.update(keyboard);
+
+            ticks++;
+
+            if (renderInterval > 0 && ticks % renderInterval == 0)
+                render();
+        }
+        catch(Exception e)
+        {
+            //only this session stops
+            failure = e;
+        }
+    }
+
+    /**
+     * Draw the latest state into the back frame, then make it the front frame
+     * @throws Exception
+     */
+    private void render() throws Exception
+    {
+        final Graphics2D graphics = back.createGraphics();
+
+        try
+        {
+            graphics.setColor(Color.BLACK);
+            graphics.fillRect(0, 0, screen.width, screen.height);
+
+            puzzle.render(graphics, screen);
+        }
+        finally
+        {
+            graphics.dispose();
+        }
+
+        final BufferedImage finished = back;
+        back = front;
+        front = finished;
+    }
+
+    /**
+     * The last frame drawn, the image may be drawn over again after the next frame so copy it if it is kept
+     * @return BufferedImage, null if the session isn't drawn
+     */
+    public BufferedImage getFrame()
+    {
+        return this.front;
+    }
+
+    /**
+     * The latest state of the game
+     * @return Snapshot, null if the game hasn't been updated yet
+     */
+    public Snapshot getSnapshot()
+    {
+        return puzzle.getSnapshot();
+    }
+
+    public long getTicks()
+    {
+        return this.ticks;
+    }
+
+    /**
+     * The error that stopped the session
+     * @return Exception, null if the session is still running
+     */
+    public Exception getFailure()
+    {
+        return this.failure;
+    }
+
+    /**
+     * Free up resources, the session must not be ticked again
+     */
+    public void dispose()
+    {
+        puzzle.dispose();
+        keyboard.dispose();
+        keys.clear();
+        back = null;
+        front = null;
+    }
+}
\ No newline at end of file
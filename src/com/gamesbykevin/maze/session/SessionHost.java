@@ -0,0 +1,306 @@
+package com.gamesbykevin.maze.session;
+
+import com.gamesbykevin.maze.main.LoopScheduler;
+import com.gamesbykevin.maze.profiler.Histogram;
+import com.gamesbykevin.maze.profiler.Profiler;
+import com.gamesbykevin.maze.puzzle.Puzzle;
+import com.gamesbykevin.maze.shared.Shared;
+import com.gamesbykevin.maze.solver.Solver;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts many independent games in one process.
+ * A single scheduler thread wakes up at the game loop rate and ticks every session once, the sessions are split
+ * across a fork/join pool so all the processors share the work. Sessions can be added and removed from any thread.
+ * The time each tick starts late (jitter), how long each tick takes and the cpu time the sessions use are measured
+ * so we know how many sessions each processor can keep up with.
+ * Run a load test with: java com.gamesbykevin.maze.session.SessionHost [sessions] [seconds] [render]
+ * @author GOD
+ */
+public final class SessionHost implements Runnable
+{
+    //the most sessions updated by each task before it is split in 2
+    private static final int SPLIT_SIZE = 8;
+
+    //how many ticks are kept for the statistics
+    private static final int WINDOW = 1024;
+
+    //the nanoseconds between each tick
+    private final long period;
+
+    //every session being hosted, replaced by a copy when sessions are added or removed so a tick never sees a change
+    private volatile GameSession[] sessions = new GameSession[0];
+
+    //the threads the sessions are updated on
+    private final ForkJoinPool pool;
+
+    //waits for the next tick
+    private final LoopScheduler scheduler;
+
+    //how late each tick started and how long each tick took, only recorded by the scheduler thread
+    private final Histogram jitter = new Histogram(WINDOW);
+    private final Histogram duration = new Histogram(WINDOW);
+
+    //the cpu time the sessions have used across every thread
+    private final AtomicLong busy = new AtomicLong();
+
+    //the number of ticks that started after the next tick was due
+    private volatile long overruns = 0;
+
+    private volatile boolean running = true;
+
+    /**
+     * Create the host, no tick happens until run() is called
+     * @param ups The number of ticks per second
+     * @param pool The threads the sessions are updated on
+     * @param mode How the scheduler waits for each tick
+     */
+    public SessionHost(final int ups, final ForkJoinPool pool, final LoopScheduler.Mode mode)
+    {
+        this.period = 1000000000L / ups;
+        this.pool = pool;
+        this.scheduler = new LoopScheduler(mode);
+    }
+
+    /**
+     * Start hosting a session, it is ticked from the next tick
+     * @param session The session
+     */
+    public synchronized void add(final GameSession session)
+    {
+        final GameSession[] added = Arrays.copyOf(sessions, sessions.length + 1);
+        added[sessions.length] = session;
+        sessions = added;
+    }
+
+    /**
+     * Stop hosting a session, it may still be ticked by a tick that has already started
+     * @param session The session
+     */
+    public synchronized void remove(final GameSession session)
+    {
+        for (int i = 0; i < sessions.length; i++)
+        {
+            if (sessions[i] == session)
+            {
+                final GameSession[] removed = new GameSession[sessions.length - 1];
+                System.arraycopy(sessions, 0, removed, 0, i);
+                System.arraycopy(sessions, i + 1, removed, i, sessions.length - i - 1);
+                sessions = removed;
+                return;
+            }
+        }
+    }
+
+    public int getSessionCount()
+    {
+        return sessions.length;
+    }
+
+    /**
+     * Stop ticking, run() returns after the current tick
+     */
+    public void stop()
+    {
+        running = false;
+    }
+
+    /**
+     * Tick every session at a fixed rate until stopped
+     */
+    @Override
+    public void run()
+    {
+        long next = System.nanoTime();
+
+        while (running)
+        {
+            scheduler.waitUntil(next);
+
+            final long start = System.nanoTime();
+            jitter.record(start - next);
+
+            final GameSession[] current = sessions;
+
+            if (current.length > 0)
+                pool.invoke(new Tick(current, 0, current.length));
+
+            duration.record(System.nanoTime() - start);
+
+            next += period;
+
+            //we fell behind, don't try to catch up as the sessions would all run too fast
+            if (System.nanoTime() - next > 0)
+            {
+                overruns++;
+                next = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Update a range of sessions, large ranges are split so every thread gets a share
+     */
+    private final class Tick extends RecursiveAction
+    {
+        private final GameSession[] sessions;
+
+        //the first session and one past the last session
+        private final int from, to;
+
+        private Tick(final GameSession[] sessions, final int from, final int to)
+        {
+            this.sessions = sessions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from > SPLIT_SIZE)
+            {
+                final int middle = (from + to) >>> 1;
+
+                invokeAll(new Tick(sessions, from, middle), new Tick(sessions, middle, to));
+                return;
+            }
+
+            final long start = System.nanoTime();
+
+            for (int i = from; i < to; i++)
+            {
+                sessions[i].tick();
+            }
+
+            busy.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * How late the recent ticks started
+     * @return Histogram in nanoseconds
+     */
+    public Histogram getJitter()
+    {
+        return this.jitter;
+    }
+
+    /**
+     * How long the recent ticks took from start to finish
+     * @return Histogram in nanoseconds
+     */
+    public Histogram getDuration()
+    {
+        return this.duration;
+    }
+
+    /**
+     * The cpu time the sessions have used since the host started
+     * @return long in nanoseconds
+     */
+    public long getBusy()
+    {
+        return busy.get();
+    }
+
+    /**
+     * The number of ticks that didn't finish before the next tick was due
+     * @return long
+     */
+    public long getOverruns()
+    {
+        return this.overruns;
+    }
+
+    /**
+     * How many sessions a single processor could keep up with, based on the cpu time used so far
+     * @param ticks The number of ticks the cpu time was measured over
+     * @param busy The cpu time used over those ticks in nanoseconds
+     * @param sessions The number of sessions ticked
+     * @return double
+     */
+    private double getCapacityPerCore(final long ticks, final long busy, final int sessions)
+    {
+        if (ticks == 0 || busy == 0)
+            return 0;
+
+        //the cpu time each session needs per tick
+        final double perSession = (double)busy / ticks / sessions;
+
+        return period / perSession;
+    }
+
+    public static void main(final String[] args) throws Exception
+    {
+        final int count = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+        final int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : 30;
+        final boolean render = (args.length > 2 && args[2].equals("render"));
+
+        //the timings only support one update thread
+        Profiler.setRecording(false);
+
+        final int cores = Runtime.getRuntime().availableProcessors();
+        final ForkJoinPool pool = new ForkJoinPool(cores);
+        final SessionHost host = new SessionHost(Shared.DEFAULT_UPS, pool, LoopScheduler.Mode.Balanced);
+        final Rectangle screen = new Rectangle(0, 0, Shared.ORIGINAL_WIDTH, Shared.ORIGINAL_HEIGHT);
+
+        //the cpu plays every session so each one keeps doing work, random algorithms and sizes spread the load
+        for (int id = 0; id < count; id++)
+        {
+            host.add(new GameSession(id, id % Puzzle.DIMENSION_SELECTIONS.length, 0, Puzzle.Render.Original.ordinal(), Puzzle.GameType.Free.ordinal(),
+                Puzzle.PlayerMode.Vs_Cpu.ordinal(), Puzzle.VsDifficulty.Hard.ordinal(), id % Solver.values().length, host.period, screen, render ? Shared.DEFAULT_UPS / Shared.DEFAULT_FPS : 0));
+        }
+
+        final Thread thread = new Thread(host, "Session Host");
+        thread.start();
+
+        System.out.println("seconds,sessions,cores,sessions_per_core,tick_p50_ms,tick_p99_ms,jitter_p50_ms,jitter_p99_ms,jitter_max_ms,overruns,capacity_per_core");
+
+        long lastTicks = 0, lastBusy = 0;
+
+        for (int second = 1; second <= seconds; second++)
+        {
+            Thread.sleep(1000L);
+
+            final long ticks = host.duration.getCount();
+            final long busy = host.getBusy();
+
+            System.out.println(second + "," + count + "," + cores + "," + toDecimal((double)count / cores) + "," +
+                toMillis(host.duration.getPercentile(.5)) + "," + toMillis(host.duration.getPercentile(.99)) + "," +
+                toMillis(host.jitter.getPercentile(.5)) + "," + toMillis(host.jitter.getPercentile(.99)) + "," + toMillis(host.jitter.getMax()) + "," +
+                host.getOverruns() + "," + toDecimal(host.getCapacityPerCore(ticks - lastTicks, busy - lastBusy, count)));
+
+            lastTicks = ticks;
+            lastBusy = busy;
+        }
+
+        host.stop();
+        thread.join();
+        pool.shutdown();
+
+        for (GameSession session : host.sessions)
+        {
+            if (session.getFailure() != null)
+                session.getFailure().printStackTrace();
+
+            session.dispose();
+        }
+    }
+
+    private static String toMillis(final long nanos)
+    {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000000.0);
+    }
+
+    private static String toDecimal(final double value)
+    {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+}
\ No newline at end of file
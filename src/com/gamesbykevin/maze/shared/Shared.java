@@ -1,5 +1,8 @@
 package com.gamesbykevin.maze.shared;
 
+import com.gamesbykevin.maze.main.CatchUpPolicy;
+import com.gamesbykevin.maze.main.LoopScheduler;
+
 import java.awt.Cursor;
 import java.awt.Point;
 import java.awt.Toolkit;
@@ -20,7 +23,7 @@ public class Shared
     public static final int ORIGINAL_WIDTH  = 400;
     public static final int ORIGINAL_HEIGHT = 450;
     
-    //show UPS/FPS counters
+    //show the performance overlay when the game starts, F3 will toggle it while playing
     public static final boolean DEBUG = false;
     
     //how many updates per second, controls speed of game
@@ -29,6 +32,35 @@ public class Shared
     //how many frames per second, controls how many images are rendered
     public static final int DEFAULT_FPS = 30;
     
+    //how the game loop waits between updates/frames, balanced parks the thread and only yields close to each deadline
+    public static final LoopScheduler.Mode DEFAULT_LOOP_MODE = LoopScheduler.Mode.Balanced;
+    
+    //how the game loop catches up missed updates after a stall
+    public static final CatchUpPolicy.Mode DEFAULT_CATCH_UP = CatchUpPolicy.Mode.Capped;
+    
+    //the most updates the game loop will run at once when catching up
+    public static final int MAX_CATCH_UP_UPDATES = 5;
+    
+    //render at most one frame at a time instead of every missed frame
+    public static final boolean DROP_FRAMES = true;
+    
+    //record every game so it can be replayed with the ReplayRunner
+    public static final boolean RECORD_REPLAYS = false;
+    
+    //where the recorded games are written
+    public static final String REPLAY_DIRECTORY = "replays";
+    
+    //a recorded game to play back in the game window instead of the keyboard each time a game starts, null to play normally
+    public static final String PLAYBACK_REPLAY = null;
+    
+    //where the best run for each algorithm/size is kept for the ghost
+    public static final String GHOST_DIRECTORY = "ghosts";
+    
+    //the server and room joined when racing online, start the server with the GameServer
+    public static final String NETWORK_HOST = "localhost";
+    public static final int NETWORK_PORT = 7777;
+    public static final int NETWORK_ROOM = 1;
+    
     //what is the name of our game
     public static final String GAME_NAME = "Maze Adventures";
     
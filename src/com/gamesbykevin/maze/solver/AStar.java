@@ -0,0 +1,17 @@
+package com.gamesbykevin.maze.solver;
+
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+/**
+ * Find the shortest path with A* over the JunctionGraph and follow it.
+ * Only the junctions, dead ends, start and finish are searched so the search state is a fraction of the cells.
+ * @author GOD
+ */
+public final class AStar extends RouteFollower
+{
+    @Override
+    protected int[] findRoute(final WallGrid grid, final int start, final int finish)
+    {
+        return grid.getJunctions().findPath(start, finish);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.gamesbykevin.maze.solver;
+
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+/**
+ * Find the shortest path with a breadth first search and follow it
+ * @author GOD
+ */
+public final class BreadthFirst extends RouteFollower
+{
+    @Override
+    protected int[] findRoute(final WallGrid grid, final int start, final int finish)
+    {
+        return grid.findPath(start, finish);
+    }
+}
\ No newline at end of file
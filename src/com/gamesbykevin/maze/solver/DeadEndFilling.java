@@ -0,0 +1,102 @@
+package com.gamesbykevin.maze.solver;
+
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Fill in every dead end until only the path from start to finish is left, then walk it.
+ * @author GOD
+ */
+public final class DeadEndFilling implements SolverStrategy
+{
+    //the cells that have been filled in
+    private boolean[] filled;
+
+    //the number of open passages for each cell and the dead ends waiting to be filled, only used by reset
+    private int[] open, queue;
+
+    //the cell we were at before the current one
+    private int previous;
+
+    @Override
+    public void reset(final WallGrid grid, final int start, final Random random)
+    {
+        final int cells = grid.getCols() * grid.getRows();
+
+        //the arrays from the last maze are kept if they are big enough
+        if (filled == null || filled.length < cells)
+        {
+            this.filled = new boolean[cells];
+            this.open = new int[cells];
+            this.queue = new int[cells];
+        }
+        else
+        {
+            Arrays.fill(filled, 0, cells, false);
+            Arrays.fill(open, 0, cells, 0);
+        }
+
+        this.previous = -1;
+
+        int head = 0, tail = 0;
+
+        for (int index = 0; index < cells; index++)
+        {
+            for (byte wall : WallGrid.DIRECTIONS)
+            {
+                if (grid.isOpen(index, wall))
+                    open[index]++;
+            }
+
+            if (open[index] <= 1 && index != start && index != grid.getFinish())
+                queue[tail++] = index;
+        }
+
+        while (head < tail)
+        {
+            final int index = queue[head++];
+
+            filled[index] = true;
+
+            //the neighbor may now be a dead end itself
+            for (byte wall : WallGrid.DIRECTIONS)
+            {
+                if (!grid.isOpen(index, wall))
+                    continue;
+
+                final int neighbor = grid.getNeighbor(index, wall);
+
+                if (filled[neighbor])
+                    continue;
+
+                open[neighbor]--;
+
+                if (open[neighbor] == 1 && neighbor != start && neighbor != grid.getFinish())
+                    queue[tail++] = neighbor;
+            }
+        }
+    }
+
+    @Override
+    public int next(final WallGrid grid, final int current)
+    {
+        //follow the only cell that isn't filled that we didn't just come from
+        for (byte wall : WallGrid.DIRECTIONS)
+        {
+            if (!grid.isOpen(current, wall))
+                continue;
+
+            final int neighbor = grid.getNeighbor(current, wall);
+
+            if (!filled[neighbor] && neighbor != previous)
+            {
+                previous = current;
+                return neighbor;
+            }
+        }
+
+        return -1;
+    }
+}
\ No newline at end of file
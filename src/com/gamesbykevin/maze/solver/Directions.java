@@ -0,0 +1,128 @@
+package com.gamesbykevin.maze.solver;
+
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.util.Random;
+
+/**
+ * Helper methods shared by the strategies for working with the 4 directions of a cell
+ * @author GOD
+ */
+final class Directions
+{
+    private Directions()
+    {
+        //static methods only
+    }
+
+    /**
+     * Get the position of a direction in WallGrid.DIRECTIONS
+     * @param wall The wall bit
+     * @return int 0 - 3
+     */
+    static int getSlot(final byte wall)
+    {
+        switch (wall)
+        {
+            case WallGrid.NORTH:
+                return 0;
+
+            case WallGrid.SOUTH:
+                return 1;
+
+            case WallGrid.EAST:
+                return 2;
+
+            default:
+                return 3;
+        }
+    }
+
+    /**
+     * Get the direction 90 degrees counter clockwise
+     * @param wall The wall bit
+     * @return byte
+     */
+    static byte getLeft(final byte wall)
+    {
+        switch (wall)
+        {
+            case WallGrid.NORTH:
+                return WallGrid.WEST;
+
+            case WallGrid.WEST:
+                return WallGrid.SOUTH;
+
+            case WallGrid.SOUTH:
+                return WallGrid.EAST;
+
+            default:
+                return WallGrid.NORTH;
+        }
+    }
+
+    /**
+     * Get the direction 90 degrees clockwise
+     * @param wall The wall bit
+     * @return byte
+     */
+    static byte getRight(final byte wall)
+    {
+        return WallGrid.getOpposite(getLeft(wall));
+    }
+
+    /**
+     * Get the direction from a cell to its neighbor
+     * @param grid The walls of the maze
+     * @param from The cell index
+     * @param to The index of the neighbor
+     * @return byte The wall bit, 0 if the cells are not neighbors
+     */
+    static byte getDirection(final WallGrid grid, final int from, final int to)
+    {
+        for (byte wall : WallGrid.DIRECTIONS)
+        {
+            if (grid.getNeighbor(from, wall) == to)
+                return wall;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Pick a random open neighbor that hasn't been visited without allocating
+     * @param grid The walls of the maze
+     * @param index The cell index
+     * @param visited The cells already visited
+     * @param random Used to pick the neighbor
+     * @return int The index of the neighbor, -1 if every open neighbor has been visited
+     */
+    static int getRandomUnvisited(final WallGrid grid, final int index, final boolean[] visited, final Random random)
+    {
+        int count = 0;
+
+        for (byte wall : WallGrid.DIRECTIONS)
+        {
+            if (grid.isOpen(index, wall) && !visited[grid.getNeighbor(index, wall)])
+                count++;
+        }
+
+        if (count == 0)
+            return -1;
+
+        int choice = random.nextInt(count);
+
+        for (byte wall : WallGrid.DIRECTIONS)
+        {
+            if (grid.isOpen(index, wall) && !visited[grid.getNeighbor(index, wall)])
+            {
+                if (choice == 0)
+                    return grid.getNeighbor(index, wall);
+
+                choice--;
+            }
+        }
+
+        return -1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.gamesbykevin.maze.solver;
+
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Wander the maze picking a random unvisited cell, backtracking at each dead end.
+ * This is the original cpu opponent.
+ * @author GOD
+ */
+public final class RandomDepthFirst implements SolverStrategy
+{
+    //the cells we have been to
+    private boolean[] visited;
+
+    //the cells we walked through to get here so we can backtrack
+    private int[] stack;
+
+    //the number of cells in the stack
+    private int size;
+
+    private Random random;
+
+    @Override
+    public void reset(final WallGrid grid, final int start, final Random random)
+    {
+        final int cells = grid.getCols() * grid.getRows();
+
+        //the arrays from the last maze are kept if they are big enough
+        if (visited == null || visited.length < cells)
+        {
+            this.visited = new boolean[cells];
+            this.stack = new int[cells];
+        }
+        else
+        {
+            Arrays.fill(visited, 0, cells, false);
+        }
+
+        this.size = 0;
+        this.random = random;
+
+        stack[size++] = start;
+    }
+
+    @Override
+    public int next(final WallGrid grid, final int current)
+    {
+        //mark the current cell as visited so we don't check it in the future
+        visited[current] = true;
+
+        final int next = Directions.getRandomUnvisited(grid, current, visited, random);
+
+        if (next != -1)
+        {
+            stack[size++] = next;
+            return next;
+        }
+
+        //we are at a dead end go back to previous spot
+        if (size > 1)
+        {
+            size--;
+            return stack[size - 1];
+        }
+
+        return -1;
+    }
+}
\ No newline at end of file
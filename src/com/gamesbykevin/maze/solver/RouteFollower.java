@@ -0,0 +1,70 @@
+package com.gamesbykevin.maze.solver;
+
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.util.Random;
+
+/**
+ * A strategy that finds the whole route from start to finish once and then only follows it
+ * @author GOD
+ */
+public abstract class RouteFollower implements SolverStrategy
+{
+    //the index of every cell from start to finish
+    private int[] route;
+
+    //the position in the route of the cell we are at
+    private int position;
+
+    /**
+     * Find the route through the maze
+     * @param grid The walls of the maze
+     * @param start The index of the cell we start at
+     * @param finish The index of the cell we want to reach
+     * @return int[] The index of every cell from start to finish, empty if there is no route
+     */
+    protected abstract int[] findRoute(final WallGrid grid, final int start, final int finish);
+
+    @Override
+    public final void reset(final WallGrid grid, final int start, final Random random)
+    {
+        this.route = findRoute(grid, start, grid.getFinish());
+        this.position = 0;
+    }
+
+    @Override
+    public final int next(final WallGrid grid, final int current)
+    {
+        //we should always be on the route, but find our place in case we aren't where we expect
+        if (position >= route.length || route[position] != current)
+        {
+            position = -1;
+
+            for (int i = 0; i < route.length; i++)
+            {
+                if (route[i] == current)
+                {
+                    position = i;
+                    break;
+                }
+            }
+
+            if (position == -1)
+                return -1;
+        }
+
+        if (position == route.length - 1)
+            return -1;
+
+        return route[++position];
+    }
+
+    /**
+     * Get the route that was found
+     * @return int[]
+     */
+    public int[] getRoute()
+    {
+        return this.route;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.gamesbykevin.maze.solver;
+
+/**
+ * Each SolverStrategy the cpu opponent can use
+ * @author GOD
+ */
+public enum Solver
+{
+    Random_Dfs, Left_Wall, Right_Wall, Tremaux, Dead_End_Fill, Bfs, A_Star;
+
+    /**
+     * Create a new instance of the strategy
+     * @return SolverStrategy
+     */
+    public SolverStrategy create()
+    {
+        switch (this)
+        {
+            case Random_Dfs:
+                return new RandomDepthFirst();
+
+            case Left_Wall:
+                return new WallFollower(true);
+
+            case Right_Wall:
+                return new WallFollower(false);
+
+            case Tremaux:
+                return new Tremaux();
+
+            case Dead_End_Fill:
+                return new DeadEndFilling();
+
+            case Bfs:
+                return new BreadthFirst();
+
+            case A_Star:
+                return new AStar();
+
+            default:
+                throw new IllegalArgumentException("Solver not setup here " + this);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.gamesbykevin.maze.solver;
+
+import com.gamesbykevin.framework.labyrinth.Labyrinth;
+import com.gamesbykevin.framework.labyrinth.Labyrinth.Algorithm;
+
+import com.gamesbykevin.maze.puzzle.Puzzle;
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.util.Random;
+
+/**
+ * Compares each Solver across every Algorithm and maze size.
+ * For each combination we report the average steps to reach the finish, the time to setup the solver and the time per step.
+ * The solvers are run without the Player so we only measure the decisions, run with: java com.gamesbykevin.maze.solver.SolverBenchmark
+ * @author GOD
+ */
+public final class SolverBenchmark
+{
+    //how many mazes are generated for each algorithm/size
+    private static final int MAZES = 5;
+
+    //how many times each maze is solved before we start measuring so the code is compiled
+    private static final int WARMUP = 200;
+
+    //how many times each maze is solved while measuring
+    private static final int ITERATIONS = 200;
+
+    //the seed for any random choices so each run is the same
+    private static final long SEED = 1L;
+
+    private SolverBenchmark()
+    {
+        //only run from main
+    }
+
+    public static void main(final String[] args) throws Exception
+    {
+        System.out.println("algorithm,size,solver,steps,setup_ns,ns_per_step");
+
+        for (Algorithm algorithm : Algorithm.values())
+        {
+            for (int size : Puzzle.DIMENSION_SELECTIONS)
+            {
+                final WallGrid[] grids = new WallGrid[MAZES];
+
+                for (int i = 0; i < grids.length; i++)
+                {
+                    grids[i] = generate(algorithm, size);
+                }
+
+                for (Solver solver : Solver.values())
+                {
+                    run(algorithm, size, solver, grids);
+                }
+            }
+        }
+    }
+
+    /**
+     * Generate a maze the same way the Puzzle does
+     * @param algorithm The algorithm used to generate the maze
+     * @param size The number of columns/rows
+     * @return WallGrid
+     * @throws Exception
+     */
+    private static WallGrid generate(final Algorithm algorithm, final int size) throws Exception
+    {
+        final Labyrinth labyrinth = new Labyrinth(size, size, algorithm);
+        labyrinth.setStart(0, 0);
+        labyrinth.create();
+
+        while (!labyrinth.isComplete())
+        {
+            labyrinth.update();
+        }
+
+        Puzzle.setFinish(labyrinth);
+
+        final WallGrid grid = WallGrid.create(labyrinth, size, size, 0, 0);
+
+        labyrinth.dispose();
+
+        return grid;
+    }
+
+    private static void run(final Algorithm algorithm, final int size, final Solver solver, final WallGrid[] grids)
+    {
+        for (int i = 0; i < WARMUP; i++)
+        {
+            solve(solver.create(), grids[i % grids.length], null);
+        }
+
+        //total steps, setup nanoseconds and solve nanoseconds
+        final long[] totals = new long[3];
+
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+            solve(solver.create(), grids[i % grids.length], totals);
+        }
+
+        final long steps = totals[0];
+
+        System.out.println(algorithm + "," + size + "," + solver + "," +
+            (steps / ITERATIONS) + "," +
+            (totals[1] / ITERATIONS) + "," +
+            ((steps == 0) ? 0 : totals[2] / steps));
+    }
+
+    /**
+     * Solve a maze moving straight to each cell the strategy picks
+     * @param strategy The strategy being measured
+     * @param grid The maze
+     * @param totals Where the steps, setup time and solve time are added, null if not measuring
+     */
+    private static void solve(final SolverStrategy strategy, final WallGrid grid, final long[] totals)
+    {
+        //no strategy should need more steps than this
+        final long limit = 4L * grid.getCols() * grid.getRows();
+
+        long start = System.nanoTime();
+
+        strategy.reset(grid, grid.getStart(), new Random(SEED));
+
+        final long setup = System.nanoTime() - start;
+
+        int current = grid.getStart();
+        long steps = 0;
+
+        start = System.nanoTime();
+
+        while (current != grid.getFinish() && current != -1 && steps < limit)
+        {
+            current = strategy.next(grid, current);
+            steps++;
+        }
+
+        final long elapsed = System.nanoTime() - start;
+
+        if (current != grid.getFinish())
+            throw new IllegalStateException(strategy.getClass().getSimpleName() + " did not solve the maze");
+
+        if (totals != null)
+        {
+            totals[0] += steps;
+            totals[1] += setup;
+            totals[2] += elapsed;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.gamesbykevin.maze.solver;
+
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.util.Random;
+
+/**
+ * The logic the cpu opponent uses to decide which cell to move to next.
+ * The Player takes care of the movement, a strategy only works with cell indexes.
+ * @author GOD
+ */
+public interface SolverStrategy
+{
+    /**
+     * Prepare to solve a new maze
+     * @param grid The walls of the maze
+     * @param start The index of the cell we start at
+     * @param random Used for any random decisions so the same seed solves the same way
+     */
+    public void reset(final WallGrid grid, final int start, final Random random);
+
+    /**
+     * Decide where to move from the current cell, this will not be called once the finish is reached
+     * @param grid The walls of the maze
+     * @param current The index of the cell we are at
+     * @return int The index of the neighbor to move to, -1 if there is nowhere to go
+     */
+    public int next(final WallGrid grid, final int current);
+}
\ No newline at end of file
@@ -0,0 +1,118 @@
+package com.gamesbykevin.maze.solver;
+
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tremaux's algorithm, each passage is marked every time we walk through it.
+ * We never enter a passage marked twice, and turn back when we reach a cell we've already explored.
+ * @author GOD
+ */
+public final class Tremaux implements SolverStrategy
+{
+    //the number of times each passage has been walked, index = (cell * 4) + direction slot
+    private byte[] marks;
+
+    //the direction we came from to reach the current cell, 0 if at the start
+    private byte entry;
+
+    private Random random;
+
+    @Override
+    public void reset(final WallGrid grid, final int start, final Random random)
+    {
+        final int size = grid.getCols() * grid.getRows() * WallGrid.DIRECTIONS.length;
+
+        //the marks from the last maze are kept if there are enough
+        if (marks == null || marks.length < size)
+            this.marks = new byte[size];
+        else
+            Arrays.fill(marks, 0, size, (byte)0);
+
+        this.entry = 0;
+        this.random = random;
+    }
+
+    @Override
+    public int next(final WallGrid grid, final int current)
+    {
+        boolean explored = false;
+
+        //has any passage other than the one we came from been walked
+        for (byte wall : WallGrid.DIRECTIONS)
+        {
+            if (wall != entry && grid.isOpen(current, wall) && getMarks(current, wall) > 0)
+                explored = true;
+        }
+
+        //we reached a cell we've already explored through a new passage so turn back
+        if (explored && entry != 0 && getMarks(current, entry) == 1)
+            return move(grid, current, entry);
+
+        //find the fewest marks of the passages we can take
+        int fewest = 2;
+
+        for (byte wall : WallGrid.DIRECTIONS)
+        {
+            if (wall != entry && grid.isOpen(current, wall))
+                fewest = Math.min(fewest, getMarks(current, wall));
+        }
+
+        if (fewest < 2)
+        {
+            int count = 0;
+
+            for (byte wall : WallGrid.DIRECTIONS)
+            {
+                if (wall != entry && grid.isOpen(current, wall) && getMarks(current, wall) == fewest)
+                    count++;
+            }
+
+            //any passage with the fewest marks will do
+            int choice = random.nextInt(count);
+
+            for (byte wall : WallGrid.DIRECTIONS)
+            {
+                if (wall != entry && grid.isOpen(current, wall) && getMarks(current, wall) == fewest)
+                {
+                    if (choice == 0)
+                        return move(grid, current, wall);
+
+                    choice--;
+                }
+            }
+        }
+
+        //the only way left is back the way we came
+        if (entry != 0 && getMarks(current, entry) < 2)
+            return move(grid, current, entry);
+
+        return -1;
+    }
+
+    private int getMarks(final int index, final byte wall)
+    {
+        return marks[(index * WallGrid.DIRECTIONS.length) + Directions.getSlot(wall)];
+    }
+
+    /**
+     * Walk through a passage marking both ends
+     * @param grid The walls of the maze
+     * @param current The cell we are at
+     * @param direction The passage we are taking
+     * @return int The index of the cell on the other side
+     */
+    private int move(final WallGrid grid, final int current, final byte direction)
+    {
+        final int neighbor = grid.getNeighbor(current, direction);
+
+        entry = WallGrid.getOpposite(direction);
+
+        marks[(current * WallGrid.DIRECTIONS.length) + Directions.getSlot(direction)]++;
+        marks[(neighbor * WallGrid.DIRECTIONS.length) + Directions.getSlot(entry)]++;
+
+        return neighbor;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.gamesbykevin.maze.solver;
+
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.util.Random;
+
+/**
+ * Keep one hand on the wall and follow it, this always works as every maze generated is perfect (no loops)
+ * @author GOD
+ */
+public final class WallFollower implements SolverStrategy
+{
+    //do we keep our left or right hand on the wall
+    private final boolean leftHand;
+
+    //the direction we are facing
+    private byte heading;
+
+    /**
+     * Create a new wall follower
+     * @param leftHand true to follow the wall on the left, false to follow the right
+     */
+    public WallFollower(final boolean leftHand)
+    {
+        this.leftHand = leftHand;
+    }
+
+    @Override
+    public void reset(final WallGrid grid, final int start, final Random random)
+    {
+        //the player starts facing south
+        this.heading = WallGrid.SOUTH;
+    }
+
+    @Override
+    public int next(final WallGrid grid, final int current)
+    {
+        //turn towards the wall first, then straight, then away from the wall, then turn around
+        final byte toWall = (leftHand) ? Directions.getLeft(heading) : Directions.getRight(heading);
+        final byte awayWall = WallGrid.getOpposite(toWall);
+
+        if (grid.isOpen(current, toWall))
+            return move(grid, current, toWall);
+
+        if (grid.isOpen(current, heading))
+            return move(grid, current, heading);
+
+        if (grid.isOpen(current, awayWall))
+            return move(grid, current, awayWall);
+
+        if (grid.isOpen(current, WallGrid.getOpposite(heading)))
+            return move(grid, current, WallGrid.getOpposite(heading));
+
+        return -1;
+    }
+
+    private int move(final WallGrid grid, final int current, final byte direction)
+    {
+        heading = direction;
+
+        return grid.getNeighbor(current, direction);
+    }
+}
\ No newline at end of file
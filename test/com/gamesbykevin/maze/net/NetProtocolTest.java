@@ -0,0 +1,148 @@
+package com.gamesbykevin.maze.net;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Every value written by the NetProtocol has to be read back the same, including frames that arrive in pieces.
+ * @author GOD
+ */
+public class NetProtocolTest
+{
+    //values around each 7 bit boundary and the extremes
+    private static final long[] VALUES = {0L, 1L, 127L, 128L, 16383L, 16384L, Integer.MAX_VALUE, (1L << 56) - 1, 1L << 56, Long.MAX_VALUE};
+
+    //the number of frames sent, each is 37 bytes larger than the one before so the lengths take 1 and 2 bytes
+    private static final int FRAMES = 9;
+
+    @Test
+    public void testVarLong()
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate(16);
+
+        for (long value : VALUES)
+        {
+            buffer.clear();
+            NetProtocol.putVarLong(buffer, value);
+            buffer.flip();
+
+            assertEquals(value, NetProtocol.getVarLong(buffer));
+            assertFalse(buffer.hasRemaining());
+        }
+
+        //small values only take a single byte
+        buffer.clear();
+        NetProtocol.putVarLong(buffer, 127L);
+        assertEquals(1, buffer.position());
+    }
+
+    @Test
+    public void testZigZag()
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate(16);
+
+        for (long value : VALUES)
+        {
+            for (long signed : new long[]{value, -value, -value - 1})
+            {
+                buffer.clear();
+                NetProtocol.putZigZag(buffer, signed);
+                buffer.flip();
+
+                assertEquals(signed, NetProtocol.getZigZag(buffer));
+                assertFalse(buffer.hasRemaining());
+            }
+        }
+
+        //small changes either way only take a single byte
+        buffer.clear();
+        NetProtocol.putZigZag(buffer, -64L);
+        assertEquals(1, buffer.position());
+    }
+
+    @Test
+    public void testFrames()
+    {
+        //start small so the output has to grow
+        ByteBuffer output = ByteBuffer.allocate(4);
+
+        for (int frame = 0; frame < FRAMES; frame++)
+        {
+            output = NetProtocol.putFrame(output, createPayload(frame * 37));
+        }
+
+        output.flip();
+
+        //deliver 1 byte at a time, a frame is only returned once all of it has arrived
+        final ByteBuffer input = ByteBuffer.allocate(output.remaining());
+        int frame = 0;
+
+        while (output.hasRemaining())
+        {
+            input.put(output.get());
+            input.flip();
+
+            final ByteBuffer payload = NetProtocol.getFrame(input);
+
+            if (payload != null)
+            {
+                assertEquals(createPayload(frame * 37), payload);
+                frame++;
+            }
+
+            input.compact();
+        }
+
+        assertEquals(FRAMES, frame);
+
+        input.flip();
+        assertNull(NetProtocol.getFrame(input));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFrameTooLarge()
+    {
+        final ByteBuffer input = ByteBuffer.allocate(8);
+        NetProtocol.putVarLong(input, NetProtocol.MAX_FRAME + 1);
+        input.flip();
+
+        NetProtocol.getFrame(input);
+    }
+
+    @Test
+    public void testEmptyFrame()
+    {
+        final ByteBuffer input = NetProtocol.putFrame(ByteBuffer.allocate(8), createPayload(0));
+        input.flip();
+
+        final ByteBuffer payload = NetProtocol.getFrame(input);
+
+        assertNotNull(payload);
+        assertEquals(0, payload.remaining());
+    }
+
+    /**
+     * Create a payload ready to be read
+     * @param size The number of bytes
+     * @return ByteBuffer
+     */
+    private static ByteBuffer createPayload(final int size)
+    {
+        final ByteBuffer payload = ByteBuffer.allocate(size);
+
+        for (int i = 0; i < size; i++)
+        {
+            payload.put((byte)(i * 31));
+        }
+
+        payload.flip();
+
+        return payload;
+    }
+}
\ No newline at end of file
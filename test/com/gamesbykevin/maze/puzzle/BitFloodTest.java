@@ -0,0 +1,128 @@
+package com.gamesbykevin.maze.puzzle;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The bit parallel flood fill has to give the same answers as a breadth first search one cell at a time.
+ * The walls are random so there are loops, islands and walls on only 1 side, a cell can be left through any side it has no wall on.
+ * @author GOD
+ */
+public class BitFloodTest
+{
+    @Test
+    public void testRandomWalls()
+    {
+        final Random random = new Random(3L);
+
+        for (int test = 0; test < 300; test++)
+        {
+            //widths either side of a 64 bit word
+            final int cols = 1 + random.nextInt(140);
+            final int rows = 1 + random.nextInt(40);
+            final double chance = random.nextDouble();
+
+            final byte[] walls = new byte[cols * rows];
+
+            for (int index = 0; index < walls.length; index++)
+            {
+                for (byte wall : WallGrid.DIRECTIONS)
+                {
+                    if (random.nextDouble() < chance)
+                        walls[index] |= wall;
+                }
+            }
+
+            final int from = random.nextInt(walls.length);
+            final int[] expected = search(cols, rows, walls, from);
+
+            int reached = 0, depth = -1, furthest = -1;
+
+            for (int index = 0; index < expected.length; index++)
+            {
+                if (expected[index] == -1)
+                    continue;
+
+                reached++;
+
+                //the lowest index wins if there is more than 1
+                if (expected[index] > depth)
+                {
+                    depth = expected[index];
+                    furthest = index;
+                }
+            }
+
+            final String message = cols + "x" + rows + " from " + from;
+            final BitFlood flood = new BitFlood(cols, rows, walls);
+
+            assertArrayEquals(message, expected, flood.getDistances(from));
+            assertEquals(message, furthest, flood.findFurthest(from));
+            assertEquals(message, depth, flood.getDepth());
+            assertEquals(message, reached, flood.fill(from));
+            assertEquals(message, reached, flood.getReached());
+
+            for (int index = 0; index < walls.length; index++)
+            {
+                assertEquals(message + " cell " + index, expected[index] != -1, flood.isReachable(index));
+            }
+        }
+    }
+
+    /**
+     * Breadth first search one cell at a time
+     * @param cols Total number of columns
+     * @param rows Total number of rows
+     * @param walls The wall bits for each cell
+     * @param from The cell we start at
+     * @return int[] The steps to each cell, -1 if it can't be reached
+     */
+    private static int[] search(final int cols, final int rows, final byte[] walls, final int from)
+    {
+        final int[] distances = new int[walls.length];
+        Arrays.fill(distances, -1);
+
+        final int[] queue = new int[walls.length];
+        int head = 0, tail = 0;
+
+        queue[tail++] = from;
+        distances[from] = 0;
+
+        while (head < tail)
+        {
+            final int index = queue[head++];
+            final int col = index % cols;
+            final int row = index / cols;
+
+            for (byte wall : WallGrid.DIRECTIONS)
+            {
+                if ((walls[index] & wall) != 0)
+                    continue;
+
+                int neighbor = -1;
+
+                if (wall == WallGrid.NORTH && row > 0)
+                    neighbor = index - cols;
+                if (wall == WallGrid.SOUTH && row < rows - 1)
+                    neighbor = index + cols;
+                if (wall == WallGrid.EAST && col < cols - 1)
+                    neighbor = index + 1;
+                if (wall == WallGrid.WEST && col > 0)
+                    neighbor = index - 1;
+
+                if (neighbor != -1 && distances[neighbor] == -1)
+                {
+                    distances[neighbor] = distances[index] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+
+        return distances;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.gamesbykevin.maze.puzzle;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Searching the junction graph has to find paths as short as a breadth first search over the cells.
+ * In a perfect maze there is only 1 path so both searches must return the same cells.
+ * @author GOD
+ */
+public class JunctionGraphTest
+{
+    @Test
+    public void testPerfectMaze()
+    {
+        final Random random = new Random(5L);
+
+        for (int test = 0; test < 100; test++)
+        {
+            final int cols = 1 + random.nextInt(40);
+            final int rows = 1 + random.nextInt(40);
+            final int start = random.nextInt(cols * rows);
+            final int finish = random.nextInt(cols * rows);
+
+            final WallGrid grid = new WallGrid(cols, rows, new MazeCarver().carve(cols, rows, start, random), start, finish);
+            final String message = cols + "x" + rows + " from " + start + " to " + finish;
+
+            final int[] expected = grid.findPath(start, finish);
+
+            assertArrayEquals(message, expected, grid.getJunctions().findPath(start, finish));
+            assertEquals(message, expected.length - 1, grid.getJunctions().getSolutionLength());
+
+            //corridor cells fall back to searching the cells
+            for (int check = 0; check < 10; check++)
+            {
+                final int from = random.nextInt(cols * rows);
+                final int to = random.nextInt(cols * rows);
+
+                assertArrayEquals(message + " " + from + " to " + to, grid.findPath(from, to), grid.getJunctions().findPath(from, to));
+            }
+        }
+    }
+
+    @Test
+    public void testLoops()
+    {
+        final Random random = new Random(9L);
+
+        for (int test = 0; test < 100; test++)
+        {
+            final int cols = 2 + random.nextInt(40);
+            final int rows = 2 + random.nextInt(40);
+            final int start = random.nextInt(cols * rows);
+            final int finish = random.nextInt(cols * rows);
+
+            final byte[] walls = new MazeCarver().carve(cols, rows, start, random);
+
+            //remove walls from both sides so there is more than 1 way between cells
+            for (int remove = (cols * rows) / 8; remove > 0; remove--)
+            {
+                final int index = random.nextInt(walls.length);
+                final int col = index % cols;
+                final int row = index / cols;
+
+                if (col < cols - 1)
+                {
+                    walls[index] &= ~WallGrid.EAST;
+                    walls[index + 1] &= ~WallGrid.WEST;
+                }
+
+                if (row < rows - 1)
+                {
+                    walls[index] &= ~WallGrid.SOUTH;
+                    walls[index + cols] &= ~WallGrid.NORTH;
+                }
+            }
+
+            final WallGrid grid = new WallGrid(cols, rows, walls, start, finish);
+            final JunctionGraph graph = grid.getJunctions();
+            final String message = cols + "x" + rows + " from " + start + " to " + finish;
+
+            final int[] path = graph.findPath(start, finish);
+
+            assertEquals(message, grid.findPath(start, finish).length, path.length);
+            assertEquals(message, path.length - 1, graph.getSolutionLength());
+            checkPath(message, grid, path, start, finish);
+
+            for (int check = 0; check < 10; check++)
+            {
+                final int from = graph.getCell(random.nextInt(graph.getNodeCount()));
+                final int to = graph.getCell(random.nextInt(graph.getNodeCount()));
+
+                assertEquals(message + " " + from + " to " + to, grid.findPath(from, to).length - 1, graph.getDistance(from, to));
+                checkPath(message + " " + from + " to " + to, grid, graph.findPath(from, to), from, to);
+            }
+        }
+    }
+
+    /**
+     * Make sure a path goes from start to finish and every step moves to the next cell through an opening
+     * @param message Describes the maze if the check fails
+     * @param grid The walls of the maze
+     * @param path The index of every cell along the path
+     * @param from The cell index the path should start at
+     * @param to The cell index the path should end at
+     */
+    private static void checkPath(final String message, final WallGrid grid, final int[] path, final int from, final int to)
+    {
+        assertEquals(message, from, path[0]);
+        assertEquals(message, to, path[path.length - 1]);
+
+        for (int step = 1; step < path.length; step++)
+        {
+            boolean open = false;
+
+            for (byte wall : WallGrid.DIRECTIONS)
+            {
+                if (grid.isOpen(path[step - 1], wall) && grid.getNeighbor(path[step - 1], wall) == path[step])
+                    open = true;
+            }
+
+            assertTrue(message + " step " + step, open);
+        }
+    }
+}
\ No newline at end of file
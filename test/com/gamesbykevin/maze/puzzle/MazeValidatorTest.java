@@ -0,0 +1,125 @@
+package com.gamesbykevin.maze.puzzle;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Every generator has to create a perfect maze, and the validator has to notice when one isn't.
+ * @author GOD
+ */
+public class MazeValidatorTest
+{
+    //the sizes checked, including a single row/column and sizes that don't fill a tile
+    private static final int[][] SIZES = {{1, 1}, {1, 9}, {9, 1}, {2, 2}, {17, 5}, {40, 31}};
+
+    //the seeds checked for each size
+    private static final long[] SEEDS = {0L, 1L, 42L, 123456789L};
+
+    private final MazeValidator validator = new MazeValidator();
+
+    @Test
+    public void testMazeCarver()
+    {
+        final MazeCarver carver = new MazeCarver();
+
+        for (int[] size : SIZES)
+        {
+            for (long seed : SEEDS)
+            {
+                final byte[] walls = carver.carve(size[0], size[1], 0, new Random(seed));
+
+                assertNull(size[0] + "x" + size[1] + " seed " + seed, validator.check(size[0], size[1], walls));
+            }
+        }
+    }
+
+    @Test
+    public void testEllerMaze() throws Exception
+    {
+        for (int[] size : SIZES)
+        {
+            for (long seed : SEEDS)
+            {
+                final int cols = size[0];
+                final byte[] walls = new byte[cols * size[1]];
+
+                new EllerMaze(cols, seed).generate(size[1], new RowConsumer()
+                {
+                    @Override
+                    public void accept(final long row, final byte[] rowWalls)
+                    {
+                        System.arraycopy(rowWalls, 0, walls, (int)row * cols, cols);
+                    }
+                });
+
+                assertNull(size[0] + "x" + size[1] + " seed " + seed, validator.check(size[0], size[1], walls));
+            }
+        }
+    }
+
+    @Test
+    public void testTiledMaze()
+    {
+        //larger than a tile so the tiles have to be joined
+        final int cols = TiledMaze.TILE_SIZE + 37;
+        final int rows = (TiledMaze.TILE_SIZE * 2) + 5;
+
+        for (long seed : SEEDS)
+        {
+            assertNull("seed " + seed, validator.check(cols, rows, new TiledMaze(cols, rows, seed).generate(null)));
+        }
+
+        for (int[] size : SIZES)
+        {
+            assertNull(size[0] + "x" + size[1], validator.check(size[0], size[1], new TiledMaze(size[0], size[1], 7L).generate(null)));
+        }
+    }
+
+    @Test
+    public void testBrokenMazes()
+    {
+        final int cols = 12, rows = 8;
+        final byte[] walls = new MazeCarver().carve(cols, rows, 0, new Random(5L));
+
+        assertNull(validator.check(cols, rows, walls));
+
+        //open to the outside
+        byte[] broken = walls.clone();
+        broken[0] &= ~WallGrid.NORTH;
+        assertNotNull(validator.check(cols, rows, broken));
+
+        //a wall on only 1 side
+        broken = walls.clone();
+        broken[0] ^= WallGrid.EAST;
+        assertNotNull(validator.check(cols, rows, broken));
+
+        //every wall closed so the maze is in pieces
+        broken = walls.clone();
+
+        for (int index = 0; index < broken.length; index++)
+        {
+            broken[index] = WallGrid.ALL_WALLS;
+        }
+
+        assertNotNull(validator.check(cols, rows, broken));
+
+        //a passage between cells already joined makes a loop
+        broken = walls.clone();
+
+        for (int index = 0; index < broken.length - 1; index++)
+        {
+            if ((index % cols) != cols - 1 && (broken[index] & WallGrid.EAST) != 0)
+            {
+                broken[index] &= ~WallGrid.EAST;
+                broken[index + 1] &= ~WallGrid.WEST;
+                break;
+            }
+        }
+
+        assertNotNull(validator.check(cols, rows, broken));
+    }
+}
\ No newline at end of file
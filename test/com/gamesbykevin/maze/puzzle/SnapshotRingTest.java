@@ -0,0 +1,66 @@
+package com.gamesbykevin.maze.puzzle;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * The ring keeps the newest snapshots once it wraps around and reports the replaced ones as gone.
+ * @author GOD
+ */
+public class SnapshotRingTest
+{
+    @Test
+    public void testWrapAround()
+    {
+        final SnapshotRing ring = new SnapshotRing(4);
+        final Snapshot[] published = new Snapshot[11];
+
+        for (int number = 0; number < published.length; number++)
+        {
+            published[number] = create(number);
+            ring.publish(published[number]);
+
+            assertEquals(number + 1, ring.getPublished());
+        }
+
+        //the oldest slot is the next to be replaced so it can't be trusted, only the newest capacity - 1 can be read
+        for (int number = 0; number < published.length; number++)
+        {
+            if (number <= published.length - ring.getCapacity())
+                assertNull("snapshot " + number, ring.get(number));
+            else
+                assertSame("snapshot " + number, published[number], ring.get(number));
+        }
+    }
+
+    @Test
+    public void testBeforeFull()
+    {
+        final SnapshotRing ring = new SnapshotRing(8);
+        final Snapshot first = create(0);
+
+        ring.publish(first);
+
+        assertEquals(1, ring.getPublished());
+        assertSame(first, ring.get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityPowerOf2()
+    {
+        new SnapshotRing(6);
+    }
+
+    /**
+     * Create a snapshot that can be told apart by its level
+     * @param level The level
+     * @return Snapshot
+     */
+    private static Snapshot create(final int level)
+    {
+        return new Snapshot(null, -1, null, false, null, null, null, null, null, false, null, null, level, false);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.gamesbykevin.maze.replay;
+
+import com.gamesbykevin.maze.player.PlayerState;
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.io.File;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A saved ghost loaded back has to be at every recorded sample to within the precision it is stored at, in the maze it was recorded in.
+ * @author GOD
+ */
+public class GhostTrackTest
+{
+    private static final long INTERVAL = 16666667L;
+
+    private static final int SAMPLES = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        final Random random = new Random(13L);
+
+        final double[] x = new double[SAMPLES];
+        final double[] y = new double[SAMPLES];
+        final double[] angle = new double[SAMPLES];
+
+        final GhostRecorder recorder = new GhostRecorder(INTERVAL);
+
+        //wander with the odd jump so the differences are both small and large, positive and negative
+        for (int sample = 0; sample < SAMPLES; sample++)
+        {
+            final double jump = (random.nextInt(100) == 0) ? 500 : 0.1;
+
+            x[sample] = (sample == 0) ? 0.5 : x[sample - 1] + ((random.nextDouble() - 0.5) * jump);
+            y[sample] = (sample == 0) ? 0.5 : y[sample - 1] + ((random.nextDouble() - 0.5) * jump);
+            angle[sample] = random.nextDouble() * 2 * Math.PI;
+
+            recorder.record(x[sample], y[sample], angle[sample]);
+        }
+
+        assertEquals(SAMPLES, recorder.getSamples());
+
+        final byte[] walls = new byte[37 * 23];
+        random.nextBytes(walls);
+
+        for (int index = 0; index < walls.length; index++)
+        {
+            walls[index] &= WallGrid.ALL_WALLS;
+        }
+
+        final byte[] packed = new byte[WallGrid.getPackedSize(walls.length)];
+        WallGrid.pack(walls, walls.length, packed, 0);
+
+        final WallGrid grid = WallGrid.unpack(37, 23, packed, 0, 5, 700);
+        final File file = new File(folder.getRoot(), "test.ghost");
+
+        recorder.save(file, grid);
+
+        final GhostTrack track = GhostTrack.load(file, 0.25, 0.5);
+
+        assertNotNull(track);
+        assertEquals(SAMPLES, track.getSamples());
+
+        final WallGrid maze = track.getMaze();
+        assertEquals(37, maze.getCols());
+        assertEquals(23, maze.getRows());
+        assertEquals(5, maze.getStart());
+        assertEquals(700, maze.getFinish());
+
+        final byte[] loaded = new byte[packed.length];
+        maze.pack(loaded, 0);
+        assertArrayEquals(packed, loaded);
+
+        final double position = 0.5 / GhostRecorder.POSITION_SCALE;
+        final double turn = 0.5 / GhostRecorder.ANGLE_SCALE;
+
+        for (int sample = 0; sample < SAMPLES; sample++)
+        {
+            track.seek(sample * INTERVAL);
+
+            final PlayerState state = track.getState();
+
+            assertEquals("sample " + sample, x[sample], state.getX(), position);
+            assertEquals("sample " + sample, y[sample], state.getY(), position);
+            assertEquals("sample " + sample, angle[sample], state.getAngle(), turn);
+            assertEquals(0.25, state.getWidth(), 0);
+            assertEquals(0.5, state.getHeight(), 0);
+            assertEquals("sample " + sample, sample == SAMPLES - 1, state.hasSolved());
+        }
+    }
+
+    @Test
+    public void testInterpolate() throws Exception
+    {
+        final GhostRecorder recorder = new GhostRecorder(INTERVAL);
+        recorder.record(1, 2, 0);
+        recorder.record(3, -2, 1);
+
+        final File file = new File(folder.getRoot(), "test.ghost");
+        recorder.save(file, WallGrid.unpack(1, 1, new byte[1], 0, 0, 0));
+
+        final GhostTrack track = GhostTrack.load(file, 1, 1);
+        track.seek(INTERVAL / 2);
+
+        final PlayerState state = track.getState();
+
+        assertEquals(2, state.getX(), 0.01);
+        assertEquals(0, state.getY(), 0.01);
+        assertEquals(0.5, state.getAngle(), 0.01);
+        assertFalse(state.hasSolved());
+
+        //past the end the ghost stays at the last sample
+        track.seek(INTERVAL * 10);
+        assertEquals(3, track.getState().getX(), 0.01);
+        assertTrue(track.getState().hasSolved());
+    }
+
+    @Test
+    public void testMissing() throws Exception
+    {
+        assertNull(GhostTrack.load(new File(folder.getRoot(), "missing.ghost"), 1, 1));
+    }
+}
\ No newline at end of file
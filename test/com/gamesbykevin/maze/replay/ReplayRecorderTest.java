@@ -0,0 +1,213 @@
+package com.gamesbykevin.maze.replay;
+
+import com.gamesbykevin.framework.input.Keyboard;
+
+import com.gamesbykevin.maze.puzzle.WallGrid;
+
+import java.awt.event.KeyEvent;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A replay read back has to give the same options, key state, renders and mazes on the same ticks they were recorded.
+ * The mazes are large enough that the records are handed to the writer thread in more than 1 chunk.
+ * @author GOD
+ */
+public class ReplayRecorderTest
+{
+    private static final int[] KEYS = {KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_UP, KeyEvent.VK_DOWN};
+
+    private static final int TICKS = 2000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        final File file = folder.newFile("test.replay");
+        final Random random = new Random(11L);
+
+        //what was recorded on each tick, the render is -1 if it didn't change
+        final int[] states = new int[TICKS + 1];
+        final int[] renders = new int[TICKS + 1];
+        final List<Integer> mazeTicks = new ArrayList<>();
+        final List<WallGrid> mazes = new ArrayList<>();
+
+        final ReplayRecorder recorder = new ReplayRecorder(file, 1, 2, 3, 4, 5, 6, 7, 16666667L);
+        final TestKeyboard keyboard = new TestKeyboard();
+
+        int render = 0, lastRender = -1;
+
+        for (int tick = 1; tick <= TICKS; tick++)
+        {
+            //press and release keys now and then, the same as a player would
+            if (random.nextInt(8) == 0)
+            {
+                final int key = KEYS[random.nextInt(KEYS.length)];
+
+                if (keyboard.hasKeyPressed(key))
+                {
+                    keyboard.removeKeyPressed(key);
+                    keyboard.addKeyReleased(key);
+                }
+                else
+                {
+                    keyboard.addKeyPressed(key);
+                }
+            }
+
+            if (random.nextInt(100) == 0)
+                render = random.nextInt(4);
+
+            recorder.beginTick(keyboard, render);
+
+            states[tick] = ReplayFormat.getInputState(keyboard);
+            renders[tick] = (render != lastRender) ? render : -1;
+            lastRender = render;
+
+            if (random.nextInt(50) == 0)
+            {
+                final int cols = 1 + random.nextInt(120);
+                final int rows = 1 + random.nextInt(120);
+                final byte[] walls = new byte[cols * rows];
+                random.nextBytes(walls);
+
+                for (int index = 0; index < walls.length; index++)
+                {
+                    walls[index] &= WallGrid.ALL_WALLS;
+                }
+
+                final WallGrid grid = WallGrid.unpack(cols, rows, pack(walls), 0, random.nextInt(walls.length), random.nextInt(walls.length));
+                recorder.recordMaze(grid);
+                mazeTicks.add(tick);
+                mazes.add(grid);
+            }
+
+            //the puzzle reads the released keys which removes them
+            keyboard.releaseAll();
+            recorder.endTick(keyboard);
+        }
+
+        recorder.close(42);
+        recorder.awaitWriter();
+
+        final ReplayReader reader = new ReplayReader(file);
+
+        assertEquals(1, reader.getDimensionIndex());
+        assertEquals(2, reader.getAlgorithmIndex());
+        assertEquals(3, reader.getRenderIndex());
+        assertEquals(4, reader.getGameTypeIndex());
+        assertEquals(5, reader.getPlayerModeIndex());
+        assertEquals(6, reader.getDifficultyIndex());
+        assertEquals(7, reader.getSolverIndex());
+        assertEquals(16666667L, reader.getTimeDeduction());
+
+        final TestKeyboard playback = new TestKeyboard();
+        int maze = 0;
+
+        for (int tick = 1; tick <= TICKS; tick++)
+        {
+            assertFalse("tick " + tick, reader.hasFinished());
+            assertEquals("tick " + tick, renders[tick], reader.beginTick(playback));
+            assertEquals("tick " + tick, tick, reader.getTick());
+            assertEquals("tick " + tick, states[tick], ReplayFormat.getInputState(playback));
+
+            while (reader.hasMaze())
+            {
+                assertEquals(mazeTicks.get(maze).intValue(), tick);
+                assertMazeEquals(mazes.get(maze++), reader.takeMaze());
+            }
+
+            playback.releaseAll();
+        }
+
+        assertEquals(mazes.size(), maze);
+        assertTrue(reader.hasFinished());
+        assertEquals(42, reader.getLevels());
+    }
+
+    private static byte[] pack(final byte[] walls)
+    {
+        final byte[] packed = new byte[WallGrid.getPackedSize(walls.length)];
+        WallGrid.pack(walls, walls.length, packed, 0);
+        return packed;
+    }
+
+    private static void assertMazeEquals(final WallGrid expected, final WallGrid actual)
+    {
+        assertEquals(expected.getCols(), actual.getCols());
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getStart(), actual.getStart());
+        assertEquals(expected.getFinish(), actual.getFinish());
+
+        final byte[] expectedPacked = new byte[WallGrid.getPackedSize(expected.getCols() * expected.getRows())];
+        final byte[] actualPacked = new byte[expectedPacked.length];
+        expected.pack(expectedPacked, 0);
+        actual.pack(actualPacked, 0);
+
+        assertArrayEquals(expectedPacked, actualPacked);
+    }
+
+    /**
+     * Keeps the pressed and released keys in sets so the test doesn't need a window to listen to
+     */
+    private static final class TestKeyboard extends Keyboard
+    {
+        private final Set<Integer> pressed = new HashSet<>(), released = new HashSet<>();
+
+        @Override
+        public boolean hasKeyPressed(final int key)
+        {
+            return pressed.contains(key);
+        }
+
+        @Override
+        public boolean hasKeyReleased(final int key)
+        {
+            return released.contains(key);
+        }
+
+        @Override
+        public void addKeyPressed(final int key)
+        {
+            pressed.add(key);
+        }
+
+        @Override
+        public void addKeyReleased(final int key)
+        {
+            released.add(key);
+        }
+
+        @Override
+        public void removeKeyPressed(final int key)
+        {
+            pressed.remove(key);
+        }
+
+        @Override
+        public void removeKeyReleased(final int key)
+        {
+            released.remove(key);
+        }
+
+        public void releaseAll()
+        {
+            released.clear();
+        }
+    }
+}
\ No newline at end of file